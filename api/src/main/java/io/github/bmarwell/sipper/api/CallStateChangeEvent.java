@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+/**
+ * The state of a call changed, e.g. because the other side started ringing or hung up.
+ */
+public non-sealed interface CallStateChangeEvent extends SipEvent {
+
+    /**
+     * The new state of the call.
+     *
+     * @return the new state.
+     */
+    CallState state();
+
+    /**
+     * The status code of the response which caused the change.
+     *
+     * @return the status code, or {@code -1} if the change was caused by a request like {@code BYE}.
+     */
+    int statusCode();
+
+    enum CallState {
+        /** The call is being processed. */
+        TRYING,
+        /** The callee is alerted. */
+        RINGING,
+        /** The call was answered. */
+        ESTABLISHED,
+        /** The call was rejected, cancelled or hung up. */
+        TERMINATED
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Somebody is calling, i.e. an {@code INVITE} was received.
+ */
+public non-sealed interface IncomingCallEvent extends SipEvent {
+
+    /**
+     * The caller.
+     *
+     * @return the value of the {@code From} header, e.g. {@code <sip:+4912345@example.com>;tag=abc}.
+     */
+    String from();
+
+    /**
+     * The callee.
+     *
+     * @return the value of the {@code To} header.
+     */
+    String to();
+
+    /**
+     * The type of the session description, usually {@code application/sdp}.
+     *
+     * @return the content type, or empty if the INVITE came without a body.
+     */
+    Optional<String> contentType();
+
+    /**
+     * The session description offered by the caller.
+     *
+     * @return the body of the INVITE, decoded with the charset of the content type or UTF-8, which might be empty.
+     */
+    CharSequence body();
+
+    /**
+     * The session description as received, e.g. for binary or multipart payloads.
+     *
+     * @return a read-only view of the undecoded body bytes, which might be empty.
+     */
+    ByteBuffer rawBody();
+}
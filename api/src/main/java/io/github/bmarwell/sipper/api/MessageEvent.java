@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * An instant message was received ({@code MESSAGE}, RFC 3428).
+ */
+public non-sealed interface MessageEvent extends SipEvent {
+
+    /**
+     * The sender.
+     *
+     * @return the value of the {@code From} header.
+     */
+    String from();
+
+    /**
+     * The recipient.
+     *
+     * @return the value of the {@code To} header.
+     */
+    String to();
+
+    /**
+     * The type of the message, e.g. {@code text/plain}.
+     *
+     * @return the content type, or empty if the message has no body.
+     */
+    Optional<String> contentType();
+
+    /**
+     * The message itself.
+     *
+     * @return the body, decoded with the charset of the content type or UTF-8, which might be empty.
+     */
+    CharSequence body();
+
+    /**
+     * The message as received, e.g. for binary or multipart payloads.
+     *
+     * @return a read-only view of the undecoded body bytes, which might be empty.
+     */
+    ByteBuffer rawBody();
+}
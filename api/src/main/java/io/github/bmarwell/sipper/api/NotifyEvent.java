@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * A notification about a subscribed event was received ({@code NOTIFY}, RFC 6665), e.g. a message waiting
+ * indication.
+ */
+public non-sealed interface NotifyEvent extends SipEvent {
+
+    /**
+     * The event package.
+     *
+     * @return the value of the {@code Event} header, e.g. {@code message-summary}.
+     */
+    String event();
+
+    /**
+     * The state of the subscription.
+     *
+     * @return the value of the {@code Subscription-State} header, or empty if there is none.
+     */
+    Optional<String> subscriptionState();
+
+    /**
+     * The type of the notification body, e.g. {@code application/simple-message-summary}.
+     *
+     * @return the content type, or empty if the notification has no body.
+     */
+    Optional<String> contentType();
+
+    /**
+     * The notification body.
+     *
+     * @return the body, decoded with the charset of the content type or UTF-8, which might be empty.
+     */
+    CharSequence body();
+
+    /**
+     * The notification body as received, e.g. for binary or multipart payloads.
+     *
+     * @return a read-only view of the undecoded body bytes, which might be empty.
+     */
+    ByteBuffer rawBody();
+}
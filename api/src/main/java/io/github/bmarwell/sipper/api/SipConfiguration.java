@@ -16,6 +16,7 @@
 package io.github.bmarwell.sipper.api;
 
 import java.time.Duration;
+import java.util.Optional;
 import org.immutables.value.Value;
 
 /**
@@ -79,4 +80,112 @@ public interface SipConfiguration {
     default Duration getReadTimeout() {
         return Duration.ofMillis(2_000);
     }
+
+    /**
+     * The maximum number of inbound messages which are kept per connection until they are consumed.
+     *
+     * <p>When the limit is reached, the oldest message is dropped.</p>
+     *
+     * @return the capacity of the inbound message store.
+     */
+    @Value.Default
+    default int getInboundMessageCapacity() {
+        return 256;
+    }
+
+    /**
+     * The time after which an inbound message nobody consumed is evicted.
+     *
+     * <p>Defaults to Timer F (64*T1, RFC 3261), after which no transaction can be waiting for it anymore.</p>
+     *
+     * @return the maximum age of a stored inbound message.
+     */
+    @Value.Default
+    default Duration getInboundMessageMaxAge() {
+        return Duration.ofSeconds(32L);
+    }
+
+    /**
+     * Whether incoming calls are answered with {@code 180 Ringing} right away, before the
+     * {@link SipEventHandler} is notified.
+     *
+     * <p>{@code 100 Trying} is always sent immediately.</p>
+     *
+     * @return {@code true} to let the caller hear the ringing tone without waiting for the application.
+     */
+    @Value.Default
+    default boolean isAutoRinging() {
+        return false;
+    }
+
+    /**
+     * The registration interval requested from the registrar. The registrar may grant a different one.
+     *
+     * @return the requested registration interval.
+     */
+    @Value.Default
+    default Duration getRegistrationExpires() {
+        return Duration.ofSeconds(600L);
+    }
+
+    /**
+     * The fraction of the granted registration interval after which the registration is refreshed.
+     *
+     * <p>Each refresh is additionally moved forward by a random amount of up to 10%, so that many
+     * registrations created at the same time do not refresh at the same time.</p>
+     *
+     * @return a value greater than 0 and less than 1.
+     */
+    @Value.Default
+    default double getRegistrationRefreshFraction() {
+        return 0.8d;
+    }
+
+    /**
+     * How connections perform their network I/O.
+     *
+     * @return {@link SipIoMode#BLOCKING} unless configured otherwise.
+     */
+    @Value.Default
+    default SipIoMode getIoMode() {
+        return SipIoMode.BLOCKING;
+    }
+
+    /**
+     * The transport protocol used to reach the registrar.
+     *
+     * <p>Many carriers perform best over UDP.</p>
+     *
+     * @return {@link SipTransportProtocol#TCP} unless configured otherwise.
+     */
+    @Value.Default
+    default SipTransportProtocol getTransportProtocol() {
+        return SipTransportProtocol.TCP;
+    }
+
+    /**
+     * The interval between two keep-alive pings on a TCP or TLS connection (RFC 5626).
+     *
+     * <p>Each ping is a double CRLF. Once the registrar answers pings or advertises outbound support, a missing
+     * pong marks the connection as failed, which is then re-established and registered again.
+     * {@link Duration#ZERO} disables keep-alives.</p>
+     *
+     * @return the keep-alive interval.
+     */
+    @Value.Default
+    default Duration getKeepAliveInterval() {
+        return Duration.ofSeconds(30L);
+    }
+
+    /**
+     * A STUN server (RFC 5389) which tells the public IP before the first registration, as {@code host} or
+     * {@code host:port}.
+     *
+     * <p>Without a STUN server, the first REGISTER carries the local address. Either way, the address the
+     * registrar reports in its responses ({@code received} and {@code rport}) takes precedence and is
+     * remembered for all further connections.</p>
+     *
+     * @return the STUN server, or empty to skip active discovery.
+     */
+    Optional<String> getStunServer();
 }
@@ -24,6 +24,11 @@ import java.net.InetAddress;
  */
 public interface SipConnection extends AutoCloseable {
 
+    /**
+     * Sets the handler which receives all events of this connection from now on, replacing any previous handler.
+     *
+     * @param sipEventHandler the handler.
+     */
     void listen(SipEventHandler sipEventHandler);
 
     boolean isConnected();
@@ -35,4 +40,10 @@ public interface SipConnection extends AutoCloseable {
      * @return the public IP address which was used to open the connection.
      */
     InetAddress getPublicIp();
+
+    /**
+     * Returns the current counters of this connection, e.g. for monitoring.
+     * @return a snapshot of the counters.
+     */
+    SipConnectionStatistics getStatistics();
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+/**
+ * Counters of a connection, e.g. to monitor the probe rate of a provider or to notice an application which
+ * does not keep up with incoming messages.
+ *
+ * <p>A statistics object is a snapshot taken by {@link SipConnection#getStatistics()}; all counters start at
+ * zero when the network connection is opened, i.e. also when a registration recovers on a new one.</p>
+ */
+public interface SipConnectionStatistics {
+
+    /**
+     * The number of {@code OPTIONS} probes answered without involving the application.
+     *
+     * @return the number of answered {@code OPTIONS} probes.
+     */
+    long optionsProbes();
+
+    /**
+     * The number of keep-alive {@code NOTIFY} probes answered without involving the application.
+     *
+     * @return the number of answered keep-alive probes.
+     */
+    long keepAliveProbes();
+
+    /**
+     * The number of keep-alive pongs (RFC 5626) received on a stream connection.
+     *
+     * @return the number of received pongs.
+     */
+    long keepAlivePongs();
+
+    /**
+     * The number of requests rejected with {@code 503 Service Unavailable} because the application was busy.
+     *
+     * @return the number of rejected requests.
+     */
+    long rejectedRequests();
+
+    /**
+     * The number of messages dropped because the application was busy and the message could not be rejected,
+     * e.g. an {@code ACK}.
+     *
+     * @return the number of dropped messages.
+     */
+    long droppedMessages();
+
+    /**
+     * The number of stored messages evicted because the message store was full.
+     *
+     * @return the number of evicted messages.
+     */
+    long overflowDrops();
+
+    /**
+     * The number of stored messages evicted because they were not taken in time.
+     *
+     * @return the number of expired messages.
+     */
+    long expiredDrops();
+
+    /**
+     * The number of retransmitted messages which were already stored.
+     *
+     * @return the number of duplicates.
+     */
+    long duplicateDrops();
+
+    /**
+     * The number of messages which were not stored because their method is not supported or they were invalid.
+     *
+     * @return the number of unsupported messages.
+     */
+    long unsupportedDrops();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+/**
+ * An event received on a {@link SipConnection}, passed to the {@link SipEventHandler}.
+ *
+ * <p>Events are views on the received message where possible, so they should not be kept after the handler
+ * returned if memory is a concern.</p>
+ */
+public sealed interface SipEvent
+        permits IncomingCallEvent, CallStateChangeEvent, RegistrationStateChangeEvent, MessageEvent, NotifyEvent {
+
+    /**
+     * The Call-ID of the dialog or registration this event belongs to.
+     *
+     * @return the Call-ID.
+     */
+    String callId();
+}
@@ -15,4 +15,67 @@
  */
 package io.github.bmarwell.sipper.api;
 
-public interface SipEventHandler {}
+import java.util.List;
+
+/**
+ * Receives the events of a {@link SipConnection}, see {@link SipConnection#listen(SipEventHandler)}.
+ *
+ * <p>Implement the callbacks of the events you are interested in; all others are ignored. Events of the
+ * same call are delivered in the order they were received, always from the same thread. Events of different
+ * calls may be delivered concurrently.</p>
+ */
+public interface SipEventHandler {
+
+    default void onIncomingCall(IncomingCallEvent event) {
+        // ignored by default.
+    }
+
+    default void onCallStateChange(CallStateChangeEvent event) {
+        // ignored by default.
+    }
+
+    default void onRegistrationStateChange(RegistrationStateChangeEvent event) {
+        // ignored by default.
+    }
+
+    default void onMessage(MessageEvent event) {
+        // ignored by default.
+    }
+
+    default void onNotify(NotifyEvent event) {
+        // ignored by default.
+    }
+
+    /**
+     * Receives a single event and passes it to the typed callback.
+     *
+     * @param event the event.
+     */
+    default void onEvent(SipEvent event) {
+        switch (event) {
+            case IncomingCallEvent incomingCall -> onIncomingCall(incomingCall);
+            case CallStateChangeEvent callStateChange -> onCallStateChange(callStateChange);
+            case RegistrationStateChangeEvent registrationStateChange ->
+                onRegistrationStateChange(registrationStateChange);
+            case MessageEvent message -> onMessage(message);
+            case NotifyEvent notify -> onNotify(notify);
+        }
+    }
+
+    /**
+     * Receives all events which arrived since the last invocation, in order.
+     *
+     * <p>Override this method to process many events at once, e.g. to hand them over to another thread with a
+     * single operation. The list is only valid during the invocation.</p>
+     *
+     * <p>Unless this method is overridden, an exception thrown by a callback is logged and the remaining events
+     * are still delivered. An override gets the whole batch and must handle failing events itself.</p>
+     *
+     * @param events the events, never empty.
+     */
+    default void onEvents(List<SipEvent> events) {
+        for (var event : events) {
+            onEvent(event);
+        }
+    }
+}
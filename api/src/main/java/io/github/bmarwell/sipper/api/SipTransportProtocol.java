@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.api;
+
+/**
+ * The transport protocol used to reach the registrar.
+ */
+public enum SipTransportProtocol {
+    /** A TCP connection, see {@link SipIoMode} for how it is served. */
+    TCP,
+    /**
+     * Datagrams, always served by the shared event loops. Requests are retransmitted until answered, and
+     * requests too large for a datagram are sent over TCP.
+     */
+    UDP,
+    /**
+     * TLS over TCP to port 5061, using {@code sips:} URIs. Always served by the shared event loops. Sessions
+     * are resumed from the JVM's default client session cache.
+     */
+    TLS
+}
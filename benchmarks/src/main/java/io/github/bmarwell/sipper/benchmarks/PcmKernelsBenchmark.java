@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.benchmarks;
+
+import io.github.bmarwell.sipper.codec.Codecs;
+import io.github.bmarwell.sipper.codec.PcmKernels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and vectorized kernels on one 20 ms G.711 frame. The number of frames per second and
+ * core, divided by 50, is the number of streams one core can transcode or mix.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class PcmKernelsBenchmark {
+
+    private static final int FRAME = 160;
+
+    @Param({"scalar", "vector"})
+    public String implementation;
+
+    /** Conference size for {@link #mix()}. */
+    @Param({"8"})
+    public int inputs;
+
+    private PcmKernels kernels;
+    private short[][] frames;
+    private short[] pcm;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        this.kernels = "vector".equals(this.implementation) ? Codecs.vector() : Codecs.scalar();
+
+        final var random = new Random(711L);
+        this.frames = new short[this.inputs][FRAME];
+        for (var frame : this.frames) {
+            for (var i = 0; i < FRAME; i++) {
+                frame[i] = (short) (random.nextGaussian() * 4000.0);
+            }
+        }
+        this.pcm = new short[FRAME];
+        this.encoded = new byte[FRAME];
+        this.kernels.encodeUlaw(this.frames[0], 0, this.encoded, 0, FRAME);
+    }
+
+    @Benchmark
+    public byte[] encodeUlaw() {
+        this.kernels.encodeUlaw(this.frames[0], 0, this.encoded, 0, FRAME);
+        return this.encoded;
+    }
+
+    @Benchmark
+    public short[] decodeUlaw() {
+        this.kernels.decodeUlaw(this.encoded, 0, this.pcm, 0, FRAME);
+        return this.pcm;
+    }
+
+    @Benchmark
+    public byte[] encodeAlaw() {
+        this.kernels.encodeAlaw(this.frames[0], 0, this.encoded, 0, FRAME);
+        return this.encoded;
+    }
+
+    @Benchmark
+    public short[] decodeAlaw() {
+        this.kernels.decodeAlaw(this.encoded, 0, this.pcm, 0, FRAME);
+        return this.pcm;
+    }
+
+    @Benchmark
+    public short[] gain() {
+        System.arraycopy(this.frames[0], 0, this.pcm, 0, FRAME);
+        this.kernels.gain(this.pcm, 0, FRAME, 0.8f);
+        return this.pcm;
+    }
+
+    @Benchmark
+    public short[] mix() {
+        this.kernels.mix(this.frames, this.inputs, this.pcm, FRAME);
+        return this.pcm;
+    }
+
+    /**
+     * Transcoding a PCMU leg to a PCMA leg, as done per frame and direction of a bridged call.
+     */
+    @Benchmark
+    public byte[] transcodeUlawToAlaw() {
+        this.kernels.decodeUlaw(this.encoded, 0, this.pcm, 0, FRAME);
+        this.kernels.encodeAlaw(this.pcm, 0, this.encoded, 0, FRAME);
+        return this.encoded;
+    }
+}
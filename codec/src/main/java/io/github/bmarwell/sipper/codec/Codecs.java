@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the {@link PcmKernels} implementation.
+ *
+ * <p>The table driven scalar implementation is the default. Setting the system property
+ * {@value #VECTOR_PROPERTY} to {@code true} selects the SIMD implementation based on the incubating Vector API,
+ * which must be added to the JVM with {@code --add-modules jdk.incubator.vector}. If it is missing, or the CPU
+ * has no vector registers of at least 128 bits, the scalar implementation is used.</p>
+ */
+public final class Codecs {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Codecs.class);
+
+    public static final String VECTOR_PROPERTY = "sipper.codec.vector";
+
+    /** The highest factor accepted by {@link PcmKernels#gain(short[], int, int, float)}. */
+    public static final float MAX_GAIN = 8.0f;
+
+    /** Fraction bits of the fixed point gain factor. */
+    static final int GAIN_SHIFT = 12;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private Codecs() {
+        // util class
+    }
+
+    /**
+     * Returns the implementation selected by {@value #VECTOR_PROPERTY}.
+     *
+     * @return the process-wide kernels.
+     */
+    public static PcmKernels kernels() {
+        return SelectedKernelsHolder.SELECTED;
+    }
+
+    /**
+     * Returns the table driven implementation, which is always available.
+     *
+     * @return the scalar kernels.
+     */
+    public static PcmKernels scalar() {
+        return ScalarPcmKernels.INSTANCE;
+    }
+
+    /**
+     * Returns the SIMD implementation, regardless of {@value #VECTOR_PROPERTY}.
+     *
+     * @return the vectorized kernels.
+     * @throws IllegalStateException if {@link #isVectorAvailable()} is {@code false}.
+     */
+    public static PcmKernels vector() {
+        if (!isVectorAvailable()) {
+            throw new IllegalStateException("The Vector API is not available, add --add-modules " + VECTOR_MODULE);
+        }
+
+        return VectorPcmKernels.INSTANCE;
+    }
+
+    /**
+     * Whether the Vector API was added to the JVM and the CPU has vector registers of at least 128 bits.
+     *
+     * @return {@code true} if {@link #vector()} can be used.
+     */
+    public static boolean isVectorAvailable() {
+        final var module = ModuleLayer.boot().findModule(VECTOR_MODULE);
+
+        // checked first, so the vector classes are only loaded if they can be.
+        return module.isPresent()
+                && Codecs.class.getModule().canRead(module.orElseThrow())
+                && VectorPcmKernels.isSupported();
+    }
+
+    /**
+     * Converts a gain to a fixed point factor.
+     *
+     * @param gain the gain.
+     * @return the factor with {@link #GAIN_SHIFT} fraction bits.
+     * @throws IllegalArgumentException if the gain is not between 0 and {@link #MAX_GAIN}.
+     */
+    static int gainFactor(float gain) {
+        if (!(gain >= 0.0f && gain <= MAX_GAIN)) {
+            throw new IllegalArgumentException("Gain must be between 0 and " + MAX_GAIN + ", but was: " + gain);
+        }
+
+        return Math.round(gain * (1 << GAIN_SHIFT));
+    }
+
+    private static PcmKernels select() {
+        if (!Boolean.getBoolean(VECTOR_PROPERTY)) {
+            return scalar();
+        }
+
+        if (!isVectorAvailable()) {
+            LOG.warn(
+                    "[{}] is set, but the Vector API is not available. Add --add-modules {}. Using scalar kernels.",
+                    VECTOR_PROPERTY,
+                    VECTOR_MODULE);
+            return scalar();
+        }
+
+        return VectorPcmKernels.INSTANCE;
+    }
+
+    private static final class SelectedKernelsHolder {
+        private static final PcmKernels SELECTED = select();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+/**
+ * G.711 encoding and decoding, gain and mixing of 16 bit linear PCM, e.g. for one 20 ms frame of 160 samples.
+ *
+ * <p>All operations write into arrays provided by the caller and do not allocate. Implementations are
+ * stateless and thread safe; {@link Codecs#kernels()} returns the one selected for this process.</p>
+ */
+public interface PcmKernels {
+
+    /**
+     * Encodes linear samples to µ-law (ITU-T G.711), which uses the upper 14 bits of each sample.
+     *
+     * @param pcm the linear samples.
+     * @param pcmOffset the index of the first sample.
+     * @param encoded receives one byte per sample.
+     * @param encodedOffset the index of the first encoded byte.
+     * @param length the number of samples.
+     * @throws IndexOutOfBoundsException if a range does not fit into its array.
+     */
+    void encodeUlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length);
+
+    /**
+     * Decodes µ-law bytes to linear samples.
+     *
+     * @param encoded the µ-law bytes.
+     * @param encodedOffset the index of the first byte.
+     * @param pcm receives one sample per byte.
+     * @param pcmOffset the index of the first sample.
+     * @param length the number of bytes.
+     * @throws IndexOutOfBoundsException if a range does not fit into its array.
+     */
+    void decodeUlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length);
+
+    /**
+     * Encodes linear samples to A-law (ITU-T G.711), which uses the upper 13 bits of each sample.
+     *
+     * @param pcm the linear samples.
+     * @param pcmOffset the index of the first sample.
+     * @param encoded receives one byte per sample.
+     * @param encodedOffset the index of the first encoded byte.
+     * @param length the number of samples.
+     * @throws IndexOutOfBoundsException if a range does not fit into its array.
+     */
+    void encodeAlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length);
+
+    /**
+     * Decodes A-law bytes to linear samples.
+     *
+     * @param encoded the A-law bytes.
+     * @param encodedOffset the index of the first byte.
+     * @param pcm receives one sample per byte.
+     * @param pcmOffset the index of the first sample.
+     * @param length the number of bytes.
+     * @throws IndexOutOfBoundsException if a range does not fit into its array.
+     */
+    void decodeAlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length);
+
+    /**
+     * Scales samples in place, saturating at the 16 bit range.
+     *
+     * <p>The gain is applied in fixed point with a resolution of {@code 1 / 4096}, so all implementations return
+     * the same samples.</p>
+     *
+     * @param pcm the samples.
+     * @param offset the index of the first sample.
+     * @param length the number of samples.
+     * @param gain the factor, between 0 and {@link Codecs#MAX_GAIN}.
+     * @throws IllegalArgumentException if the gain is out of range.
+     * @throws IndexOutOfBoundsException if the range does not fit into the array.
+     */
+    void gain(short[] pcm, int offset, int length, float gain);
+
+    /**
+     * Sums the first {@code length} samples of several inputs, saturating at the 16 bit range.
+     *
+     * <p>The sum is computed in 32 bits and saturated once, so loud inputs cancelling each other out are not
+     * clipped.</p>
+     *
+     * @param inputs the input frames, of which the first {@code inputCount} are mixed.
+     * @param inputCount the number of inputs; none give silence.
+     * @param mixed receives the mixed samples; may be one of the inputs.
+     * @param length the number of samples.
+     * @throws IndexOutOfBoundsException if an array is shorter than {@code length}.
+     */
+    void mix(short[][] inputs, int inputCount, short[] mixed, int length);
+
+    /**
+     * Whether this implementation uses the Vector API.
+     *
+     * @return {@code true} for SIMD, {@code false} for the scalar implementation.
+     */
+    boolean isVectorized();
+}
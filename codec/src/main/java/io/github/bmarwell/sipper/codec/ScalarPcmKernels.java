@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+import java.util.Objects;
+
+/**
+ * Table driven kernels.
+ *
+ * <p>Encoding looks up the 14 (µ-law) or 13 (A-law) significant bits of a sample, decoding the byte, so every
+ * sample costs one shift and one load. The tables are computed from the reference algorithm of the G.711
+ * sample code, which {@link VectorPcmKernels} implements lane-wise.</p>
+ */
+final class ScalarPcmKernels implements PcmKernels {
+
+    static final ScalarPcmKernels INSTANCE = new ScalarPcmKernels();
+
+    /** Largest µ-law magnitude after dropping the lowest two bits; larger ones encode like it. */
+    static final int ULAW_CLIP = 8158;
+
+    /** Bias added to µ-law magnitudes before dropping the lowest two bits. */
+    static final int ULAW_BIAS = 0x84;
+
+    private static final byte[] ULAW_ENCODE = new byte[1 << 14];
+    private static final byte[] ALAW_ENCODE = new byte[1 << 13];
+    private static final short[] ULAW_DECODE = new short[256];
+    private static final short[] ALAW_DECODE = new short[256];
+
+    static {
+        for (var i = 0; i < ULAW_ENCODE.length; i++) {
+            // sign-extend the 14 bit index.
+            ULAW_ENCODE[i] = (byte) ulaw((i << 18) >> 18);
+        }
+
+        for (var i = 0; i < ALAW_ENCODE.length; i++) {
+            ALAW_ENCODE[i] = (byte) alaw((i << 19) >> 19);
+        }
+
+        for (var i = 0; i < 256; i++) {
+            ULAW_DECODE[i] = (short) ulawToLinear(i);
+            ALAW_DECODE[i] = (short) alawToLinear(i);
+        }
+    }
+
+    private ScalarPcmKernels() {
+        // singleton
+    }
+
+    /**
+     * Encodes one sample to µ-law.
+     *
+     * @param pcm14 the upper 14 bits of the sample, sign-extended.
+     * @return the µ-law byte.
+     */
+    static int ulaw(int pcm14) {
+        var pcm = pcm14;
+        var mask = 0xFF;
+        if (pcm < 0) {
+            pcm = -pcm;
+            mask = 0x7F;
+        }
+
+        pcm = Math.min(pcm, ULAW_CLIP) + (ULAW_BIAS >> 2);
+        // segment 0 holds magnitudes up to 6 bits, each further segment one bit more.
+        final var segment = Math.max(0, 26 - Integer.numberOfLeadingZeros(pcm));
+
+        return ((segment << 4) | ((pcm >> (segment + 1)) & 0xF)) ^ mask;
+    }
+
+    static int ulawToLinear(int ulaw) {
+        final var inverted = ~ulaw & 0xFF;
+        final var magnitude = (((inverted & 0xF) << 3) + ULAW_BIAS) << ((inverted & 0x70) >> 4);
+
+        return (inverted & 0x80) != 0 ? ULAW_BIAS - magnitude : magnitude - ULAW_BIAS;
+    }
+
+    /**
+     * Encodes one sample to A-law.
+     *
+     * @param pcm13 the upper 13 bits of the sample, sign-extended.
+     * @return the A-law byte, with even bits inverted.
+     */
+    static int alaw(int pcm13) {
+        var pcm = pcm13;
+        var mask = 0xD5;
+        if (pcm < 0) {
+            pcm = ~pcm;
+            mask = 0x55;
+        }
+
+        // segments 0 and 1 hold magnitudes up to 5 and 6 bits, each further segment one bit more.
+        final var segment = Math.max(0, 27 - Integer.numberOfLeadingZeros(pcm));
+
+        return ((segment << 4) | ((pcm >> Math.max(segment, 1)) & 0xF)) ^ mask;
+    }
+
+    static int alawToLinear(int alaw) {
+        final var value = (alaw ^ 0x55) & 0xFF;
+        final var segment = (value & 0x70) >> 4;
+        var magnitude = ((value & 0xF) << 4) + (segment == 0 ? 8 : 0x108);
+        if (segment > 1) {
+            magnitude <<= segment - 1;
+        }
+
+        return (value & 0x80) != 0 ? magnitude : -magnitude;
+    }
+
+    static short saturate(int sample) {
+        return (short) Math.clamp(sample, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    @Override
+    public void encodeUlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length) {
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+
+        for (var i = 0; i < length; i++) {
+            encoded[encodedOffset + i] = ULAW_ENCODE[(pcm[pcmOffset + i] >> 2) & 0x3FFF];
+        }
+    }
+
+    @Override
+    public void decodeUlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length) {
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+
+        for (var i = 0; i < length; i++) {
+            pcm[pcmOffset + i] = ULAW_DECODE[encoded[encodedOffset + i] & 0xFF];
+        }
+    }
+
+    @Override
+    public void encodeAlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length) {
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+
+        for (var i = 0; i < length; i++) {
+            encoded[encodedOffset + i] = ALAW_ENCODE[(pcm[pcmOffset + i] >> 3) & 0x1FFF];
+        }
+    }
+
+    @Override
+    public void decodeAlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length) {
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+
+        for (var i = 0; i < length; i++) {
+            pcm[pcmOffset + i] = ALAW_DECODE[encoded[encodedOffset + i] & 0xFF];
+        }
+    }
+
+    @Override
+    public void gain(short[] pcm, int offset, int length, float gain) {
+        final var factor = Codecs.gainFactor(gain);
+        Objects.checkFromIndexSize(offset, length, pcm.length);
+
+        for (var i = offset; i < offset + length; i++) {
+            pcm[i] = saturate((pcm[i] * factor) >> Codecs.GAIN_SHIFT);
+        }
+    }
+
+    @Override
+    public void mix(short[][] inputs, int inputCount, short[] mixed, int length) {
+        checkMix(inputs, inputCount, mixed, length);
+
+        for (var i = 0; i < length; i++) {
+            var sum = 0;
+            for (var input = 0; input < inputCount; input++) {
+                sum += inputs[input][i];
+            }
+            mixed[i] = saturate(sum);
+        }
+    }
+
+    static void checkMix(short[][] inputs, int inputCount, short[] mixed, int length) {
+        Objects.checkFromIndexSize(0, inputCount, inputs.length);
+        Objects.checkFromIndexSize(0, length, mixed.length);
+        for (var input = 0; input < inputCount; input++) {
+            Objects.checkFromIndexSize(0, length, inputs[input].length);
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarPcmKernels";
+    }
+}
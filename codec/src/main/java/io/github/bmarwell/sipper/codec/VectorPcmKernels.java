@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+import static jdk.incubator.vector.VectorOperators.ASHR;
+import static jdk.incubator.vector.VectorOperators.B2S;
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.I2S;
+import static jdk.incubator.vector.VectorOperators.LEADING_ZEROS_COUNT;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.NE;
+import static jdk.incubator.vector.VectorOperators.S2B;
+import static jdk.incubator.vector.VectorOperators.S2I;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import java.util.Objects;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels on the Vector API.
+ *
+ * <p>Table lookups do not vectorize, so G.711 is computed lane-wise from the segment, which is the bit length
+ * of the magnitude. Samples are processed in 16 bit lanes; bytes are loaded and stored in vectors of half the
+ * size, so both have the same number of lanes. Gain and mixing widen each half of a vector to 32 bits and
+ * saturate when narrowing back. Tails shorter than a vector are handed to {@link ScalarPcmKernels}, which
+ * gives the same results.</p>
+ *
+ * <p>Only loaded if {@code jdk.incubator.vector} is readable, see {@link Codecs#isVectorAvailable()}.</p>
+ */
+final class VectorPcmKernels implements PcmKernels {
+
+    static final VectorPcmKernels INSTANCE = new VectorPcmKernels();
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    /** Same lane count as {@link #SHORTS}, or {@code null} if there is no such shape. */
+    private static final VectorSpecies<Byte> BYTES = byteSpecies();
+
+    /** Same shape as {@link #SHORTS}, so each holds half of a short vector's lanes. */
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, SHORTS.vectorShape());
+
+    private static final ShortVector ULAW_MASKS = ShortVector.broadcast(SHORTS, (short) 0xFF);
+    private static final ShortVector ALAW_MASKS = ShortVector.broadcast(SHORTS, (short) 0xD5);
+
+    private VectorPcmKernels() {
+        // singleton
+    }
+
+    private static VectorSpecies<Byte> byteSpecies() {
+        if (SHORTS.vectorBitSize() < 128) {
+            return null;
+        }
+
+        try {
+            return VectorSpecies.of(byte.class, VectorShape.forBitSize(SHORTS.vectorBitSize() / 2));
+        } catch (IllegalArgumentException noSuchShape) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the CPU has vectors large enough to beat the tables.
+     *
+     * @return {@code true} for vectors of at least 128 bits.
+     */
+    static boolean isSupported() {
+        return BYTES != null;
+    }
+
+    @Override
+    public void encodeUlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length) {
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final var sample = ShortVector.fromArray(SHORTS, pcm, pcmOffset + i).lanewise(ASHR, 2);
+            final var negative = sample.compare(LT, (short) 0);
+
+            final var magnitude =
+                    sample.abs().min((short) ScalarPcmKernels.ULAW_CLIP).add((short) (ScalarPcmKernels.ULAW_BIAS >> 2));
+            // bit length - 6, see ScalarPcmKernels.ulaw(int).
+            final var segment = magnitude
+                    .lanewise(LEADING_ZEROS_COUNT)
+                    .neg()
+                    .add((short) 10)
+                    .max((short) 0);
+            final var mantissa =
+                    magnitude.lanewise(ASHR, segment.add((short) 1)).and((short) 0xF);
+            final var ulaw =
+                    segment.lanewise(LSHL, 4).or(mantissa).lanewise(XOR, ULAW_MASKS.blend((short) 0x7F, negative));
+
+            ((ByteVector) ulaw.convertShape(S2B, BYTES, 0)).intoArray(encoded, encodedOffset + i);
+        }
+
+        ScalarPcmKernels.INSTANCE.encodeUlaw(pcm, pcmOffset + i, encoded, encodedOffset + i, length - i);
+    }
+
+    @Override
+    public void decodeUlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length) {
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+
+        final var bias = (short) ScalarPcmKernels.ULAW_BIAS;
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final var inverted = load(encoded, encodedOffset + i).not().and((short) 0xFF);
+
+            final var exponent = inverted.lanewise(LSHR, 4).and((short) 7);
+            final var magnitude = inverted.and((short) 0xF)
+                    .lanewise(LSHL, 3)
+                    .add(bias)
+                    .lanewise(LSHL, exponent)
+                    .sub(bias);
+            final var negative = inverted.and((short) 0x80).compare(NE, (short) 0);
+
+            magnitude.blend(magnitude.neg(), negative).intoArray(pcm, pcmOffset + i);
+        }
+
+        ScalarPcmKernels.INSTANCE.decodeUlaw(encoded, encodedOffset + i, pcm, pcmOffset + i, length - i);
+    }
+
+    @Override
+    public void encodeAlaw(short[] pcm, int pcmOffset, byte[] encoded, int encodedOffset, int length) {
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final var sample = ShortVector.fromArray(SHORTS, pcm, pcmOffset + i).lanewise(ASHR, 3);
+            final var negative = sample.compare(LT, (short) 0);
+
+            final var magnitude = sample.blend(sample.not(), negative);
+            // bit length - 5, see ScalarPcmKernels.alaw(int).
+            final var segment = magnitude
+                    .lanewise(LEADING_ZEROS_COUNT)
+                    .neg()
+                    .add((short) 11)
+                    .max((short) 0);
+            final var mantissa =
+                    magnitude.lanewise(ASHR, segment.max((short) 1)).and((short) 0xF);
+            final var alaw =
+                    segment.lanewise(LSHL, 4).or(mantissa).lanewise(XOR, ALAW_MASKS.blend((short) 0x55, negative));
+
+            ((ByteVector) alaw.convertShape(S2B, BYTES, 0)).intoArray(encoded, encodedOffset + i);
+        }
+
+        ScalarPcmKernels.INSTANCE.encodeAlaw(pcm, pcmOffset + i, encoded, encodedOffset + i, length - i);
+    }
+
+    @Override
+    public void decodeAlaw(byte[] encoded, int encodedOffset, short[] pcm, int pcmOffset, int length) {
+        Objects.checkFromIndexSize(encodedOffset, length, encoded.length);
+        Objects.checkFromIndexSize(pcmOffset, length, pcm.length);
+
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final var value =
+                    load(encoded, encodedOffset + i).lanewise(XOR, (short) 0x55).and((short) 0xFF);
+
+            final var segment = value.lanewise(LSHR, 4).and((short) 7);
+            final var firstSegment = segment.compare(EQ, (short) 0);
+            final var mantissa = value.and((short) 0xF).lanewise(LSHL, 4);
+            final var magnitude = mantissa.add((short) 0x108)
+                    .blend(mantissa.add((short) 8), firstSegment)
+                    .lanewise(LSHL, segment.sub((short) 1).max((short) 0));
+            final var negative = value.and((short) 0x80).compare(EQ, (short) 0);
+
+            magnitude.blend(magnitude.neg(), negative).intoArray(pcm, pcmOffset + i);
+        }
+
+        ScalarPcmKernels.INSTANCE.decodeAlaw(encoded, encodedOffset + i, pcm, pcmOffset + i, length - i);
+    }
+
+    /**
+     * Loads as many bytes as a short vector has lanes and widens them, sign-extended.
+     */
+    private static ShortVector load(byte[] encoded, int offset) {
+        return (ShortVector) ByteVector.fromArray(BYTES, encoded, offset).convertShape(B2S, SHORTS, 0);
+    }
+
+    @Override
+    public void gain(short[] pcm, int offset, int length, float gain) {
+        final var factor = Codecs.gainFactor(gain);
+        Objects.checkFromIndexSize(offset, length, pcm.length);
+
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final var samples = ShortVector.fromArray(SHORTS, pcm, offset + i);
+            final var low = (IntVector) samples.convertShape(S2I, INTS, 0);
+            final var high = (IntVector) samples.convertShape(S2I, INTS, 1);
+
+            narrow(
+                            low.mul(factor).lanewise(ASHR, Codecs.GAIN_SHIFT),
+                            high.mul(factor).lanewise(ASHR, Codecs.GAIN_SHIFT))
+                    .intoArray(pcm, offset + i);
+        }
+
+        ScalarPcmKernels.INSTANCE.gain(pcm, offset + i, length - i, gain);
+    }
+
+    @Override
+    public void mix(short[][] inputs, int inputCount, short[] mixed, int length) {
+        ScalarPcmKernels.checkMix(inputs, inputCount, mixed, length);
+
+        final var bound = SHORTS.loopBound(length);
+        var i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            var low = IntVector.zero(INTS);
+            var high = IntVector.zero(INTS);
+            for (var input = 0; input < inputCount; input++) {
+                final var samples = ShortVector.fromArray(SHORTS, inputs[input], i);
+                low = low.add(samples.convertShape(S2I, INTS, 0));
+                high = high.add(samples.convertShape(S2I, INTS, 1));
+            }
+
+            narrow(low, high).intoArray(mixed, i);
+        }
+
+        for (; i < length; i++) {
+            var sum = 0;
+            for (var input = 0; input < inputCount; input++) {
+                sum += inputs[input][i];
+            }
+            mixed[i] = ScalarPcmKernels.saturate(sum);
+        }
+    }
+
+    /**
+     * Saturates two halves to 16 bits and joins them into one vector.
+     */
+    private static ShortVector narrow(IntVector low, IntVector high) {
+        final var lowShorts = (ShortVector) saturate(low).convertShape(I2S, SHORTS, 0);
+        final var highShorts = (ShortVector) saturate(high).convertShape(I2S, SHORTS, -1);
+
+        return lowShorts.or(highShorts);
+    }
+
+    private static IntVector saturate(IntVector samples) {
+        return samples.max(Short.MIN_VALUE).min(Short.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "VectorPcmKernels[" + SHORTS + "]";
+    }
+}
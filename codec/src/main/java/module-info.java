@@ -0,0 +1,6 @@
+module io.github.bmarwell.sipper.codec {
+    requires static jdk.incubator.vector;
+    requires org.slf4j;
+
+    exports io.github.bmarwell.sipper.codec;
+}
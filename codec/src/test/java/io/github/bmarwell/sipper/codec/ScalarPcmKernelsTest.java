@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ScalarPcmKernelsTest {
+
+    private final PcmKernels kernels = Codecs.scalar();
+
+    @ParameterizedTest
+    @CsvSource(
+            delimiter = '|',
+            textBlock =
+                    """
+            0      | 0xFF | 0xD5
+            -1     | 0x7E | 0x55
+            16     | 0xFD | 0xD4
+            32767  | 0x80 | 0xAA
+            -32768 | 0x00 | 0x2A
+            """)
+    void encodes_reference_values(short sample, String ulaw, String alaw) {
+        // given
+        final var encoded = new byte[2];
+
+        // when
+        this.kernels.encodeUlaw(new short[] {sample}, 0, encoded, 0, 1);
+        this.kernels.encodeAlaw(new short[] {sample}, 0, encoded, 1, 1);
+
+        // then
+        assertThat(encoded[0] & 0xFF).isEqualTo(Integer.decode(ulaw));
+        assertThat(encoded[1] & 0xFF).isEqualTo(Integer.decode(alaw));
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+            delimiter = '|',
+            textBlock =
+                    """
+            0xFF | 0      | 0xD5 | 8
+            0x80 | 32124  | 0x55 | -8
+            0x00 | -32124 | 0xAA | 32256
+            0x7F | 0      | 0x2A | -32256
+            """)
+    void decodes_reference_values(String ulaw, short ulawSample, String alaw, short alawSample) {
+        // given
+        final var pcm = new short[2];
+
+        // when
+        this.kernels.decodeUlaw(new byte[] {Integer.decode(ulaw).byteValue()}, 0, pcm, 0, 1);
+        this.kernels.decodeAlaw(new byte[] {Integer.decode(alaw).byteValue()}, 0, pcm, 1, 1);
+
+        // then
+        assertThat(pcm).containsExactly(ulawSample, alawSample);
+    }
+
+    @Test
+    void reencodes_every_decoded_value_to_itself() {
+        // given
+        final var encoded = new byte[256];
+        for (var i = 0; i < 256; i++) {
+            encoded[i] = (byte) i;
+        }
+        final var pcm = new short[256];
+        final var ulaw = new byte[256];
+        final var alaw = new byte[256];
+
+        // when
+        this.kernels.decodeUlaw(encoded, 0, pcm, 0, 256);
+        this.kernels.encodeUlaw(pcm, 0, ulaw, 0, 256);
+        this.kernels.decodeAlaw(encoded, 0, pcm, 0, 256);
+        this.kernels.encodeAlaw(pcm, 0, alaw, 0, 256);
+
+        // then: µ-law has two zeros, 0x7F (-0) encodes like 0xFF (+0).
+        encoded[0x7F] = (byte) 0xFF;
+        assertThat(ulaw).isEqualTo(encoded);
+        encoded[0x7F] = 0x7F;
+        assertThat(alaw).isEqualTo(encoded);
+    }
+
+    @Test
+    void gain_and_mix_saturate() {
+        // given
+        final var loud = new short[] {20000, -20000, 100, -3};
+        final var other = new short[] {20000, -20000, -100, 1};
+        final var mixed = new short[4];
+
+        // when
+        this.kernels.mix(new short[][] {loud, other, null}, 2, mixed, 4);
+        this.kernels.gain(loud, 0, 4, 2.0f);
+        this.kernels.gain(other, 2, 2, 0.5f);
+
+        // then
+        assertThat(mixed).containsExactly((short) 32767, (short) -32768, (short) 0, (short) -2);
+        assertThat(loud).containsExactly((short) 32767, (short) -32768, (short) 200, (short) -6);
+        assertThat(other).containsExactly((short) 20000, (short) -20000, (short) -50, (short) 0);
+    }
+
+    @Test
+    void rejects_invalid_arguments() {
+        // given
+        final var pcm = new short[160];
+
+        // expect
+        assertThatThrownBy(() -> this.kernels.gain(pcm, 0, 160, -1.0f)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> this.kernels.gain(pcm, 0, 160, Float.NaN))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> this.kernels.encodeUlaw(pcm, 1, new byte[160], 0, 160))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> this.kernels.mix(new short[][] {pcm, new short[80]}, 2, pcm, 160))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The vectorized kernels must return exactly what the tables return. Lengths and offsets are chosen so that
+ * both the vector loops and the scalar tails run.
+ */
+class VectorPcmKernelsTest {
+
+    private final PcmKernels scalar = Codecs.scalar();
+    private final PcmKernels vector = Codecs.vector();
+
+    @Test
+    void is_available_in_tests() {
+        // expect
+        assertThat(Codecs.isVectorAvailable()).isTrue();
+        assertThat(this.vector.isVectorized()).isTrue();
+        assertThat(Codecs.kernels().isVectorized()).isFalse();
+    }
+
+    @Test
+    void encodes_every_sample_like_the_tables() {
+        // given
+        final var pcm = new short[65536 + 3];
+        for (var i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (i + Short.MIN_VALUE);
+        }
+        final var expected = new byte[pcm.length];
+        final var actual = new byte[pcm.length];
+
+        // expect
+        this.scalar.encodeUlaw(pcm, 3, expected, 1, 65535);
+        this.vector.encodeUlaw(pcm, 3, actual, 1, 65535);
+        assertThat(actual).isEqualTo(expected);
+
+        this.scalar.encodeAlaw(pcm, 3, expected, 1, 65535);
+        this.vector.encodeAlaw(pcm, 3, actual, 1, 65535);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void decodes_every_byte_like_the_tables() {
+        // given
+        final var encoded = new byte[256 + 7];
+        for (var i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) i;
+        }
+        final var expected = new short[encoded.length];
+        final var actual = new short[encoded.length];
+
+        // expect
+        this.scalar.decodeUlaw(encoded, 0, expected, 5, 258);
+        this.vector.decodeUlaw(encoded, 0, actual, 5, 258);
+        assertThat(actual).isEqualTo(expected);
+
+        this.scalar.decodeAlaw(encoded, 0, expected, 5, 258);
+        this.vector.decodeAlaw(encoded, 0, actual, 5, 258);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void gain_and_mix_like_the_scalar_kernels() {
+        // given
+        final var random = new Random(711L);
+        final var inputs = new short[5][167];
+        for (var input : inputs) {
+            for (var i = 0; i < input.length; i++) {
+                input[i] = (short) random.nextInt();
+            }
+        }
+        final var expected = new short[167];
+        final var actual = new short[167];
+
+        // expect
+        this.scalar.mix(inputs, 5, expected, 167);
+        this.vector.mix(inputs, 5, actual, 167);
+        assertThat(actual).isEqualTo(expected);
+
+        this.scalar.gain(expected, 1, 166, 1.7f);
+        this.vector.gain(actual, 1, 166, 1.7f);
+        assertThat(actual).isEqualTo(expected);
+    }
+}
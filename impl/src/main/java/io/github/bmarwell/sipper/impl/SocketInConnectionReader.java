@@ -15,137 +15,233 @@
  */
 package io.github.bmarwell.sipper.impl;
 
+import io.github.bmarwell.sipper.impl.event.EventDispatchingMessageHandler;
 import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
 import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
-import io.github.bmarwell.sipper.impl.util.LangUtil;
-import java.io.BufferedReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageFramer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.proto.StripedMessageDispatcher;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.SocketException;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SocketInConnectionReader implements Runnable {
+/**
+ * The inbound pipeline of one connection: frames received bytes and hands each message to the transaction
+ * layers, the probe responder or the dispatcher.
+ *
+ * <p>Bytes are pushed by the connection's transport, either from a blocking stream via
+ * {@link #readFrom(InputStream)}, from a selector loop via {@link #receive(ByteBuffer)}, or as datagrams via
+ * {@link #receiveDatagram(ByteBuffer)}. These must only be called by one thread at a time.</p>
+ */
+public class SocketInConnectionReader implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(SocketInConnectionReader.class);
 
-    private ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
-
-    private final BufferedReader socketReader;
+    private final SipMessageFramer framer = new SipMessageFramer();
+    private final ClientTransactionLayer clientTransactions;
+    private final ServerTransactionLayer serverTransactions;
+    private final StatelessProbeResponder probeResponder;
     private final QueueingSipIncomingMessageHandler msgHandler;
-    private boolean interrupted = false;
+    private final EventDispatchingMessageHandler eventDispatcher;
+    private final StripedMessageDispatcher dispatcher;
+
+    /** Only created for datagram transports. */
+    private SipMessageFramer datagramFramer;
+
+    /** Only written by the reading thread. */
+    private volatile long keepAlivePongs;
+
+    public SocketInConnectionReader(
+            ClientTransactionLayer clientTransactions,
+            ServerTransactionLayer serverTransactions,
+            StatelessProbeResponder probeResponder,
+            QueueingSipIncomingMessageHandler msgHandler) {
+        this(
+                clientTransactions,
+                serverTransactions,
+                probeResponder,
+                msgHandler,
+                Runtime.getRuntime().availableProcessors(),
+                StripedMessageDispatcher.DEFAULT_LANE_CAPACITY);
+    }
 
-    public SocketInConnectionReader(InputStream socketInput, QueueingSipIncomingMessageHandler msgHandler) {
-        this.socketReader = new BufferedReader(new InputStreamReader(socketInput));
+    /**
+     * Creates a reader with a dispatcher of the given size.
+     *
+     * @param clientTransactions the client transactions of the connection.
+     * @param serverTransactions the server transactions of the connection.
+     * @param probeResponder answers OPTIONS and keep-alive probes.
+     * @param msgHandler keeps messages nobody else consumed.
+     * @param dispatchLanes the number of dispatcher lanes, each with its own consumer thread.
+     * @param laneCapacity the capacity of each lane, which must be a power of two.
+     */
+    public SocketInConnectionReader(
+            ClientTransactionLayer clientTransactions,
+            ServerTransactionLayer serverTransactions,
+            StatelessProbeResponder probeResponder,
+            QueueingSipIncomingMessageHandler msgHandler,
+            int dispatchLanes,
+            int laneCapacity) {
+        this.clientTransactions = clientTransactions;
+        this.serverTransactions = serverTransactions;
+        this.probeResponder = probeResponder;
         this.msgHandler = msgHandler;
+        this.eventDispatcher = new EventDispatchingMessageHandler(msgHandler);
+        this.dispatcher = new StripedMessageDispatcher(this.eventDispatcher, dispatchLanes, laneCapacity);
     }
 
-    @Override
-    public void run() {
-        StringBuilder currentMessage = new StringBuilder();
-        String readLine;
-        try {
-            checkInterrupted();
-            LOG.trace("Now listening for incoming messages");
-            while (!this.interrupted && (readLine = this.socketReader.readLine()) != null) {
-                checkInterrupted();
-
-                if (this.interrupted) {
-                    return;
-                }
-
-                currentMessage.append(readLine);
-                currentMessage.append('\n');
-
-                final var currentMessageString = currentMessage.toString();
-                if (currentMessageString.endsWith("\n\n")) {
-                    checkInterrupted();
-                    LOG.trace("Received message:\n[{}]", currentMessage);
-
-                    final RawSipMessage rawSipMessage;
-
-                    // probably end of message, UNLESS it is a header with a following body.
-                    if (isMessageWithBody(currentMessageString)) {
-                        LOG.trace("Message with body");
-                        rawSipMessage = processMessageWithBody(currentMessageString);
-                    } else {
-                        rawSipMessage = new RawSipMessage(currentMessageString);
-                    }
-
-                    try {
-                        CompletableFuture.runAsync(() -> this.msgHandler.accept(rawSipMessage), executorService);
-                    } catch (Exception e) {
-                        LOG.trace("Unable to process message.", e);
-                    }
-
-                    currentMessage = new StringBuilder();
-                }
-            }
-        } catch (SocketException se) {
-            // probably OK...
-            Thread.currentThread().interrupt();
-        } catch (IOException ioException) {
-            LOG.error("Problem while reading input from socket.", ioException);
-        } catch (InterruptedException interruptedException) {
-            // all ok, nothing to clean up.
-            Thread.currentThread().interrupt();
+    /**
+     * Reads the next chunk of bytes from a blocking stream and processes all messages completed by it.
+     *
+     * @param socketInput the stream to read from.
+     * @return the number of bytes read, or {@code -1} on end of stream.
+     * @throws IOException if reading from the stream fails.
+     * @throws IllegalArgumentException if the received data cannot be framed; the stream cannot be
+     *     re-synchronized afterwards.
+     */
+    public int readFrom(InputStream socketInput) throws IOException {
+        final var read = this.framer.readFrom(socketInput);
+        if (read > 0) {
+            this.framer.drain(this::onBlockingFrame);
+            updateKeepAlivePongs();
         }
-    }
 
-    private static boolean isMessageWithBody(String currentMessageString) {
-        return currentMessageString.startsWith("INVITE")
-                && currentMessageString.contains("\nContent-Length: ")
-                && !currentMessageString.contains("\nContent-Length: 0\n");
+        return read;
     }
 
-    private RawSipMessage processMessageWithBody(String currentMessageString) throws IOException {
-        final String bodyLengthString = currentMessageString
-                .lines()
-                .filter(line -> line.startsWith("Content-Length: "))
-                .findFirst()
-                .orElseThrow();
-        final var bodyLengthNumber = bodyLengthString.split(":", 2)[1].trim();
-        final var bodyLengthOpt = LangUtil.isIntegerOrEmpty(bodyLengthNumber);
+    /**
+     * Processes received bytes, e.g. from a selector loop's read buffer.
+     *
+     * @param received the received bytes, which are consumed completely.
+     * @throws IllegalArgumentException if the received data cannot be framed; the stream cannot be
+     *     re-synchronized afterwards.
+     */
+    public void receive(ByteBuffer received) {
+        this.framer.feed(received);
+        this.framer.drain(this::onLoopFrame);
+        updateKeepAlivePongs();
+    }
 
-        if (bodyLengthOpt.isEmpty()) {
-            throw new IllegalArgumentException(
-                    "Illegal message: Content length is not a number! " + currentMessageString);
+    private void updateKeepAlivePongs() {
+        final var keepAlives = this.framer.keepAlives();
+        if (keepAlives != this.keepAlivePongs) {
+            this.keepAlivePongs = keepAlives;
         }
+    }
 
-        final var bodyLength = bodyLengthOpt.orElseThrow();
+    /**
+     * Returns the number of keep-alive pongs received on the stream so far. May be called from any thread.
+     *
+     * @return the number of pongs.
+     */
+    public long getKeepAlivePongs() {
+        return this.keepAlivePongs;
+    }
 
-        final var bodyContent = new char[bodyLength];
-        LOG.trace("Reading [{}] bytes of data", bodyLength);
-        final var read = this.socketReader.read(bodyContent, 0, bodyLength);
-        if (read < bodyLength) {
-            LOG.warn("Not enough bytes read! Expected [" + bodyLength + "] but got " + read + "!");
+    /**
+     * Processes one received datagram. Datagrams are independent of each other and of the stream passed to
+     * {@link #receive(ByteBuffer)}, so a broken datagram is only dropped.
+     *
+     * @param datagram the received datagram, which is consumed completely.
+     * @throws IllegalArgumentException if the datagram is not a valid SIP message.
+     */
+    public void receiveDatagram(ByteBuffer datagram) {
+        if (this.datagramFramer == null) {
+            this.datagramFramer = new SipMessageFramer();
         }
 
-        final var rawSipMessage = new RawSipMessage(currentMessageString, bodyContent);
-        LOG.trace("Received raw sip message: [{}]", rawSipMessage);
-        return rawSipMessage;
+        this.datagramFramer.feed(datagram);
+        this.datagramFramer.drainDatagram(this::onLoopFrame);
+    }
+
+    /**
+     * Called on the thread reading a blocking socket, which may wait for the dispatcher.
+     */
+    private void onBlockingFrame(ByteBuffer buffer, int offset, int headerLength, int bodyLength) {
+        onFrame(buffer, offset, headerLength, bodyLength, true);
     }
 
-    private void checkInterrupted() throws InterruptedException {
-        if (Thread.currentThread().isInterrupted() || Thread.interrupted() || this.interrupted) {
-            this.interrupted = true;
-            Thread.currentThread().interrupt();
-            this.executorService.shutdownNow();
-            throw new InterruptedException();
+    /**
+     * Called on a selector loop, which serves other connections as well and must never wait.
+     */
+    private void onLoopFrame(ByteBuffer buffer, int offset, int headerLength, int bodyLength) {
+        onFrame(buffer, offset, headerLength, bodyLength, false);
+    }
+
+    private void onFrame(ByteBuffer buffer, int offset, int headerLength, int bodyLength, boolean mayBlock) {
+        // the receive buffer is reused, so the message gets its own copy; the body stays undecoded bytes.
+        final var raw = new byte[headerLength + bodyLength];
+        buffer.get(offset, raw);
+
+        final var rawSipMessage = new RawSipMessage(raw, headerLength, bodyLength);
+        LOG.trace("Received message:\n[{}]", rawSipMessage);
+
+        // a selector loop must not wait for a full lane, so requests it has no room for are rejected
+        // before they are answered provisionally.
+        final var accepting = mayBlock || this.dispatcher.hasRoomFor(rawSipMessage);
+
+        // responses complete their transaction right here on the reader thread, probes are answered
+        // statelessly, and requests get their provisional responses before the application sees them.
+        try {
+            if (this.clientTransactions.onResponse(rawSipMessage)
+                    || this.probeResponder.onRequest(rawSipMessage)
+                    || this.serverTransactions.onRequest(rawSipMessage, accepting)) {
+                return;
+            }
+        } catch (IllegalArgumentException invalidMessage) {
+            LOG.debug("Dropping invalid message [{}].", rawSipMessage, invalidMessage);
+            return;
+        }
+
+        // keeps wire order per dialog.
+        if (mayBlock) {
+            this.dispatcher.dispatch(rawSipMessage);
+        } else {
+            // only fails for messages which are never answered, like ACK or stray responses.
+            this.dispatcher.tryDispatch(rawSipMessage);
         }
     }
 
+    /**
+     * Returns the number of messages dropped because a selector loop found their dispatcher lane full. Requests
+     * are rejected with {@code 503} instead, see {@link ServerTransactionLayer#getRejectedRequests()}; only
+     * messages which are never answered, like {@code ACK}, are dropped.
+     *
+     * @return the number of dropped messages.
+     */
+    public long getDroppedMessages() {
+        return this.dispatcher.getDroppedMessages();
+    }
+
+    public ClientTransactionLayer getClientTransactions() {
+        return clientTransactions;
+    }
+
+    public EventDispatchingMessageHandler getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    public ServerTransactionLayer getServerTransactions() {
+        return serverTransactions;
+    }
+
+    public StatelessProbeResponder getProbeResponder() {
+        return probeResponder;
+    }
+
     public QueueingSipIncomingMessageHandler getMsgHandler() {
         return msgHandler;
     }
 
-    public void interrupt() {
-        this.interrupted = true;
-        this.executorService.shutdownNow();
-        Thread.currentThread().interrupt();
+    /**
+     * Stops dispatching after the messages already queued were delivered.
+     */
+    @Override
+    public void close() {
+        this.dispatcher.close();
     }
 }
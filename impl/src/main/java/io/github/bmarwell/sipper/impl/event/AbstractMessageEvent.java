@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.event;
+
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Base class of events which are views on a received message; header values are only extracted when asked for.
+ */
+abstract class AbstractMessageEvent {
+
+    protected final RawSipMessage message;
+
+    protected AbstractMessageEvent(RawSipMessage message) {
+        this.message = message;
+    }
+
+    public String callId() {
+        return this.message.callId().orElse("");
+    }
+
+    public String from() {
+        return header("From").orElse("");
+    }
+
+    public String to() {
+        return header("To").orElse("");
+    }
+
+    public Optional<String> contentType() {
+        return header("Content-Type");
+    }
+
+    public CharSequence body() {
+        return this.message.bodyText();
+    }
+
+    public ByteBuffer rawBody() {
+        return this.message.body();
+    }
+
+    protected Optional<String> header(String name) {
+        return this.message.headers().first(name);
+    }
+
+    public RawSipMessage message() {
+        return this.message;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[callId=" + callId() + "]";
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.event;
+
+import io.github.bmarwell.sipper.api.SipEvent;
+import io.github.bmarwell.sipper.api.SipEventHandler;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipIncomingMessageHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns received messages into events for the {@link SipEventHandler} of a connection.
+ *
+ * <p>Messages which are not events, or which arrive while nobody listens, are passed on to the fallback
+ * handler.</p>
+ *
+ * <p>A message or event which cannot be processed is logged and skipped, so a failing listener does not cost
+ * the other messages of a batch, which may belong to unrelated dialogs. A handler which overrides
+ * {@link SipEventHandler#onEvents(List)} gets the whole batch at once and is responsible for this itself.</p>
+ */
+public class EventDispatchingMessageHandler implements SipIncomingMessageHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventDispatchingMessageHandler.class);
+
+    private final SipIncomingMessageHandler fallback;
+
+    private volatile SipEventHandler sipEventHandler;
+
+    /** Whether the handler processes batches itself, or gets each event on its own. */
+    private volatile boolean handlesBatches;
+
+    public EventDispatchingMessageHandler(SipIncomingMessageHandler fallback) {
+        this.fallback = fallback;
+    }
+
+    public void setSipEventHandler(SipEventHandler sipEventHandler) {
+        Objects.requireNonNull(sipEventHandler, "sipEventHandler");
+        this.handlesBatches = overridesOnEvents(sipEventHandler);
+        this.sipEventHandler = sipEventHandler;
+    }
+
+    private static boolean overridesOnEvents(SipEventHandler sipEventHandler) {
+        try {
+            return sipEventHandler.getClass().getMethod("onEvents", List.class).getDeclaringClass()
+                    != SipEventHandler.class;
+        } catch (NoSuchMethodException nsme) {
+            throw new IllegalStateException("SipEventHandler without onEvents: " + sipEventHandler, nsme);
+        }
+    }
+
+    public SipEventHandler getSipEventHandler() {
+        return this.sipEventHandler;
+    }
+
+    @Override
+    public void accept(RawSipMessage sipMessage) {
+        acceptAll(List.of(sipMessage));
+    }
+
+    @Override
+    public void acceptAll(List<RawSipMessage> messages) {
+        final var eventHandler = this.sipEventHandler;
+        if (eventHandler == null) {
+            this.fallback.acceptAll(messages);
+            return;
+        }
+
+        final var events = new ArrayList<SipEvent>(messages.size());
+        for (var message : messages) {
+            final var event = toEvent(message);
+            if (event == null) {
+                fallback(message);
+            } else {
+                events.add(event);
+            }
+        }
+
+        if (events.isEmpty()) {
+            return;
+        }
+
+        if (this.handlesBatches) {
+            try {
+                eventHandler.onEvents(events);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Event handler failed on a batch of [{}] events.", events.size(), rtEx);
+            }
+            return;
+        }
+
+        for (var event : events) {
+            try {
+                eventHandler.onEvent(event);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Event handler failed on event [{}].", event, rtEx);
+            }
+        }
+    }
+
+    private void fallback(RawSipMessage message) {
+        try {
+            this.fallback.accept(message);
+        } catch (RuntimeException rtEx) {
+            LOG.error("Unable to process message [{}].", message, rtEx);
+        }
+    }
+
+    private static SipEvent toEvent(RawSipMessage message) {
+        try {
+            return SipEventFactory.of(message);
+        } catch (IllegalArgumentException invalidMessage) {
+            LOG.debug("Not an event: [{}].", message, invalidMessage);
+            return null;
+        }
+    }
+
+    /**
+     * Passes an event which was not caused by a received message, e.g. a registration change.
+     *
+     * @param event the event.
+     */
+    public void publish(SipEvent event) {
+        final var eventHandler = this.sipEventHandler;
+        if (eventHandler == null) {
+            LOG.trace("Nobody listens for event [{}].", event);
+            return;
+        }
+
+        try {
+            eventHandler.onEvent(event);
+        } catch (RuntimeException rtEx) {
+            LOG.error("Event handler failed on event [{}].", event, rtEx);
+        }
+    }
+
+    @Override
+    public void remove(RawSipMessage message) {
+        this.fallback.remove(message);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.event;
+
+import io.github.bmarwell.sipper.api.CallStateChangeEvent.CallState;
+import io.github.bmarwell.sipper.api.SipEvent;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+
+/**
+ * Maps received messages to events.
+ */
+public final class SipEventFactory {
+
+    private SipEventFactory() {
+        // util class
+    }
+
+    /**
+     * Creates the event for a received message, which is a view on the message and does not copy it.
+     *
+     * @param message the received message.
+     * @return the event, or {@code null} if the message does not represent an event (e.g. a response to
+     *     {@code REGISTER}).
+     * @throws IllegalArgumentException if the message has no valid CSeq header.
+     */
+    public static SipEvent of(RawSipMessage message) {
+        final var method = message.method();
+
+        if (message.isResponse()) {
+            if (!"INVITE".equals(method)) {
+                return null;
+            }
+
+            final var statusCode = message.statusCode();
+            final CallState state;
+            if (statusCode == 100) {
+                state = CallState.TRYING;
+            } else if (statusCode < 200) {
+                state = CallState.RINGING;
+            } else if (statusCode < 300) {
+                state = CallState.ESTABLISHED;
+            } else {
+                state = CallState.TERMINATED;
+            }
+
+            return new DefaultCallStateChangeEvent(message, state);
+        }
+
+        return switch (method) {
+            case "INVITE" -> new DefaultIncomingCallEvent(message);
+            case "ACK" -> new DefaultCallStateChangeEvent(message, CallState.ESTABLISHED);
+            case "BYE", "CANCEL" -> new DefaultCallStateChangeEvent(message, CallState.TERMINATED);
+            case "MESSAGE" -> new DefaultMessageEvent(message);
+            case "NOTIFY" -> new DefaultNotifyEvent(message);
+            default -> null;
+        };
+    }
+}
@@ -16,21 +16,21 @@
 package io.github.bmarwell.sipper.impl.internal;
 
 import io.github.bmarwell.sipper.api.SipConnection;
+import io.github.bmarwell.sipper.api.SipConnectionStatistics;
+import io.github.bmarwell.sipper.api.SipEvent;
 import io.github.bmarwell.sipper.api.SipEventHandler;
 import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
-import java.io.BufferedOutputStream;
-import java.io.PrintWriter;
+import io.github.bmarwell.sipper.impl.proto.DigestAuthContext;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipConnectionHeaders;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.transaction.TransactionKey;
+import io.github.bmarwell.sipper.impl.transport.SipTransport;
 import java.net.InetAddress;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
-import java.util.Optional;
+import java.net.InetSocketAddress;
 import java.util.StringJoiner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,57 +40,48 @@ public class ConnectedSipConnection implements SipConnection {
 
     private final AtomicLong cseq = new AtomicLong(10);
 
-    private final Socket socket;
+    private final SipTransport transport;
 
     private final SocketInConnectionReader inReader;
 
-    private final BufferedOutputStream out;
-    private final PrintWriter outWriter;
-    private final ReentrantLock outWriterLock = new ReentrantLock();
-
-    private final ExecutorService executorService;
-    private final Future<?> inReaderThread;
     private final String tag;
     private final String callId;
     private final String registrar;
     private final String sipId;
 
-    private InetAddress publicIp;
-    private String authorizationString;
+    /** The address the registrar sees this connection with, i.e. behind NAT the mapped address. */
+    private volatile InetSocketAddress publicAddress;
+
+    private volatile DigestAuthContext authContext;
+    private volatile SipConnectionHeaders connectionHeaders;
 
     public ConnectedSipConnection(
-            Socket socket,
-            BufferedOutputStream out,
+            SipTransport transport,
             SocketInConnectionReader inReader,
             String registrar,
             String sipId,
             String tag,
             String callId,
-            InetAddress publicIp) {
-        this.socket = socket;
-        this.out = out;
-        this.outWriter = new PrintWriter(out, false, StandardCharsets.UTF_8);
+            InetSocketAddress publicAddress) {
+        this.transport = transport;
         this.inReader = inReader;
-        this.executorService = Executors.newVirtualThreadPerTaskExecutor();
-        this.inReaderThread = this.executorService.submit(inReader);
+        this.transport.start(inReader);
 
         this.registrar = registrar;
         this.sipId = sipId;
         this.tag = tag;
         this.callId = callId;
-        this.publicIp = publicIp;
+        this.publicAddress = publicAddress;
     }
 
     @Override
     public void listen(SipEventHandler sipEventHandler) {
-        // TODO: implement
-        throw new UnsupportedOperationException(
-                "not yet implemented: [io.github.bmarwell.sipper.impl.internal.ConnectedSipConnection::listen].");
+        this.inReader.getEventDispatcher().setSipEventHandler(sipEventHandler);
     }
 
     @Override
     public boolean isConnected() {
-        return this.socket.isConnected();
+        return this.transport.isConnected();
     }
 
     @Override
@@ -100,33 +91,90 @@ public class ConnectedSipConnection implements SipConnection {
 
     @Override
     public InetAddress getPublicIp() {
-        return this.publicIp;
+        return this.publicAddress.getAddress();
     }
 
-    protected void writeAndFlush(String message) {
-        this.outWriterLock.lock();
+    @Override
+    public SipConnectionStatistics getStatistics() {
+        return DefaultSipConnectionStatistics.of(this.inReader);
+    }
+
+    public InetSocketAddress getPublicAddress() {
+        return this.publicAddress;
+    }
+
+    /**
+     * Replaces the public address, e.g. after a response revealed a different NAT mapping. Requests sent
+     * afterwards carry the new address in their Contact header.
+     *
+     * @param publicAddress the mapped address.
+     */
+    public void setPublicAddress(InetSocketAddress publicAddress) {
+        this.publicAddress = publicAddress;
+    }
+
+    protected void publish(SipEvent event) {
+        this.inReader.getEventDispatcher().publish(event);
+    }
+
+    /**
+     * Sends a request within a new client transaction.
+     *
+     * @param transactionKey the branch and method the request was encoded with.
+     * @param request the encoded request.
+     * @return a future completing with the final response.
+     */
+    protected CompletableFuture<RawSipMessage> sendRequest(TransactionKey transactionKey, SipMessageBuffer request) {
+        final var clientTransactions = this.inReader.getClientTransactions();
+        final CompletableFuture<RawSipMessage> response;
+        if (this.transport.isReliableFor(request.length())) {
+            response = clientTransactions.start(transactionKey);
+        } else {
+            // the transaction holds a reference until it terminates; each retransmission writes the same bytes.
+            response = clientTransactions.start(transactionKey, () -> this.transport.write(request.retain()));
+            request.retain();
+            response.whenComplete((msg, error) -> request.release());
+        }
+
         try {
-            LOG.trace("Writing message: [{}]", message);
-            this.outWriter.write(message);
-            this.outWriter.flush();
-        } finally {
-            this.outWriterLock.unlock();
+            writeAndFlush(request);
+        } catch (RuntimeException rtEx) {
+            clientTransactions.fail(transactionKey, rtEx);
         }
+
+        return response;
+    }
+
+    /**
+     * Writes the encoded message and releases the buffer.
+     *
+     * @param message the encoded message.
+     */
+    protected void writeAndFlush(SipMessageBuffer message) {
+        this.transport.write(message);
     }
 
     @Override
     public void close() throws Exception {
-        this.inReader.interrupt();
-        this.inReaderThread.cancel(true);
-        this.executorService.shutdownNow();
-
-        try {
-            this.executorService.awaitTermination(10, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException ie) {
-            // ignore on close
+        this.inReader.getClientTransactions().failAll(new IllegalStateException("Connection closed."));
+        this.transport.close();
+        this.inReader.close();
+    }
+
+    /**
+     * Takes over the registration state of a failed connection to the same registrar: the CSeq continues,
+     * the digest context authorizes preemptively, and the event handler keeps receiving events.
+     *
+     * @param previous the failed connection, which was built with the same tag and Call-ID.
+     */
+    void continueFrom(ConnectedSipConnection previous) {
+        this.cseq.set(previous.cseq.get());
+        this.authContext = previous.authContext;
+
+        final var sipEventHandler = previous.inReader.getEventDispatcher().getSipEventHandler();
+        if (sipEventHandler != null) {
+            listen(sipEventHandler);
         }
-
-        this.socket.close();
     }
 
     public long getAndUpdateCseq() {
@@ -141,8 +189,12 @@ public class ConnectedSipConnection implements SipConnection {
         return this.sipId;
     }
 
-    public Socket getSocket() {
-        return this.socket;
+    public InetSocketAddress getLocalAddress() {
+        return this.transport.getLocalAddress();
+    }
+
+    public String getTransportProtocol() {
+        return this.transport.protocol();
     }
 
     public String getTag() {
@@ -153,35 +205,35 @@ public class ConnectedSipConnection implements SipConnection {
         return callId;
     }
 
-    public Optional<String> getAuthorization() {
-        return Optional.ofNullable(this.authorizationString);
+    public DigestAuthContext getAuthContext() {
+        return this.authContext;
     }
 
-    public void setAuthorizationString(String authorizationString) {
-        this.authorizationString = authorizationString;
+    public void setAuthContext(DigestAuthContext authContext) {
+        this.authContext = authContext;
     }
 
-    protected BufferedOutputStream getOut() {
-        return this.out;
+    public SipConnectionHeaders getConnectionHeaders() {
+        return this.connectionHeaders;
     }
 
-    protected SocketInConnectionReader getInReader() {
-        return inReader;
+    public void setConnectionHeaders(SipConnectionHeaders connectionHeaders) {
+        this.connectionHeaders = connectionHeaders;
     }
 
-    protected PrintWriter getOutWriter() {
-        return outWriter;
+    protected SipTransport getTransport() {
+        return this.transport;
+    }
+
+    protected SocketInConnectionReader getInReader() {
+        return inReader;
     }
 
     @Override
     public String toString() {
         return new StringJoiner(", ", ConnectedSipConnection.class.getSimpleName() + "[", "]")
-                .add("socket=" + socket)
+                .add("transport=" + transport)
                 .add("inReader=" + inReader)
-                .add("out=" + out)
-                .add("outWriter=" + outWriter)
-                .add("executorService=" + executorService)
-                .add("inReaderThread=" + inReaderThread)
                 .toString();
     }
 }
@@ -16,22 +16,58 @@
 package io.github.bmarwell.sipper.impl.internal;
 
 import io.github.bmarwell.sipper.api.RegisteredSipConnection;
+import io.github.bmarwell.sipper.api.RegistrationStateChangeEvent.RegistrationState;
+import io.github.bmarwell.sipper.api.SipConnectionStatistics;
 import io.github.bmarwell.sipper.api.SipEventHandler;
+import io.github.bmarwell.sipper.impl.event.DefaultRegistrationStateChangeEvent;
+import io.github.bmarwell.sipper.impl.proto.DigestAuthContext;
 import io.github.bmarwell.sipper.impl.proto.SipMessageFactory;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.TransactionKey;
+import io.github.bmarwell.sipper.impl.transport.FlowKeepAlive;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.io.IOException;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.util.Optional;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A connection with an active registration.
+ *
+ * <p>When the keep-alive detects that the flow failed, the connection is replaced by a new one to the same
+ * registrar, which continues the registration with the same Call-ID. Failed attempts are retried after
+ * {@link SipRegistration#RETRY_DELAY}.</p>
+ */
 public class DefaultRegisteredSipConnection implements RegisteredSipConnection {
 
-    private final ConnectedSipConnection sipConnection;
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultRegisteredSipConnection.class);
+
+    private final SipConnectionFactory connectionFactory;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile ConnectedSipConnection sipConnection;
+    private volatile SipRegistration registration;
+    private volatile FlowKeepAlive keepAlive;
+    private volatile HashedTimingWheel.Timeout recoveryTimeout;
+    private volatile boolean closed;
     private boolean closedByHook;
-    private boolean registered;
+    private volatile boolean registered;
 
     private final Thread shutdownHook;
 
-    public DefaultRegisteredSipConnection(ConnectedSipConnection sipConnection) {
+    public DefaultRegisteredSipConnection(
+            ConnectedSipConnection sipConnection,
+            SipRegistration registration,
+            SipConnectionFactory connectionFactory) {
         this.sipConnection = sipConnection;
+        this.registration = registration;
+        this.connectionFactory = connectionFactory;
         this.registered = true;
         this.shutdownHook = new Thread(() -> {
             try {
@@ -42,6 +78,84 @@ public class DefaultRegisteredSipConnection implements RegisteredSipConnection {
             }
         });
         Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+
+        this.keepAlive =
+                connectionFactory.startKeepAlive(sipConnection, registration, () -> onFlowFailed(sipConnection));
+    }
+
+    private void onFlowFailed(ConnectedSipConnection failed) {
+        this.lock.lock();
+        try {
+            if (this.closed || failed != this.sipConnection) {
+                return;
+            }
+
+            this.registered = false;
+            this.registration.cancel();
+        } finally {
+            this.lock.unlock();
+        }
+
+        failed.publish(new DefaultRegistrationStateChangeEvent(failed.getCallId(), RegistrationState.FAILED));
+        closeQuietly(failed);
+
+        recover(failed);
+    }
+
+    /**
+     * Connects and registers again. Blocks, so it must not be called on the timing wheel.
+     */
+    private void recover(ConnectedSipConnection failed) {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            final var next = this.connectionFactory.reconnect(failed);
+            final SipRegistration nextRegistration;
+            try {
+                nextRegistration = this.connectionFactory.registerAndScheduleRefresh(next);
+            } catch (RuntimeException rtEx) {
+                closeQuietly(next);
+                throw rtEx;
+            }
+
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    nextRegistration.cancel();
+                    closeQuietly(next);
+                    return;
+                }
+
+                this.sipConnection = next;
+                this.registration = nextRegistration;
+                this.registered = true;
+                this.keepAlive =
+                        this.connectionFactory.startKeepAlive(next, nextRegistration, () -> onFlowFailed(next));
+            } finally {
+                this.lock.unlock();
+            }
+
+            LOG.info("Re-registered after flow failure on [{}].", next.getLocalAddress());
+            next.publish(new DefaultRegistrationStateChangeEvent(next.getCallId(), RegistrationState.REGISTERED));
+        } catch (IOException | RuntimeException ex) {
+            LOG.warn("Unable to recover failed flow, retrying in [{}].", SipRegistration.RETRY_DELAY, ex);
+            this.recoveryTimeout = HashedTimingWheel.shared()
+                    .schedule(
+                            () -> Thread.ofVirtual()
+                                    .name("sipper-flow-recovery")
+                                    .start(() -> recover(failed)),
+                            SipRegistration.RETRY_DELAY);
+        }
+    }
+
+    private static void closeQuietly(ConnectedSipConnection connection) {
+        try {
+            connection.close();
+        } catch (Exception ex) {
+            LOG.debug("Problem while closing connection [{}].", connection, ex);
+        }
     }
 
     @Override
@@ -64,6 +178,11 @@ public class DefaultRegisteredSipConnection implements RegisteredSipConnection {
         return this.sipConnection.getPublicIp();
     }
 
+    @Override
+    public SipConnectionStatistics getStatistics() {
+        return this.sipConnection.getStatistics();
+    }
+
     @Override
     public void close() throws Exception {
         if (!closedByHook) {
@@ -73,24 +192,46 @@ public class DefaultRegisteredSipConnection implements RegisteredSipConnection {
                 // no worries.
             }
         }
-        this.registered = false;
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.registered = false;
+            this.registration.cancel();
+        } finally {
+            this.lock.unlock();
+        }
+
+        final var currentKeepAlive = this.keepAlive;
+        if (currentKeepAlive != null) {
+            currentKeepAlive.close();
+        }
+
+        final var currentRecovery = this.recoveryTimeout;
+        if (currentRecovery != null) {
+            currentRecovery.cancel();
+        }
+
+        final var transactionKey = new TransactionKey(ClientTransactionLayer.newBranch(), "REGISTER");
         final var unregister = new SipMessageFactory(this.sipConnection.getRegistrar(), this.sipConnection.getSipId())
-                .getUnregister(this);
-        this.sipConnection.writeAndFlush(unregister);
+                .getUnregister(this.sipConnection, transactionKey.branch());
+        final var response = this.sipConnection.sendRequest(transactionKey, unregister);
 
         // short amount of time of judiciously waiting for a response, as we don't want to unnecessarily lengthen the
         // shutdown.
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException ie) {
+            response.get(100L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             // ignore on shutdown
         }
 
+        this.sipConnection.publish(new DefaultRegistrationStateChangeEvent(
+                this.sipConnection.getCallId(), RegistrationState.UNREGISTERED));
+
         this.sipConnection.close();
     }
 
-    public Socket getSocket() {
-        return this.sipConnection.getSocket();
+    public InetSocketAddress getLocalAddress() {
+        return this.sipConnection.getLocalAddress();
     }
 
     public String getTag() {
@@ -105,7 +246,7 @@ public class DefaultRegisteredSipConnection implements RegisteredSipConnection {
         return this.sipConnection.getAndUpdateCseq();
     }
 
-    public Optional<String> getAuthorization() {
-        return this.sipConnection.getAuthorization();
+    public Optional<DigestAuthContext> getAuthContext() {
+        return Optional.ofNullable(this.sipConnection.getAuthContext());
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.internal;
+
+import io.github.bmarwell.sipper.api.SipConnectionStatistics;
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+
+/**
+ * A snapshot of the counters of one connection.
+ */
+public record DefaultSipConnectionStatistics(
+        long optionsProbes,
+        long keepAliveProbes,
+        long keepAlivePongs,
+        long rejectedRequests,
+        long droppedMessages,
+        long overflowDrops,
+        long expiredDrops,
+        long duplicateDrops,
+        long unsupportedDrops)
+        implements SipConnectionStatistics {
+
+    /**
+     * Reads the current counters of the reader and the handlers it feeds.
+     *
+     * @param reader the reader of the connection.
+     * @return the snapshot.
+     */
+    public static DefaultSipConnectionStatistics of(SocketInConnectionReader reader) {
+        final var probeResponder = reader.getProbeResponder();
+        final var msgHandler = reader.getMsgHandler();
+
+        return new DefaultSipConnectionStatistics(
+                probeResponder.getOptionsProbes(),
+                probeResponder.getKeepAliveProbes(),
+                reader.getKeepAlivePongs(),
+                reader.getServerTransactions().getRejectedRequests(),
+                reader.getDroppedMessages(),
+                msgHandler.getOverflowDrops(),
+                msgHandler.getExpiredDrops(),
+                msgHandler.getDuplicateDrops(),
+                msgHandler.getUnsupportedDrops());
+    }
+}
@@ -18,17 +18,38 @@ package io.github.bmarwell.sipper.impl.internal;
 import io.github.bmarwell.sipper.api.RegisteredSipConnection;
 import io.github.bmarwell.sipper.api.SipConfiguration;
 import io.github.bmarwell.sipper.api.SipConnection;
+import io.github.bmarwell.sipper.api.SipIoMode;
+import io.github.bmarwell.sipper.api.SipTransportProtocol;
 import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
-import io.github.bmarwell.sipper.impl.ip.IpUtil;
+import io.github.bmarwell.sipper.impl.ip.PublicAddressCache;
+import io.github.bmarwell.sipper.impl.ip.PublicAddressDiscovery;
+import io.github.bmarwell.sipper.impl.ip.RegistrarResolver;
+import io.github.bmarwell.sipper.impl.ip.StunPublicAddressDiscovery;
 import io.github.bmarwell.sipper.impl.proto.*;
-import java.io.BufferedOutputStream;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import io.github.bmarwell.sipper.impl.transport.FlowKeepAlive;
+import io.github.bmarwell.sipper.impl.transport.HappyEyeballs;
+import io.github.bmarwell.sipper.impl.transport.NioEventLoopGroup;
+import io.github.bmarwell.sipper.impl.transport.NioSipTransport;
+import io.github.bmarwell.sipper.impl.transport.SipTransport;
+import io.github.bmarwell.sipper.impl.transport.SocketSipTransport;
+import io.github.bmarwell.sipper.impl.transport.TlsSipTransport;
+import io.github.bmarwell.sipper.impl.transport.UdpSipTransport;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.random.RandomGeneratorFactory;
+import javax.net.ssl.SSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,13 +57,21 @@ public class SipConnectionFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(SipConnectionFactory.class);
 
-    private final SipConfiguration sipConfiguration;
+    /** Dispatcher lanes per connection in {@link SipIoMode#NIO} mode. */
+    static final int NIO_DISPATCH_LANES = 1;
+
+    static final int NIO_LANE_CAPACITY = 256;
 
-    private final SipMessageFactory messageFactory;
+    private final SipConfiguration sipConfiguration;
+    private final PublicAddressDiscovery publicAddressDiscovery;
 
     public SipConnectionFactory(SipConfiguration sipConfiguration) {
         this.sipConfiguration = sipConfiguration;
-        this.messageFactory = new SipMessageFactory(this.sipConfiguration);
+        this.publicAddressDiscovery = sipConfiguration
+                .getStunServer()
+                .<PublicAddressDiscovery>map(
+                        stunServer -> new StunPublicAddressDiscovery(stunServer, sipConfiguration.getConnectTimeout()))
+                .orElseGet(PublicAddressDiscovery::none);
     }
 
     public SipConnection build() throws IOException {
@@ -60,74 +89,201 @@ public class SipConnectionFactory {
     public RegisteredSipConnection register(SipConnection sipConnection) {
         final var connectedSipConnection = (ConnectedSipConnection) sipConnection;
 
-        final var registerPreflight = this.messageFactory.getRegisterPreflight(connectedSipConnection);
+        final var registration = registerAndScheduleRefresh(connectedSipConnection);
+
+        return new DefaultRegisteredSipConnection(connectedSipConnection, registration, this);
+    }
+
+    SipRegistration registerAndScheduleRefresh(ConnectedSipConnection connectedSipConnection) {
+        final var registration = new SipRegistration(connectedSipConnection, this.sipConfiguration);
+        final var grantedSeconds = registration.register();
+        registration.scheduleRefresh(grantedSeconds);
+
+        return registration;
+    }
+
+    /**
+     * Opens a new connection which continues the registration of a failed one.
+     *
+     * @param failed the connection whose flow failed.
+     * @return a new connection with the same tag, Call-ID, CSeq and digest context.
+     * @throws IOException if the registrar cannot be reached.
+     */
+    ConnectedSipConnection reconnect(ConnectedSipConnection failed) throws IOException {
+        final var connection = buildSocketSipConnection(failed.getTag(), failed.getCallId());
+        connection.continueFrom(failed);
 
-        CompletableFuture.supplyAsync(() -> this.registerPreflight(connectedSipConnection, registerPreflight))
-                .orTimeout(2_000L, TimeUnit.MILLISECONDS)
-                .thenAcceptAsync(
-                        (SipAuthenticationRequest authRequest) -> doRegister(authRequest, connectedSipConnection))
-                .orTimeout(2_000L, TimeUnit.MILLISECONDS)
-                .join();
+        return connection;
+    }
+
+    /**
+     * Starts the keep-alive of a registered connection.
+     *
+     * @param connection the registered connection.
+     * @param registration its registration.
+     * @param onFailure called once when the flow failed.
+     * @return the started keep-alive, or {@code null} if keep-alives are disabled or the transport is UDP.
+     */
+    FlowKeepAlive startKeepAlive(ConnectedSipConnection connection, SipRegistration registration, Runnable onFailure) {
+        final var interval = this.sipConfiguration.getKeepAliveInterval();
+        // RFC 5626 keeps UDP flows alive with STUN, which is not supported.
+        if (interval.isZero() || this.sipConfiguration.getTransportProtocol() == SipTransportProtocol.UDP) {
+            return null;
+        }
+
+        final var keepAlive = new FlowKeepAlive(
+                connection.getTransport(),
+                connection.getInReader()::getKeepAlivePongs,
+                interval,
+                registration.isOutboundSupported(),
+                onFailure);
+        keepAlive.start();
 
-        return new DefaultRegisteredSipConnection(connectedSipConnection);
+        return keepAlive;
     }
 
-    private void doRegister(SipAuthenticationRequest authRequest, ConnectedSipConnection connectedSipConnection) {
-        final var msgHandler = new NotifyingSipLoginRequestHandler(
-                connectedSipConnection.getInReader().getMsgHandler());
+    protected ConnectedSipConnection buildSocketSipConnection(String tag, String callId) throws IOException {
+        // the STUN request does not depend on the connection, so it runs while the registrar is resolved and
+        // connected. Once any public IP is cached, it is not needed anymore.
+        final var discovery = PublicAddressCache.shared().isEmpty() ? this.publicAddressDiscovery.discover() : null;
+        final var transport = createTransport();
 
-        final var login = this.messageFactory.getLogin(
-                authRequest,
-                connectedSipConnection,
-                this.sipConfiguration.getLoginUserId(),
-                this.sipConfiguration.getLoginPassword());
-        connectedSipConnection.writeAndFlush(login.message());
-        connectedSipConnection.setAuthorizationString(login.authorization());
-        msgHandler.run();
+        try {
+            var onResponse = new QueueingSipIncomingMessageHandler(
+                    this.sipConfiguration.getInboundMessageCapacity(), this.sipConfiguration.getInboundMessageMaxAge());
+            var serverTransactions =
+                    new ServerTransactionLayer(transport::write, this.sipConfiguration.isAutoRinging());
+            var inReader = createReader(transport, serverTransactions, onResponse);
 
-        LOG.debug("Login successful");
+            return new ConnectedSipConnection(
+                    transport,
+                    inReader,
+                    this.sipConfiguration.getRegistrar(),
+                    this.sipConfiguration.getSipId(),
+                    tag,
+                    callId,
+                    initialPublicAddress(transport.getLocalAddress(), discovery));
+        } catch (RuntimeException rtEx) {
+            transport.close();
+            throw rtEx;
+        }
     }
 
-    public SipAuthenticationRequest registerPreflight(ConnectedSipConnection connectedSipConnection, String message) {
-        final var inReader = connectedSipConnection.getInReader();
+    /**
+     * Guesses the address the registrar will see before the first response tells. Only the first connection
+     * from a local IP asks the STUN server (if any); all others reuse the IP learned before. The port is the
+     * local one, as the NAT mapping of this connection is not known yet.
+     *
+     * @param discovery the discovery started before connecting, or {@code null} if none was started.
+     */
+    private InetSocketAddress initialPublicAddress(
+            InetSocketAddress localAddress, CompletableFuture<Optional<InetAddress>> discovery) {
+        final var cache = PublicAddressCache.shared();
+        final var publicIp = cache.get(localAddress.getAddress()).or(() -> {
+            final Optional<InetAddress> discovered =
+                    (discovery != null ? discovery : this.publicAddressDiscovery.discover()).join();
+            discovered.ifPresent(ip -> cache.update(localAddress.getAddress(), ip));
+            return discovered;
+        });
 
-        connectedSipConnection.writeAndFlush(message);
+        return new InetSocketAddress(publicIp.orElse(localAddress.getAddress()), localAddress.getPort());
+    }
 
-        final var msgHandler = new NotifyingSipIncomingAuthenticationRequestHandler(inReader.getMsgHandler());
-        msgHandler.run();
+    private SocketInConnectionReader createReader(
+            SipTransport transport,
+            ServerTransactionLayer serverTransactions,
+            QueueingSipIncomingMessageHandler onResponse) {
+        final var probeResponder = new StatelessProbeResponder(transport::write);
 
-        return msgHandler.getSipAuthenticationRequest();
+        return switch (this.sipConfiguration.getIoMode()) {
+            case BLOCKING ->
+                new SocketInConnectionReader(
+                        new ClientTransactionLayer(), serverTransactions, probeResponder, onResponse);
+            // many connections per JVM: keep the per-connection dispatcher small.
+            case NIO ->
+                new SocketInConnectionReader(
+                        new ClientTransactionLayer(),
+                        serverTransactions,
+                        probeResponder,
+                        onResponse,
+                        NIO_DISPATCH_LANES,
+                        NIO_LANE_CAPACITY);
+        };
     }
 
-    protected ConnectedSipConnection buildSocketSipConnection(String tag, String callId) throws IOException {
-        var socket = createSocket();
-        var out = new BufferedOutputStream(socket.getOutputStream());
-
-        var onResponse = new QueueingSipIncomingMessageHandler();
-        var inReader = new SocketInConnectionReader(socket.getInputStream(), onResponse);
-
-        return new ConnectedSipConnection(
-                socket,
-                out,
-                inReader,
-                this.sipConfiguration.getRegistrar(),
-                this.sipConfiguration.getSipId(),
-                tag,
-                callId,
-                IpUtil.getPublicIpv4());
+    protected SipTransport createTransport() throws IOException {
+        final var registrar = this.sipConfiguration.getRegistrar();
+        final var transportProtocol = this.sipConfiguration.getTransportProtocol();
+        final var connectTimeout = this.sipConfiguration.getConnectTimeout();
+        final var remoteAddresses = resolveRegistrar(registrar, transportProtocol, connectTimeout);
+
+        return HappyEyeballs.connect(
+                remoteAddresses,
+                remoteAddress -> connectTransport(remoteAddress, registrar, transportProtocol, connectTimeout),
+                HappyEyeballs.CONNECTION_ATTEMPT_DELAY,
+                connectTimeout);
     }
 
-    protected Socket createSocket() throws IOException {
-        final var socket = new Socket();
+    private SipTransport connectTransport(
+            InetSocketAddress remoteSocketAddress,
+            String registrar,
+            SipTransportProtocol transportProtocol,
+            Duration connectTimeout)
+            throws IOException {
+        return switch (transportProtocol) {
+            // datagrams and TLS records are always served by the shared event loops.
+            case UDP ->
+                UdpSipTransport.connect(
+                        remoteSocketAddress,
+                        connectTimeout,
+                        NioEventLoopGroup.shared().next());
+            case TLS ->
+                TlsSipTransport.connect(
+                        remoteSocketAddress,
+                        registrar,
+                        connectTimeout,
+                        NioEventLoopGroup.shared().next(),
+                        defaultSslContext());
+            case TCP ->
+                switch (this.sipConfiguration.getIoMode()) {
+                    case BLOCKING -> SocketSipTransport.connect(remoteSocketAddress, connectTimeout);
+                    case NIO ->
+                        NioSipTransport.connect(
+                                remoteSocketAddress,
+                                connectTimeout,
+                                NioEventLoopGroup.shared().next());
+                };
+        };
+    }
 
-        final var remoteSocketAddress =
-                new InetSocketAddress(IpUtil.getRegistrarEndpoint(this.sipConfiguration.getRegistrar()), 5060);
+    private static List<InetSocketAddress> resolveRegistrar(
+            String registrar, SipTransportProtocol transportProtocol, Duration timeout) throws IOException {
+        try {
+            return RegistrarResolver.shared()
+                    .resolve(registrar, transportProtocol)
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException failed) {
+            if (failed.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
 
-        LOG.trace("Waiting for connection to succeed.");
-        socket.connect(
-                remoteSocketAddress,
-                Math.toIntExact(this.sipConfiguration.getConnectTimeout().toMillis()));
+            throw new IOException("Unable to resolve registrar: " + registrar, failed.getCause());
+        } catch (TimeoutException timeoutException) {
+            throw new IOException("Timed out resolving registrar: " + registrar, timeoutException);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving registrar: " + registrar, interrupted);
+        }
+    }
 
-        return socket;
+    /**
+     * The JVM's default context, whose client session cache is shared by all connections of the process.
+     */
+    private static SSLContext defaultSslContext() throws IOException {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IOException("No default TLS context available.", nsae);
+        }
     }
 }
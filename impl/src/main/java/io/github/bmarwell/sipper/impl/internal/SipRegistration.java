@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.internal;
+
+import io.github.bmarwell.sipper.api.RegistrationStateChangeEvent.RegistrationState;
+import io.github.bmarwell.sipper.api.SipConfiguration;
+import io.github.bmarwell.sipper.impl.event.DefaultRegistrationStateChangeEvent;
+import io.github.bmarwell.sipper.impl.ip.PublicAddressCache;
+import io.github.bmarwell.sipper.impl.proto.DigestAuthContext;
+import io.github.bmarwell.sipper.impl.proto.DigestChallengeParser;
+import io.github.bmarwell.sipper.impl.proto.GrantedExpiresParser;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipConnectionHeaders;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.SipMessageFactory;
+import io.github.bmarwell.sipper.impl.proto.ViaReceivedParser;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.TransactionKey;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registration of one connection at its registrar, including its periodic refresh.
+ *
+ * <p>Refreshes are scheduled on the process-wide {@link HashedTimingWheel} at a configurable fraction of the
+ * interval the registrar granted, moved forward by a random jitter. The REGISTER itself is sent from a
+ * virtual thread, so the wheel is never blocked.</p>
+ *
+ * <p>Every successful response tells which address the registrar saw in its Via header. The address is kept
+ * in the {@link PublicAddressCache}, and only if it differs from the Contact just registered, the
+ * registration is repeated once with the mapped address.</p>
+ */
+public class SipRegistration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SipRegistration.class);
+
+    /** Maximum share of the refresh delay by which a refresh is moved forward. */
+    static final double MAX_JITTER = 0.1d;
+
+    /** Delay of the next attempt after a refresh failed. */
+    static final Duration RETRY_DELAY = Duration.ofSeconds(30L);
+
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(1L);
+
+    private final ConnectedSipConnection sipConnection;
+    private final SipConfiguration sipConfiguration;
+    private final SipMessageFactory messageFactory;
+    private final HashedTimingWheel timingWheel;
+    private final PublicAddressCache publicAddressCache;
+    private final double refreshFraction;
+
+    private volatile HashedTimingWheel.Timeout refreshTimeout;
+    private volatile boolean cancelled = false;
+    private volatile boolean outboundSupported = false;
+
+    public SipRegistration(ConnectedSipConnection sipConnection, SipConfiguration sipConfiguration) {
+        this(sipConnection, sipConfiguration, HashedTimingWheel.shared(), PublicAddressCache.shared());
+    }
+
+    SipRegistration(
+            ConnectedSipConnection sipConnection,
+            SipConfiguration sipConfiguration,
+            HashedTimingWheel timingWheel,
+            PublicAddressCache publicAddressCache) {
+        this.sipConnection = sipConnection;
+        this.sipConfiguration = sipConfiguration;
+        this.messageFactory = new SipMessageFactory(sipConfiguration);
+        this.timingWheel = timingWheel;
+        this.publicAddressCache = publicAddressCache;
+        this.refreshFraction = sipConfiguration.getRegistrationRefreshFraction();
+
+        if (!(this.refreshFraction > 0.0d && this.refreshFraction < 1.0d)) {
+            throw new IllegalArgumentException(
+                    "Registration refresh fraction must be between 0 and 1, but was: " + this.refreshFraction);
+        }
+    }
+
+    /**
+     * Registers (again), authorizing preemptively once a challenge was answered.
+     *
+     * <p>A {@code 401} or {@code 407} marking the nonce as stale renews the nonce of the cached digest context.
+     * Any other challenge discards the cached context and is answered once with a new one; only if that answer
+     * is rejected as well, the credentials are wrong.</p>
+     *
+     * @return the registration interval in seconds the registrar granted.
+     * @throws IllegalStateException if the registrar did not accept the registration.
+     */
+    public long register() {
+        final var expires = this.sipConfiguration.getRegistrationExpires().toSeconds();
+
+        final var response = registerAndAuthorize(expires);
+        if (updatePublicAddress(response)) {
+            // the binding just created points to an address the registrar cannot reach; it simply expires.
+            LOG.debug("Registering again with public address [{}].", this.sipConnection.getPublicAddress());
+            return grantedExpires(registerAndAuthorize(expires), expires);
+        }
+
+        return grantedExpires(response, expires);
+    }
+
+    private RawSipMessage registerAndAuthorize(long expires) {
+        final var response = sendRegister(expires);
+        if (response.statusCode() == 200) {
+            LOG.debug("Registered.");
+            return response;
+        }
+
+        if (!DigestChallengeParser.isChallenge(response)) {
+            throw new IllegalStateException("register not successful: \n[" + response + "]");
+        }
+
+        final var challenge = DigestChallengeParser.parse(response);
+        final var authContext = this.sipConnection.getAuthContext();
+        if (authContext != null && challenge.stale()) {
+            this.sipConnection.setAuthContext(
+                    authContext.withNonce(challenge, this.sipConfiguration.getLoginPassword()));
+        } else {
+            if (authContext != null) {
+                // e.g. the registrar restarted and forgot its nonces.
+                LOG.debug("Registrar rejected the cached digest context, answering the new challenge.");
+            }
+            this.sipConnection.setAuthContext(DigestAuthContext.create(
+                    challenge, this.sipConfiguration.getLoginUserId(), this.sipConfiguration.getLoginPassword()));
+        }
+
+        final var loginResponse = sendRegister(expires);
+        if (loginResponse.statusCode() != 200) {
+            throw new IllegalStateException("login not successful: \n[" + loginResponse + "]");
+        }
+
+        LOG.debug("Login successful");
+        return loginResponse;
+    }
+
+    /**
+     * Learns the public address from the {@code received} and {@code rport} parameters of a response.
+     *
+     * @param response a successful response.
+     * @return {@code true} if the connection's public address changed and the registration must be repeated.
+     */
+    private boolean updatePublicAddress(RawSipMessage response) {
+        final var mapped = ViaReceivedParser.mappedAddress(response);
+        if (mapped.isEmpty()) {
+            return false;
+        }
+
+        final var publicAddress = mapped.orElseThrow();
+        this.publicAddressCache.update(this.sipConnection.getLocalAddress().getAddress(), publicAddress.getAddress());
+
+        if (publicAddress.equals(this.sipConnection.getPublicAddress())) {
+            return false;
+        }
+
+        LOG.debug("Registrar sees [{}] instead of [{}].", publicAddress, this.sipConnection.getPublicAddress());
+        this.sipConnection.setPublicAddress(publicAddress);
+        return true;
+    }
+
+    private RawSipMessage sendRegister(long expires) {
+        final var transactionKey = new TransactionKey(ClientTransactionLayer.newBranch(), "REGISTER");
+        final var register = this.messageFactory.getRegister(this.sipConnection, transactionKey.branch(), expires);
+
+        return awaitResponse(transactionKey, register);
+    }
+
+    private RawSipMessage awaitResponse(TransactionKey transactionKey, SipMessageBuffer request) {
+        return this.sipConnection
+                .sendRequest(transactionKey, request)
+                .orTimeout(this.sipConfiguration.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .join();
+    }
+
+    private long grantedExpires(RawSipMessage response, long requested) {
+        this.outboundSupported = supportsOutbound(response);
+
+        final var contactUri = "sip:" + this.sipConnection.getSipId() + "@"
+                + SipConnectionHeaders.hostPort(this.sipConnection.getPublicAddress());
+        final var granted = GrantedExpiresParser.grantedExpires(response, contactUri, requested);
+        LOG.debug("Registrar granted [{}] seconds.", granted);
+
+        return granted;
+    }
+
+    /**
+     * Checks whether the registrar supports outbound (RFC 5626), i.e. whether it answers keep-alive pings.
+     *
+     * @param response the successful response to a REGISTER.
+     * @return {@code true} if a {@code Require} or {@code Supported} header contains the option tag
+     *     {@code outbound}.
+     */
+    static boolean supportsOutbound(RawSipMessage response) {
+        final var headers = response.headers();
+        for (var name : new String[] {"Require", "Supported"}) {
+            for (var index = headers.indexOf(name); index != -1; index = headers.indexOf(name, index + 1)) {
+                for (var optionTag : headers.value(index).split(",")) {
+                    if ("outbound".equalsIgnoreCase(optionTag.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isOutboundSupported() {
+        return this.outboundSupported;
+    }
+
+    /**
+     * Schedules the refresh of a registration.
+     *
+     * @param grantedSeconds the registration interval the registrar granted.
+     */
+    public void scheduleRefresh(long grantedSeconds) {
+        scheduleRefresh(refreshDelay(
+                grantedSeconds,
+                this.refreshFraction,
+                ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        if (this.cancelled) {
+            return;
+        }
+
+        LOG.debug("Refreshing registration in [{}].", delay);
+        this.refreshTimeout = this.timingWheel.schedule(
+                () -> Thread.ofVirtual().name("sipper-register-refresh").start(this::refresh), delay);
+    }
+
+    private void refresh() {
+        if (this.cancelled) {
+            return;
+        }
+
+        try {
+            final var granted = register();
+            this.sipConnection.publish(new DefaultRegistrationStateChangeEvent(
+                    this.sipConnection.getCallId(), RegistrationState.REGISTERED));
+            scheduleRefresh(granted);
+        } catch (RuntimeException rtEx) {
+            LOG.warn("Unable to refresh registration, retrying in [{}].", RETRY_DELAY, rtEx);
+            this.sipConnection.publish(
+                    new DefaultRegistrationStateChangeEvent(this.sipConnection.getCallId(), RegistrationState.FAILED));
+            scheduleRefresh(RETRY_DELAY);
+        }
+    }
+
+    /**
+     * Computes when a registration is refreshed.
+     *
+     * @param grantedSeconds the registration interval the registrar granted.
+     * @param fraction the configured refresh fraction.
+     * @param random a random number between 0 (inclusive) and 1 (exclusive).
+     * @return the delay until the refresh.
+     */
+    static Duration refreshDelay(long grantedSeconds, double fraction, double random) {
+        final var nominal = grantedSeconds * 1_000.0d * fraction;
+        final var delay = Duration.ofMillis((long) (nominal - nominal * MAX_JITTER * random));
+
+        return delay.compareTo(MIN_REFRESH_DELAY) < 0 ? MIN_REFRESH_DELAY : delay;
+    }
+
+    /**
+     * Stops refreshing the registration.
+     */
+    public void cancel() {
+        this.cancelled = true;
+
+        final var timeout = this.refreshTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+}
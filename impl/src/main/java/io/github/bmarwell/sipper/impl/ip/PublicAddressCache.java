@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import java.net.InetAddress;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The public IPs learned so far, shared by all connections of the process.
+ *
+ * <p>Entries are keyed by the local IP, as connections leaving through different interfaces may be
+ * translated by different NATs. New connections start with the cached public IP instead of asking an
+ * external service, and each response keeps the entry current.</p>
+ */
+public final class PublicAddressCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PublicAddressCache.class);
+
+    private final ConcurrentHashMap<InetAddress, InetAddress> publicIps = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the process-wide cache.
+     *
+     * @return the shared cache.
+     */
+    public static PublicAddressCache shared() {
+        return SharedCacheHolder.SHARED;
+    }
+
+    /**
+     * Returns the public IP last learned for a local IP.
+     *
+     * @param localIp the local IP of a connection.
+     * @return the public IP, or empty if nothing was learned yet.
+     */
+    public Optional<InetAddress> get(InetAddress localIp) {
+        return Optional.ofNullable(this.publicIps.get(localIp));
+    }
+
+    /**
+     * Checks whether any public IP was learned yet.
+     *
+     * @return {@code true} if no connection of this process learned its public IP so far.
+     */
+    public boolean isEmpty() {
+        return this.publicIps.isEmpty();
+    }
+
+    /**
+     * Records the public IP for a local IP.
+     *
+     * @param localIp the local IP of a connection.
+     * @param publicIp the public IP the connection was seen with.
+     * @return {@code true} if the public IP differs from the one known before.
+     */
+    public boolean update(InetAddress localIp, InetAddress publicIp) {
+        final var previous = this.publicIps.put(localIp, publicIp);
+        if (publicIp.equals(previous)) {
+            return false;
+        }
+
+        LOG.debug("Public IP of [{}] is now [{}], was [{}].", localIp, publicIp, previous);
+        return true;
+    }
+
+    private static final class SharedCacheHolder {
+        private static final PublicAddressCache SHARED = new PublicAddressCache();
+    }
+}
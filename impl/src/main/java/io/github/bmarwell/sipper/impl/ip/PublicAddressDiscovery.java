@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import java.net.InetAddress;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Actively discovers the public IP of this host, for the first connection before any response could tell.
+ *
+ * <p>Once a connection received a response, its Via header is the authoritative source, see
+ * {@link io.github.bmarwell.sipper.impl.proto.ViaReceivedParser}.</p>
+ */
+@FunctionalInterface
+public interface PublicAddressDiscovery {
+
+    /**
+     * Starts discovering the public IP. Must not block.
+     *
+     * @return a future completing with the public IP, or empty if it could not be discovered.
+     */
+    CompletableFuture<Optional<InetAddress>> discover();
+
+    /**
+     * A discovery which never finds anything, so the first request uses the local address.
+     *
+     * @return the disabled discovery.
+     */
+    static PublicAddressDiscovery none() {
+        return () -> CompletableFuture.completedFuture(Optional.empty());
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import io.github.bmarwell.sipper.api.SipTransportProtocol;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.Address;
+import org.xbill.DNS.Cache;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Lookup;
+import org.xbill.DNS.NAPTRRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.NameTooLongException;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+import org.xbill.DNS.lookup.LookupSession;
+import org.xbill.DNS.lookup.NoSuchDomainException;
+import org.xbill.DNS.lookup.NoSuchRRSetException;
+
+/**
+ * Locates the registrar of a domain (RFC 3263, section 4).
+ *
+ * <p>NAPTR records select the SRV name for the transport, falling back to the well-known SRV name, and the SRV
+ * targets are resolved to addresses. Without any SRV record, the domain's own addresses are used with the
+ * default port. SRV records are ordered by priority and, within a priority, by a weighted random selection
+ * (RFC 2782), so load is spread as the domain's operator intended.</p>
+ *
+ * <p>All queries run on dnsjava's non-blocking resolver. Answers are kept in a cache for their TTL, and
+ * concurrent queries for the same name and type share one request, so a reconnect storm of many accounts
+ * at one registrar only results in a single query per record set.</p>
+ */
+public final class RegistrarResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrarResolver.class);
+
+    public static final int DEFAULT_PORT = 5060;
+
+    public static final int DEFAULT_TLS_PORT = 5061;
+
+    private final LookupSession lookupSession;
+    private final RandomGenerator random;
+
+    private final ConcurrentHashMap<Query, CompletableFuture<List<Record>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a resolver with its own cache.
+     *
+     * @param resolver the resolver which sends the queries.
+     */
+    public RegistrarResolver(Resolver resolver) {
+        this(resolver, RandomGenerator.getDefault());
+    }
+
+    RegistrarResolver(Resolver resolver, RandomGenerator random) {
+        this.lookupSession = LookupSession.builder()
+                .resolver(resolver)
+                .cache(new Cache(DClass.IN))
+                .clearSearchPath()
+                .build();
+        this.random = random;
+    }
+
+    /**
+     * Returns the process-wide resolver, which uses the system's name servers.
+     *
+     * @return the shared resolver.
+     */
+    public static RegistrarResolver shared() {
+        return SharedResolverHolder.SHARED;
+    }
+
+    /**
+     * Resolves the addresses of the registrar of a domain.
+     *
+     * @param domain the domain of the registrar, or an IP address.
+     * @param transportProtocol the transport protocol which will be used.
+     * @return a future completing with all addresses in the order they should be tried, or with an
+     *     {@link UnknownHostException} if there are none.
+     */
+    public CompletableFuture<List<InetSocketAddress>> resolve(String domain, SipTransportProtocol transportProtocol) {
+        final var defaultPort = transportProtocol == SipTransportProtocol.TLS ? DEFAULT_TLS_PORT : DEFAULT_PORT;
+
+        if (Address.isDottedQuad(domain) || domain.indexOf(':') != -1) {
+            try {
+                return CompletableFuture.completedFuture(
+                        List.of(new InetSocketAddress(InetAddress.getByName(domain), defaultPort)));
+            } catch (UnknownHostException uhe) {
+                return CompletableFuture.failedFuture(uhe);
+            }
+        }
+
+        final Name name;
+        try {
+            name = Name.fromString(domain, Name.root);
+        } catch (TextParseException tpe) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Illegal domain: " + domain, tpe));
+        }
+
+        return lookup(name, Type.NAPTR)
+                .thenCompose(naptrRecords -> resolveSrv(srvName(name, naptrRecords, transportProtocol)))
+                .thenCompose(srvRecords ->
+                        srvRecords.isEmpty() ? resolveAddresses(name, defaultPort) : resolveTargets(srvRecords))
+                .thenApply(addresses -> {
+                    if (addresses.isEmpty()) {
+                        throw new CompletionException(new UnknownHostException("No registrar found for: " + domain));
+                    }
+
+                    LOG.debug("Registrar [{}] resolved to [{}].", domain, addresses);
+                    return addresses;
+                });
+    }
+
+    /**
+     * Selects the SRV name for the transport from the NAPTR records (RFC 3263, section 4.1).
+     */
+    static Name srvName(Name domain, List<Record> naptrRecords, SipTransportProtocol transportProtocol) {
+        final var service =
+                switch (transportProtocol) {
+                    case UDP -> "SIP+D2U";
+                    case TCP -> "SIP+D2T";
+                    case TLS -> "SIPS+D2T";
+                };
+
+        final var selected = naptrRecords.stream()
+                .map(NAPTRRecord.class::cast)
+                .filter(naptr -> "s".equalsIgnoreCase(naptr.getFlags()))
+                .filter(naptr -> service.equalsIgnoreCase(naptr.getService()))
+                .min(Comparator.comparingInt(NAPTRRecord::getOrder).thenComparingInt(NAPTRRecord::getPreference));
+        if (selected.isPresent()) {
+            return selected.orElseThrow().getReplacement();
+        }
+
+        final var prefix =
+                switch (transportProtocol) {
+                    case UDP -> "_sip._udp";
+                    case TCP -> "_sip._tcp";
+                    case TLS -> "_sips._tcp";
+                };
+
+        try {
+            return Name.concatenate(Name.fromString(prefix), domain);
+        } catch (TextParseException | NameTooLongException ex) {
+            throw new IllegalArgumentException("Illegal domain: " + domain, ex);
+        }
+    }
+
+    private CompletableFuture<List<SRVRecord>> resolveSrv(Name srvName) {
+        return lookup(srvName, Type.SRV).thenApply(records -> {
+            final var srvRecords = records.stream().map(SRVRecord.class::cast).toList();
+            if (srvRecords.size() == 1 && srvRecords.get(0).getTarget().equals(Name.root)) {
+                // "." means the service is decidedly not available (RFC 2782).
+                return List.of();
+            }
+
+            return order(srvRecords, this.random);
+        });
+    }
+
+    private CompletableFuture<List<InetSocketAddress>> resolveTargets(List<SRVRecord> srvRecords) {
+        final var perTarget = srvRecords.stream()
+                .map(srv -> resolveAddresses(srv.getTarget(), srv.getPort()))
+                .toList();
+
+        return CompletableFuture.allOf(perTarget.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    final var addresses = new ArrayList<InetSocketAddress>();
+                    for (var target : perTarget) {
+                        addresses.addAll(target.join());
+                    }
+
+                    return List.copyOf(addresses);
+                });
+    }
+
+    /**
+     * Resolves both address families concurrently. IPv4 addresses come first, as a public IP discovered by STUN
+     * is usually an IPv4 address; the connect race alternates between the families from there.
+     *
+     * <p>Broken AAAA handling in resolvers and middleboxes is common, so a family whose lookup failed, e.g. by
+     * a timeout or SERVFAIL, counts as empty. Only if both fail, the host cannot be resolved.</p>
+     */
+    private CompletableFuture<List<InetSocketAddress>> resolveAddresses(Name host, int port) {
+        final var ipv4 = lookup(host, Type.A).handle(FamilyLookup::new);
+        final var ipv6 = lookup(host, Type.AAAA).handle(FamilyLookup::new);
+
+        return ipv4.thenCombine(ipv6, (a, aaaa) -> {
+            if (a.failed() && aaaa.failed()) {
+                throw new CompletionException(unwrap(a.error()));
+            }
+
+            if (a.failed() || aaaa.failed()) {
+                LOG.debug(
+                        "Ignoring failed lookup of one address family of [{}].",
+                        host,
+                        unwrap(a.failed() ? a.error() : aaaa.error()));
+            }
+
+            final var addresses = new ArrayList<InetSocketAddress>(
+                    a.records().size() + aaaa.records().size());
+            for (var rec : a.records()) {
+                addresses.add(new InetSocketAddress(((ARecord) rec).getAddress(), port));
+            }
+            for (var rec : aaaa.records()) {
+                addresses.add(new InetSocketAddress(((AAAARecord) rec).getAddress(), port));
+            }
+
+            return addresses;
+        });
+    }
+
+    /**
+     * The outcome of the lookup of one address family.
+     */
+    private record FamilyLookup(List<Record> result, Throwable error) {
+
+        boolean failed() {
+            return this.error != null;
+        }
+
+        List<Record> records() {
+            return failed() ? List.of() : this.result;
+        }
+    }
+
+    /**
+     * Looks up a record set, sharing the query with concurrent lookups of the same set.
+     *
+     * @return the records, which are empty if the name or the record set does not exist.
+     */
+    private CompletableFuture<List<Record>> lookup(Name name, int type) {
+        final var query = new Query(name, type);
+        final var pending = this.inFlight.get(query);
+        if (pending != null) {
+            return pending;
+        }
+
+        final var created = new CompletableFuture<List<Record>>();
+        final var existing = this.inFlight.putIfAbsent(query, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        this.lookupSession.lookupAsync(name, type).whenComplete((result, error) -> {
+            this.inFlight.remove(query, created);
+
+            if (error == null) {
+                created.complete(result.getRecords());
+            } else if (unwrap(error) instanceof NoSuchDomainException
+                    || unwrap(error) instanceof NoSuchRRSetException) {
+                created.complete(List.of());
+            } else {
+                LOG.debug("Lookup of [{}] [{}] failed.", name, Type.string(type), error);
+                created.completeExceptionally(unwrap(error));
+            }
+        });
+
+        return created;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Orders SRV records for selection (RFC 2782): by ascending priority, and within each priority by
+     * repeatedly picking a record at random with a probability proportional to its weight.
+     *
+     * @param srvRecords the records of one SRV name.
+     * @param random the source of randomness.
+     * @return the records in the order they should be tried.
+     */
+    static List<SRVRecord> order(List<SRVRecord> srvRecords, RandomGenerator random) {
+        final var sorted = new ArrayList<>(srvRecords);
+        sorted.sort(Comparator.comparingInt(SRVRecord::getPriority));
+
+        final var ordered = new ArrayList<SRVRecord>(sorted.size());
+        var groupStart = 0;
+        while (groupStart < sorted.size()) {
+            final var priority = sorted.get(groupStart).getPriority();
+            var groupEnd = groupStart;
+            while (groupEnd < sorted.size() && sorted.get(groupEnd).getPriority() == priority) {
+                groupEnd++;
+            }
+
+            final var group = new ArrayList<>(sorted.subList(groupStart, groupEnd));
+            // records with weight 0 go first (stable sort), so they have a very small chance of being selected.
+            group.sort((left, right) -> Boolean.compare(left.getWeight() != 0, right.getWeight() != 0));
+
+            while (!group.isEmpty()) {
+                var totalWeight = 0;
+                for (var srv : group) {
+                    totalWeight += srv.getWeight();
+                }
+
+                final var pick = random.nextInt(totalWeight + 1);
+                var runningSum = 0;
+                for (var iterator = group.iterator(); iterator.hasNext(); ) {
+                    final var srv = iterator.next();
+                    runningSum += srv.getWeight();
+                    if (runningSum >= pick) {
+                        ordered.add(srv);
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+
+            groupStart = groupEnd;
+        }
+
+        return ordered;
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrarResolver[inFlight=" + this.inFlight.size() + "]";
+    }
+
+    private record Query(Name name, int type) {}
+
+    private static final class SharedResolverHolder {
+        private static final RegistrarResolver SHARED = new RegistrarResolver(Lookup.getDefaultResolver());
+    }
+}
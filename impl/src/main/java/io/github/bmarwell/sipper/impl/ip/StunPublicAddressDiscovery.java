@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Discovers the public IP with a STUN binding request (RFC 5389) over UDP.
+ *
+ * <p>The request is retransmitted with a doubling timeout starting at 500 ms, until a response arrives or the
+ * overall timeout elapsed. The exchange runs on a virtual thread. Only the IP of the mapped address is used,
+ * as the port belongs to the STUN socket's own NAT binding.</p>
+ */
+public final class StunPublicAddressDiscovery implements PublicAddressDiscovery {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StunPublicAddressDiscovery.class);
+
+    public static final int DEFAULT_PORT = 3478;
+
+    static final int MAGIC_COOKIE = 0x2112A442;
+
+    static final short BINDING_REQUEST = 0x0001;
+    static final short BINDING_SUCCESS = 0x0101;
+    static final short MAPPED_ADDRESS = 0x0001;
+    static final short XOR_MAPPED_ADDRESS = 0x0020;
+
+    static final int HEADER_LENGTH = 20;
+
+    private static final int MAX_RESPONSE_LENGTH = 548;
+
+    private static final Duration INITIAL_RTO = Duration.ofMillis(500L);
+
+    private final String host;
+    private final int port;
+    private final Duration timeout;
+
+    /**
+     * Creates a discovery using the given STUN server.
+     *
+     * @param server the server as {@code host} or {@code host:port}.
+     * @param timeout the maximum time until the discovery gives up.
+     */
+    public StunPublicAddressDiscovery(String server, Duration timeout) {
+        final var colon = server.lastIndexOf(':');
+        if (colon != -1 && server.indexOf(':') == colon) {
+            this.host = server.substring(0, colon);
+            try {
+                this.port = Integer.parseInt(server.substring(colon + 1));
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Illegal STUN server: " + server, nfe);
+            }
+        } else {
+            this.host = server;
+            this.port = DEFAULT_PORT;
+        }
+
+        this.timeout = timeout;
+    }
+
+    @Override
+    public CompletableFuture<Optional<InetAddress>> discover() {
+        final var result = new CompletableFuture<Optional<InetAddress>>();
+
+        Thread.ofVirtual().name("sipper-stun").start(() -> {
+            try {
+                final var mapped = bindingRequest(new InetSocketAddress(this.host, this.port), this.timeout);
+                LOG.debug("STUN server [{}] mapped us to [{}].", this.host, mapped);
+                result.complete(Optional.of(mapped.getAddress()));
+            } catch (IOException | RuntimeException ex) {
+                LOG.debug("STUN binding request to [{}] failed.", this.host, ex);
+                result.complete(Optional.empty());
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Sends a binding request and waits for the response. Blocks.
+     *
+     * @param server the STUN server.
+     * @param timeout the maximum time to wait.
+     * @return the mapped address.
+     * @throws IOException if there was no valid response in time.
+     */
+    static InetSocketAddress bindingRequest(InetSocketAddress server, Duration timeout) throws IOException {
+        if (server.isUnresolved()) {
+            throw new UnknownHostException(server.getHostString());
+        }
+
+        final var transactionId = new byte[12];
+        ThreadLocalRandom.current().nextBytes(transactionId);
+        final var request = encodeBindingRequest(transactionId);
+
+        final var deadline = System.nanoTime() + timeout.toNanos();
+        try (var socket = new DatagramSocket()) {
+            socket.connect(server);
+            final var packet = new DatagramPacket(new byte[MAX_RESPONSE_LENGTH], MAX_RESPONSE_LENGTH);
+
+            var rto = INITIAL_RTO.toMillis();
+            while (true) {
+                final var remaining =
+                        Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                if (remaining <= 0L) {
+                    throw new SocketTimeoutException("No STUN response from " + server);
+                }
+
+                socket.send(new DatagramPacket(request.array(), request.limit()));
+                socket.setSoTimeout((int) Math.max(1L, Math.min(rto, remaining)));
+
+                try {
+                    socket.receive(packet);
+                    final var mapped = decodeBindingResponse(
+                            ByteBuffer.wrap(packet.getData(), 0, packet.getLength()), transactionId);
+                    if (mapped.isPresent()) {
+                        return mapped.orElseThrow();
+                    }
+                } catch (SocketTimeoutException retransmit) {
+                    rto *= 2;
+                }
+            }
+        }
+    }
+
+    static ByteBuffer encodeBindingRequest(byte[] transactionId) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .putShort(BINDING_REQUEST)
+                .putShort((short) 0)
+                .putInt(MAGIC_COOKIE)
+                .put(transactionId)
+                .flip();
+    }
+
+    /**
+     * Reads the mapped address from a binding success response, preferring XOR-MAPPED-ADDRESS.
+     *
+     * @return the mapped address, or empty if this is not the response to our request.
+     */
+    static Optional<InetSocketAddress> decodeBindingResponse(ByteBuffer response, byte[] transactionId)
+            throws UnknownHostException {
+        if (response.remaining() < HEADER_LENGTH
+                || response.getShort(0) != BINDING_SUCCESS
+                || response.getInt(4) != MAGIC_COOKIE) {
+            return Optional.empty();
+        }
+
+        final var receivedTransactionId = new byte[12];
+        response.get(8, receivedTransactionId);
+        if (!Arrays.equals(receivedTransactionId, transactionId)) {
+            return Optional.empty();
+        }
+
+        final var end = Math.min(response.limit(), HEADER_LENGTH + (response.getShort(2) & 0xFFFF));
+        InetSocketAddress mapped = null;
+
+        var pos = HEADER_LENGTH;
+        while (pos + 4 <= end) {
+            final var type = response.getShort(pos);
+            final var length = response.getShort(pos + 2) & 0xFFFF;
+            final var value = pos + 4;
+            if (value + length > end) {
+                break;
+            }
+
+            if (type == XOR_MAPPED_ADDRESS) {
+                return Optional.of(readAddress(response, value, true, transactionId));
+            }
+
+            if (type == MAPPED_ADDRESS) {
+                mapped = readAddress(response, value, false, transactionId);
+            }
+
+            // attributes are padded to a multiple of four bytes.
+            pos = value + ((length + 3) & ~3);
+        }
+
+        return Optional.ofNullable(mapped);
+    }
+
+    private static InetSocketAddress readAddress(ByteBuffer response, int pos, boolean xor, byte[] transactionId)
+            throws UnknownHostException {
+        final var family = response.get(pos + 1);
+        var port = response.getShort(pos + 2) & 0xFFFF;
+        final var address = new byte[family == 0x02 ? 16 : 4];
+        response.get(pos + 4, address);
+
+        if (xor) {
+            port ^= MAGIC_COOKIE >>> 16;
+
+            final var mask = ByteBuffer.allocate(16)
+                    .putInt(MAGIC_COOKIE)
+                    .put(transactionId)
+                    .array();
+            for (var i = 0; i < address.length; i++) {
+                address[i] ^= mask[i];
+            }
+        }
+
+        return new InetSocketAddress(InetAddress.getByAddress(address), port);
+    }
+
+    @Override
+    public String toString() {
+        return "StunPublicAddressDiscovery[" + this.host + ":" + this.port + "]";
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The digest authentication state of one connection (RFC 2617, RFC 8760), used to authorize requests
+ * preemptively.
+ *
+ * <p>{@code HA1} is computed once per challenge, and the nonce is reused with an incrementing nonce-count
+ * ({@code nc}) until the server marks it stale. Thus refreshes and other requests go out already authorized,
+ * without another round trip for a new challenge.</p>
+ */
+public final class DigestAuthContext {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String SESSION_SUFFIX = "-sess";
+
+    private final SipAuthenticationRequest challenge;
+    private final String username;
+    private final String qop;
+    private final String cnonce;
+    private final MessageDigest digest;
+    private final String ha1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Only accessed while holding the lock. */
+    private long nonceCount = 0L;
+
+    private DigestAuthContext(
+            SipAuthenticationRequest challenge, String username, String cnonce, MessageDigest digest, String ha1) {
+        this.challenge = challenge;
+        this.username = username;
+        // RFC 2069 compatibility: without offered qop, neither qop, nc nor cnonce are sent.
+        this.qop = challenge.offersQopAuth() ? "auth" : null;
+        this.cnonce = cnonce;
+        this.digest = digest;
+        this.ha1 = ha1;
+    }
+
+    /**
+     * Creates a context for a new challenge.
+     *
+     * @param challenge the challenge.
+     * @param username the login user.
+     * @param password the login password, which is not kept.
+     * @return the context.
+     * @throws IllegalArgumentException if the algorithm of the challenge is not supported.
+     */
+    public static DigestAuthContext create(SipAuthenticationRequest challenge, String username, String password) {
+        return create(challenge, username, password, newCnonce());
+    }
+
+    static DigestAuthContext create(
+            SipAuthenticationRequest challenge, String username, String password, String cnonce) {
+        final var digest = messageDigest(challenge.algorithm());
+
+        var ha1 = hash(digest, username + ":" + challenge.realm() + ":" + password);
+        if (isSession(challenge.algorithm())) {
+            ha1 = hash(digest, ha1 + ":" + challenge.nonce() + ":" + cnonce);
+        }
+
+        return new DigestAuthContext(challenge, username, cnonce, digest, ha1);
+    }
+
+    /**
+     * Takes over a new nonce after the server marked the old one as stale. {@code HA1} is reused if the realm
+     * and algorithm did not change and the algorithm is not a session variant.
+     *
+     * @param staleChallenge the new challenge.
+     * @param password the login password, only used if {@code HA1} has to be recomputed.
+     * @return the context for the new nonce, starting again with a nonce-count of 1.
+     */
+    public DigestAuthContext withNonce(SipAuthenticationRequest staleChallenge, String password) {
+        if (!this.challenge.realm().equals(staleChallenge.realm())
+                || !this.challenge.algorithm().equalsIgnoreCase(staleChallenge.algorithm())
+                || isSession(staleChallenge.algorithm())) {
+            return create(staleChallenge, this.username, password);
+        }
+
+        return new DigestAuthContext(
+                staleChallenge, this.username, newCnonce(), messageDigest(staleChallenge.algorithm()), this.ha1);
+    }
+
+    /**
+     * Computes the credentials for the next request.
+     *
+     * @param method the request method, e.g. {@code REGISTER}.
+     * @param uri the request URI.
+     * @return the value of the {@link #headerName()} header.
+     */
+    public String authorize(String method, String uri) {
+        final String ncHex;
+        final String response;
+
+        this.lock.lock();
+        try {
+            // nc is 8 hex digits (RFC 2617, section 3.2.2).
+            ncHex = HEX.toHexDigits((int) ++this.nonceCount);
+            final var ha2 = hash(this.digest, method + ":" + uri);
+            response = this.qop == null
+                    ? hash(this.digest, this.ha1 + ":" + this.challenge.nonce() + ":" + ha2)
+                    : hash(
+                            this.digest,
+                            this.ha1 + ":" + this.challenge.nonce() + ":" + ncHex + ":" + this.cnonce + ":" + this.qop
+                                    + ":" + ha2);
+        } finally {
+            this.lock.unlock();
+        }
+
+        final var authValue = new StringBuilder(256)
+                .append("Digest realm=\"")
+                .append(this.challenge.realm())
+                .append("\", nonce=\"")
+                .append(this.challenge.nonce())
+                .append("\", algorithm=")
+                .append(this.challenge.algorithm())
+                .append(", username=\"")
+                .append(this.username)
+                .append("\", uri=\"")
+                .append(uri)
+                .append("\", response=\"")
+                .append(response)
+                .append('"');
+
+        if (this.qop != null) {
+            authValue
+                    .append(", cnonce=\"")
+                    .append(this.cnonce)
+                    .append("\", nc=")
+                    .append(ncHex)
+                    .append(", qop=")
+                    .append(this.qop);
+        }
+
+        if (this.challenge.opaque() != null) {
+            authValue.append(", opaque=\"").append(this.challenge.opaque()).append('"');
+        }
+
+        return authValue.toString();
+    }
+
+    /**
+     * The header to send the credentials in.
+     *
+     * @return {@code Proxy-Authorization} for proxy challenges, {@code Authorization} otherwise.
+     */
+    public String headerName() {
+        return this.challenge.proxy() ? "Proxy-Authorization" : "Authorization";
+    }
+
+    public String realm() {
+        return this.challenge.realm();
+    }
+
+    public String nonce() {
+        return this.challenge.nonce();
+    }
+
+    private static String hash(MessageDigest digest, String value) {
+        return HEX.formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static boolean isSession(String algorithm) {
+        return algorithm.toLowerCase(Locale.ROOT).endsWith(SESSION_SUFFIX);
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        final var lowerAlgorithm = algorithm.toLowerCase(Locale.ROOT);
+        final var baseAlgorithm = lowerAlgorithm.endsWith(SESSION_SUFFIX)
+                ? lowerAlgorithm.substring(0, lowerAlgorithm.length() - SESSION_SUFFIX.length())
+                : lowerAlgorithm;
+
+        try {
+            return switch (baseAlgorithm) {
+                case "md5" -> MessageDigest.getInstance("MD5");
+                case "sha-256" -> MessageDigest.getInstance("SHA-256");
+                case "sha-512-256" -> MessageDigest.getInstance("SHA-512/256");
+                default -> throw new IllegalArgumentException("Problem with login algorithm: " + algorithm);
+            };
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalArgumentException("Problem with login algorithm: " + algorithm, nsae);
+        }
+    }
+
+    private static String newCnonce() {
+        return HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-pass parser for the value of {@code WWW-Authenticate} and {@code Proxy-Authenticate} headers.
+ *
+ * <p>The auth-params (RFC 2617, section 3.2.1) are read left to right in one pass without regular expressions.
+ * Parameters may appear in any order, values may be tokens or quoted strings (including escaped characters),
+ * and unknown parameters are skipped.</p>
+ */
+public final class DigestChallengeParser {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DigestChallengeParser.class);
+
+    private static final String DIGEST = "Digest";
+    private static final String WWW_AUTHENTICATE = "WWW-Authenticate";
+    private static final String PROXY_AUTHENTICATE = "Proxy-Authenticate";
+
+    private DigestChallengeParser() {
+        // util class
+    }
+
+    /**
+     * Checks whether the given message is a {@code 401} or {@code 407} response carrying a challenge.
+     *
+     * @param message the received message.
+     * @return {@code true} if {@link #parse(RawSipMessage)} can be called.
+     */
+    public static boolean isChallenge(RawSipMessage message) {
+        return switch (message.statusCode()) {
+            case 401 -> message.headers().contains(WWW_AUTHENTICATE);
+            case 407 -> message.headers().contains(PROXY_AUTHENTICATE);
+            default -> false;
+        };
+    }
+
+    /**
+     * Extracts the first usable digest challenge from a {@code 401} or {@code 407} response.
+     *
+     * <p>A server may offer several challenges, e.g. one per algorithm.</p>
+     *
+     * @param response the response.
+     * @return the parsed challenge.
+     * @throws IllegalArgumentException if the response does not contain any usable digest challenge.
+     */
+    public static SipAuthenticationRequest parse(RawSipMessage response) {
+        LOG.trace("Parsing message: [{}].", response);
+        final var proxy = response.statusCode() == 407;
+        final var challengeHeader = proxy ? PROXY_AUTHENTICATE : WWW_AUTHENTICATE;
+        final var headers = response.headers();
+
+        IllegalArgumentException firstProblem = null;
+        for (var index = headers.indexOf(challengeHeader);
+                index != -1;
+                index = headers.indexOf(challengeHeader, index + 1)) {
+            try {
+                return parse(headers.value(index), proxy);
+            } catch (IllegalArgumentException iae) {
+                LOG.debug("Skipping unusable challenge.", iae);
+                if (firstProblem == null) {
+                    firstProblem = iae;
+                }
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Message has illegal content, no usable '" + challengeHeader + "' header: " + response, firstProblem);
+    }
+
+    /**
+     * Parses a digest challenge.
+     *
+     * @param challenge the header value, e.g. {@code Digest realm="example.com", nonce="abc", qop="auth"}.
+     * @param proxy whether the value was taken from a {@code Proxy-Authenticate} header.
+     * @return the parsed challenge.
+     * @throws IllegalArgumentException if the challenge is not a digest challenge or lacks realm or nonce.
+     */
+    public static SipAuthenticationRequest parse(CharSequence challenge, boolean proxy) {
+        var pos = skipWhitespace(challenge, 0);
+
+        if (!regionMatchesIgnoreCase(challenge, pos, DIGEST)
+                || (pos + DIGEST.length() < challenge.length()
+                        && !isWhitespace(challenge.charAt(pos + DIGEST.length())))) {
+            throw new IllegalArgumentException("Not a digest challenge: " + challenge);
+        }
+        pos += DIGEST.length();
+
+        String algorithm = "MD5";
+        String realm = null;
+        String nonce = null;
+        String opaque = null;
+        String qop = null;
+        var stale = false;
+
+        final var length = challenge.length();
+        while (true) {
+            pos = skipSeparators(challenge, pos);
+            if (pos >= length) {
+                break;
+            }
+
+            // name
+            final var nameStart = pos;
+            while (pos < length && isTokenChar(challenge.charAt(pos))) {
+                pos++;
+            }
+            final var nameEnd = pos;
+            if (nameEnd == nameStart) {
+                throw new IllegalArgumentException(
+                        "Illegal character at position " + pos + " in challenge: " + challenge);
+            }
+
+            pos = skipWhitespace(challenge, pos);
+            if (pos >= length || challenge.charAt(pos) != '=') {
+                throw new IllegalArgumentException(
+                        "Missing value for parameter at position " + nameStart + " in challenge: " + challenge);
+            }
+            pos = skipWhitespace(challenge, pos + 1);
+
+            // value
+            final String value;
+            if (pos < length && challenge.charAt(pos) == '"') {
+                final var valueEnd = findClosingQuote(challenge, pos + 1);
+                value = unquote(challenge, pos + 1, valueEnd);
+                pos = valueEnd + 1;
+            } else {
+                final var valueStart = pos;
+                while (pos < length && challenge.charAt(pos) != ',' && !isWhitespace(challenge.charAt(pos))) {
+                    pos++;
+                }
+                value = challenge.subSequence(valueStart, pos).toString();
+            }
+
+            switch (nameEnd - nameStart) {
+                case 3 -> {
+                    if (regionMatchesIgnoreCase(challenge, nameStart, "qop")) {
+                        qop = value;
+                    }
+                }
+                case 5 -> {
+                    if (regionMatchesIgnoreCase(challenge, nameStart, "realm")) {
+                        realm = value;
+                    } else if (regionMatchesIgnoreCase(challenge, nameStart, "nonce")) {
+                        nonce = value;
+                    } else if (regionMatchesIgnoreCase(challenge, nameStart, "stale")) {
+                        stale = "true".equalsIgnoreCase(value);
+                    }
+                }
+                case 6 -> {
+                    if (regionMatchesIgnoreCase(challenge, nameStart, "opaque")) {
+                        opaque = value;
+                    }
+                }
+                case 9 -> {
+                    if (regionMatchesIgnoreCase(challenge, nameStart, "algorithm")) {
+                        algorithm = value;
+                    }
+                }
+                default -> {
+                    // domain and extension parameters are not needed.
+                }
+            }
+        }
+
+        if (realm == null) {
+            throw new IllegalArgumentException("Message has illegal content, no match for realm: " + challenge);
+        }
+
+        if (nonce == null) {
+            throw new IllegalArgumentException("Message has illegal content, no match for nonce: " + challenge);
+        }
+
+        return new SipAuthenticationRequest(algorithm, realm, nonce, splitQop(qop), opaque, stale, proxy);
+    }
+
+    private static List<String> splitQop(String qop) {
+        if (qop == null) {
+            return List.of();
+        }
+
+        final var options = new ArrayList<String>(2);
+        var start = 0;
+        for (var i = 0; i <= qop.length(); i++) {
+            if (i == qop.length() || qop.charAt(i) == ',') {
+                final var option = qop.substring(start, i).trim();
+                if (!option.isEmpty()) {
+                    options.add(option);
+                }
+                start = i + 1;
+            }
+        }
+
+        return options;
+    }
+
+    private static int findClosingQuote(CharSequence challenge, int from) {
+        for (var i = from; i < challenge.length(); i++) {
+            final var current = challenge.charAt(i);
+            if (current == '\\') {
+                i++;
+            } else if (current == '"') {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Unterminated quoted string in challenge: " + challenge);
+    }
+
+    private static String unquote(CharSequence challenge, int from, int to) {
+        for (var i = from; i < to; i++) {
+            if (challenge.charAt(i) == '\\') {
+                final var unescaped = new StringBuilder(to - from);
+                for (var j = from; j < to; j++) {
+                    final var current = challenge.charAt(j);
+                    if (current == '\\' && j + 1 < to) {
+                        j++;
+                        unescaped.append(challenge.charAt(j));
+                    } else {
+                        unescaped.append(current);
+                    }
+                }
+
+                return unescaped.toString();
+            }
+        }
+
+        return challenge.subSequence(from, to).toString();
+    }
+
+    private static int skipSeparators(CharSequence challenge, int from) {
+        var pos = from;
+        while (pos < challenge.length() && (challenge.charAt(pos) == ',' || isWhitespace(challenge.charAt(pos)))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static int skipWhitespace(CharSequence challenge, int from) {
+        var pos = from;
+        while (pos < challenge.length() && isWhitespace(challenge.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence challenge, int offset, String expected) {
+        if (offset + expected.length() > challenge.length()) {
+            return false;
+        }
+
+        for (var i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(challenge.charAt(offset + i)) != Character.toLowerCase(expected.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isWhitespace(char current) {
+        return current == ' ' || current == '\t' || current == '\r' || current == '\n';
+    }
+
+    /**
+     * Token characters as defined in RFC 3261, section 25.1.
+     */
+    private static boolean isTokenChar(char current) {
+        return (current >= 'a' && current <= 'z')
+                || (current >= 'A' && current <= 'Z')
+                || (current >= '0' && current <= '9')
+                || "-.!%*_+`'~".indexOf(current) != -1;
+    }
+}
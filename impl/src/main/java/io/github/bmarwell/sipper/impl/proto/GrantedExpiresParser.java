@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.util.Locale;
+
+/**
+ * Reads the registration interval a registrar granted from its {@code 200 OK} to a REGISTER (RFC 3261,
+ * section 10.3, step 8).
+ *
+ * <p>The registrar may shorten (or, with {@code 423}, lengthen) the requested interval. The {@code expires}
+ * parameter of the Contact which matches our binding takes precedence over the {@code Expires} header.</p>
+ */
+public final class GrantedExpiresParser {
+
+    private static final String EXPIRES_PARAM = "expires=";
+
+    private GrantedExpiresParser() {
+        // util class
+    }
+
+    /**
+     * Returns the granted expiration interval.
+     *
+     * @param response the 200 OK response to the REGISTER.
+     * @param contactUri our contact URI as sent in the request, without angle brackets.
+     * @param requested the interval in seconds which was requested.
+     * @return the granted interval in seconds, or {@code requested} if the response does not contain one.
+     */
+    public static long grantedExpires(RawSipMessage response, String contactUri, long requested) {
+        final var headers = response.headers();
+        final var lowerContactUri = contactUri.toLowerCase(Locale.ROOT);
+
+        for (var contact : headers.all("Contact")) {
+            // one header may carry several comma-separated bindings, e.g. of other devices.
+            for (var binding : contact.split(",")) {
+                if (!binding.toLowerCase(Locale.ROOT).contains(lowerContactUri)) {
+                    continue;
+                }
+
+                final var expires = parameter(binding);
+                if (expires >= 0L) {
+                    return expires;
+                }
+            }
+        }
+
+        return headers.first("Expires")
+                .map(GrantedExpiresParser::parseSeconds)
+                .filter(seconds -> seconds >= 0L)
+                .orElse(requested);
+    }
+
+    private static long parameter(String binding) {
+        final var lowerBinding = binding.toLowerCase(Locale.ROOT);
+        final var uriEnd = Math.max(0, lowerBinding.indexOf('>'));
+        final var paramStart = lowerBinding.indexOf(EXPIRES_PARAM, uriEnd);
+        if (paramStart < 1 || lowerBinding.charAt(paramStart - 1) != ';') {
+            return -1L;
+        }
+
+        var end = paramStart + EXPIRES_PARAM.length();
+        while (end < binding.length() && Character.isDigit(binding.charAt(end))) {
+            end++;
+        }
+
+        return parseSeconds(binding.substring(paramStart + EXPIRES_PARAM.length(), end));
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException nfe) {
+            return -1L;
+        }
+    }
+}
@@ -15,37 +15,276 @@
  */
 package io.github.bmarwell.sipper.impl.proto;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps inbound messages which were not consumed by a client transaction until somebody takes them.
+ *
+ * <p>Messages are indexed by Call-ID, CSeq number and branch, so matching and removing a message is a
+ * single hash lookup. The store is bounded twice: by capacity, where the oldest message is dropped
+ * first, and by age, so orphaned responses (e.g. arriving after their transaction timed out) do not
+ * accumulate on long-lived connections. Every dropped message is counted.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
 public class QueueingSipIncomingMessageHandler implements SipIncomingMessageHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueingSipIncomingMessageHandler.class);
 
-    private final ArrayList<RawSipMessage> messages = new ArrayList<>();
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(32L);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Insertion-ordered, so the eldest entry is always the first one. */
+    private final LinkedHashMap<MessageKey, StoredMessage> messages = new LinkedHashMap<>();
+
+    private final int capacity;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder overflowDrops = new LongAdder();
+    private final LongAdder expiredDrops = new LongAdder();
+    private final LongAdder duplicateDrops = new LongAdder();
+    private final LongAdder unsupportedDrops = new LongAdder();
+
+    public QueueingSipIncomingMessageHandler() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_AGE);
+    }
+
+    public QueueingSipIncomingMessageHandler(int capacity, Duration maxAge) {
+        this(capacity, maxAge, System::nanoTime);
+    }
+
+    QueueingSipIncomingMessageHandler(int capacity, Duration maxAge, LongSupplier nanoClock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, but was: " + capacity);
+        }
+
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Maximum age must be positive, but was: " + maxAge);
+        }
+
+        this.capacity = capacity;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.nanoClock = nanoClock;
+    }
 
     @Override
     public void accept(RawSipMessage sipMessage) {
         LOG.trace("Incoming message:\n[{}]", sipMessage);
 
+        final MessageKey key;
+        try {
+            key = MessageKey.of(sipMessage);
+        } catch (IllegalArgumentException invalidMessage) {
+            LOG.debug("Dropping message without valid CSeq: [{}].", sipMessage, invalidMessage);
+            this.unsupportedDrops.increment();
+            return;
+        }
+
         switch (sipMessage.method()) {
-            case "REGISTER":
-                this.messages.add(sipMessage);
-                break;
-            case "INVITE":
-            default:
-                throw new UnsupportedOperationException(
-                        "not yet implemented: [io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler::accept].");
+            case "REGISTER" -> store(key, sipMessage);
+            default -> {
+                // INVITE etc. are not handled yet.
+                LOG.debug("Dropping unsupported message [{}].", key);
+                this.unsupportedDrops.increment();
+            }
+        }
+    }
+
+    private void store(MessageKey key, RawSipMessage sipMessage) {
+        final var now = this.nanoClock.getAsLong();
+
+        this.lock.lock();
+        try {
+            evictExpired(now);
+
+            if (this.messages.containsKey(key)) {
+                // retransmission of a message which was not consumed yet.
+                this.duplicateDrops.increment();
+                return;
+            }
+
+            if (this.messages.size() >= this.capacity) {
+                final var eldest = this.messages.entrySet().iterator();
+                LOG.debug(
+                        "Inbound message store full, dropping [{}].",
+                        eldest.next().getKey());
+                eldest.remove();
+                this.overflowDrops.increment();
+            }
+
+            this.messages.put(key, new StoredMessage(sipMessage, now));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the message with the given key.
+     *
+     * @param key the Call-ID, CSeq number and branch of the wanted message.
+     * @return the message, or empty if there is none or it has expired.
+     */
+    public Optional<RawSipMessage> take(MessageKey key) {
+        final var now = this.nanoClock.getAsLong();
+
+        this.lock.lock();
+        try {
+            final var stored = this.messages.remove(key);
+            if (stored == null) {
+                return Optional.empty();
+            }
+
+            if (isExpired(stored, now)) {
+                this.expiredDrops.increment();
+                return Optional.empty();
+            }
+
+            return Optional.of(stored.message());
+        } finally {
+            this.lock.unlock();
         }
     }
 
+    /**
+     * Returns a snapshot of all stored messages, oldest first.
+     *
+     * @return the messages which have not been consumed or evicted yet.
+     */
     public List<RawSipMessage> getMessages() {
-        return List.copyOf(this.messages);
+        final var now = this.nanoClock.getAsLong();
+
+        this.lock.lock();
+        try {
+            evictExpired(now);
+
+            final var snapshot = new ArrayList<RawSipMessage>(this.messages.size());
+            for (var stored : this.messages.values()) {
+                snapshot.add(stored.message());
+            }
+
+            return List.copyOf(snapshot);
+        } finally {
+            this.lock.unlock();
+        }
     }
 
     public void remove(RawSipMessage message) {
-        this.messages.remove(message);
+        this.lock.lock();
+        try {
+            this.messages.values().removeIf(stored -> stored.message() == message);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts all messages which are older than the maximum age.
+     */
+    public void evictExpired() {
+        final var now = this.nanoClock.getAsLong();
+
+        this.lock.lock();
+        try {
+            evictExpired(now);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void evictExpired(long now) {
+        // entries are in arrival order, so the scan stops at the first one which is still young enough.
+        final var iterator = this.messages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final var entry = iterator.next();
+            if (!isExpired(entry.getValue(), now)) {
+                break;
+            }
+
+            LOG.debug("Evicting orphaned message [{}].", entry.getKey());
+            iterator.remove();
+            this.expiredDrops.increment();
+        }
+    }
+
+    private boolean isExpired(StoredMessage stored, long now) {
+        return now - stored.receivedAt() > this.maxAgeNanos;
     }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.messages.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stored messages evicted because the store was full. Published to applications as
+     * {@link io.github.bmarwell.sipper.api.SipConnectionStatistics#overflowDrops()}.
+     *
+     * @return the number of evicted messages.
+     */
+    public long getOverflowDrops() {
+        return this.overflowDrops.sum();
+    }
+
+    /**
+     * Returns the number of stored messages evicted because they were not taken in time.
+     *
+     * @return the number of expired messages.
+     */
+    public long getExpiredDrops() {
+        return this.expiredDrops.sum();
+    }
+
+    /**
+     * Returns the number of retransmissions of messages which were still stored.
+     *
+     * @return the number of duplicates.
+     */
+    public long getDuplicateDrops() {
+        return this.duplicateDrops.sum();
+    }
+
+    /**
+     * Returns the number of messages not stored because their method is not supported or they were invalid.
+     *
+     * @return the number of unsupported messages.
+     */
+    public long getUnsupportedDrops() {
+        return this.unsupportedDrops.sum();
+    }
+
+    /**
+     * Identifies a stored message.
+     *
+     * @param callId the Call-ID, or an empty String if the message has none.
+     * @param cseq the CSeq number.
+     * @param branch the branch of the top Via header, or an empty String if the message has none.
+     */
+    public record MessageKey(String callId, long cseq, String branch) {
+
+        public static MessageKey of(RawSipMessage message) {
+            return new MessageKey(
+                    message.callId().orElse(""),
+                    message.cseq(),
+                    message.branch().orElse(""));
+        }
+    }
+
+    private record StoredMessage(RawSipMessage message, long receivedAt) {}
 }
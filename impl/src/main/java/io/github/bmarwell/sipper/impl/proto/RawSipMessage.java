@@ -15,49 +15,351 @@
  */
 package io.github.bmarwell.sipper.impl.proto;
 
-import java.util.AbstractMap;
-import java.util.LinkedHashMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Locale;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * A SIP message as received from the wire.
+ *
+ * <p>Only the start line is looked at eagerly. Headers are indexed on first access (see {@link SipHeaderIndex})
+ * and their values are materialized only when requested.</p>
+ *
+ * <p>The header and body bytes share one array. The body is exposed as a read-only view of its bytes, exactly
+ * {@code Content-Length} long, and only decoded if somebody asks for {@link #bodyText()}, using the charset of
+ * the {@code Content-Type}. SDP, multipart and binary payloads thus pass through without being transcoded.</p>
+ */
+public final class RawSipMessage {
+
+    private static final byte[] SIP_VERSION = "SIP/2.0 ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BRANCH_PARAM = ";branch=".getBytes(StandardCharsets.US_ASCII);
+    private static final String CHARSET_PARAM = "charset=";
+
+    private final byte[] raw;
+    private final int headerLength;
+    private final int bodyLength;
+    private final int statusCode;
+
+    private volatile String bodyText;
+
+    private volatile SipHeaderIndex headerIndex;
+    private volatile String rawMessageHeader;
+    private volatile String method;
+    private volatile long cseq = -1L;
 
-public record RawSipMessage(String rawMessageHeader, String method, Map<String, String> header, char[] rawBody) {
     public RawSipMessage(final String rawMessageHeader) {
-        this(rawMessageHeader, getMethod(rawMessageHeader), getHeaders(rawMessageHeader), new char[0]);
+        this(rawMessageHeader.getBytes(StandardCharsets.UTF_8), new byte[0]);
     }
 
-    public RawSipMessage(final String rawMessageHeader, final char[] body) {
-        this(rawMessageHeader, getMethod(rawMessageHeader), getHeaders(rawMessageHeader), body);
+    public RawSipMessage(final String rawMessageHeader, final byte[] body) {
+        this(rawMessageHeader.getBytes(StandardCharsets.UTF_8), body);
     }
 
-    private static Map<String, String> getHeaders(final String rawMessageHeader) {
-        try {
-            final Map<String, String> headers = rawMessageHeader
-                    .lines()
-                    .skip(1L)
-                    .filter(line -> line.contains(":"))
-                    .map(line -> {
-                        var linesplit = line.split(":", 2);
-                        return (Map.Entry<String, String>) new AbstractMap.SimpleEntry<>(linesplit[0], linesplit[1]);
-                    })
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, LinkedHashMap::new));
-            return Map.copyOf(headers);
-        } catch (Exception anyEx) {
-            throw new IllegalArgumentException("Invalid headers: " + rawMessageHeader);
-        }
-    }
-
-    private static String getMethod(final String rawMessageHeader) {
-        return rawMessageHeader
-                .lines()
-                // find method line
-                .filter(line -> line.toLowerCase(Locale.ROOT).startsWith("cseq:"))
-                .findFirst()
-                .orElseThrow()
-                .split(" ")[2];
+    private RawSipMessage(final byte[] header, final byte[] body) {
+        this(concat(header, body), header.length, body.length);
+    }
+
+    /**
+     * Creates a message from its raw bytes.
+     *
+     * @param raw the start line and headers, directly followed by the body, as received. Not copied.
+     * @param headerLength the length of the start line and headers including the empty line.
+     * @param bodyLength the length of the body in bytes.
+     */
+    public RawSipMessage(final byte[] raw, final int headerLength, final int bodyLength) {
+        if (headerLength < 0 || bodyLength < 0 || headerLength + bodyLength > raw.length) {
+            throw new IllegalArgumentException("Illegal message lengths: header=" + headerLength + ", body="
+                    + bodyLength + ", available=" + raw.length);
+        }
+
+        this.raw = raw;
+        this.headerLength = headerLength;
+        this.bodyLength = bodyLength;
+        this.statusCode = parseStatusCode(raw, headerLength);
+    }
+
+    private static byte[] concat(byte[] header, byte[] body) {
+        final var raw = new byte[header.length + body.length];
+        System.arraycopy(header, 0, raw, 0, header.length);
+        System.arraycopy(body, 0, raw, header.length, body.length);
+        return raw;
+    }
+
+    /**
+     * Parses the status code of a status line ({@code SIP/2.0 200 OK}) without creating a String.
+     *
+     * @return the status code, or -1 if the message is a request.
+     */
+    private static int parseStatusCode(byte[] header, int headerLength) {
+        if (headerLength < SIP_VERSION.length + 3) {
+            return -1;
+        }
+
+        for (var i = 0; i < SIP_VERSION.length; i++) {
+            if (header[i] != SIP_VERSION[i]) {
+                return -1;
+            }
+        }
+
+        var code = 0;
+        for (var i = SIP_VERSION.length; i < SIP_VERSION.length + 3; i++) {
+            final var digit = header[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            code = code * 10 + digit;
+        }
+
+        return code;
+    }
+
+    public boolean isResponse() {
+        return this.statusCode != -1;
+    }
+
+    /**
+     * Returns the status code of a response.
+     *
+     * @return the status code, or -1 if this message is a request.
+     */
+    public int statusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * Returns the header index, which is built on first access.
+     *
+     * @return the headers of this message.
+     */
+    public SipHeaderIndex headers() {
+        var index = this.headerIndex;
+        if (index == null) {
+            index = SipHeaderIndex.parse(this.raw, this.headerLength);
+            this.headerIndex = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the sequence number of the {@code CSeq} header.
+     *
+     * @return the sequence number.
+     * @throws IllegalArgumentException if the message has no valid CSeq header.
+     */
+    public long cseq() {
+        if (this.cseq == -1L) {
+            parseCseq();
+        }
+
+        return this.cseq;
+    }
+
+    /**
+     * Returns the method of the {@code CSeq} header, which for responses is the method of the answered request.
+     *
+     * @return the method, e.g. {@code REGISTER}.
+     * @throws IllegalArgumentException if the message has no valid CSeq header.
+     */
+    public String method() {
+        if (this.method == null) {
+            parseCseq();
+        }
+
+        return this.method;
+    }
+
+    private void parseCseq() {
+        final var index = headers();
+        final var cseqIndex = index.indexOf("CSeq");
+        if (cseqIndex == -1) {
+            throw new IllegalArgumentException("Invalid headers, no CSeq: " + rawMessageHeader());
+        }
+
+        final var start = index.valueStart(cseqIndex);
+        final var end = index.valueEnd(cseqIndex);
+        var pos = start;
+        var number = 0L;
+        while (pos < end && this.raw[pos] >= '0' && this.raw[pos] <= '9') {
+            number = number * 10 + (this.raw[pos] - '0');
+            pos++;
+        }
+
+        if (pos == start || pos == end || (this.raw[pos] != ' ' && this.raw[pos] != '\t')) {
+            throw new IllegalArgumentException("Invalid CSeq header: " + index.value(cseqIndex));
+        }
+
+        while (pos < end && (this.raw[pos] == ' ' || this.raw[pos] == '\t')) {
+            pos++;
+        }
+
+        this.cseq = number;
+        this.method = new String(this.raw, pos, end - pos, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the value of the {@code Call-ID} header.
+     *
+     * @return the Call-ID, or empty if the message has none.
+     */
+    public Optional<String> callId() {
+        return headers().first("Call-ID");
+    }
+
+    /**
+     * Returns the branch parameter of the top-most Via header, which identifies the transaction.
+     *
+     * @return the branch parameter, or empty if there is no Via header or it has no branch.
+     */
+    public Optional<String> branch() {
+        final var index = headers();
+        final var viaIndex = index.indexOf("Via");
+        if (viaIndex == -1) {
+            return Optional.empty();
+        }
+
+        final var end = index.valueEnd(viaIndex);
+        for (var pos = index.valueStart(viaIndex); pos + BRANCH_PARAM.length <= end; pos++) {
+            if (this.raw[pos] == ',') {
+                // only look at the first via-parm of a comma-separated Via header.
+                break;
+            }
+
+            if (regionMatchesIgnoreCase(pos, BRANCH_PARAM)) {
+                final var start = pos + BRANCH_PARAM.length;
+                var stop = start;
+                while (stop < end && this.raw[stop] != ';' && this.raw[stop] != ',' && this.raw[stop] > ' ') {
+                    stop++;
+                }
+
+                return Optional.of(new String(this.raw, start, stop - start, StandardCharsets.US_ASCII));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean regionMatchesIgnoreCase(int offset, byte[] lowerCase) {
+        for (var i = 0; i < lowerCase.length; i++) {
+            final var current = this.raw[offset + i];
+            final var lower = current >= 'A' && current <= 'Z' ? current + ('a' - 'A') : current;
+            if (lower != lowerCase[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the raw bytes which the offsets of {@link #headers()} point into. Must not be modified.
+     *
+     * @return the start line and headers, followed by the body, as received.
+     */
+    byte[] headerBytes() {
+        return this.raw;
+    }
+
+    /**
+     * Returns the start line and headers as a String. Only meant for logging and diagnostics.
+     *
+     * @return the header section of this message.
+     */
+    public String rawMessageHeader() {
+        var headerString = this.rawMessageHeader;
+        if (headerString == null) {
+            headerString = new String(this.raw, 0, this.headerLength, StandardCharsets.UTF_8);
+            this.rawMessageHeader = headerString;
+        }
+
+        return headerString;
+    }
+
+    /**
+     * Returns the body without decoding or copying it.
+     *
+     * @return a read-only view of the body bytes, positioned at the first byte.
+     */
+    public ByteBuffer body() {
+        return ByteBuffer.wrap(this.raw, this.headerLength, this.bodyLength)
+                .slice()
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the length of the body, i.e. the value of the {@code Content-Length} header.
+     *
+     * @return the number of body bytes.
+     */
+    public int bodyLength() {
+        return this.bodyLength;
     }
 
     public boolean hasBody() {
-        return rawBody.length > 0;
+        return this.bodyLength > 0;
+    }
+
+    /**
+     * Returns the body as text, which is decoded on first access.
+     *
+     * @return the body decoded with the charset of the {@code Content-Type} header, or UTF-8 if there is none.
+     */
+    public String bodyText() {
+        var text = this.bodyText;
+        if (text == null) {
+            text = new String(this.raw, this.headerLength, this.bodyLength, bodyCharset());
+            this.bodyText = text;
+        }
+
+        return text;
+    }
+
+    /**
+     * Determines the charset of the body from the {@code charset} parameter of the {@code Content-Type} header.
+     *
+     * @return the declared charset, or UTF-8 if none or an unsupported one is declared.
+     */
+    Charset bodyCharset() {
+        final var contentType = headers().first("Content-Type");
+        if (contentType.isEmpty()) {
+            return StandardCharsets.UTF_8;
+        }
+
+        final var value = contentType.orElseThrow();
+        final var paramStart = value.toLowerCase(Locale.ROOT).indexOf(CHARSET_PARAM);
+        if (paramStart == -1) {
+            return StandardCharsets.UTF_8;
+        }
+
+        final var start = paramStart + CHARSET_PARAM.length();
+        var end = value.indexOf(';', start);
+        if (end == -1) {
+            end = value.length();
+        }
+
+        var name = value.substring(start, end).trim();
+        if (name.length() > 1 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+            name = name.substring(1, name.length() - 1);
+        }
+
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException unsupported) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RawSipMessage.class.getSimpleName() + "[", "]")
+                .add("rawMessageHeader=" + rawMessageHeader())
+                .add("bodyLength=" + this.bodyLength)
+                .toString();
     }
 }
@@ -15,4 +15,27 @@
  */
 package io.github.bmarwell.sipper.impl.proto;
 
-public record SipAuthenticationRequest(String algorithm, String realm, String nonce, String qop) {}
+import java.util.List;
+
+/**
+ * A digest challenge as sent by the registrar or a proxy (RFC 3261, section 22 and RFC 2617, section 3.2.1).
+ *
+ * @param algorithm the hash algorithm, {@code MD5} if the challenge did not name one.
+ * @param realm the protection realm.
+ * @param nonce the server nonce.
+ * @param qop the offered quality of protection values, empty if the challenge did not offer any (RFC 2069 mode).
+ * @param opaque the opaque value to be echoed back, or {@code null} if absent.
+ * @param stale whether the previous request was rejected only because its nonce was stale.
+ * @param proxy whether this is a {@code Proxy-Authenticate} rather than a {@code WWW-Authenticate} challenge.
+ */
+public record SipAuthenticationRequest(
+        String algorithm, String realm, String nonce, List<String> qop, String opaque, boolean stale, boolean proxy) {
+
+    public SipAuthenticationRequest {
+        qop = List.copyOf(qop);
+    }
+
+    public boolean offersQopAuth() {
+        return this.qop.contains("auth");
+    }
+}
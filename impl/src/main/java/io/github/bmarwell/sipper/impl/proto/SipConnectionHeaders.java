@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Header values which stay the same for every message sent over one connection, pre-encoded to bytes.
+ *
+ * <p>The values depend on the public address and the local socket address, so an instance is only valid
+ * as long as {@link #matches(InetSocketAddress, InetAddress, int)} returns {@code true}.</p>
+ *
+ * <p>The Via header asks for {@code rport} (RFC 3581), so every response tells which address the server saw.
+ * Over connection-oriented transports it also carries {@code alias} (RFC 5923), so the server sends its
+ * requests over the same connection. Templates must not add either parameter again.</p>
+ *
+ * @param publicAddress the public address the Contact header was built for.
+ * @param localAddress the local socket address the Via header was built for.
+ * @param localPort the local socket port.
+ * @param via the Via header value without branch parameter, e.g. {@code SIP/2.0/TCP 10.0.0.2:5060;rport;alias}.
+ * @param from the From header value including the tag.
+ * @param to the To header value of requests outside of a dialog.
+ * @param contact the Contact header value.
+ * @param callId the Call-ID header value.
+ */
+public record SipConnectionHeaders(
+        InetSocketAddress publicAddress,
+        InetAddress localAddress,
+        int localPort,
+        byte[] via,
+        byte[] from,
+        byte[] to,
+        byte[] contact,
+        byte[] callId) {
+
+    public static SipConnectionHeaders create(
+            String registrar,
+            String sipId,
+            String tag,
+            String callId,
+            InetSocketAddress publicAddress,
+            InetAddress localAddress,
+            int localPort,
+            String transport) {
+        final var upperTransport = transport.toUpperCase(Locale.ROOT);
+        final var via = "SIP/2.0/" + upperTransport + " " + hostPort(localAddress, localPort) + ";rport"
+                + ("UDP".equals(upperTransport) ? "" : ";alias");
+        final var to = "<sip:" + sipId + "@" + registrar + ">";
+        final var from = to + ";tag=" + tag;
+        final var contact = "<sip:" + sipId + "@" + hostPort(publicAddress) + ";transport="
+                + transport.toLowerCase(Locale.ROOT) + ">";
+
+        return new SipConnectionHeaders(
+                publicAddress,
+                localAddress,
+                localPort,
+                via.getBytes(StandardCharsets.UTF_8),
+                from.getBytes(StandardCharsets.UTF_8),
+                to.getBytes(StandardCharsets.UTF_8),
+                contact.getBytes(StandardCharsets.UTF_8),
+                callId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Formats an address as {@code host:port} of a SIP URI or Via sent-by (RFC 3261, section 25.1).
+     *
+     * <p>IPv6 literals are enclosed in brackets, written in their canonical form (RFC 5952) and lose their
+     * scope id, e.g. {@code [2001:db8::1]:5060}. Registrars echo the Contact as sent, so the canonical form
+     * keeps it comparable.</p>
+     *
+     * @param address the socket address.
+     * @return the host and port.
+     */
+    public static String hostPort(InetSocketAddress address) {
+        return hostPort(address.getAddress(), address.getPort());
+    }
+
+    /**
+     * Formats an address as {@code host:port} of a SIP URI or Via sent-by (RFC 3261, section 25.1).
+     *
+     * @param address the IP address.
+     * @param port the port.
+     * @return the host and port.
+     * @see #hostPort(InetSocketAddress)
+     */
+    public static String hostPort(InetAddress address, int port) {
+        if (!(address instanceof Inet6Address)) {
+            return address.getHostAddress() + ":" + port;
+        }
+
+        final var literal = address.getHostAddress();
+        final var scope = literal.indexOf('%');
+
+        return "[" + compress(scope < 0 ? literal : literal.substring(0, scope)) + "]:" + port;
+    }
+
+    /**
+     * Replaces the longest run of at least two zero groups with {@code ::} (RFC 5952, section 4.2).
+     *
+     * @param literal the full IPv6 literal as returned by {@link InetAddress#getHostAddress()}.
+     * @return the compressed literal.
+     */
+    private static String compress(String literal) {
+        final var groups = literal.split(":");
+        var bestStart = -1;
+        var bestLength = 1;
+        for (var i = 0; i < groups.length; i++) {
+            var end = i;
+            while (end < groups.length && "0".equals(groups[end])) {
+                end++;
+            }
+            if (end - i > bestLength) {
+                bestStart = i;
+                bestLength = end - i;
+            }
+        }
+
+        if (bestStart < 0) {
+            return literal;
+        }
+
+        return String.join(":", Arrays.copyOfRange(groups, 0, bestStart))
+                + "::"
+                + String.join(":", Arrays.copyOfRange(groups, bestStart + bestLength, groups.length));
+    }
+
+    /**
+     * Checks whether these headers are still valid for the given addresses.
+     *
+     * @param currentPublicAddress the current public address.
+     * @param currentLocalAddress the current local socket address.
+     * @param currentLocalPort the current local socket port.
+     * @return {@code true} if nothing changed since these headers were computed.
+     */
+    public boolean matches(
+            InetSocketAddress currentPublicAddress, InetAddress currentLocalAddress, int currentLocalPort) {
+        return this.localPort == currentLocalPort
+                && this.publicAddress.equals(currentPublicAddress)
+                && this.localAddress.equals(currentLocalAddress);
+    }
+}
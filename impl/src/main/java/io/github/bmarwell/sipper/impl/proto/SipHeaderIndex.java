@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Index over the header section of a raw SIP message.
+ *
+ * <p>The index only records the offsets of header names and values into the raw message bytes.
+ * Values are materialized as Strings only when they are requested. Lookups are case-insensitive,
+ * understand the compact header forms of RFC 3261, section 7.3.3 and keep repeated headers
+ * (e.g. multiple {@code Via} lines) in their original order.</p>
+ */
+public final class SipHeaderIndex {
+
+    private static final int FIELDS = 4;
+    private static final int NAME_START = 0;
+    private static final int NAME_END = 1;
+    private static final int VALUE_START = 2;
+    private static final int VALUE_END = 3;
+
+    /** Full names indexed by compact form letter, see RFC 3261 section 7.3.3 and the IANA header registry. */
+    private static final byte[][] COMPACT_FORMS = new byte[26][];
+
+    static {
+        compactForm('a', "accept-contact");
+        compactForm('b', "referred-by");
+        compactForm('c', "content-type");
+        compactForm('d', "request-disposition");
+        compactForm('e', "content-encoding");
+        compactForm('f', "from");
+        compactForm('i', "call-id");
+        compactForm('j', "reject-contact");
+        compactForm('k', "supported");
+        compactForm('l', "content-length");
+        compactForm('m', "contact");
+        compactForm('o', "event");
+        compactForm('r', "refer-to");
+        compactForm('s', "subject");
+        compactForm('t', "to");
+        compactForm('u', "allow-events");
+        compactForm('v', "via");
+        compactForm('x', "session-expires");
+        compactForm('y', "identity");
+    }
+
+    private final byte[] raw;
+    private final int startLineEnd;
+    private final int[] entries;
+    private final int count;
+
+    private SipHeaderIndex(byte[] raw, int startLineEnd, int[] entries, int count) {
+        this.raw = raw;
+        this.startLineEnd = startLineEnd;
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * Indexes the header section of the given message in a single pass.
+     *
+     * @param raw the raw message bytes, starting with the start line.
+     * @param headerLength the length of the header section, including the terminating empty line.
+     * @return the header index.
+     */
+    public static SipHeaderIndex parse(byte[] raw, int headerLength) {
+        var entries = new int[16 * FIELDS];
+        var count = 0;
+
+        final var startLineEnd = lineEnd(raw, 0, headerLength);
+        var pos = nextLine(raw, startLineEnd, headerLength);
+
+        while (pos < headerLength) {
+            final var end = lineEnd(raw, pos, headerLength);
+            if (end == pos) {
+                // empty line, end of headers.
+                break;
+            }
+
+            if (isWhitespace(raw[pos]) && count > 0) {
+                // folded line (RFC 3261, section 7.3.1): continues the previous value.
+                entries[(count - 1) * FIELDS + VALUE_END] = trimEnd(raw, pos, end);
+                pos = nextLine(raw, end, headerLength);
+                continue;
+            }
+
+            final var colon = indexOf(raw, (byte) ':', pos, end);
+            if (colon == -1) {
+                throw new IllegalArgumentException(
+                        "Invalid header line: " + new String(raw, pos, end - pos, StandardCharsets.UTF_8));
+            }
+
+            if (count * FIELDS == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+
+            final var base = count * FIELDS;
+            entries[base + NAME_START] = pos;
+            entries[base + NAME_END] = trimEnd(raw, pos, colon);
+            entries[base + VALUE_START] = trimStart(raw, colon + 1, end);
+            entries[base + VALUE_END] = trimEnd(raw, entries[base + VALUE_START], end);
+            count++;
+
+            pos = nextLine(raw, end, headerLength);
+        }
+
+        return new SipHeaderIndex(raw, startLineEnd, entries, count);
+    }
+
+    /**
+     * Returns the first line of the message, i.e. the request line or status line.
+     *
+     * @return the start line without its line terminator.
+     */
+    public String startLine() {
+        return new String(this.raw, 0, this.startLineEnd, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of header lines, counting repeated headers individually.
+     *
+     * @return the number of headers.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    public String name(int index) {
+        final var base = checkIndex(index);
+        return new String(
+                this.raw,
+                this.entries[base + NAME_START],
+                this.entries[base + NAME_END] - this.entries[base + NAME_START],
+                StandardCharsets.UTF_8);
+    }
+
+    public String value(int index) {
+        final var base = checkIndex(index);
+        final var start = this.entries[base + VALUE_START];
+        final var end = this.entries[base + VALUE_END];
+        final var value = new String(this.raw, start, end - start, StandardCharsets.UTF_8);
+
+        if (indexOf(this.raw, (byte) '\n', start, end) != -1) {
+            return value.replaceAll("[ \t]*\r?\n[ \t]+", " ");
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the offset of the first byte of the value of the header at the given index.
+     *
+     * @param index the header index.
+     * @return the offset into the raw message.
+     */
+    public int valueStart(int index) {
+        return this.entries[checkIndex(index) + VALUE_START];
+    }
+
+    /**
+     * Returns the offset after the last byte of the value of the header at the given index.
+     *
+     * @param index the header index.
+     * @return the offset into the raw message.
+     */
+    public int valueEnd(int index) {
+        return this.entries[checkIndex(index) + VALUE_END];
+    }
+
+    /**
+     * Finds the next header with the given name.
+     *
+     * @param name the header name, either in long or compact form. Case-insensitive.
+     * @param fromIndex the index to start searching at.
+     * @return the index of the header, or -1 if there is no such header.
+     */
+    public int indexOf(String name, int fromIndex) {
+        final var lookup = lookupName(name);
+
+        for (var i = Math.max(0, fromIndex); i < this.count; i++) {
+            if (matches(i, lookup)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public int indexOf(String name) {
+        return indexOf(name, 0);
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * Returns the value of the first header with the given name.
+     *
+     * @param name the header name, either in long or compact form. Case-insensitive.
+     * @return the value, or empty if the header is absent.
+     */
+    public Optional<String> first(String name) {
+        final var index = indexOf(name);
+        if (index == -1) {
+            return Optional.empty();
+        }
+
+        return Optional.of(value(index));
+    }
+
+    /**
+     * Returns the values of all headers with the given name, in the order they appear in the message.
+     *
+     * @param name the header name, either in long or compact form. Case-insensitive.
+     * @return all values, which may be empty.
+     */
+    public List<String> all(String name) {
+        final var lookup = lookupName(name);
+        final var values = new ArrayList<String>(1);
+
+        for (var i = 0; i < this.count; i++) {
+            if (matches(i, lookup)) {
+                values.add(value(i));
+            }
+        }
+
+        return List.copyOf(values);
+    }
+
+    private boolean matches(int index, byte[] lowerCaseName) {
+        final var base = index * FIELDS;
+        final var start = this.entries[base + NAME_START];
+        final var length = this.entries[base + NAME_END] - start;
+
+        if (length == 1) {
+            final var expanded = expandCompactForm(this.raw[start]);
+            if (expanded != null) {
+                return Arrays.equals(expanded, lowerCaseName);
+            }
+        }
+
+        if (length != lowerCaseName.length) {
+            return false;
+        }
+
+        for (var i = 0; i < length; i++) {
+            if (toLowerAscii(this.raw[start + i]) != lowerCaseName[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("Header index " + index + " out of bounds for " + this.count);
+        }
+
+        return index * FIELDS;
+    }
+
+    private static byte[] lookupName(String name) {
+        final var lowerCaseName = name.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+
+        if (lowerCaseName.length == 1) {
+            final var expanded = expandCompactForm(lowerCaseName[0]);
+            if (expanded != null) {
+                return expanded;
+            }
+        }
+
+        return lowerCaseName;
+    }
+
+    private static byte[] expandCompactForm(byte letter) {
+        final var lower = toLowerAscii(letter);
+        if (lower < 'a' || lower > 'z') {
+            return null;
+        }
+
+        return COMPACT_FORMS[lower - 'a'];
+    }
+
+    private static void compactForm(char letter, String name) {
+        COMPACT_FORMS[letter - 'a'] = name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the index of the line terminator (CR or LF) of the line starting at {@code from}.
+     */
+    private static int lineEnd(byte[] raw, int from, int to) {
+        for (var i = from; i < to; i++) {
+            if (raw[i] == '\r' || raw[i] == '\n') {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    private static int nextLine(byte[] raw, int lineEnd, int to) {
+        var pos = lineEnd;
+        if (pos < to && raw[pos] == '\r') {
+            pos++;
+        }
+
+        if (pos < to && raw[pos] == '\n') {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static int indexOf(byte[] raw, byte needle, int from, int to) {
+        for (var i = from; i < to; i++) {
+            if (raw[i] == needle) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int trimStart(byte[] raw, int from, int to) {
+        var pos = from;
+        while (pos < to && isWhitespace(raw[pos])) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static int trimEnd(byte[] raw, int from, int to) {
+        var pos = to;
+        while (pos > from && isWhitespace(raw[pos - 1])) {
+            pos--;
+        }
+
+        return pos;
+    }
+
+    private static boolean isWhitespace(byte current) {
+        return current == ' ' || current == '\t';
+    }
+
+    private static byte toLowerAscii(byte current) {
+        if (current >= 'A' && current <= 'Z') {
+            return (byte) (current + ('a' - 'A'));
+        }
+
+        return current;
+    }
+}
@@ -15,8 +15,30 @@
  */
 package io.github.bmarwell.sipper.impl.proto;
 
+import java.util.List;
+import org.slf4j.LoggerFactory;
+
 public interface SipIncomingMessageHandler {
     void accept(RawSipMessage sipMessage);
 
+    /**
+     * Receives several messages at once, in the order they were received.
+     *
+     * <p>A message which cannot be processed is logged and skipped, because the others of the batch may belong
+     * to unrelated dialogs.</p>
+     *
+     * @param messages the messages; the list is only valid during the invocation.
+     */
+    default void acceptAll(List<RawSipMessage> messages) {
+        for (var message : messages) {
+            try {
+                accept(message);
+            } catch (RuntimeException rtEx) {
+                LoggerFactory.getLogger(SipIncomingMessageHandler.class)
+                        .error("Unable to process message [{}].", message, rtEx);
+            }
+        }
+    }
+
     void remove(RawSipMessage message);
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import io.github.bmarwell.sipper.impl.util.BufferPool;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A growable byte buffer an outgoing SIP message is encoded into.
+ *
+ * <p>The bytes live in memory of the shared {@link BufferPool}: obtain a buffer via {@link #acquire()} and
+ * hand it back via {@link #release()} once the message has been written. Buffers are reference-counted, so
+ * a message which is written more than once (e.g. a retransmitted request) is {@link #retain() retained}
+ * for each additional write instead of being copied. The memory returns to the pool with the last release.</p>
+ *
+ * <p>Only the memory is pooled, never this wrapper: a late {@link #retain()} on a released buffer fails
+ * instead of silently sharing memory which was handed out again.</p>
+ */
+public final class SipMessageBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final AtomicIntegerFieldUpdater<SipMessageBuffer> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(SipMessageBuffer.class, "refCount");
+
+    private final BufferPool pool;
+    private final BufferPool.LeakTracker leakTracker;
+
+    private ByteBuffer bytes;
+    private int length;
+
+    @SuppressWarnings("unused") // updated via REF_COUNT
+    private volatile int refCount = 1;
+
+    private SipMessageBuffer(BufferPool pool) {
+        this.pool = pool;
+        this.bytes = pool.acquire(INITIAL_CAPACITY);
+        this.leakTracker = BufferPool.track(this);
+    }
+
+    /**
+     * Creates an empty buffer backed by pooled memory. The caller holds the only reference.
+     *
+     * @return an empty buffer.
+     */
+    public static SipMessageBuffer acquire() {
+        return new SipMessageBuffer(BufferPool.shared());
+    }
+
+    /**
+     * Adds a reference, e.g. before handing the buffer to another writer.
+     *
+     * @return this buffer.
+     * @throws IllegalStateException if the buffer was released already.
+     */
+    public SipMessageBuffer retain() {
+        while (true) {
+            final var current = this.refCount;
+            if (current == 0) {
+                throw new IllegalStateException("Buffer already released.");
+            }
+
+            if (REF_COUNT.compareAndSet(this, current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Drops a reference. The last release hands the memory back to the pool; the buffer must not be used
+     * afterwards.
+     *
+     * @throws IllegalStateException if the buffer was released already.
+     */
+    public void release() {
+        final var remaining = REF_COUNT.decrementAndGet(this);
+        if (remaining > 0) {
+            return;
+        }
+
+        if (remaining < 0) {
+            throw new IllegalStateException("Buffer already released.");
+        }
+
+        this.pool.release(this.bytes);
+        this.bytes = null;
+        this.length = 0;
+        this.leakTracker.close();
+    }
+
+    public int refCount() {
+        return this.refCount;
+    }
+
+    public SipMessageBuffer append(byte[] src) {
+        return append(src, 0, src.length);
+    }
+
+    public SipMessageBuffer append(byte[] src, int offset, int count) {
+        ensureCapacity(count);
+        this.bytes.put(this.length, src, offset, count);
+        this.length += count;
+
+        return this;
+    }
+
+    public SipMessageBuffer append(byte value) {
+        ensureCapacity(1);
+        this.bytes.put(this.length++, value);
+
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 representation of the given characters.
+     *
+     * <p>ASCII-only input, which covers almost every SIP header, is copied without any intermediate array.</p>
+     *
+     * @param value the characters to append.
+     * @return this buffer.
+     */
+    public SipMessageBuffer append(CharSequence value) {
+        final var count = value.length();
+        ensureCapacity(count);
+
+        for (var i = 0; i < count; i++) {
+            final var current = value.charAt(i);
+            if (current >= 0x80) {
+                // rare: non-ASCII, e.g. in a display name.
+                return append(value.subSequence(i, count).toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            this.bytes.put(this.length++, (byte) current);
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of the given number without creating a String.
+     *
+     * @param value the number to append.
+     * @return this buffer.
+     */
+    public SipMessageBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+
+        var remaining = value;
+        if (remaining < 0) {
+            append((byte) '-');
+            remaining = -remaining;
+        }
+
+        var digits = 1;
+        for (var limit = 10L; digits < 19 && remaining >= limit; limit *= 10) {
+            digits++;
+        }
+
+        ensureCapacity(digits);
+        for (var i = this.length + digits - 1; i >= this.length; i--) {
+            this.bytes.put(i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        this.length += digits;
+
+        return this;
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns a view of the encoded bytes. Only valid until this buffer is released.
+     *
+     * @return a read-only view of the encoded message.
+     */
+    public ByteBuffer asByteBuffer() {
+        return this.bytes.slice(0, this.length).asReadOnlyBuffer();
+    }
+
+    private void ensureCapacity(int additional) {
+        final var required = this.length + additional;
+        if (required > this.bytes.capacity()) {
+            final var grown = this.pool.acquire(Math.max(required, this.bytes.capacity() * 2));
+            grown.put(0, this.bytes, 0, this.length);
+            this.pool.release(this.bytes);
+            this.bytes = grown;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final var buffer = this.bytes;
+        if (buffer == null) {
+            return "SipMessageBuffer[released]";
+        }
+
+        final var copy = new byte[this.length];
+        buffer.get(0, copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
@@ -17,15 +17,7 @@ package io.github.bmarwell.sipper.impl.proto;
 
 import io.github.bmarwell.sipper.api.SipConfiguration;
 import io.github.bmarwell.sipper.impl.internal.ConnectedSipConnection;
-import io.github.bmarwell.sipper.impl.internal.DefaultRegisteredSipConnection;
-import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-import java.util.HexFormat;
-import java.util.Locale;
-import java.util.random.RandomGeneratorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,245 +25,137 @@ public class SipMessageFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(SipMessageFactory.class);
 
+    private static final SipMessageTemplate<RegisterField> REGISTER = SipMessageTemplate.compile(
+            """
+            REGISTER {REQUEST_URI} SIP/2.0
+            Via: {VIA};branch={BRANCH}
+            From: {FROM}
+            To: {TO}
+            Call-ID: {CALL_ID}
+            CSeq: {CSEQ} REGISTER
+            Max-Forwards: 70
+            Supported: replaces, outbound, gruu, path, record-aware
+            Contact: {CONTACT};q=1
+            {AUTHORIZATION}Expires: {EXPIRES}
+            User-Agent: SIPper/0.1.0
+            Content-Length: 0
+
+            """,
+            RegisterField.class);
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
     private final String registrar;
     private final String sipId;
+    private final String requestUri;
+    private final byte[] requestUriBytes;
+
+    /** The request URI over TLS (RFC 3261, section 19.1). */
+    private final String secureRequestUri;
+
+    private final byte[] secureRequestUriBytes;
 
     public SipMessageFactory(SipConfiguration conf) {
-        this.registrar = conf.getRegistrar();
-        this.sipId = conf.getSipId();
+        this(conf.getRegistrar(), conf.getSipId());
     }
 
     public SipMessageFactory(String registrar, String sipId) {
         this.registrar = registrar;
         this.sipId = sipId;
+        this.requestUri = "sip:" + registrar;
+        this.requestUriBytes = this.requestUri.getBytes(StandardCharsets.UTF_8);
+        this.secureRequestUri = "sips:" + registrar;
+        this.secureRequestUriBytes = this.secureRequestUri.getBytes(StandardCharsets.UTF_8);
     }
 
-    public String getRegisterPreflight(ConnectedSipConnection sipConnection) {
-        final var template =
-                """
-                %1$s sip:%2$s SIP/2.0
-                CSeq: %9$s %1$s
-                Via: SIP/2.0/TCP %8$s:%7$s;alias;branch=z9hG4bK.8i7nkaF9s;rport
-                From: <sip:%3$s@%2$s>;tag=%4$s
-                To: sip:%3$s@%2$s
-                Call-ID: %5$s
-                Max-Forwards: 70
-                Supported: replaces, outbound, gruu, path, record-aware
-                Contact: <sip:%3$s@%6$s:%7$s;transport=tcp>;q=1
-                Expires: 600
-                User-Agent: SIPper/0.1.0
-                Content-Length: 0
-
-                """;
-
-        return String.format(
-                //
-                Locale.ROOT,
-                template,
-                // 1 - method
-                "REGISTER",
-                // 2- registrar
-                this.registrar,
-                // 3 - sipID
-                this.sipId,
-                // 4 - tag
-                sipConnection.getTag(),
-                // 5 - CallId
-                sipConnection.getCallId(),
-                // 6 - public IP
-                sipConnection.getPublicIp().getHostAddress(),
-                // 7 - socket local port
-                sipConnection.getSocket().getLocalPort(),
-                // 8 - socket local address
-                sipConnection.getSocket().getLocalAddress().getHostAddress(),
-                // 9 - CSeq
-                sipConnection.getAndUpdateCseq());
+    /**
+     * Creates a REGISTER, which is authorized preemptively if the connection already has a digest context.
+     *
+     * @param sipConnection the connection.
+     * @param branch the branch of the new client transaction.
+     * @param expires the requested registration interval in seconds.
+     * @return the encoded request.
+     */
+    public SipMessageBuffer getRegister(ConnectedSipConnection sipConnection, String branch, long expires) {
+        return encodeRegister(sipConnection, branch, expires);
     }
 
-    private AuthorizationResponse getAuthorizationString(
-            SipAuthenticationRequest sipAuthenticationRequest,
-            String uri,
-            long nc,
-            String qop,
-            String loginUserId,
-            String loginPassword) {
-        final var ncHex = HexFormat.of().toHexDigits(nc, 6);
-        final var base64enc = Base64.getEncoder();
-
-        final var cnonceBytes = new byte[12];
-        RandomGeneratorFactory.getDefault().create().nextBytes(cnonceBytes);
-        final var cnonce = base64enc.encodeToString(cnonceBytes);
-
-        try {
-            // hash1: base64(md5(user:realm:pw))
-            final var h1md5 = MessageDigest.getInstance(
-                    sipAuthenticationRequest.algorithm().toLowerCase(Locale.ROOT));
-            final var hash1Contents = (loginUserId + ":" + sipAuthenticationRequest.realm() + ":" + loginPassword)
-                    .getBytes(StandardCharsets.UTF_8);
-            final var hash1 = base64enc.encodeToString(h1md5.digest(hash1Contents));
-
-            // hash2: base64(md5(sipmethod:uri))
-            final var h2md5 = MessageDigest.getInstance(
-                    sipAuthenticationRequest.algorithm().toLowerCase(Locale.ROOT));
-            final var hash2Contents = ("REGISTER:" + uri).getBytes(StandardCharsets.UTF_8);
-            final var hash2 = base64enc.encodeToString(h2md5.digest(hash2Contents));
-
-            // hash3: base64(md5(hash1:nonce:nc:cnonce:qop:hash2))
-            final var h3md5 = MessageDigest.getInstance(
-                    sipAuthenticationRequest.algorithm().toLowerCase(Locale.ROOT));
-            final var h3Contents = (hash1 + ":" + sipAuthenticationRequest.nonce() + ":" + ncHex + ":" + cnonce + ":"
-                            + qop + ":" + hash2)
-                    .getBytes(StandardCharsets.UTF_8);
-            final var hashResponse = base64enc.encodeToString(h3md5.digest(h3Contents));
-
-            return new AuthorizationResponse(hashResponse, cnonce);
-        } catch (NoSuchAlgorithmException nsae) {
-            LOG.error("Problem with login algorithm", nsae);
-            throw new IllegalArgumentException(
-                    "Problem with login algorithm: " + sipAuthenticationRequest.algorithm(), nsae);
-        }
+    public SipMessageBuffer getUnregister(ConnectedSipConnection sipConnection, String branch) {
+        return encodeRegister(sipConnection, branch, 0L);
     }
 
-    public LoginRequest getLogin(
-            SipAuthenticationRequest sipAuthenticationRequest,
-            ConnectedSipConnection sipConnection,
-            String loginUserId,
-            String loginPassword) {
-        final var qop = "auth";
-        final var nc = 1L;
-        final var ncHex = HexFormat.of().toHexDigits(nc, 8);
-
-        final var authorizationResponse =
-                getAuthorizationString(sipAuthenticationRequest, this.registrar, nc, qop, loginUserId, loginPassword);
-
-        final var authValue = String.format(
-                Locale.ROOT,
-                "Digest realm=\"%1$s\", nonce=\"%2$s\", algorithm=%3$s, username=\"%4$s\", uri=\"sip:%5$s\", response=\"%6$s\", cnonce=\"%8$s\", nc=%8$s, qop=%9$s",
-                // 1 - realm
-                sipAuthenticationRequest.realm(),
-                // 2 - nonce
-                sipAuthenticationRequest.nonce(),
-                // 3 - algorithm
-                sipAuthenticationRequest.algorithm(),
-                // 4 - username
-                loginUserId,
-                // 5 - registrar
-                this.registrar,
-                // 6 - response (see #getAuthorizationString)
-                authorizationResponse.response(),
-                // 7 - client nonce
-                authorizationResponse.clientNonce(),
-                // 8 - nc
-                ncHex,
-                // 9 - qop
-                qop
-                // end
-                );
-
-        String template =
-                """
-                %1$s sip:%2$s SIP/2.0
-                Via: SIP/2.0/TCP %8$s:%7$s;alias;branch=z9hG4bK.8i7nkaF9s;rport
-                From: <sip:%3$s@%2$s>;tag=%4$s
-                To: sip:%3$s@%2$s
-                CSeq: %9$s %1$s
-                Call-ID: %5$s
-                Max-Forwards: 70
-                Supported: replaces, outbound, gruu, path, record-aware
-                Contact: <sip:%3$s@%6$s:%7$s;transport=tcp>
-                Expires: 600
-                User-Agent: SIPper/0.1.0
-                Content-Length: 0
-                Authorization: %10$s
-
+    private SipMessageBuffer encodeRegister(ConnectedSipConnection sipConnection, String branch, long expires) {
+        final var headers = getConnectionHeaders(sipConnection);
+        final var authContext = sipConnection.getAuthContext();
+        final var cseq = sipConnection.getAndUpdateCseq();
+        final var secure = "TLS".equals(sipConnection.getTransportProtocol());
+        final var requestUri = secure ? this.secureRequestUri : this.requestUri;
+        final var out = SipMessageBuffer.acquire();
+
+        REGISTER.encode(out, (field, buffer) -> {
+            switch (field) {
+                case REQUEST_URI -> buffer.append(secure ? this.secureRequestUriBytes : this.requestUriBytes);
+                case VIA -> buffer.append(headers.via());
+                case BRANCH -> buffer.append(branch);
+                case FROM -> buffer.append(headers.from());
+                case TO -> buffer.append(headers.to());
+                case CALL_ID -> buffer.append(headers.callId());
+                case CSEQ -> buffer.append(cseq);
+                case CONTACT -> buffer.append(headers.contact());
+                case AUTHORIZATION -> {
+                    if (authContext != null) {
+                        buffer.append(authContext.headerName())
+                                .append(": ")
+                                .append(authContext.authorize("REGISTER", requestUri))
+                                .append(CRLF);
+                    }
+                }
+                case EXPIRES -> buffer.append(expires);
+            }
+        });
+
+        return out;
+    }
 
-                """;
+    /**
+     * Returns the pre-encoded per-connection headers, recomputing them only if the public address or the local
+     * socket address changed since they were last computed.
+     */
+    private SipConnectionHeaders getConnectionHeaders(ConnectedSipConnection sipConnection) {
+        final var publicAddress = sipConnection.getPublicAddress();
+        final var localSocketAddress = sipConnection.getLocalAddress();
+        final var localAddress = localSocketAddress.getAddress();
+        final var localPort = localSocketAddress.getPort();
+
+        final var cached = sipConnection.getConnectionHeaders();
+        if (cached != null && cached.matches(publicAddress, localAddress, localPort)) {
+            return cached;
+        }
 
-        final var register = String.format(
-                //
-                Locale.ROOT,
-                template,
-                // 1 - method
-                "REGISTER",
-                // 2- registrar
+        final var headers = SipConnectionHeaders.create(
                 this.registrar,
-                // 3 - sipID
                 this.sipId,
-                // 4 - tag
                 sipConnection.getTag(),
-                // 5 - CallId
                 sipConnection.getCallId(),
-                // 6 - public IP
-                sipConnection.getPublicIp().getHostAddress(),
-                // 7 - socket local port
-                sipConnection.getSocket().getLocalPort(),
-                // 8 - socket local address
-                sipConnection.getSocket().getLocalAddress().getHostAddress(),
-                // 9 - CSeq
-                sipConnection.getAndUpdateCseq(),
-                // 10 - authValue
-                authValue
-                // end
-                );
+                publicAddress,
+                localAddress,
+                localPort,
+                sipConnection.getTransportProtocol());
+        sipConnection.setConnectionHeaders(headers);
 
-        return new LoginRequest(register, authValue);
+        return headers;
     }
 
-    public String getUnregister(DefaultRegisteredSipConnection registeredSipConnection) {
-        final var template =
-                """
-                %1$s sip:%2$s SIP/2.0
-                CSeq: %9$s %1$s
-                Via: SIP/2.0/TCP %8$s:%7$s;alias;branch=z9hG4bK.8i7nkaF9s;rport
-                From: <sip:%3$s@%2$s>;tag=%4$s
-                To: sip:%3$s@%2$s
-                Call-ID: %5$s
-                Max-Forwards: 70
-                Supported: replaces, outbound, gruu, path, record-aware
-                Contact: <sip:%3$s@%6$s:%7$s;transport=tcp>;q=1
-                Authorization: %10$s
-                Expires: 0
-                User-Agent: SIPper/0.1.0
-                Content-Length: 0
-
-                """;
-
-        return String.format(
-                //
-                Locale.ROOT,
-                template,
-                // 1 - method
-                "REGISTER",
-                // 2- registrar
-                this.registrar,
-                // 3 - sipID
-                this.sipId,
-                // 4 - tag
-                registeredSipConnection.getTag(),
-                // 5 - CallId
-                registeredSipConnection.getCallId(),
-                // 6 - public IP
-                registeredSipConnection.getPublicIp().getHostAddress(),
-                // 7 - socket local port
-                registeredSipConnection.getSocket().getLocalPort(),
-                // 8 - socket local address
-                registeredSipConnection.getSocket().getLocalAddress().getHostAddress(),
-                // 9 - CSeq
-                registeredSipConnection.getAndUpdateCseq(),
-                // 10 - auth,
-                registeredSipConnection.getAuthorization().orElse("")
-                // end
-                );
+    private enum RegisterField {
+        REQUEST_URI,
+        VIA,
+        BRANCH,
+        FROM,
+        TO,
+        CALL_ID,
+        CSEQ,
+        CONTACT,
+        AUTHORIZATION,
+        EXPIRES
     }
-
-    /**
-     *
-     * @param response The response string (hashed and hashed again...).
-     * @param clientNonce The client nonce.
-     */
-    private record AuthorizationResponse(String response, String clientNonce) {}
-
-    public record RegisterPreflightRequest(String message, InetAddress publicIp) {}
-
-    public record LoginRequest(String message, String authorization) {}
 }
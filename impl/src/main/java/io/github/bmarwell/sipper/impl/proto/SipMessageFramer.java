@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import io.github.bmarwell.sipper.impl.util.BufferPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental framer for SIP messages received over a stream transport (RFC 3261, section 18.3).
+ *
+ * <p>The receive buffer is borrowed from the shared heap {@link BufferPool} when bytes arrive and handed back
+ * as soon as every received byte was emitted, so an idle connection holds no buffer at all. Incoming bytes
+ * are scanned exactly once for the empty line terminating the header section,
+ * the {@code Content-Length} is then read from the header bytes for every method, and complete
+ * messages are handed to a {@link FrameHandler} without creating any intermediate objects.</p>
+ *
+ * <p>Instances are not thread-safe and are meant to be used by a single reader.</p>
+ */
+public final class SipMessageFramer {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 4 * 1024;
+
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 64 * 1024;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private static final byte[] CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.US_ASCII);
+
+    private final int initialCapacity;
+    private final int maxMessageSize;
+    private final BufferPool pool;
+
+    /** The borrowed receive buffer, or {@code null} while no bytes are pending. */
+    private ByteBuffer buffer;
+
+    /** Index of the first byte of the message currently being framed. */
+    private int start;
+
+    /** Index up to which the buffer contains received data. */
+    private int limit;
+
+    /** Index at which the search for the end of the header section resumes. */
+    private int scan;
+
+    /** Length of the header section of the current message including the empty line, or -1 if not yet known. */
+    private int headerLength = -1;
+
+    /** Length of the body of the current message, valid only if {@link #headerLength} is known. */
+    private int bodyLength;
+
+    /** Number of line breaks received between messages, i.e. keep-alive pongs (RFC 5626, section 3.5.1). */
+    private long keepAlives;
+
+    public SipMessageFramer() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    public SipMessageFramer(int initialCapacity, int maxMessageSize) {
+        if (initialCapacity <= 0 || maxMessageSize < initialCapacity) {
+            throw new IllegalArgumentException(
+                    "Illegal buffer sizes: initial=" + initialCapacity + ", max=" + maxMessageSize);
+        }
+
+        this.initialCapacity = initialCapacity;
+        this.maxMessageSize = maxMessageSize;
+        this.pool = BufferPool.heap();
+    }
+
+    /**
+     * Reads the next chunk of bytes from the given stream directly into the receive buffer.
+     *
+     * @param in the stream to read from.
+     * @return the number of bytes read, or {@code -1} on end of stream.
+     * @throws IOException if reading from the stream fails.
+     */
+    public int readFrom(InputStream in) throws IOException {
+        ensureWritable();
+        final var read = in.read(this.buffer.array(), this.limit, writableLimit() - this.limit);
+        if (read > 0) {
+            this.limit += read;
+        } else {
+            releaseIfEmpty();
+        }
+
+        return read;
+    }
+
+    /**
+     * Copies the given bytes into the receive buffer.
+     *
+     * @param src the bytes to append; its position is advanced by the number of bytes consumed.
+     */
+    public void feed(ByteBuffer src) {
+        while (src.hasRemaining()) {
+            ensureWritable();
+            final var count = Math.min(src.remaining(), writableLimit() - this.limit);
+            this.buffer.put(this.limit, src, src.position(), count);
+            src.position(src.position() + count);
+            this.limit += count;
+        }
+    }
+
+    /**
+     * Emits every complete message currently held in the receive buffer.
+     *
+     * <p>The buffer passed to the handler is only valid for the duration of the call.</p>
+     *
+     * @param handler the callback receiving complete messages.
+     * @return the number of messages emitted.
+     * @throws IllegalArgumentException if the received data is not a valid SIP message.
+     */
+    public int drain(FrameHandler handler) {
+        var frames = 0;
+
+        while (true) {
+            if (this.headerLength == -1) {
+                skipLeadingLineBreaks();
+
+                final var headerEnd = findHeaderEnd();
+                if (headerEnd == -1) {
+                    checkMessageSize(this.limit - this.start);
+                    break;
+                }
+
+                this.headerLength = headerEnd - this.start;
+                this.bodyLength = Math.max(0, readContentLength(this.start, headerEnd));
+                checkMessageSize(this.headerLength + this.bodyLength);
+            }
+
+            final var frameLength = this.headerLength + this.bodyLength;
+            if (this.limit - this.start < frameLength) {
+                break;
+            }
+
+            handler.onFrame(this.buffer, this.start, this.headerLength, this.bodyLength);
+            frames++;
+
+            this.start += frameLength;
+            this.scan = this.start;
+            this.headerLength = -1;
+            this.bodyLength = 0;
+        }
+
+        if (this.start == this.limit) {
+            this.start = 0;
+            this.limit = 0;
+            this.scan = 0;
+            releaseIfEmpty();
+        }
+
+        return frames;
+    }
+
+    /**
+     * Emits the message of a datagram which was fed completely, then discards everything held in the buffer.
+     *
+     * <p>A datagram carries exactly one message (RFC 3261, section 18.3). Without {@code Content-Length} the
+     * body extends to the end of the datagram; a datagram shorter than its {@code Content-Length} is
+     * dropped.</p>
+     *
+     * @param handler the callback receiving the message.
+     * @return the number of messages emitted, i.e. 0 or 1.
+     * @throws IllegalArgumentException if the datagram is not a valid SIP message.
+     */
+    public int drainDatagram(FrameHandler handler) {
+        try {
+            skipLeadingLineBreaks();
+
+            final var headerEnd = findHeaderEnd();
+            if (headerEnd == -1) {
+                return 0;
+            }
+
+            final var contentLength = readContentLength(this.start, headerEnd);
+            final var remaining = this.limit - headerEnd;
+            final var datagramBodyLength = contentLength == -1 ? remaining : contentLength;
+            if (datagramBodyLength > remaining) {
+                return 0;
+            }
+
+            handler.onFrame(this.buffer, this.start, headerEnd - this.start, datagramBodyLength);
+            return 1;
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Discards all received bytes.
+     */
+    public void reset() {
+        this.start = 0;
+        this.limit = 0;
+        this.scan = 0;
+        this.headerLength = -1;
+        this.bodyLength = 0;
+        releaseIfEmpty();
+    }
+
+    private void releaseIfEmpty() {
+        if (this.buffer != null && this.limit == 0) {
+            this.pool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * Returns the number of bytes received but not yet emitted as part of a message.
+     *
+     * @return the number of pending bytes.
+     */
+    public int pending() {
+        return this.limit - this.start;
+    }
+
+    /**
+     * Returns the number of keep-alive line breaks received between messages so far.
+     *
+     * <p>A registrar answers each double-CRLF ping with a single CRLF, so this count grows by one per pong.
+     * A lone LF is counted as well, a CR is not.</p>
+     *
+     * @return the number of line feeds received outside of messages.
+     */
+    public long keepAlives() {
+        return this.keepAlives;
+    }
+
+    private void skipLeadingLineBreaks() {
+        while (this.start < this.limit) {
+            final var current = this.buffer.get(this.start);
+            if (current == LF) {
+                this.keepAlives++;
+            } else if (current != CR) {
+                break;
+            }
+
+            this.start++;
+        }
+
+        this.scan = Math.max(this.scan, this.start);
+    }
+
+    /**
+     * Searches for the empty line terminating the header section.
+     *
+     * <p>Both {@code CRLF CRLF} and the lenient {@code LF LF} are accepted. Bytes are scanned only once,
+     * the search resumes where the previous call stopped.</p>
+     *
+     * @return the index after the empty line, or -1 if the header section is incomplete.
+     */
+    private int findHeaderEnd() {
+        for (var i = this.scan; i < this.limit; i++) {
+            if (this.buffer.get(i) != LF) {
+                continue;
+            }
+
+            // LF LF
+            if (i + 1 < this.limit && this.buffer.get(i + 1) == LF) {
+                return i + 2;
+            }
+
+            // LF CR LF
+            if (i + 2 < this.limit && this.buffer.get(i + 1) == CR && this.buffer.get(i + 2) == LF) {
+                return i + 3;
+            }
+
+            if (i + 2 >= this.limit) {
+                // might be completed by the next chunk, look at this LF again.
+                this.scan = i;
+                return -1;
+            }
+        }
+
+        this.scan = this.limit;
+        return -1;
+    }
+
+    /**
+     * Reads the value of the {@code Content-Length} (or compact {@code l}) header directly from the header bytes.
+     *
+     * @return the body length, or -1 if the header is absent.
+     */
+    private int readContentLength(int from, int to) {
+        var lineStart = from;
+
+        while (lineStart < to) {
+            var lineEnd = lineStart;
+            while (lineEnd < to && this.buffer.get(lineEnd) != LF) {
+                lineEnd++;
+            }
+
+            final var valueStart = matchContentLengthName(lineStart, lineEnd);
+            if (valueStart != -1) {
+                return parseLength(valueStart, lineEnd);
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether the line starts with a content length header name, followed by optional whitespace and a colon.
+     *
+     * @return the index after the colon, or -1 if this line is a different header.
+     */
+    private int matchContentLengthName(int lineStart, int lineEnd) {
+        var pos = lineStart;
+
+        if (lineEnd - lineStart > CONTENT_LENGTH.length && regionMatchesIgnoreCase(lineStart, CONTENT_LENGTH)) {
+            pos += CONTENT_LENGTH.length;
+        } else if (lineEnd - lineStart > 1 && toLowerAscii(this.buffer.get(lineStart)) == 'l') {
+            pos += 1;
+        } else {
+            return -1;
+        }
+
+        while (pos < lineEnd && isWhitespace(this.buffer.get(pos))) {
+            pos++;
+        }
+
+        if (pos < lineEnd && this.buffer.get(pos) == ':') {
+            return pos + 1;
+        }
+
+        return -1;
+    }
+
+    private int parseLength(int from, int to) {
+        var length = 0L;
+        var digits = 0;
+
+        for (var i = from; i < to; i++) {
+            final var current = this.buffer.get(i);
+            if (current >= '0' && current <= '9') {
+                length = length * 10 + (current - '0');
+                digits++;
+
+                if (length > this.maxMessageSize) {
+                    throw new IllegalArgumentException(
+                            "Illegal message: Content length exceeds maximum message size: " + length);
+                }
+            } else if (!isWhitespace(current) && current != CR) {
+                throw new IllegalArgumentException(
+                        "Illegal message: Content length is not a number! " + describeCurrentHeader());
+            }
+        }
+
+        if (digits == 0) {
+            throw new IllegalArgumentException(
+                    "Illegal message: Content length is not a number! " + describeCurrentHeader());
+        }
+
+        return (int) length;
+    }
+
+    private boolean regionMatchesIgnoreCase(int offset, byte[] lowerCaseName) {
+        for (var i = 0; i < lowerCaseName.length; i++) {
+            if (toLowerAscii(this.buffer.get(offset + i)) != lowerCaseName[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void checkMessageSize(int size) {
+        if (size > this.maxMessageSize) {
+            throw new IllegalArgumentException(
+                    "Illegal message: Message exceeds maximum size of " + this.maxMessageSize + " bytes.");
+        }
+    }
+
+    /**
+     * Makes room for more incoming data by moving pending bytes to the front and growing the buffer if needed.
+     */
+    private void ensureWritable() {
+        if (this.buffer == null) {
+            this.buffer = this.pool.acquire(this.initialCapacity);
+            return;
+        }
+
+        if (this.limit < writableLimit()) {
+            return;
+        }
+
+        if (this.start > 0) {
+            final var pending = this.limit - this.start;
+            this.buffer.put(0, this.buffer, this.start, pending);
+            this.scan -= this.start;
+            this.start = 0;
+            this.limit = pending;
+            return;
+        }
+
+        if (writableLimit() > this.maxMessageSize) {
+            throw new IllegalArgumentException(
+                    "Illegal message: Message exceeds maximum size of " + this.maxMessageSize + " bytes.");
+        }
+
+        final var grown = this.pool.acquire(Math.min(writableLimit() * 2, this.maxMessageSize + 1));
+        grown.put(0, this.buffer, 0, this.limit);
+        this.pool.release(this.buffer);
+        this.buffer = grown;
+    }
+
+    /**
+     * Pooled buffers come in size classes and may be larger than requested, so at most one byte beyond the
+     * maximum message size is ever used; that byte is enough to detect an oversized message.
+     */
+    private int writableLimit() {
+        return Math.min(this.buffer.capacity(), this.maxMessageSize + 1);
+    }
+
+    private String describeCurrentHeader() {
+        final var length = Math.min(this.limit - this.start, 256);
+        final var bytes = new byte[length];
+        this.buffer.get(this.start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWhitespace(byte current) {
+        return current == ' ' || current == '\t';
+    }
+
+    private static byte toLowerAscii(byte current) {
+        if (current >= 'A' && current <= 'Z') {
+            return (byte) (current + ('a' - 'A'));
+        }
+
+        return current;
+    }
+
+    /**
+     * Receives complete messages from a {@link SipMessageFramer}.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * Called for each complete message.
+         *
+         * @param buffer the receive buffer. Only valid during this call, implementations must copy what they need.
+         * @param offset the index of the first byte of the message.
+         * @param headerLength the length of the start line and headers, including the terminating empty line.
+         * @param bodyLength the length of the body in bytes, as given by {@code Content-Length}.
+         */
+        void onFrame(ByteBuffer buffer, int offset, int headerLength, int bodyLength);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message template which is compiled once into pre-encoded constant byte segments and field slots.
+ *
+ * <p>Placeholders are written as {@code {FIELD}}, where {@code FIELD} is the name of a constant of the
+ * given enum. Line breaks in the template are converted to {@code CRLF} at compile time, so templates
+ * can be written as text blocks.</p>
+ *
+ * @param <F> the enum type naming the fields of this template.
+ */
+public final class SipMessageTemplate<F extends Enum<F>> {
+
+    private final byte[][] constants;
+    private final List<F> fields;
+
+    private SipMessageTemplate(byte[][] constants, List<F> fields) {
+        this.constants = constants;
+        this.fields = fields;
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param template the template text.
+     * @param fieldType the enum naming the placeholders.
+     * @param <F> the enum type naming the fields of this template.
+     * @return the compiled template.
+     * @throws IllegalArgumentException if the template contains unknown or unterminated placeholders.
+     */
+    public static <F extends Enum<F>> SipMessageTemplate<F> compile(String template, Class<F> fieldType) {
+        final var crlfTemplate = template.replace("\r\n", "\n").replace("\n", "\r\n");
+        final var constants = new ArrayList<byte[]>();
+        final var fields = new ArrayList<F>();
+
+        var pos = 0;
+        while (true) {
+            final var open = crlfTemplate.indexOf('{', pos);
+            if (open == -1) {
+                constants.add(crlfTemplate.substring(pos).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+
+            final var close = crlfTemplate.indexOf('}', open);
+            if (close == -1) {
+                throw new IllegalArgumentException("Unterminated placeholder at position " + open + ": " + template);
+            }
+
+            constants.add(crlfTemplate.substring(pos, open).getBytes(StandardCharsets.UTF_8));
+            fields.add(Enum.valueOf(fieldType, crlfTemplate.substring(open + 1, close)));
+            pos = close + 1;
+        }
+
+        return new SipMessageTemplate<>(constants.toArray(byte[][]::new), List.copyOf(fields));
+    }
+
+    /**
+     * Writes the message into the given buffer.
+     *
+     * @param out the buffer to write to.
+     * @param fieldEncoder writes the value of each field, in template order.
+     */
+    public void encode(SipMessageBuffer out, FieldEncoder<F> fieldEncoder) {
+        for (var i = 0; i < this.fields.size(); i++) {
+            out.append(this.constants[i]);
+            fieldEncoder.encode(this.fields.get(i), out);
+        }
+
+        out.append(this.constants[this.constants.length - 1]);
+    }
+
+    /**
+     * Writes the value of a single template field.
+     *
+     * @param <F> the enum type naming the fields of the template.
+     */
+    @FunctionalInterface
+    public interface FieldEncoder<F extends Enum<F>> {
+        void encode(F field, SipMessageBuffer out);
+    }
+}
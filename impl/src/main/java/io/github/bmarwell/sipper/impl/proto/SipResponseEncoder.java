@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes responses to received requests without a body.
+ *
+ * <p>The headers a response has to repeat (RFC 3261, section 8.2.6.2) are copied byte for byte from the
+ * request, using the offsets of its header index. No header value is materialized as a String.</p>
+ */
+public final class SipResponseEncoder {
+
+    private static final SipMessageTemplate<ResponseField> RESPONSE = SipMessageTemplate.compile(
+            """
+            SIP/2.0 {STATUS}
+            {ECHOED_HEADERS}{EXTRA_HEADERS}Content-Length: 0
+
+            """,
+            ResponseField.class);
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] TAG_PARAM = ";tag=".getBytes(StandardCharsets.US_ASCII);
+
+    private SipResponseEncoder() {
+        // util class
+    }
+
+    /**
+     * Encodes a response.
+     *
+     * @param request the request to answer.
+     * @param status the status of the response.
+     * @param toTag the tag to add to the To header if the request did not have one, or {@code null}.
+     * @param extraHeaders complete, pre-encoded header lines including their CRLF, or an empty array.
+     * @return the encoded response.
+     */
+    public static SipMessageBuffer encode(RawSipMessage request, Status status, String toTag, byte[] extraHeaders) {
+        final var out = SipMessageBuffer.acquire();
+
+        RESPONSE.encode(out, (field, buffer) -> {
+            switch (field) {
+                case STATUS -> buffer.append(status.statusLine);
+                case ECHOED_HEADERS -> appendEchoedHeaders(buffer, request, toTag);
+                case EXTRA_HEADERS -> buffer.append(extraHeaders);
+            }
+        });
+
+        return out;
+    }
+
+    private static void appendEchoedHeaders(SipMessageBuffer buffer, RawSipMessage request, String toTag) {
+        final var headers = request.headers();
+        final var raw = request.headerBytes();
+
+        for (var via = headers.indexOf("Via"); via != -1; via = headers.indexOf("Via", via + 1)) {
+            appendHeader(buffer, "Via: ", raw, headers, via);
+        }
+
+        appendFirst(buffer, "From: ", raw, headers, "From");
+
+        final var to = headers.indexOf("To");
+        if (to != -1) {
+            buffer.append("To: ");
+            final var start = headers.valueStart(to);
+            final var end = headers.valueEnd(to);
+            buffer.append(raw, start, end - start);
+            if (toTag != null && !containsIgnoreCase(raw, start, end, TAG_PARAM)) {
+                buffer.append(TAG_PARAM).append(toTag);
+            }
+            buffer.append(CRLF);
+        }
+
+        appendFirst(buffer, "Call-ID: ", raw, headers, "Call-ID");
+        appendFirst(buffer, "CSeq: ", raw, headers, "CSeq");
+    }
+
+    private static void appendFirst(
+            SipMessageBuffer buffer, String name, byte[] raw, SipHeaderIndex headers, String header) {
+        final var index = headers.indexOf(header);
+        if (index != -1) {
+            appendHeader(buffer, name, raw, headers, index);
+        }
+    }
+
+    private static void appendHeader(
+            SipMessageBuffer buffer, String name, byte[] raw, SipHeaderIndex headers, int index) {
+        final var start = headers.valueStart(index);
+        buffer.append(name).append(raw, start, headers.valueEnd(index) - start).append(CRLF);
+    }
+
+    private static boolean containsIgnoreCase(byte[] raw, int from, int to, byte[] lowerCase) {
+        outer:
+        for (var pos = from; pos + lowerCase.length <= to; pos++) {
+            for (var i = 0; i < lowerCase.length; i++) {
+                final var current = raw[pos + i];
+                final var lower = current >= 'A' && current <= 'Z' ? current + ('a' - 'A') : current;
+                if (lower != lowerCase[i]) {
+                    continue outer;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The responses sent without involving the application.
+     */
+    public enum Status {
+        TRYING(100, "Trying"),
+        RINGING(180, "Ringing"),
+        OK(200, "OK"),
+        SERVICE_UNAVAILABLE(503, "Service Unavailable");
+
+        private final int code;
+        private final byte[] statusLine;
+
+        Status(int code, String reasonPhrase) {
+            this.code = code;
+            this.statusLine = (code + " " + reasonPhrase).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        public int code() {
+            return this.code;
+        }
+    }
+
+    private enum ResponseField {
+        STATUS,
+        ECHOED_HEADERS,
+        EXTRA_HEADERS
+    }
+}
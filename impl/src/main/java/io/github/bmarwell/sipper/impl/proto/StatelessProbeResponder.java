@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import io.github.bmarwell.sipper.impl.proto.SipResponseEncoder.Status;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers the probes providers send to check whether a registered endpoint is still alive, without
+ * involving the application.
+ *
+ * <p>Handled are {@code OPTIONS} requests and {@code NOTIFY} requests without a body for the
+ * {@code keep-alive} event package. Requests are recognized by the bytes of their request line, and the
+ * response is encoded from a template with the dialog headers copied byte for byte.</p>
+ */
+public final class StatelessProbeResponder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatelessProbeResponder.class);
+
+    private static final byte[] OPTIONS = "OPTIONS ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOTIFY = "NOTIFY ".getBytes(StandardCharsets.US_ASCII);
+    private static final String KEEP_ALIVE = "keep-alive";
+
+    private static final byte[] OPTIONS_HEADERS = ("Allow: INVITE, ACK, CANCEL, BYE, OPTIONS, NOTIFY, MESSAGE\r\n"
+                    + "Accept: application/sdp\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NO_EXTRA_HEADERS = new byte[0];
+
+    private final Consumer<SipMessageBuffer> sender;
+
+    /** To tag for all responses, as none of them creates a dialog. */
+    private final String toTag =
+            HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+
+    private final LongAdder optionsProbes = new LongAdder();
+    private final LongAdder keepAliveProbes = new LongAdder();
+
+    /**
+     * Creates a responder.
+     *
+     * @param sender writes an encoded response to the connection.
+     */
+    public StatelessProbeResponder(Consumer<SipMessageBuffer> sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Answers the message if it is a probe.
+     *
+     * @param message the received message.
+     * @return {@code true} if the message was a probe, which was answered and must not be dispatched.
+     */
+    public boolean onRequest(RawSipMessage message) {
+        final var header = message.headerBytes();
+
+        if (startsWith(header, OPTIONS)) {
+            this.optionsProbes.increment();
+            send(message, OPTIONS_HEADERS);
+            return true;
+        }
+
+        if (startsWith(header, NOTIFY) && !message.hasBody() && isKeepAliveEvent(message)) {
+            this.keepAliveProbes.increment();
+            send(message, NO_EXTRA_HEADERS);
+            return true;
+        }
+
+        return false;
+    }
+
+    private static boolean isKeepAliveEvent(RawSipMessage message) {
+        final var headers = message.headers();
+        final var event = headers.indexOf("Event");
+        if (event == -1) {
+            return false;
+        }
+
+        final var raw = message.headerBytes();
+        final var start = headers.valueStart(event);
+        var end = headers.valueEnd(event);
+        // event parameters (e.g. ;id=1) do not matter.
+        for (var i = start; i < end; i++) {
+            if (raw[i] == ';' || raw[i] == ' ' || raw[i] == '\t') {
+                end = i;
+                break;
+            }
+        }
+
+        return new String(raw, start, end - start, StandardCharsets.US_ASCII).equalsIgnoreCase(KEEP_ALIVE);
+    }
+
+    private void send(RawSipMessage request, byte[] extraHeaders) {
+        try {
+            this.sender.accept(SipResponseEncoder.encode(request, Status.OK, this.toTag, extraHeaders));
+        } catch (RuntimeException rtEx) {
+            LOG.error("Unable to answer probe [{}].", request, rtEx);
+        }
+    }
+
+    private static boolean startsWith(byte[] header, byte[] prefix) {
+        if (header.length < prefix.length) {
+            return false;
+        }
+
+        for (var i = 0; i < prefix.length; i++) {
+            if (header[i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long getOptionsProbes() {
+        return this.optionsProbes.sum();
+    }
+
+    public long getKeepAliveProbes() {
+        return this.keepAliveProbes.sum();
+    }
+
+    /**
+     * Returns the number of all answered probes, e.g. to monitor the probe rate of a provider.
+     *
+     * @return the number of answered probes since the connection was opened.
+     */
+    public long getProbeCount() {
+        return getOptionsProbes() + getKeepAliveProbes();
+    }
+}
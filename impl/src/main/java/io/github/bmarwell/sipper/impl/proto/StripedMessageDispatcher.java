@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import io.github.bmarwell.sipper.impl.util.MpscRingBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands inbound messages to a {@link SipIncomingMessageHandler} on a fixed set of lanes.
+ *
+ * <p>Messages are assigned to a lane by their Call-ID, and every lane is drained by exactly one thread.
+ * Thus all messages of one dialog reach the handler in wire order, while different dialogs are processed
+ * in parallel. Each lane is a lock-free {@link MpscRingBuffer}, so dispatching does not allocate a task
+ * per message. If a lane is full, {@link #dispatch(RawSipMessage)} waits, which pushes back on a blocking
+ * socket. Selector loops serve many connections and must never wait, so they use
+ * {@link #tryDispatch(RawSipMessage)}, which drops and counts the message instead. They check
+ * {@link #hasRoomFor(RawSipMessage)} first, so requests can be rejected before they are answered.</p>
+ *
+ * <p>A lane drains everything that queued up since its last wake-up and passes it to
+ * {@link SipIncomingMessageHandler#acceptAll(List)} in one invocation.</p>
+ */
+public final class StripedMessageDispatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StripedMessageDispatcher.class);
+
+    public static final int DEFAULT_LANE_CAPACITY = 1024;
+
+    /** Maximum number of messages a lane hands to the handler in one invocation. */
+    public static final int MAX_BATCH_SIZE = 64;
+
+    private static final long FULL_LANE_BACKOFF_NANOS = 50_000L;
+
+    private final SipIncomingMessageHandler handler;
+    private final Lane[] lanes;
+    private final int laneMask;
+
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    public StripedMessageDispatcher(SipIncomingMessageHandler handler) {
+        this(handler, Runtime.getRuntime().availableProcessors(), DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * Creates a dispatcher and starts its lanes.
+     *
+     * @param handler the handler which receives all messages.
+     * @param laneCount the number of lanes, rounded up to the next power of two.
+     * @param laneCapacity the capacity of each lane, which must be a power of two.
+     */
+    public StripedMessageDispatcher(SipIncomingMessageHandler handler, int laneCount, int laneCapacity) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count must be positive, but was: " + laneCount);
+        }
+
+        final var roundedLaneCount = laneCount == 1 ? 1 : Integer.highestOneBit(laneCount - 1) << 1;
+
+        this.handler = handler;
+        this.lanes = new Lane[roundedLaneCount];
+        this.laneMask = roundedLaneCount - 1;
+
+        for (var i = 0; i < roundedLaneCount; i++) {
+            final var lane = new Lane(new MpscRingBuffer<>(laneCapacity));
+            lane.consumer = Thread.ofVirtual().name("sipper-dispatch-", i).start(lane);
+            this.lanes[i] = lane;
+        }
+    }
+
+    /**
+     * Queues a message on the lane of its dialog. Waits while that lane is full.
+     *
+     * @param message the message to dispatch.
+     */
+    public void dispatch(RawSipMessage message) {
+        final var lane = laneFor(message);
+
+        while (!lane.queue.offer(message)) {
+            if (this.closed) {
+                LOG.debug("Dispatcher closed, dropping message [{}].", message);
+                return;
+            }
+
+            LockSupport.parkNanos(FULL_LANE_BACKOFF_NANOS);
+        }
+
+        wakeUp(lane);
+    }
+
+    /**
+     * Queues a message on the lane of its dialog without waiting, e.g. from a selector loop.
+     *
+     * @param message the message to dispatch.
+     * @return {@code false} if the lane was full and the message was dropped.
+     */
+    public boolean tryDispatch(RawSipMessage message) {
+        final var lane = laneFor(message);
+
+        if (!lane.queue.offer(message)) {
+            this.droppedMessages.increment();
+            LOG.debug("Lane full, dropping message [{}].", message);
+            return false;
+        }
+
+        wakeUp(lane);
+        return true;
+    }
+
+    /**
+     * Checks whether the lane of a message has room. Only reliable for the lane's single producer, like the
+     * reader of a connection: consumers only ever make room.
+     *
+     * @param message the message to dispatch next.
+     * @return {@code true} if {@link #tryDispatch(RawSipMessage)} will accept the message.
+     */
+    public boolean hasRoomFor(RawSipMessage message) {
+        final var queue = laneFor(message).queue;
+        return queue.size() < queue.capacity();
+    }
+
+    private Lane laneFor(RawSipMessage message) {
+        return this.lanes[laneOf(message.callId().orElse(""), this.laneMask)];
+    }
+
+    private static void wakeUp(Lane lane) {
+        if (lane.waiting) {
+            LockSupport.unpark(lane.consumer);
+        }
+    }
+
+    static int laneOf(String callId, int laneMask) {
+        final var hash = callId.hashCode();
+        return (hash ^ (hash >>> 16)) & laneMask;
+    }
+
+    public int laneCount() {
+        return this.lanes.length;
+    }
+
+    /**
+     * Returns the number of messages {@link #tryDispatch(RawSipMessage)} dropped because their lane was full.
+     *
+     * @return the number of dropped messages.
+     */
+    public long getDroppedMessages() {
+        return this.droppedMessages.sum();
+    }
+
+    /**
+     * Stops the lanes after they delivered the messages already queued.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+
+        for (var lane : this.lanes) {
+            LockSupport.unpark(lane.consumer);
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final MpscRingBuffer<RawSipMessage> queue;
+
+        private Thread consumer;
+
+        private volatile boolean waiting = false;
+
+        private Lane(MpscRingBuffer<RawSipMessage> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            final var batch = new ArrayList<RawSipMessage>(MAX_BATCH_SIZE);
+
+            while (true) {
+                RawSipMessage message;
+                while (batch.size() < MAX_BATCH_SIZE && (message = this.queue.poll()) != null) {
+                    batch.add(message);
+                }
+
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                    batch.clear();
+                    continue;
+                }
+
+                if (StripedMessageDispatcher.this.closed) {
+                    return;
+                }
+
+                // announce parking before the final check, so a producer either sees the flag or we see its message.
+                this.waiting = true;
+                if (this.queue.isEmpty() && !StripedMessageDispatcher.this.closed) {
+                    LockSupport.park(this);
+                }
+                this.waiting = false;
+            }
+        }
+
+        private void deliver(List<RawSipMessage> batch) {
+            try {
+                StripedMessageDispatcher.this.handler.acceptAll(batch);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Unable to process [{}] messages.", batch.size(), rtEx);
+            }
+        }
+    }
+}
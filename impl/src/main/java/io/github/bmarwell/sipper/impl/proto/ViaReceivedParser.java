@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Reads the address a server saw our request coming from, as reflected in the top-most Via header of its
+ * response (RFC 3261, section 18.2.1 and RFC 3581).
+ *
+ * <p>Behind a NAT, {@code received} carries the public IP and {@code rport} the public port of the flow.
+ * Without either parameter, the server saw the request coming from the address we sent, so there is nothing
+ * to learn.</p>
+ */
+public final class ViaReceivedParser {
+
+    private ViaReceivedParser() {
+        // util class
+    }
+
+    /**
+     * Returns the public address of the flow the response was received on.
+     *
+     * @param response a response to one of our requests.
+     * @return the address the server saw, or empty if it equals the sent-by address or cannot be read.
+     */
+    public static Optional<InetSocketAddress> mappedAddress(RawSipMessage response) {
+        final var topVia = response.headers().first("Via");
+        if (topVia.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // only the first via-parm of a comma-separated Via header.
+        final var viaParm = topVia.orElseThrow().split(",", 2)[0];
+        final var params = viaParm.split(";");
+
+        String received = null;
+        var rport = -1;
+        for (var i = 1; i < params.length; i++) {
+            final var param = params[i].trim();
+            final var lowerParam = param.toLowerCase(Locale.ROOT);
+            if (lowerParam.startsWith("received=")) {
+                received = param.substring("received=".length()).trim();
+            } else if (lowerParam.startsWith("rport=")) {
+                rport = parsePort(param.substring("rport=".length()).trim());
+            }
+        }
+
+        if (received == null && rport == -1) {
+            return Optional.empty();
+        }
+
+        final var sentBy = sentBy(params[0]);
+        final var host = received != null ? received : sentBy.host();
+        final var port = rport != -1 ? rport : sentBy.port();
+
+        return literalAddress(host).map(address -> new InetSocketAddress(address, port));
+    }
+
+    /**
+     * Parses the sent-by of a via-parm like {@code SIP/2.0/TCP 192.0.2.1:5060}.
+     */
+    private static SentBy sentBy(String sentProtocolAndBy) {
+        final var trimmed = sentProtocolAndBy.trim();
+        final var space = trimmed.lastIndexOf(' ');
+        final var hostPort = trimmed.substring(space + 1);
+
+        if (hostPort.startsWith("[")) {
+            final var close = hostPort.indexOf(']');
+            final var port = close + 1 < hostPort.length() && hostPort.charAt(close + 1) == ':'
+                    ? parsePort(hostPort.substring(close + 2))
+                    : -1;
+            return new SentBy(hostPort.substring(0, close + 1), port == -1 ? 5060 : port);
+        }
+
+        final var colon = hostPort.indexOf(':');
+        if (colon == -1) {
+            return new SentBy(hostPort, 5060);
+        }
+
+        final var port = parsePort(hostPort.substring(colon + 1));
+        return new SentBy(hostPort.substring(0, colon), port == -1 ? 5060 : port);
+    }
+
+    private static int parsePort(String value) {
+        try {
+            final var port = Integer.parseInt(value);
+            return port > 0 && port <= 0xFFFF ? port : -1;
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    /**
+     * Converts an IP literal without ever querying DNS.
+     */
+    private static Optional<InetAddress> literalAddress(String host) {
+        final var unbracketed =
+                host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+        if (unbracketed.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // IPv6 literals contain a colon, IPv4 literals are four dotted decimals. Anything else is a host name.
+        final var ipv6 = unbracketed.indexOf(':') != -1;
+        var dots = 0;
+        for (var i = 0; i < unbracketed.length(); i++) {
+            final var current = unbracketed.charAt(i);
+            if (current == '.') {
+                dots++;
+            } else if (ipv6 ? Character.digit(current, 16) == -1 && current != ':' : !Character.isDigit(current)) {
+                return Optional.empty();
+            }
+        }
+
+        if (!ipv6 && dots != 3) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(InetAddress.getByName(unbracketed));
+        } catch (UnknownHostException uhe) {
+            return Optional.empty();
+        }
+    }
+
+    private record SentBy(String host, int port) {}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import java.util.Locale;
+
+/**
+ * The direction of a media stream as seen by the side which wrote the description (RFC 4566, section 6).
+ */
+public enum MediaDirection {
+    /** Sends and receives, the default if no direction attribute is given. */
+    SENDRECV,
+    /** Only sends media. */
+    SENDONLY,
+    /** Only receives media. */
+    RECVONLY,
+    /** Neither sends nor receives media, e.g. while on hold. */
+    INACTIVE;
+
+    private final String attribute = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * Returns the direction attribute without {@code a=}.
+     *
+     * @return the attribute, e.g. {@code sendonly}.
+     */
+    public String attribute() {
+        return this.attribute;
+    }
+
+    /**
+     * Returns the direction to answer an offer with (RFC 3264, section 6.1): what the offerer only sends, the
+     * answerer only receives, and vice versa.
+     *
+     * @return the mirrored direction.
+     */
+    public MediaDirection answer() {
+        return switch (this) {
+            case SENDONLY -> RECVONLY;
+            case RECVONLY -> SENDONLY;
+            case SENDRECV, INACTIVE -> this;
+        };
+    }
+
+    /**
+     * Reads the direction from the current line.
+     *
+     * @param reader a reader positioned on an attribute line.
+     * @return the direction, or {@code null} if the line is not a direction attribute.
+     */
+    static MediaDirection of(SdpReader reader) {
+        for (var direction : values()) {
+            if (reader.isAttribute(direction.attribute)) {
+                return direction;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+/**
+ * An RTP payload format of a media description, as given by the {@code m=} line, {@code a=rtpmap} and
+ * {@code a=fmtp}.
+ *
+ * @param payloadType the payload type number, or -1 for a codec preference which is not bound to one.
+ * @param encodingName the encoding name, e.g. {@code PCMA}.
+ * @param clockRate the RTP clock rate in Hz.
+ * @param channels the number of audio channels.
+ * @param parameters the format parameters of {@code a=fmtp}, or {@code null} if there are none.
+ */
+public record MediaFormat(int payloadType, String encodingName, int clockRate, int channels, String parameters) {
+
+    /** Static audio payload types (RFC 3551, section 6), indexed by payload type. */
+    private static final MediaFormat[] STATIC_AUDIO = new MediaFormat[19];
+
+    static {
+        STATIC_AUDIO[0] = new MediaFormat(0, "PCMU", 8000, 1, null);
+        STATIC_AUDIO[3] = new MediaFormat(3, "GSM", 8000, 1, null);
+        STATIC_AUDIO[4] = new MediaFormat(4, "G723", 8000, 1, null);
+        STATIC_AUDIO[8] = new MediaFormat(8, "PCMA", 8000, 1, null);
+        STATIC_AUDIO[9] = new MediaFormat(9, "G722", 8000, 1, null);
+        STATIC_AUDIO[18] = new MediaFormat(18, "G729", 8000, 1, null);
+    }
+
+    /**
+     * Parses a codec preference.
+     *
+     * @param codec the codec as in {@code a=rtpmap}, e.g. {@code PCMA/8000} or {@code opus/48000/2}.
+     * @return the preference, not bound to a payload type.
+     * @throws IllegalArgumentException if the codec lacks the clock rate.
+     */
+    public static MediaFormat of(String codec) {
+        final var parts = codec.split("/", -1);
+        if (parts.length < 2 || parts.length > 3 || parts[0].isBlank()) {
+            throw new IllegalArgumentException("Codec must be given as name/rate[/channels], but was: " + codec);
+        }
+
+        try {
+            final var channels = parts.length == 3 ? Integer.parseInt(parts[2]) : 1;
+            return new MediaFormat(-1, parts[0], Integer.parseInt(parts[1]), channels, null);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Codec must be given as name/rate[/channels], but was: " + codec, nfe);
+        }
+    }
+
+    /**
+     * Returns the format of a static payload type, which an offer may use without {@code a=rtpmap}.
+     *
+     * @param payloadType the payload type number.
+     * @return the format, or {@code null} if the payload type is not a static audio payload type.
+     */
+    static MediaFormat ofStaticPayloadType(int payloadType) {
+        return payloadType >= 0 && payloadType < STATIC_AUDIO.length ? STATIC_AUDIO[payloadType] : null;
+    }
+
+    /**
+     * Checks whether this format encodes the same codec as the given one, regardless of payload type.
+     *
+     * @param other the other format.
+     * @return {@code true} if encoding name, clock rate and channels match.
+     */
+    public boolean sameCodec(MediaFormat other) {
+        return this.encodingName.equalsIgnoreCase(other.encodingName)
+                && this.clockRate == other.clockRate
+                && this.channels == other.channels;
+    }
+
+    MediaFormat withPayloadType(int newPayloadType, String newParameters) {
+        return new MediaFormat(newPayloadType, this.encodingName, this.clockRate, this.channels, newParameters);
+    }
+
+    /**
+     * Returns the value of the {@code a=rtpmap} attribute for this format.
+     *
+     * @return e.g. {@code 8 PCMA/8000}.
+     */
+    public String rtpmap() {
+        final var rtpmap = this.payloadType + " " + this.encodingName + "/" + this.clockRate;
+        return this.channels == 1 ? rtpmap : rtpmap + "/" + this.channels;
+    }
+}
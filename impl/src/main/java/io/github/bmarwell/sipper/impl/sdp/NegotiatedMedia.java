@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import java.util.List;
+
+/**
+ * The audio stream agreed on by answering an offer.
+ *
+ * @param remoteAddress the address the offerer receives media on, from the {@code c=} line.
+ * @param remotePort the port the offerer receives RTP on, from the {@code m=} line.
+ * @param proto the transport protocol of the stream, e.g. {@code RTP/AVP}.
+ * @param direction the direction of the stream as offered, i.e. from the offerer's point of view.
+ * @param formats the formats both sides support, in local order of preference, with the offer's payload types.
+ */
+public record NegotiatedMedia(
+        String remoteAddress, int remotePort, String proto, MediaDirection direction, List<MediaFormat> formats) {
+
+    public NegotiatedMedia {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("At least one format must have been negotiated.");
+        }
+
+        formats = List.copyOf(formats);
+    }
+
+    /**
+     * Returns the format to send with.
+     *
+     * @return the most preferred format.
+     */
+    public MediaFormat preferred() {
+        return this.formats.getFirst();
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers SDP offers (RFC 3264) for a single audio stream against a fixed codec preference list.
+ *
+ * <p>The offer is read in place with an {@link SdpReader}. While reading, the parts of the first audio
+ * stream which decide the outcome (transport, formats, {@code a=rtpmap}, {@code a=fmtp}, {@code a=ptime} and
+ * the direction) are collected into a key, and the negotiated formats are cached under that key. Address, port
+ * and session version change with every call and are not part of the key, so the nearly identical offers a
+ * carrier sends for each call are answered from the cache, reading only the address and port.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class SdpNegotiator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SdpNegotiator.class);
+
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final String TELEPHONE_EVENT = "telephone-event";
+
+    private final List<MediaFormat> preferences;
+    private final int cacheSize;
+    private final ConcurrentHashMap<OfferKey, List<MediaFormat>> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Creates a negotiator.
+     *
+     * @param codecs the supported codecs, most preferred first, e.g. {@code PCMA/8000}.
+     */
+    public SdpNegotiator(List<String> codecs) {
+        this(codecs, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a negotiator.
+     *
+     * @param codecs the supported codecs, most preferred first, e.g. {@code PCMA/8000}.
+     * @param cacheSize the maximum number of distinct offers whose outcome is kept.
+     */
+    public SdpNegotiator(List<String> codecs, int cacheSize) {
+        if (codecs.isEmpty()) {
+            throw new IllegalArgumentException("At least one codec must be supported.");
+        }
+
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive, but was: " + cacheSize);
+        }
+
+        this.preferences = codecs.stream().map(MediaFormat::of).toList();
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Creates a negotiator for G.711 with DTMF events (RFC 4733).
+     *
+     * @return a negotiator preferring A-law, then µ-law.
+     */
+    public static SdpNegotiator g711() {
+        return new SdpNegotiator(List.of("PCMA/8000", "PCMU/8000", "telephone-event/8000"));
+    }
+
+    /**
+     * Answers the first audio stream of an offer.
+     *
+     * @param offer the session description, e.g. {@link io.github.bmarwell.sipper.impl.proto.RawSipMessage#body()}.
+     *     Only absolute reads are used, so its position is left untouched.
+     * @return the negotiated stream, or empty if the offer has no active audio stream with a supported codec.
+     * @throws IllegalArgumentException if the offer is not a valid session description.
+     */
+    public Optional<NegotiatedMedia> negotiate(ByteBuffer offer) {
+        final var reader = new SdpReader(offer);
+        final var key = new KeyBuilder();
+
+        var sessionConnection = -1;
+        var mediaConnection = -1;
+        var mediaStart = -1;
+        var mediaEnd = offer.limit();
+        var port = -1;
+        var protoStart = -1;
+        var protoEnd = -1;
+        var inAudio = false;
+        var sessionLevel = true;
+        MediaDirection sessionDirection = null;
+        MediaDirection mediaDirection = null;
+
+        while (reader.next()) {
+            switch (reader.type()) {
+                case 'm' -> {
+                    sessionLevel = false;
+                    if (inAudio) {
+                        mediaEnd = reader.lineStart();
+                        inAudio = false;
+                    } else if (mediaStart == -1
+                            && reader.fieldEqualsIgnoreCase(0, "audio")
+                            && reader.intField(1) != 0) {
+                        inAudio = true;
+                        mediaStart = reader.lineStart();
+                        port = reader.intField(1);
+                        protoStart = reader.fieldStart(2);
+                        if (protoStart == -1) {
+                            throw new IllegalArgumentException("Invalid media description: " + reader.line());
+                        }
+                        protoEnd = reader.fieldEnd(protoStart);
+                        key.append(reader, protoStart, reader.valueEnd());
+                    }
+                }
+                case 'c' -> {
+                    if (inAudio) {
+                        mediaConnection = reader.fieldStart(2);
+                    } else if (sessionLevel) {
+                        sessionConnection = reader.fieldStart(2);
+                    }
+                }
+                case 'a' -> {
+                    if (inAudio
+                            && (reader.isAttribute("rtpmap")
+                                    || reader.isAttribute("fmtp")
+                                    || reader.isAttribute("ptime"))) {
+                        key.append(reader, reader.lineStart(), reader.valueEnd());
+                    } else if (inAudio || sessionLevel) {
+                        final var lineDirection = MediaDirection.of(reader);
+                        if (lineDirection != null && inAudio) {
+                            mediaDirection = lineDirection;
+                        } else if (lineDirection != null) {
+                            sessionDirection = lineDirection;
+                        }
+                    }
+                }
+                default -> {
+                    // session name, origin, timing etc. do not influence the outcome.
+                }
+            }
+
+            if (mediaStart != -1 && !inAudio) {
+                break;
+            }
+        }
+
+        if (mediaStart == -1) {
+            LOG.debug("Offer has no active audio stream.");
+            return Optional.empty();
+        }
+
+        final var connection = mediaConnection != -1 ? mediaConnection : sessionConnection;
+        if (connection == -1) {
+            throw new IllegalArgumentException("Offer has no connection address for its audio stream.");
+        }
+
+        // a media-level direction overrides the session-level one (RFC 4566, section 6).
+        final var direction = mediaDirection != null
+                ? mediaDirection
+                : sessionDirection != null ? sessionDirection : MediaDirection.SENDRECV;
+        key.append(direction);
+
+        final var offerKey = key.build();
+        var formats = this.cache.get(offerKey);
+        if (formats != null) {
+            this.cacheHits.increment();
+        } else {
+            this.cacheMisses.increment();
+            formats = intersect(offer.duplicate().position(mediaStart).limit(mediaEnd));
+            cache(offerKey, formats);
+        }
+
+        if (formats.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final var address = reader.string(connection, endOfAddress(offer, connection));
+        final var proto = reader.string(protoStart, protoEnd);
+
+        return Optional.of(new NegotiatedMedia(address, port, proto, direction, formats));
+    }
+
+    /**
+     * Finds the end of a connection address, which for multicast may be followed by {@code /ttl}.
+     */
+    private static int endOfAddress(ByteBuffer sdp, int from) {
+        var end = from;
+        while (end < sdp.limit() && sdp.get(end) > ' ' && sdp.get(end) != '/') {
+            end++;
+        }
+
+        return end;
+    }
+
+    private void cache(OfferKey offerKey, List<MediaFormat> formats) {
+        if (this.cache.size() >= this.cacheSize) {
+            // offers rarely differ, so dropping any entry is good enough.
+            final var iterator = this.cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        this.cache.put(offerKey, formats);
+    }
+
+    /**
+     * Reads the formats of one media description and keeps those which are supported.
+     *
+     * @param media the media description, starting with its {@code m=} line.
+     * @return the supported formats in local order of preference, or an empty list if there is no voice codec.
+     */
+    private List<MediaFormat> intersect(ByteBuffer media) {
+        final var reader = new SdpReader(media);
+        reader.next();
+
+        final var offered = new ArrayList<Integer>();
+        for (var index = 3; reader.fieldStart(index) != -1; index++) {
+            offered.add(reader.intField(index));
+        }
+
+        final var rtpmaps = new HashMap<Integer, MediaFormat>();
+        final var fmtps = new HashMap<Integer, String>();
+        while (reader.next()) {
+            if (reader.isAttribute("rtpmap")) {
+                final var payloadType = reader.intField(0);
+                final var encoding = reader.field(1);
+                if (encoding == null) {
+                    LOG.debug("Ignoring rtpmap without encoding [{}].", reader.line());
+                    continue;
+                }
+
+                try {
+                    rtpmaps.put(payloadType, MediaFormat.of(encoding).withPayloadType(payloadType, null));
+                } catch (IllegalArgumentException unusable) {
+                    // e.g. a codec without clock rate, which cannot match any preference anyway.
+                    LOG.debug("Ignoring unusable rtpmap [{}].", reader.line(), unusable);
+                }
+            } else if (reader.isAttribute("fmtp")) {
+                fmtps.put(reader.intField(0), reader.fieldsFrom(1));
+            }
+        }
+
+        final var formats = new ArrayList<MediaFormat>();
+        var voice = false;
+        for (var preference : this.preferences) {
+            for (var payloadType : offered) {
+                var format = rtpmaps.get(payloadType);
+                if (format == null) {
+                    format = MediaFormat.ofStaticPayloadType(payloadType);
+                }
+
+                if (format != null && format.sameCodec(preference)) {
+                    formats.add(format.withPayloadType(payloadType, fmtps.get(payloadType)));
+                    voice |= !TELEPHONE_EVENT.equalsIgnoreCase(format.encodingName());
+                    break;
+                }
+            }
+        }
+
+        return voice ? List.copyOf(formats) : List.of();
+    }
+
+    /**
+     * Writes the answer to a negotiated offer. The direction mirrors the offer's, e.g. a {@code sendonly} offer
+     * is answered with {@code recvonly}.
+     *
+     * @param media the negotiated stream.
+     * @param local the address and port this side receives RTP on.
+     * @param sessionId the session id of the {@code o=} line, constant for the session.
+     * @param sessionVersion the version of the {@code o=} line, incremented with each new answer or offer.
+     * @return the session description.
+     */
+    public static byte[] answer(NegotiatedMedia media, InetSocketAddress local, long sessionId, long sessionVersion) {
+        final var addressType = local.getAddress() instanceof Inet6Address ? "IN IP6 " : "IN IP4 ";
+        final var address = local.getAddress().getHostAddress();
+        final var sdp = new StringBuilder(256)
+                .append("v=0\r\n")
+                .append("o=sipper ")
+                .append(sessionId)
+                .append(' ')
+                .append(sessionVersion)
+                .append(' ')
+                .append(addressType)
+                .append(address)
+                .append("\r\n")
+                .append("s=-\r\n")
+                .append("c=")
+                .append(addressType)
+                .append(address)
+                .append("\r\n")
+                .append("t=0 0\r\n")
+                .append("m=audio ")
+                .append(local.getPort())
+                .append(' ')
+                .append(media.proto());
+
+        for (var format : media.formats()) {
+            sdp.append(' ').append(format.payloadType());
+        }
+        sdp.append("\r\n");
+
+        for (var format : media.formats()) {
+            sdp.append("a=rtpmap:").append(format.rtpmap()).append("\r\n");
+            if (format.parameters() != null) {
+                sdp.append("a=fmtp:")
+                        .append(format.payloadType())
+                        .append(' ')
+                        .append(format.parameters())
+                        .append("\r\n");
+            }
+        }
+        sdp.append("a=").append(media.direction().answer().attribute()).append("\r\n");
+
+        return sdp.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int cacheSize() {
+        return this.cache.size();
+    }
+
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return this.cacheMisses.sum();
+    }
+
+    /**
+     * Collects the bytes which decide the outcome of a negotiation.
+     */
+    private static final class KeyBuilder {
+
+        private byte[] bytes = new byte[128];
+        private int length;
+
+        private void append(SdpReader reader, int from, int to) {
+            final var needed = this.length + (to - from) + 1;
+            if (needed > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(needed, this.bytes.length * 2));
+            }
+
+            for (var i = from; i < to; i++) {
+                this.bytes[this.length++] = reader.byteAt(i);
+            }
+            this.bytes[this.length++] = '\n';
+        }
+
+        private void append(MediaDirection direction) {
+            if (this.length == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+            }
+
+            this.bytes[this.length++] = (byte) direction.ordinal();
+        }
+
+        private OfferKey build() {
+            return new OfferKey(Arrays.copyOf(this.bytes, this.length));
+        }
+    }
+
+    /**
+     * The outcome-relevant bytes of an offer, starting with the transport and formats of the {@code m=} line and
+     * ending with the direction.
+     */
+    private static final class OfferKey {
+
+        private final byte[] bytes;
+        private final int hash;
+
+        private OfferKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof OfferKey otherKey && Arrays.equals(this.bytes, otherKey.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor over the lines of a session description (RFC 8866), reading the body bytes in place.
+ *
+ * <p>Each call to {@link #next()} moves to the next {@code <type>=<value>} line. The value is split into
+ * space-separated fields, which can be compared and parsed as numbers without creating a String. For
+ * attribute lines ({@code a=name:value}), the fields start after the attribute name, so for
+ * {@code a=rtpmap:8 PCMA/8000} field 0 is {@code 8}.</p>
+ *
+ * <p>A reader is not thread-safe and must not outlive the buffer it reads.</p>
+ */
+public final class SdpReader {
+
+    private final ByteBuffer sdp;
+    private final int limit;
+
+    /** Start of the next line. */
+    private int pos;
+
+    private byte type;
+    private int valueStart;
+    private int valueEnd;
+
+    /** Start of the fields, which for attributes is behind the attribute name. */
+    private int fieldsStart;
+
+    /**
+     * Creates a reader over the remaining bytes of the given buffer, whose position and limit are left as they are.
+     *
+     * @param sdp the session description, e.g. the body of a message.
+     */
+    public SdpReader(ByteBuffer sdp) {
+        this.sdp = sdp;
+        this.pos = sdp.position();
+        this.limit = sdp.limit();
+    }
+
+    /**
+     * Moves to the next line, skipping empty ones.
+     *
+     * @return {@code false} if there are no more lines.
+     * @throws IllegalArgumentException if the line is not of the form {@code <type>=<value>}.
+     */
+    public boolean next() {
+        while (this.pos < this.limit) {
+            final var start = this.pos;
+            var end = start;
+            while (end < this.limit && this.sdp.get(end) != '\n') {
+                end++;
+            }
+            this.pos = end + 1;
+
+            if (end > start && this.sdp.get(end - 1) == '\r') {
+                end--;
+            }
+
+            if (end == start) {
+                continue;
+            }
+
+            if (end - start < 2 || this.sdp.get(start + 1) != '=') {
+                throw new IllegalArgumentException("Invalid SDP line: " + string(start, end));
+            }
+
+            this.type = this.sdp.get(start);
+            this.valueStart = start + 2;
+            this.valueEnd = end;
+            this.fieldsStart = this.valueStart;
+
+            if (this.type == 'a') {
+                final var colon = indexOf((byte) ':', this.valueStart, this.valueEnd);
+                if (colon != -1) {
+                    this.fieldsStart = colon + 1;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the type of the current line.
+     *
+     * @return the type, e.g. {@code m}, {@code c} or {@code a}.
+     */
+    public char type() {
+        return (char) this.type;
+    }
+
+    /**
+     * Checks whether the current line is the given attribute.
+     *
+     * @param name the attribute name in lower case, e.g. {@code rtpmap}.
+     * @return {@code true} if the line is {@code a=name} or {@code a=name:value}.
+     */
+    public boolean isAttribute(String name) {
+        if (this.type != 'a') {
+            return false;
+        }
+
+        final var nameEnd = this.fieldsStart == this.valueStart ? this.valueEnd : this.fieldsStart - 1;
+        return regionEqualsIgnoreCase(this.valueStart, nameEnd, name);
+    }
+
+    /**
+     * Returns the offset of the first byte of a field in the underlying buffer.
+     *
+     * @param index the index of the field.
+     * @return the offset, or -1 if the line has fewer fields.
+     */
+    public int fieldStart(int index) {
+        var start = this.fieldsStart;
+        for (var i = 0; i < index; i++) {
+            final var space = indexOf((byte) ' ', start, this.valueEnd);
+            if (space == -1) {
+                return -1;
+            }
+            start = space + 1;
+        }
+
+        return start < this.valueEnd || (index == 0 && start == this.valueEnd) ? start : -1;
+    }
+
+    /**
+     * Returns the offset behind the last byte of the field starting at the given offset.
+     *
+     * @param fieldStart the offset returned by {@link #fieldStart(int)}.
+     * @return the exclusive end offset.
+     */
+    public int fieldEnd(int fieldStart) {
+        final var space = indexOf((byte) ' ', fieldStart, this.valueEnd);
+        return space == -1 ? this.valueEnd : space;
+    }
+
+    /**
+     * Returns the offset behind the last byte of the current line's value.
+     *
+     * @return the exclusive end offset.
+     */
+    public int valueEnd() {
+        return this.valueEnd;
+    }
+
+    /**
+     * Parses a field as a non-negative decimal number.
+     *
+     * @param index the index of the field.
+     * @return the number.
+     * @throws IllegalArgumentException if the field is missing or not a number.
+     */
+    public int intField(int index) {
+        final var start = fieldStart(index);
+        if (start == -1) {
+            throw new IllegalArgumentException("Missing field " + index + " in SDP line: " + line());
+        }
+
+        return parseInt(start, fieldEnd(start));
+    }
+
+    private int parseInt(int from, int to) {
+        if (from >= to || to - from > 9) {
+            throw new IllegalArgumentException("Invalid number in SDP line: " + line());
+        }
+
+        var number = 0;
+        for (var i = from; i < to; i++) {
+            final var digit = this.sdp.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid number in SDP line: " + line());
+            }
+            number = number * 10 + digit;
+        }
+
+        return number;
+    }
+
+    /**
+     * Compares a field with the given text, ignoring case.
+     *
+     * @param index the index of the field.
+     * @param expected the expected text.
+     * @return {@code true} if the field exists and matches.
+     */
+    public boolean fieldEqualsIgnoreCase(int index, String expected) {
+        final var start = fieldStart(index);
+        return start != -1 && regionEqualsIgnoreCase(start, fieldEnd(start), expected);
+    }
+
+    /**
+     * Returns a field as a String. Allocates, so it is meant for the few values which are kept.
+     *
+     * @param index the index of the field.
+     * @return the field, or {@code null} if the line has fewer fields.
+     */
+    public String field(int index) {
+        final var start = fieldStart(index);
+        return start == -1 ? null : string(start, fieldEnd(start));
+    }
+
+    /**
+     * Returns the region of the current line starting at a field up to the end of the line.
+     *
+     * @param index the index of the first field.
+     * @return the fields, or {@code null} if the line has fewer fields.
+     */
+    public String fieldsFrom(int index) {
+        final var start = fieldStart(index);
+        return start == -1 ? null : string(start, this.valueEnd);
+    }
+
+    /**
+     * Returns the current line, for diagnostics.
+     *
+     * @return the current line without its line break.
+     */
+    public String line() {
+        return string(this.valueStart - 2, this.valueEnd);
+    }
+
+    /**
+     * Returns the byte at the given offset of the underlying buffer.
+     *
+     * @param offset the absolute offset.
+     * @return the byte.
+     */
+    public byte byteAt(int offset) {
+        return this.sdp.get(offset);
+    }
+
+    /**
+     * Returns the offset of the first byte of the current line.
+     *
+     * @return the absolute offset.
+     */
+    public int lineStart() {
+        return this.valueStart - 2;
+    }
+
+    String string(int from, int to) {
+        final var bytes = new byte[to - from];
+        this.sdp.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int indexOf(byte wanted, int from, int to) {
+        for (var i = from; i < to; i++) {
+            if (this.sdp.get(i) == wanted) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    boolean regionEqualsIgnoreCase(int from, int to, String expected) {
+        if (to - from != expected.length()) {
+            return false;
+        }
+
+        for (var i = 0; i < expected.length(); i++) {
+            final var current = this.sdp.get(from + i);
+            final var lower = current >= 'A' && current <= 'Z' ? current + ('a' - 'A') : current;
+            final var wanted = expected.charAt(i);
+            final var wantedLower = wanted >= 'A' && wanted <= 'Z' ? wanted + ('a' - 'A') : wanted;
+            if (lower != wantedLower) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
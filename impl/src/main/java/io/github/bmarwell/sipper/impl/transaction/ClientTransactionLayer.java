@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transaction;
+
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The client transaction layer of a single connection (RFC 3261, section 17.1).
+ *
+ * <p>Each outgoing request starts a transaction keyed by its branch and method. The transaction's future is
+ * completed on the reader thread the moment the final response is framed, so callers never wait longer
+ * than the network round trip. Transactions which do not receive a final response within Timer B
+ * (INVITE) or Timer F (all other methods) fail with a {@link java.util.concurrent.TimeoutException}.</p>
+ *
+ * <p>Requests sent over an unreliable transport are retransmitted on the {@link HashedTimingWheel}: INVITEs
+ * with Timer A, doubling from T1 until any response arrives, all other requests with Timer E, doubling from
+ * T1 up to T2. After the final response, the transaction is kept for Timer D or Timer K, so retransmitted
+ * responses are absorbed instead of reaching the application.</p>
+ */
+public final class ClientTransactionLayer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClientTransactionLayer.class);
+
+    /** RTT estimate (RFC 3261, section 17.1.1.1). */
+    public static final Duration T1 = Duration.ofMillis(500L);
+
+    /** Maximum retransmit interval for non-INVITE requests and INVITE responses. */
+    public static final Duration T2 = Duration.ofSeconds(4L);
+
+    /** Maximum duration a message will remain in the network. */
+    public static final Duration T4 = Duration.ofSeconds(5L);
+
+    /** INVITE transaction timeout timer. */
+    public static final Duration TIMER_B = T1.multipliedBy(64L);
+
+    /** Wait time for response retransmits of an INVITE over an unreliable transport. */
+    public static final Duration TIMER_D = Duration.ofSeconds(32L);
+
+    /** Non-INVITE transaction timeout timer. */
+    public static final Duration TIMER_F = T1.multipliedBy(64L);
+
+    /** Wait time for response retransmits of other requests over an unreliable transport. */
+    public static final Duration TIMER_K = T4;
+
+    /** The magic cookie every RFC 3261 compliant branch starts with. */
+    public static final String BRANCH_MAGIC_COOKIE = "z9hG4bK";
+
+    private final ConcurrentHashMap<TransactionKey, ClientTransaction> transactions = new ConcurrentHashMap<>();
+
+    /** Transactions over an unreliable transport which received their final response (completed state). */
+    private final Set<TransactionKey> completed = ConcurrentHashMap.newKeySet();
+
+    private final HashedTimingWheel timingWheel;
+
+    private final LongAdder retransmissions = new LongAdder();
+    private final LongAdder absorbedResponses = new LongAdder();
+
+    public ClientTransactionLayer() {
+        this(HashedTimingWheel.shared());
+    }
+
+    public ClientTransactionLayer(HashedTimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * Creates a new branch parameter which is unique across space and time (RFC 3261, section 8.1.1.7).
+     *
+     * @return a new branch parameter.
+     */
+    public static String newBranch() {
+        final var random = ThreadLocalRandom.current();
+        return BRANCH_MAGIC_COOKIE + "." + HexFormat.of().toHexDigits(random.nextLong());
+    }
+
+    /**
+     * Starts a client transaction over a reliable transport. Must be called before the request is written, so
+     * that even an immediate response finds its transaction.
+     *
+     * @param key the transaction key of the request to be sent.
+     * @return a future which completes with the final response.
+     */
+    public CompletableFuture<RawSipMessage> start(TransactionKey key) {
+        return start(key, null);
+    }
+
+    /**
+     * Starts a client transaction. Must be called before the request is written, so that even an
+     * immediate response finds its transaction.
+     *
+     * @param key the transaction key of the request to be sent.
+     * @param retransmission sends the request again, or {@code null} if the transport is reliable.
+     * @return a future which completes with the final response.
+     */
+    public CompletableFuture<RawSipMessage> start(TransactionKey key, Runnable retransmission) {
+        final var timeout = isInvite(key) ? TIMER_B : TIMER_F;
+        final var transaction = new ClientTransaction(key, retransmission);
+
+        if (this.transactions.putIfAbsent(key, transaction) != null) {
+            throw new IllegalStateException("Transaction already exists: " + key);
+        }
+
+        transaction
+                .response
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((msg, error) -> onTerminated(transaction, msg));
+
+        if (retransmission != null) {
+            scheduleRetransmission(transaction, T1);
+        }
+
+        return transaction.response;
+    }
+
+    private void onTerminated(ClientTransaction transaction, RawSipMessage finalResponse) {
+        this.transactions.remove(transaction.key, transaction);
+        transaction.cancelRetransmission();
+
+        if (finalResponse == null || transaction.retransmission == null) {
+            return;
+        }
+
+        final var key = transaction.key;
+        this.completed.add(key);
+        this.timingWheel.schedule(() -> this.completed.remove(key), isInvite(key) ? TIMER_D : TIMER_K);
+    }
+
+    private void scheduleRetransmission(ClientTransaction transaction, Duration interval) {
+        transaction.lock.lock();
+        try {
+            if (transaction.response.isDone() || (isInvite(transaction.key) && transaction.proceeding)) {
+                return;
+            }
+
+            transaction.retransmitTimeout =
+                    this.timingWheel.schedule(() -> retransmit(transaction, interval), interval);
+        } finally {
+            transaction.lock.unlock();
+        }
+    }
+
+    private void retransmit(ClientTransaction transaction, Duration interval) {
+        if (transaction.response.isDone()) {
+            return;
+        }
+
+        LOG.trace("Retransmitting request of transaction [{}].", transaction.key);
+        try {
+            transaction.retransmission.run();
+            this.retransmissions.increment();
+        } catch (RuntimeException rtEx) {
+            fail(transaction.key, rtEx);
+            return;
+        }
+
+        scheduleRetransmission(transaction, nextInterval(isInvite(transaction.key), transaction.proceeding, interval));
+    }
+
+    /**
+     * Computes the interval until the next retransmission.
+     *
+     * @param invite whether Timer A (INVITE) or Timer E (all other methods) applies.
+     * @param proceeding whether a provisional response was received.
+     * @param interval the interval used for the retransmission just sent.
+     * @return the next interval.
+     */
+    static Duration nextInterval(boolean invite, boolean proceeding, Duration interval) {
+        if (invite) {
+            return interval.multipliedBy(2L);
+        }
+
+        if (proceeding) {
+            return T2;
+        }
+
+        final var doubled = interval.multipliedBy(2L);
+        return doubled.compareTo(T2) < 0 ? doubled : T2;
+    }
+
+    /**
+     * Passes a response to its client transaction.
+     *
+     * @param response the received response.
+     * @return {@code true} if the response belonged to a transaction of this layer and was consumed.
+     */
+    public boolean onResponse(RawSipMessage response) {
+        if (!response.isResponse()) {
+            return false;
+        }
+
+        final var branch = response.branch();
+        if (branch.isEmpty()) {
+            return false;
+        }
+
+        final var key = new TransactionKey(branch.orElseThrow(), response.method());
+        final var transaction = this.transactions.get(key);
+        if (transaction == null) {
+            if (this.completed.contains(key)) {
+                LOG.trace("Absorbing retransmitted response [{}] for transaction [{}].", response.statusCode(), key);
+                this.absorbedResponses.increment();
+                return true;
+            }
+
+            LOG.trace("No transaction for response [{}].", key);
+            return false;
+        }
+
+        if (response.statusCode() < 200) {
+            // provisional response: the transaction continues (proceeding state).
+            LOG.trace("Provisional response [{}] for transaction [{}].", response.statusCode(), key);
+            transaction.proceeding = true;
+            if (isInvite(key)) {
+                // Timer A only runs in the calling state.
+                transaction.cancelRetransmission();
+            }
+            return true;
+        }
+
+        transaction.response.complete(response);
+        return true;
+    }
+
+    /**
+     * Fails a transaction, e.g. because its request could not be sent.
+     *
+     * @param key the transaction key.
+     * @param cause the failure.
+     */
+    public void fail(TransactionKey key, Throwable cause) {
+        final var transaction = this.transactions.remove(key);
+        if (transaction != null) {
+            transaction.response.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Fails all pending transactions, e.g. because the connection was closed.
+     *
+     * @param cause the failure.
+     */
+    public void failAll(Throwable cause) {
+        for (var key : this.transactions.keySet()) {
+            fail(key, cause);
+        }
+    }
+
+    public int size() {
+        return this.transactions.size();
+    }
+
+    public long getRetransmissions() {
+        return this.retransmissions.sum();
+    }
+
+    public long getAbsorbedResponses() {
+        return this.absorbedResponses.sum();
+    }
+
+    private static boolean isInvite(TransactionKey key) {
+        return "INVITE".equals(key.method());
+    }
+
+    private static final class ClientTransaction {
+
+        private final TransactionKey key;
+        private final Runnable retransmission;
+        private final CompletableFuture<RawSipMessage> response = new CompletableFuture<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile boolean proceeding = false;
+
+        /** Only written while holding the lock. */
+        private volatile HashedTimingWheel.Timeout retransmitTimeout;
+
+        private ClientTransaction(TransactionKey key, Runnable retransmission) {
+            this.key = key;
+            this.retransmission = retransmission;
+        }
+
+        private void cancelRetransmission() {
+            this.lock.lock();
+            try {
+                final var timeout = this.retransmitTimeout;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transaction;
+
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.SipResponseEncoder;
+import io.github.bmarwell.sipper.impl.proto.SipResponseEncoder.Status;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server transaction layer of a single connection (RFC 3261, section 17.2), called by the reader thread
+ * for every received request before it is dispatched to the application.
+ *
+ * <p>A new INVITE is answered with {@code 100 Trying} right away, and optionally with {@code 180 Ringing}, so
+ * the provider stops retransmitting no matter how long the application takes. Retransmissions of an INVITE
+ * are answered with the last provisional response again and are not dispatched a second time.</p>
+ *
+ * <p>A new request the application has no room for is rejected statelessly with {@code 503 Service
+ * Unavailable} and {@code Retry-After} (RFC 3261, section 21.5.4) instead. It must not be answered with
+ * {@code 100 Trying} first, because the provider stops retransmitting then and the request would be lost.</p>
+ */
+public final class ServerTransactionLayer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServerTransactionLayer.class);
+
+    private static final byte[] NO_EXTRA_HEADERS = new byte[0];
+
+    /** Seconds a provider is asked to wait before it sends a rejected request again. */
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    private static final byte[] RETRY_AFTER =
+            ("Retry-After: " + RETRY_AFTER_SECONDS + "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private final Consumer<SipMessageBuffer> sender;
+    private final boolean autoRinging;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Insertion-ordered, so expired transactions are always at the start. */
+    private final LinkedHashMap<TransactionKey, InviteTransaction> inviteTransactions = new LinkedHashMap<>();
+
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    /**
+     * Creates the server transaction layer.
+     *
+     * @param sender writes an encoded response to the connection.
+     * @param autoRinging whether to send {@code 180 Ringing} right after {@code 100 Trying}.
+     */
+    public ServerTransactionLayer(Consumer<SipMessageBuffer> sender, boolean autoRinging) {
+        this(sender, autoRinging, System::nanoTime);
+    }
+
+    ServerTransactionLayer(Consumer<SipMessageBuffer> sender, boolean autoRinging, LongSupplier nanoClock) {
+        this.sender = sender;
+        this.autoRinging = autoRinging;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Passes a received request to its server transaction.
+     *
+     * @param request the received request.
+     * @return {@code true} if the request was a retransmission which was answered and must not be dispatched.
+     */
+    public boolean onRequest(RawSipMessage request) {
+        return onRequest(request, true);
+    }
+
+    /**
+     * Passes a received request to its server transaction.
+     *
+     * @param request the received request.
+     * @param accepting whether the application can take a new request right now; if not, new requests except
+     *     {@code ACK} are rejected with {@code 503}. Retransmissions are answered either way.
+     * @return {@code true} if the request was answered and must not be dispatched.
+     */
+    public boolean onRequest(RawSipMessage request, boolean accepting) {
+        if (request.isResponse()) {
+            return false;
+        }
+
+        final var method = request.method();
+        if (!"INVITE".equals(method)) {
+            if (accepting || "ACK".equals(method)) {
+                return false;
+            }
+
+            reject(request);
+            return true;
+        }
+
+        final var branch = request.branch();
+        final var now = this.nanoClock.getAsLong();
+
+        if (branch.isEmpty()) {
+            if (!accepting) {
+                reject(request);
+                return true;
+            }
+
+            // pre RFC 3261 peer, retransmissions cannot be matched.
+            sendProvisionalResponses(request, newTag());
+            return false;
+        }
+
+        final var key = new TransactionKey(branch.orElseThrow(), "INVITE");
+        final InviteTransaction existing;
+        final InviteTransaction created;
+
+        this.lock.lock();
+        try {
+            evictExpired(now);
+            existing = this.inviteTransactions.get(key);
+            created = existing == null && accepting ? new InviteTransaction(newTag(), now) : null;
+            if (created != null) {
+                this.inviteTransactions.put(key, created);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (existing != null) {
+            LOG.debug("Absorbing retransmitted INVITE [{}].", key);
+            send(request, this.autoRinging ? Status.RINGING : Status.TRYING, existing.toTag(), NO_EXTRA_HEADERS);
+            return true;
+        }
+
+        if (created == null) {
+            reject(request);
+            return true;
+        }
+
+        sendProvisionalResponses(request, created.toTag());
+        return false;
+    }
+
+    private void reject(RawSipMessage request) {
+        LOG.debug("Rejecting [{}] request, the application is busy.", request.method());
+        this.rejectedRequests.increment();
+        send(request, Status.SERVICE_UNAVAILABLE, null, RETRY_AFTER);
+    }
+
+    private void sendProvisionalResponses(RawSipMessage request, String toTag) {
+        // 100 Trying carries no To tag (RFC 3261, section 8.2.6.1).
+        send(request, Status.TRYING, null, NO_EXTRA_HEADERS);
+
+        if (this.autoRinging) {
+            send(request, Status.RINGING, toTag, NO_EXTRA_HEADERS);
+        }
+    }
+
+    private void send(RawSipMessage request, Status status, String toTag, byte[] extraHeaders) {
+        try {
+            this.sender.accept(SipResponseEncoder.encode(request, status, toTag, extraHeaders));
+        } catch (RuntimeException rtEx) {
+            LOG.error("Unable to send [{}] for request [{}].", status, request, rtEx);
+        }
+    }
+
+    /**
+     * Returns the To tag which was chosen for the given INVITE transaction.
+     *
+     * @param key the transaction key of the INVITE.
+     * @return the tag, or empty if there is no such transaction (anymore).
+     */
+    public Optional<String> getToTag(TransactionKey key) {
+        this.lock.lock();
+        try {
+            return Optional.ofNullable(this.inviteTransactions.get(key)).map(InviteTransaction::toTag);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void evictExpired(long now) {
+        final var maxAge = ClientTransactionLayer.TIMER_B.toNanos();
+        final var iterator = this.inviteTransactions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAt() <= maxAge) {
+                break;
+            }
+
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the number of requests rejected with {@code 503} because the application was busy.
+     *
+     * @return the number of rejected requests.
+     */
+    public long getRejectedRequests() {
+        return this.rejectedRequests.sum();
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.inviteTransactions.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static String newTag() {
+        return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+
+    private record InviteTransaction(String toTag, long createdAt) {}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transaction;
+
+/**
+ * Identifies a client transaction by the branch parameter of the top Via header and the CSeq method
+ * (RFC 3261, section 17.1.3).
+ *
+ * @param branch the branch parameter, including the {@code z9hG4bK} magic cookie.
+ * @param method the request method, e.g. {@code REGISTER}.
+ */
+public record TransactionKey(String branch, String method) {}
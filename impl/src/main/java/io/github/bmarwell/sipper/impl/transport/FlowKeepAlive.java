@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the flow of a stream transport alive and detects when it failed (RFC 5626, section 4.4.1).
+ *
+ * <p>A double-CRLF ping is written once per interval, moved forward by a random amount of up to 20%. A
+ * registrar supporting outbound answers each ping with a single-CRLF pong, which the framer counts. If no pong
+ * arrives within {@link #PONG_TIMEOUT}, the flow is declared failed, as is a transport which was closed.
+ * Pongs are only required once the registrar advertised outbound support or answered a ping, so registrars
+ * which swallow pings silently still get their NAT bindings refreshed.</p>
+ *
+ * <p>Pings are scheduled on the {@link HashedTimingWheel} and written from a virtual thread, so a blocking
+ * transport never stalls the wheel. Each ping costs four bytes.</p>
+ */
+public final class FlowKeepAlive implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowKeepAlive.class);
+
+    /** Time to wait for a pong after a ping. */
+    public static final Duration PONG_TIMEOUT = Duration.ofSeconds(10L);
+
+    /** Maximum share of the interval by which a ping is moved forward. */
+    static final double MAX_JITTER = 0.2d;
+
+    private static final byte[] PING = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final SipTransport transport;
+    private final LongSupplier pongs;
+    private final Duration interval;
+    private final Runnable onFailure;
+    private final HashedTimingWheel timingWheel;
+    private final Duration pongTimeout;
+
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    private volatile boolean pongRequired;
+    private volatile boolean stopped = false;
+    private volatile HashedTimingWheel.Timeout timeout;
+
+    /**
+     * Creates a keep-alive for a flow. Call {@link #start()} to send the first ping.
+     *
+     * @param transport the stream transport of the flow.
+     * @param pongs the number of pongs received on the flow so far.
+     * @param interval the nominal interval between two pings.
+     * @param pongRequired whether the registrar advertised outbound support, so pongs are expected right away.
+     * @param onFailure called once when the flow failed.
+     */
+    public FlowKeepAlive(
+            SipTransport transport, LongSupplier pongs, Duration interval, boolean pongRequired, Runnable onFailure) {
+        this(transport, pongs, interval, pongRequired, onFailure, HashedTimingWheel.shared(), PONG_TIMEOUT);
+    }
+
+    FlowKeepAlive(
+            SipTransport transport,
+            LongSupplier pongs,
+            Duration interval,
+            boolean pongRequired,
+            Runnable onFailure,
+            HashedTimingWheel timingWheel,
+            Duration pongTimeout) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Keep-alive interval must be positive, but was: " + interval);
+        }
+
+        this.transport = transport;
+        this.pongs = pongs;
+        this.interval = interval;
+        this.pongRequired = pongRequired;
+        this.onFailure = onFailure;
+        this.timingWheel = timingWheel;
+        this.pongTimeout = pongTimeout;
+    }
+
+    /**
+     * Schedules the first ping.
+     */
+    public void start() {
+        schedule(
+                this::ping, pingDelay(this.interval, ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private void schedule(Runnable task, Duration delay) {
+        if (this.stopped) {
+            return;
+        }
+
+        this.timeout = this.timingWheel.schedule(
+                () -> Thread.ofVirtual().name("sipper-keep-alive").start(task), delay);
+    }
+
+    private void ping() {
+        if (this.stopped) {
+            return;
+        }
+
+        if (!this.transport.isConnected()) {
+            fail("transport closed");
+            return;
+        }
+
+        final var pongsBefore = this.pongs.getAsLong();
+        try {
+            this.transport.write(SipMessageBuffer.acquire().append(PING));
+        } catch (RuntimeException rtEx) {
+            LOG.debug("Unable to write keep-alive ping.", rtEx);
+            fail("ping not sent");
+            return;
+        }
+
+        schedule(() -> checkPong(pongsBefore), this.pongTimeout);
+    }
+
+    private void checkPong(long pongsBefore) {
+        if (this.stopped) {
+            return;
+        }
+
+        if (this.pongs.getAsLong() != pongsBefore) {
+            // the registrar answers pings, from now on it has to.
+            this.pongRequired = true;
+        } else if (this.pongRequired) {
+            fail("no pong within " + this.pongTimeout);
+            return;
+        }
+
+        final var nextPing = pingDelay(
+                        this.interval, ThreadLocalRandom.current().nextDouble())
+                .minus(this.pongTimeout);
+        schedule(this::ping, nextPing.isNegative() ? Duration.ZERO : nextPing);
+    }
+
+    private void fail(String reason) {
+        if (this.stopped || !this.failed.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOG.warn("Flow [{}] failed: {}.", this.transport, reason);
+        this.stopped = true;
+        this.onFailure.run();
+    }
+
+    /**
+     * Computes the delay until the next ping.
+     *
+     * @param interval the nominal interval.
+     * @param random a random number between 0 (inclusive) and 1 (exclusive).
+     * @return a delay between 80% and 100% of the interval.
+     */
+    static Duration pingDelay(Duration interval, double random) {
+        final var nominal = interval.toMillis();
+        return Duration.ofMillis((long) (nominal - nominal * MAX_JITTER * random));
+    }
+
+    public boolean isPongRequired() {
+        return this.pongRequired;
+    }
+
+    public boolean isFailed() {
+        return this.failed.get();
+    }
+
+    /**
+     * Stops sending pings. Does not close the transport.
+     */
+    @Override
+    public void close() {
+        this.stopped = true;
+
+        final var current = this.timeout;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
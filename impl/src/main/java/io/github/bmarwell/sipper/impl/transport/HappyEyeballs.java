@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Races connection attempts to all addresses of a registrar (RFC 8305, section 5).
+ *
+ * <p>The addresses are tried in resolver order, alternating between address families. The next attempt starts
+ * as soon as the previous one failed, or after the connection attempt delay at the latest, while earlier
+ * attempts keep running. The first transport which connects wins; transports connecting later are closed.
+ * Thus an unreachable address (e.g. a broken IPv6 path or a dead SRV target) only costs the attempt delay
+ * instead of a full connect timeout.</p>
+ *
+ * <p>Each attempt runs on its own virtual thread.</p>
+ */
+public final class HappyEyeballs {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HappyEyeballs.class);
+
+    /** The recommended connection attempt delay (RFC 8305, section 8). */
+    public static final Duration CONNECTION_ATTEMPT_DELAY = Duration.ofMillis(250L);
+
+    private HappyEyeballs() {
+        // util class
+    }
+
+    /**
+     * Opens a transport to one remote address, blocking until it is ready to send.
+     *
+     * @param <T> the transport type.
+     */
+    @FunctionalInterface
+    public interface Connector<T extends SipTransport> {
+        T connect(InetSocketAddress remoteAddress) throws IOException;
+    }
+
+    /**
+     * Connects to the fastest of the given addresses.
+     *
+     * @param addresses the addresses in the order the resolver returned them.
+     * @param connector opens a transport to one address.
+     * @param attemptDelay the delay before the next attempt starts while the previous one is still pending.
+     * @param timeout the maximum time until a transport must be connected.
+     * @param <T> the transport type.
+     * @return the first transport which connected.
+     * @throws IOException if no attempt succeeded in time; failed attempts are attached as suppressed exceptions.
+     */
+    public static <T extends SipTransport> T connect(
+            List<InetSocketAddress> addresses, Connector<T> connector, Duration attemptDelay, Duration timeout)
+            throws IOException {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("No addresses to connect to.");
+        }
+
+        final var ordered = interleave(addresses);
+        final var results = new LinkedBlockingQueue<Attempt<T>>();
+        final var deadline = System.nanoTime() + timeout.toNanos();
+
+        IOException failure = null;
+        var next = 0;
+        var pending = 0;
+
+        try {
+            while (true) {
+                if (next < ordered.size()) {
+                    startAttempt(ordered.get(next++), connector, results);
+                    pending++;
+                } else if (pending == 0) {
+                    throw failure;
+                }
+
+                final var remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    final var timedOut = new SocketTimeoutException("Timed out connecting to " + ordered);
+                    if (failure != null) {
+                        timedOut.addSuppressed(failure);
+                    }
+                    throw timedOut;
+                }
+
+                final var wait = next < ordered.size() ? Math.min(attemptDelay.toNanos(), remaining) : remaining;
+                final var attempt = results.poll(wait, TimeUnit.NANOSECONDS);
+                if (attempt == null) {
+                    // the attempt delay elapsed: start the next attempt in parallel.
+                    continue;
+                }
+
+                pending--;
+                if (attempt.transport() != null) {
+                    LOG.debug("Connected to [{}].", attempt.remoteAddress());
+                    return attempt.transport();
+                }
+
+                LOG.debug("Unable to connect to [{}].", attempt.remoteAddress(), attempt.error());
+                if (failure == null) {
+                    failure = attempt.error();
+                } else {
+                    failure.addSuppressed(attempt.error());
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while connecting to " + ordered);
+        } finally {
+            closeLateWinners(results, pending);
+        }
+    }
+
+    /**
+     * Orders addresses so that address families alternate, starting with the family of the first address,
+     * while keeping the resolver order within each family (RFC 8305, section 4).
+     *
+     * @param addresses the addresses in resolver order.
+     * @return the addresses in the order they are tried.
+     */
+    static List<InetSocketAddress> interleave(List<InetSocketAddress> addresses) {
+        final var first = new ArrayList<InetSocketAddress>(addresses.size());
+        final var second = new ArrayList<InetSocketAddress>(addresses.size());
+        final var firstIsIpv6 = isIpv6(addresses.get(0));
+
+        for (var address : addresses) {
+            (isIpv6(address) == firstIsIpv6 ? first : second).add(address);
+        }
+
+        final var interleaved = new ArrayList<InetSocketAddress>(addresses.size());
+        for (var i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) {
+                interleaved.add(first.get(i));
+            }
+            if (i < second.size()) {
+                interleaved.add(second.get(i));
+            }
+        }
+
+        return interleaved;
+    }
+
+    private static boolean isIpv6(InetSocketAddress address) {
+        return address.getAddress() instanceof Inet6Address;
+    }
+
+    private static <T extends SipTransport> void startAttempt(
+            InetSocketAddress remoteAddress, Connector<T> connector, BlockingQueue<Attempt<T>> results) {
+        LOG.trace("Connecting to [{}].", remoteAddress);
+
+        Thread.ofVirtual().name("sipper-connect").start(() -> {
+            try {
+                results.add(new Attempt<>(remoteAddress, connector.connect(remoteAddress), null));
+            } catch (IOException ioEx) {
+                results.add(new Attempt<>(remoteAddress, null, ioEx));
+            } catch (RuntimeException rtEx) {
+                results.add(new Attempt<>(remoteAddress, null, new IOException(rtEx)));
+            }
+        });
+    }
+
+    /**
+     * Closes the transports of attempts which were still pending when the race was decided.
+     */
+    private static <T extends SipTransport> void closeLateWinners(BlockingQueue<Attempt<T>> results, int pending) {
+        if (pending == 0) {
+            return;
+        }
+
+        Thread.ofVirtual().name("sipper-connect-cleanup").start(() -> {
+            try {
+                for (var i = 0; i < pending; i++) {
+                    final var attempt = results.take();
+                    if (attempt.transport() != null) {
+                        LOG.trace("Closing late connection to [{}].", attempt.remoteAddress());
+                        attempt.transport().close();
+                    }
+                }
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private record Attempt<T>(InetSocketAddress remoteAddress, T transport, IOException error) {}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Selector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One selector and the platform thread which runs it, serving any number of channels.
+ *
+ * <p>All reads of the loop's channels go through a single direct buffer, whose content is handed to the
+ * connection's framer before the next channel is read. Thus an idle connection holds no receive buffer and
+ * no thread of its own.</p>
+ *
+ * <p>Everything touching the selector's keys runs on the loop thread. Other threads submit tasks with
+ * {@link #execute(Runnable)}.</p>
+ */
+public final class NioEventLoop implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioEventLoop.class);
+
+    public static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Opens a selector and starts the loop thread.
+     *
+     * @param threadName the name of the loop thread.
+     * @throws UncheckedIOException if no selector can be opened.
+     */
+    public NioEventLoop(String threadName) {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to open selector.", ioException);
+        }
+
+        this.thread = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    /**
+     * Runs a task on the loop thread, after the keys currently selected were processed.
+     *
+     * @param task the task, which must not block.
+     */
+    public void execute(Runnable task) {
+        if (this.closed) {
+            throw new IllegalStateException("Event loop is closed.");
+        }
+
+        this.tasks.add(task);
+        // also needed on the loop thread itself, which would otherwise block in the next select.
+        this.selector.wakeup();
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    Selector selector() {
+        return this.selector;
+    }
+
+    /**
+     * The buffer handlers are called with, for handlers which read outside of {@link NioChannelHandler#onReadable}.
+     * Loop thread only.
+     */
+    ByteBuffer readBuffer() {
+        return this.readBuffer;
+    }
+
+    private void run() {
+        while (!this.closed) {
+            try {
+                this.selector.select();
+                runTasks();
+                processSelectedKeys();
+            } catch (IOException ioException) {
+                LOG.error("Problem while selecting.", ioException);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Unexpected problem in event loop.", rtEx);
+            }
+        }
+
+        closeChannels();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException rtEx) {
+                LOG.error("Unable to run task [{}].", task, rtEx);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        final var selectedKeys = this.selector.selectedKeys();
+        for (var key : selectedKeys) {
+            final var handler = (NioChannelHandler) key.attachment();
+
+            try {
+                if (key.isValid() && key.isWritable()) {
+                    handler.onWritable();
+                }
+
+                if (key.isValid() && key.isReadable()) {
+                    handler.onReadable(this.readBuffer);
+                }
+            } catch (CancelledKeyException cancelled) {
+                // closed concurrently.
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem on [{}], closing.", handler, rtEx);
+                handler.close();
+            }
+        }
+
+        selectedKeys.clear();
+    }
+
+    private void closeChannels() {
+        for (var key : this.selector.keys()) {
+            if (key.attachment() instanceof NioChannelHandler handler) {
+                handler.close();
+            }
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing selector.", ioException);
+        }
+    }
+
+    /**
+     * Stops the loop and closes all of its channels.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.selector.wakeup();
+    }
+
+    @Override
+    public String toString() {
+        return "NioEventLoop[thread=" + this.thread.getName() + ", channels="
+                + this.selector.keys().size() + "]";
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of {@link NioEventLoop}s, assigned to new connections round-robin.
+ */
+public final class NioEventLoopGroup implements AutoCloseable {
+
+    private final NioEventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private static final class SharedGroupHolder {
+        private static final NioEventLoopGroup SHARED =
+                new NioEventLoopGroup(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), "sipper-nio-");
+    }
+
+    /**
+     * Returns the process-wide group, which is started on first use and cannot be closed.
+     *
+     * @return the shared event loop group.
+     */
+    public static NioEventLoopGroup shared() {
+        return SharedGroupHolder.SHARED;
+    }
+
+    /**
+     * Creates and starts a group.
+     *
+     * @param loopCount the number of loops, each with its own selector and thread.
+     * @param threadNamePrefix the prefix of the loop thread names.
+     */
+    public NioEventLoopGroup(int loopCount, String threadNamePrefix) {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("Loop count must be positive, but was: " + loopCount);
+        }
+
+        this.loops = new NioEventLoop[loopCount];
+        for (var i = 0; i < loopCount; i++) {
+            this.loops[i] = new NioEventLoop(threadNamePrefix + i);
+        }
+    }
+
+    /**
+     * Picks the loop for a new connection.
+     *
+     * @return one of the loops of this group.
+     */
+    public NioEventLoop next() {
+        return this.loops[Math.floorMod(this.next.getAndIncrement(), this.loops.length)];
+    }
+
+    public int loopCount() {
+        return this.loops.length;
+    }
+
+    /**
+     * Stops all loops and closes their channels.
+     */
+    @Override
+    public void close() {
+        if (this == SharedGroupHolder.SHARED) {
+            throw new IllegalStateException("The shared event loop group cannot be closed.");
+        }
+
+        for (var loop : this.loops) {
+            loop.close();
+        }
+    }
+}
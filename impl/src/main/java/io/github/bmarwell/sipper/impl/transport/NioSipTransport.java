@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TCP transport on a non-blocking {@link SocketChannel}, served by a shared {@link NioEventLoop}.
+ *
+ * <p>Reads are driven by readiness: the loop reads into its own direct buffer and passes the bytes to the
+ * connection's reader, which frames and processes them on the loop thread. Therefore the reader must not
+ * block; messages for the application are handed off to its dispatcher.</p>
+ *
+ * <p>Writes are queued on an {@link OutboundQueue}. Whichever thread finds the queue idle writes everything
+ * pending to the channel in gathering writes; the others return immediately. If the channel does not accept
+ * all bytes, the loop continues once it reports the channel writable again.</p>
+ */
+public final class NioSipTransport implements SipTransport, NioChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioSipTransport.class);
+
+    private final SocketChannel channel;
+    private final NioEventLoop loop;
+    private final InetSocketAddress localAddress;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /** Drained on the enqueuing thread, as writing to the non-blocking channel never waits. */
+    private final OutboundQueue outbound =
+            new OutboundQueue(this::writeToChannel, Runnable::run, this::onBlocked, this::onWriteFailed);
+
+    private volatile SelectionKey key;
+    private volatile SocketInConnectionReader reader;
+
+    NioSipTransport(SocketChannel channel, NioEventLoop loop) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    private long writeToChannel(ByteBuffer[] buffers, int offset, int length) throws IOException {
+        return this.channel.write(buffers, offset, length);
+    }
+
+    private void onBlocked() {
+        this.loop.execute(this::enableWriteInterest);
+    }
+
+    /**
+     * Opens a connection. Connecting blocks the calling thread, afterwards the channel is non-blocking.
+     *
+     * @param remoteAddress the address of the registrar or proxy.
+     * @param connectTimeout the maximum time to wait for the connection.
+     * @param loop the loop which will serve the connection.
+     * @return the connected transport.
+     * @throws IOException if the connection could not be established.
+     */
+    public static NioSipTransport connect(InetSocketAddress remoteAddress, Duration connectTimeout, NioEventLoop loop)
+            throws IOException {
+        final var channel = SocketChannel.open();
+
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            LOG.trace("Waiting for connection to succeed.");
+            channel.socket().connect(remoteAddress, Math.toIntExact(connectTimeout.toMillis()));
+            channel.configureBlocking(false);
+
+            return new NioSipTransport(channel, loop);
+        } catch (IOException ioException) {
+            channel.close();
+            throw ioException;
+        }
+    }
+
+    @Override
+    public void start(SocketInConnectionReader reader) {
+        if (this.reader != null) {
+            throw new IllegalStateException("Transport already started: " + this);
+        }
+
+        this.reader = reader;
+        this.loop.execute(this::register);
+    }
+
+    private void register() {
+        try {
+            this.key = this.channel.register(this.loop.selector(), SelectionKey.OP_READ, this);
+            LOG.trace("Now listening for incoming messages");
+        } catch (ClosedChannelException closedChannel) {
+            close();
+        }
+    }
+
+    @Override
+    public void write(SipMessageBuffer message) {
+        this.outbound.enqueue(message);
+    }
+
+    private void onWriteFailed(IOException ioException) {
+        if (!this.closed.get()) {
+            LOG.error("Problem while writing to channel.", ioException);
+        }
+        close();
+    }
+
+    private void enableWriteInterest() {
+        if (this.closed.get()) {
+            // nobody reports the channel writable anymore, so the waiting drain is ended here.
+            this.outbound.resume();
+            return;
+        }
+
+        final var selectionKey = this.key;
+        if (selectionKey != null && selectionKey.isValid()) {
+            selectionKey.interestOpsOr(SelectionKey.OP_WRITE);
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        this.key.interestOpsAnd(~SelectionKey.OP_WRITE);
+        this.outbound.resume();
+    }
+
+    @Override
+    public void onReadable(ByteBuffer readBuffer) {
+        readBuffer.clear();
+
+        final int read;
+        try {
+            read = this.channel.read(readBuffer);
+        } catch (IOException ioException) {
+            if (!this.closed.get()) {
+                LOG.error("Problem while reading input from channel.", ioException);
+            }
+            close();
+            return;
+        }
+
+        if (read == -1) {
+            LOG.debug("Connection closed by peer: [{}].", this);
+            close();
+            return;
+        }
+
+        readBuffer.flip();
+        try {
+            this.reader.receive(readBuffer);
+        } catch (IllegalArgumentException illegalMessage) {
+            // the stream cannot be re-synchronized after a framing error.
+            LOG.error("Problem while framing input from channel.", illegalMessage);
+            close();
+        }
+    }
+
+    @Override
+    public String protocol() {
+        return "TCP";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !this.closed.get() && this.channel.isConnected();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return this.localAddress;
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.outbound.close();
+
+        final var selectionKey = this.key;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing channel.", ioException);
+        }
+
+        // a drain waiting for OP_WRITE holds the queue; it drops the queued messages once resumed.
+        this.outbound.resume();
+    }
+
+    @Override
+    public String toString() {
+        return "NioSipTransport[channel=" + this.channel + ", loop=" + this.loop + "]";
+    }
+}
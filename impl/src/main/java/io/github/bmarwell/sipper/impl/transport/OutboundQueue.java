@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The outbound messages of one stream connection, written by a single writer.
+ *
+ * <p>Callers only enqueue, which never blocks and takes no lock. Whoever enqueues into an idle queue schedules a
+ * drain on the given executor; until the drain is done, further messages just queue up behind it. The drain
+ * hands everything pending to the sink in one gathering write of up to {@link #MAX_BATCH_SIZE} messages, and
+ * flushes the sink only when the queue ran empty (group commit). Thus a burst of responses costs a few
+ * system calls instead of one write and one flush per message.</p>
+ *
+ * <p>If a non-blocking sink does not take all bytes, the drain stops and {@code onBlocked} is called. The
+ * owner resumes it via {@link #resume()} once the channel is writable again. Messages keep their order. An
+ * owner which closes the channel must call {@link #resume()} as well, because the waiting drain still holds
+ * the queue and drops it only when it continues.</p>
+ */
+final class OutboundQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboundQueue.class);
+
+    /** Maximum number of messages passed to the sink in one write. */
+    static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * Where the queued bytes go.
+     */
+    interface Sink {
+
+        /**
+         * Writes the remaining bytes of the buffers, advancing their positions. A non-blocking sink may write
+         * fewer bytes than remaining.
+         */
+        long write(ByteBuffer[] buffers, int offset, int length) throws IOException;
+
+        /**
+         * Pushes out anything the sink buffered. Called whenever the queue ran empty.
+         */
+        default void flush() throws IOException {
+            // unbuffered.
+        }
+    }
+
+    private final ConcurrentLinkedQueue<SipMessageBuffer> queue = new ConcurrentLinkedQueue<>();
+
+    /** Set while a drain is scheduled, running or waiting for the channel to become writable. */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /** Set while the drain waits for the channel to become writable. */
+    private final AtomicBoolean blocked = new AtomicBoolean();
+
+    private final Sink sink;
+    private final Executor drainExecutor;
+    private final Runnable onBlocked;
+    private final Consumer<IOException> onFailure;
+
+    /** The batch being written. Only accessed by the current writer. */
+    private final SipMessageBuffer[] batch = new SipMessageBuffer[MAX_BATCH_SIZE];
+
+    private final ByteBuffer[] batchBytes = new ByteBuffer[MAX_BATCH_SIZE];
+    private int batchStart = 0;
+    private int batchEnd = 0;
+
+    private final LongAdder sinkWrites = new LongAdder();
+    private final LongAdder messagesWritten = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a queue.
+     *
+     * @param sink receives the bytes.
+     * @param drainExecutor runs the drain; {@code Runnable::run} drains on the enqueuing thread, which is only
+     *     suitable for a non-blocking sink.
+     * @param onBlocked called by the writer when a non-blocking sink did not take all bytes.
+     * @param onFailure called once by the writer if the sink failed; the queue is closed afterwards.
+     */
+    OutboundQueue(Sink sink, Executor drainExecutor, Runnable onBlocked, Consumer<IOException> onFailure) {
+        this.sink = sink;
+        this.drainExecutor = drainExecutor;
+        this.onBlocked = onBlocked;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Queues a message. The buffer is released once written.
+     *
+     * @param message the encoded message.
+     * @throws UncheckedIOException if the queue was closed.
+     */
+    void enqueue(SipMessageBuffer message) {
+        if (this.closed) {
+            message.release();
+            throw new UncheckedIOException("Unable to write message.", new ClosedChannelException());
+        }
+
+        this.queue.offer(message);
+
+        if (this.draining.compareAndSet(false, true)) {
+            if (this.closed) {
+                // closed since the check above: nobody else will look at the queue again.
+                discardQueued();
+                return;
+            }
+
+            this.drainExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Continues a drain which stopped because the sink was full. Does nothing unless a drain is waiting, so
+     * it is safe to call more than once, e.g. both when the channel becomes writable and when it is closed.
+     */
+    void resume() {
+        if (this.blocked.compareAndSet(true, false)) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                if (!writePending()) {
+                    // still draining: the owner resumes once the sink takes bytes again.
+                    this.blocked.set(true);
+                    this.onBlocked.run();
+                    return;
+                }
+
+                if (this.closed) {
+                    discardQueued();
+                    return;
+                }
+
+                this.sink.flush();
+
+                this.draining.set(false);
+                // a message enqueued after the last poll, but before the flag was cleared, has no drain yet.
+                if (this.queue.isEmpty() || !this.draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException ioException) {
+            if (!this.closed) {
+                this.closed = true;
+                this.onFailure.accept(ioException);
+            }
+            discardQueued();
+        }
+    }
+
+    /**
+     * Writes batches until the queue is empty.
+     *
+     * @return {@code false} if the sink did not take all bytes.
+     */
+    private boolean writePending() throws IOException {
+        while (true) {
+            if (this.closed) {
+                return true;
+            }
+
+            if (this.batchStart == this.batchEnd && !fillBatch()) {
+                return true;
+            }
+
+            this.sink.write(this.batchBytes, this.batchStart, this.batchEnd - this.batchStart);
+            this.sinkWrites.increment();
+
+            while (this.batchStart < this.batchEnd && !this.batchBytes[this.batchStart].hasRemaining()) {
+                this.batch[this.batchStart].release();
+                this.batch[this.batchStart] = null;
+                this.batchBytes[this.batchStart] = null;
+                this.batchStart++;
+                this.messagesWritten.increment();
+            }
+
+            if (this.batchStart < this.batchEnd) {
+                return false;
+            }
+        }
+    }
+
+    private boolean fillBatch() {
+        this.batchStart = 0;
+        this.batchEnd = 0;
+
+        SipMessageBuffer message;
+        while (this.batchEnd < MAX_BATCH_SIZE && (message = this.queue.poll()) != null) {
+            LOG.trace("Writing message: [{}]", message);
+            this.batch[this.batchEnd] = message;
+            this.batchBytes[this.batchEnd] = message.asByteBuffer();
+            this.batchEnd++;
+        }
+
+        return this.batchEnd > 0;
+    }
+
+    private void releaseAll() {
+        for (var i = this.batchStart; i < this.batchEnd; i++) {
+            this.batch[i].release();
+            this.batch[i] = null;
+            this.batchBytes[i] = null;
+        }
+        this.batchStart = 0;
+        this.batchEnd = 0;
+
+        SipMessageBuffer message;
+        while ((message = this.queue.poll()) != null) {
+            message.release();
+        }
+    }
+
+    /**
+     * Drops everything queued after the queue was closed. Must only be called while holding the draining flag.
+     *
+     * <p>An enqueue which passed the closed check before {@link #close()} may still add a message. It finds the
+     * flag taken and leaves the message to us, so the flag is only handed back once the queue stayed empty.</p>
+     */
+    private void discardQueued() {
+        do {
+            releaseAll();
+            this.draining.set(false);
+        } while (!this.queue.isEmpty() && this.draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Rejects further messages. Messages still queued are dropped by the writer.
+     */
+    void close() {
+        this.closed = true;
+
+        if (this.draining.compareAndSet(false, true)) {
+            // no writer is active, so the queue is ours.
+            discardQueued();
+        }
+    }
+
+    long getSinkWrites() {
+        return this.sinkWrites.sum();
+    }
+
+    long getMessagesWritten() {
+        return this.messagesWritten.sum();
+    }
+}
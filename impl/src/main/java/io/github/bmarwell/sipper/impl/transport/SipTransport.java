@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Moves the bytes of one connection between the network and its {@link SocketInConnectionReader}.
+ */
+public interface SipTransport extends AutoCloseable {
+
+    /**
+     * Starts passing received bytes to the given reader. Called once, before anything is written.
+     *
+     * @param reader the inbound pipeline of the connection.
+     */
+    void start(SocketInConnectionReader reader);
+
+    /**
+     * Sends an encoded message and releases its buffer once written. May be called from any thread.
+     *
+     * <p>Stream transports only queue the message and return without waiting for the network; a failed write
+     * closes the transport.</p>
+     *
+     * @param message the encoded message.
+     * @throws UncheckedIOException if the message could not be sent or the transport is closed.
+     */
+    void write(SipMessageBuffer message);
+
+    /**
+     * Whether a request of the given size travels over a reliable transport. Requests sent unreliably are
+     * retransmitted by their client transaction.
+     *
+     * @param requestLength the length of the encoded request in bytes.
+     * @return {@code true} unless the request is sent as a datagram.
+     */
+    default boolean isReliableFor(int requestLength) {
+        return true;
+    }
+
+    /**
+     * The transport as written into Via and Contact headers.
+     *
+     * @return e.g. {@code TCP} or {@code UDP}.
+     */
+    String protocol();
+
+    boolean isConnected();
+
+    InetSocketAddress getLocalAddress();
+
+    /**
+     * Closes the network connection and stops reading. The reader stays open, it belongs to the connection.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TCP transport on a blocking {@link Socket}, read by one virtual thread.
+ *
+ * <p>Writes are queued on an {@link OutboundQueue} and written by a virtual thread, which copies all pending
+ * messages into the socket's buffer and flushes once the queue ran empty.</p>
+ */
+public final class SocketSipTransport implements SipTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SocketSipTransport.class);
+
+    /** Large enough for a burst of typical messages, which is then written in one system call. */
+    static final int OUT_BUFFER_SIZE = 16 * 1024;
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final WritableByteChannel outChannel;
+    private final OutboundQueue outbound;
+
+    private volatile Thread readerThread;
+
+    public SocketSipTransport(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), OUT_BUFFER_SIZE);
+        this.outChannel = Channels.newChannel(this.out);
+        this.outbound = new OutboundQueue(
+                new StreamSink(),
+                drain -> Thread.ofVirtual().name("sipper-writer").start(drain),
+                () -> {
+                    throw new IllegalStateException("A blocking stream takes all bytes.");
+                },
+                this::onWriteFailed);
+    }
+
+    /**
+     * Opens a connection.
+     *
+     * @param remoteAddress the address of the registrar or proxy.
+     * @param connectTimeout the maximum time to wait for the connection.
+     * @return the connected transport.
+     * @throws IOException if the connection could not be established.
+     */
+    public static SocketSipTransport connect(InetSocketAddress remoteAddress, Duration connectTimeout)
+            throws IOException {
+        final var socket = new Socket();
+
+        try {
+            LOG.trace("Waiting for connection to succeed.");
+            socket.connect(remoteAddress, Math.toIntExact(connectTimeout.toMillis()));
+            return new SocketSipTransport(socket);
+        } catch (IOException ioException) {
+            socket.close();
+            throw ioException;
+        }
+    }
+
+    @Override
+    public void start(SocketInConnectionReader reader) {
+        if (this.readerThread != null) {
+            throw new IllegalStateException("Transport already started: " + this);
+        }
+
+        final InputStream socketInput;
+        try {
+            socketInput = this.socket.getInputStream();
+        } catch (IOException ioException) {
+            throw new IllegalStateException("Socket not readable: " + this.socket, ioException);
+        }
+
+        this.readerThread = Thread.ofVirtual().name("sipper-reader").start(() -> readLoop(socketInput, reader));
+    }
+
+    private void readLoop(InputStream socketInput, SocketInConnectionReader reader) {
+        try {
+            LOG.trace("Now listening for incoming messages");
+            while (reader.readFrom(socketInput) != -1) {
+                // all messages were processed by the reader.
+            }
+        } catch (SocketException se) {
+            // probably OK, the socket was closed.
+            LOG.trace("Socket closed.", se);
+        } catch (IOException ioException) {
+            LOG.error("Problem while reading input from socket.", ioException);
+        } catch (IllegalArgumentException illegalMessage) {
+            // the stream cannot be re-synchronized after a framing error.
+            LOG.error("Problem while framing input from socket.", illegalMessage);
+        }
+    }
+
+    @Override
+    public void write(SipMessageBuffer message) {
+        this.outbound.enqueue(message);
+    }
+
+    private void onWriteFailed(IOException ioException) {
+        if (!this.socket.isClosed()) {
+            LOG.error("Problem while writing to socket.", ioException);
+        }
+        close();
+    }
+
+    @Override
+    public String protocol() {
+        return "TCP";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.socket.isConnected() && !this.socket.isClosed();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress(this.socket.getLocalAddress(), this.socket.getLocalPort());
+    }
+
+    public Socket getSocket() {
+        return this.socket;
+    }
+
+    @Override
+    public void close() {
+        this.outbound.close();
+
+        try {
+            // also ends the read loop.
+            this.socket.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing socket.", ioException);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SocketSipTransport[socket=" + this.socket + "]";
+    }
+
+    /**
+     * Copies the messages into the buffered stream, so a batch of small messages becomes one system call.
+     */
+    private final class StreamSink implements OutboundQueue.Sink {
+
+        @Override
+        public long write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+            var written = 0L;
+            for (var i = offset; i < offset + length; i++) {
+                // blocks until the whole buffer was taken.
+                written += SocketSipTransport.this.outChannel.write(buffers[i]);
+            }
+
+            return written;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            SocketSipTransport.this.out.flush();
+        }
+    }
+}
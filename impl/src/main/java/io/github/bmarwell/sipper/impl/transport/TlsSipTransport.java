@@ -0,0 +1,570 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TLS transport on an {@link SSLEngine} over a non-blocking {@link SocketChannel}, served by a shared
+ * {@link NioEventLoop}.
+ *
+ * <p>Records are decrypted on the loop thread into the loop's read buffer and passed to the connection's
+ * reader, just like plain TCP. Only the handshake's delegated tasks, i.e. the expensive key exchange and
+ * certificate checks, run on short-lived virtual threads so the loop keeps serving other connections.</p>
+ *
+ * <p>Outgoing messages are queued on an {@link OutboundQueue}, so a burst of messages is encrypted in one
+ * gathering wrap into as few records as possible. While encrypted records wait for the channel, no further
+ * messages are encrypted, so at most one batch of records is kept in memory.</p>
+ *
+ * <p>Engines are created for the peer's host and port, so a {@link SSLContext} shared by all connections
+ * resumes earlier sessions from its client session cache instead of doing a full handshake.</p>
+ */
+public final class TlsSipTransport implements SipTransport, NioChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TlsSipTransport.class);
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SocketChannel channel;
+    private final NioEventLoop loop;
+    private final SSLEngine engine;
+    private final InetSocketAddress localAddress;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final CompletableFuture<SSLSession> handshake = new CompletableFuture<>();
+
+    /** Received records which were not decrypted yet. Only accessed by the loop thread. */
+    private ByteBuffer netIn;
+
+    /** Application data decrypted before the reader was set. Only accessed by the loop thread. */
+    private final ArrayDeque<ByteBuffer> earlyData = new ArrayDeque<>();
+
+    /** Only accessed by the loop thread. */
+    private boolean runningTasks = false;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Drained on the enqueuing thread; encrypted bytes the channel does not accept are kept below. */
+    private final OutboundQueue outbound =
+            new OutboundQueue(this::encryptAndWrite, Runnable::run, this::onBlocked, this::onWriteFailed);
+
+    /** Only accessed while holding the write lock. */
+    private ByteBuffer netOut;
+
+    /** Encrypted bytes the channel did not accept yet. Only accessed while holding the write lock. */
+    private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+
+    private volatile SelectionKey key;
+    private SocketInConnectionReader reader;
+
+    TlsSipTransport(SocketChannel channel, NioEventLoop loop, SSLEngine engine) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.engine = engine;
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+
+        final var packetBufferSize = engine.getSession().getPacketBufferSize();
+        this.netIn = ByteBuffer.allocate(packetBufferSize);
+        this.netOut = ByteBuffer.allocate(packetBufferSize);
+    }
+
+    /**
+     * Opens a connection and completes the TLS handshake. Only waiting blocks the calling thread, the
+     * handshake itself runs on the loop.
+     *
+     * @param remoteAddress the address of the registrar or proxy.
+     * @param peerHost the host name the server certificate is verified against.
+     * @param connectTimeout the maximum time to wait for the connection and for the handshake each.
+     * @param loop the loop which will serve the connection.
+     * @param sslContext the context, which should be shared by all connections to resume sessions.
+     * @return the connected transport with an established session.
+     * @throws IOException if the connection or the handshake failed.
+     */
+    public static TlsSipTransport connect(
+            InetSocketAddress remoteAddress,
+            String peerHost,
+            Duration connectTimeout,
+            NioEventLoop loop,
+            SSLContext sslContext)
+            throws IOException {
+        final var engine = sslContext.createSSLEngine(peerHost, remoteAddress.getPort());
+        engine.setUseClientMode(true);
+        final var sslParameters = engine.getSSLParameters();
+        sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+        engine.setSSLParameters(sslParameters);
+
+        final var channel = SocketChannel.open();
+        final TlsSipTransport transport;
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            LOG.trace("Waiting for connection to succeed.");
+            channel.socket().connect(remoteAddress, Math.toIntExact(connectTimeout.toMillis()));
+            channel.configureBlocking(false);
+            transport = new TlsSipTransport(channel, loop, engine);
+        } catch (IOException ioException) {
+            channel.close();
+            throw ioException;
+        }
+
+        loop.execute(transport::beginHandshake);
+
+        try {
+            final var session = transport.handshake.get(connectTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            LOG.debug("TLS session established: [{}] [{}].", session.getProtocol(), session.getCipherSuite());
+            return transport;
+        } catch (ExecutionException failed) {
+            transport.close();
+            throw new SSLException("TLS handshake failed.", failed.getCause());
+        } catch (TimeoutException timeout) {
+            transport.close();
+            throw new SSLException("TLS handshake timed out.", timeout);
+        } catch (InterruptedException interrupted) {
+            transport.close();
+            Thread.currentThread().interrupt();
+            throw new SSLException("Interrupted during TLS handshake.", interrupted);
+        }
+    }
+
+    private void beginHandshake() {
+        try {
+            this.key = this.channel.register(this.loop.selector(), SelectionKey.OP_READ, this);
+            this.engine.beginHandshake();
+            advance(this.loop.readBuffer());
+        } catch (IOException ioException) {
+            failHandshake(ioException);
+        }
+    }
+
+    @Override
+    public void start(SocketInConnectionReader reader) {
+        this.loop.execute(() -> {
+            if (this.reader != null) {
+                throw new IllegalStateException("Transport already started: " + this);
+            }
+
+            this.reader = reader;
+            LOG.trace("Now listening for incoming messages");
+
+            ByteBuffer early;
+            while ((early = this.earlyData.poll()) != null) {
+                deliver(early);
+            }
+        });
+    }
+
+    @Override
+    public void write(SipMessageBuffer message) {
+        this.outbound.enqueue(message);
+    }
+
+    private long encryptAndWrite(ByteBuffer[] plain, int offset, int length) throws IOException {
+        this.writeLock.lock();
+        try {
+            if (this.closed.get()) {
+                throw new ClosedChannelException();
+            }
+
+            if (!this.pendingWrites.isEmpty()) {
+                // the queue keeps the messages until the records of the previous batch are written.
+                return 0L;
+            }
+
+            var bytes = 0L;
+            for (var i = offset; i < offset + length; i++) {
+                bytes += plain[i].remaining();
+            }
+
+            wrapAndWrite(plain, offset, length);
+            return bytes;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private void onBlocked() {
+        this.loop.execute(this::resumeIfWritten);
+    }
+
+    /**
+     * Resumes the queue unless records are still pending, in which case {@link #onWritable()} resumes it.
+     */
+    private void resumeIfWritten() {
+        this.writeLock.lock();
+        try {
+            if (!this.closed.get() && !this.pendingWrites.isEmpty()) {
+                return;
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        this.outbound.resume();
+    }
+
+    private void onWriteFailed(IOException ioException) {
+        if (!this.closed.get()) {
+            LOG.error("Problem while writing to channel.", ioException);
+        }
+        close();
+    }
+
+    private void wrapAndWrite(ByteBuffer plain) throws IOException {
+        wrapAndWrite(new ByteBuffer[] {plain}, 0, 1);
+    }
+
+    /**
+     * Encrypts all given bytes and writes the records, keeping what the channel does not accept.
+     */
+    private void wrapAndWrite(ByteBuffer[] plain, int offset, int length) throws IOException {
+        this.writeLock.lock();
+        try {
+            do {
+                this.netOut.clear();
+                final var result = this.engine.wrap(plain, offset, length, this.netOut);
+                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED) {
+                    // an abbreviated handshake ends with our Finished message.
+                    completeHandshake();
+                }
+
+                switch (result.getStatus()) {
+                    case OK -> {
+                        this.netOut.flip();
+                        writeOrQueue(this.netOut);
+                    }
+                    case BUFFER_OVERFLOW ->
+                        this.netOut =
+                                ByteBuffer.allocate(this.engine.getSession().getPacketBufferSize());
+                    case CLOSED -> throw new ClosedChannelException();
+                    case BUFFER_UNDERFLOW -> throw new IllegalStateException("Underflow while encrypting.");
+                }
+            } while (hasRemaining(plain, offset, length));
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers, int offset, int length) {
+        for (var i = offset; i < offset + length; i++) {
+            if (buffers[i].hasRemaining()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeOrQueue(ByteBuffer records) throws IOException {
+        if (this.pendingWrites.isEmpty()) {
+            this.channel.write(records);
+        }
+
+        if (records.hasRemaining()) {
+            this.pendingWrites.add(
+                    ByteBuffer.allocate(records.remaining()).put(records).flip());
+            if (this.pendingWrites.size() == 1) {
+                this.loop.execute(this::enableWriteInterest);
+            }
+        }
+    }
+
+    private void enableWriteInterest() {
+        final var selectionKey = this.key;
+        if (selectionKey != null && selectionKey.isValid()) {
+            selectionKey.interestOpsOr(SelectionKey.OP_WRITE);
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        this.writeLock.lock();
+        try {
+            while (!this.pendingWrites.isEmpty()) {
+                final var head = this.pendingWrites.peek();
+                this.channel.write(head);
+                if (head.hasRemaining()) {
+                    return;
+                }
+
+                this.pendingWrites.poll();
+            }
+
+            this.key.interestOpsAnd(~SelectionKey.OP_WRITE);
+        } catch (IOException ioException) {
+            if (!this.closed.get()) {
+                LOG.error("Problem while writing to channel.", ioException);
+            }
+            close();
+            return;
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        // outside of the lock, as the queue encrypts the next batch right away.
+        this.outbound.resume();
+    }
+
+    /**
+     * Returns the number of encrypted bytes the channel did not accept yet.
+     *
+     * @return the number of pending bytes.
+     */
+    long getPendingBytes() {
+        this.writeLock.lock();
+        try {
+            var bytes = 0L;
+            for (final var pending : this.pendingWrites) {
+                bytes += pending.remaining();
+            }
+
+            return bytes;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void onReadable(ByteBuffer readBuffer) {
+        try {
+            if (!this.netIn.hasRemaining()) {
+                // a record larger than the buffer, e.g. after the session's packet size grew.
+                this.netIn = ByteBuffer.allocate(this.netIn.capacity() * 2).put(this.netIn.flip());
+            }
+
+            if (this.channel.read(this.netIn) == -1) {
+                LOG.debug("Connection closed by peer: [{}].", this);
+                failHandshake(new ClosedChannelException());
+                this.outbound.close();
+                close();
+                return;
+            }
+
+            advance(readBuffer);
+        } catch (IOException ioException) {
+            if (!this.closed.get()) {
+                LOG.error("Problem while reading input from channel.", ioException);
+            }
+            failHandshake(ioException);
+            close();
+        } catch (IllegalArgumentException illegalMessage) {
+            // the stream cannot be re-synchronized after a framing error.
+            LOG.error("Problem while framing input from channel.", illegalMessage);
+            close();
+        }
+    }
+
+    /**
+     * Drives the engine until it needs more data from the network or waits for delegated tasks.
+     * Loop thread only.
+     */
+    private void advance(ByteBuffer appBuffer) throws IOException {
+        while (!this.closed.get() && !this.runningTasks) {
+            switch (this.engine.getHandshakeStatus()) {
+                case NEED_TASK -> {
+                    runDelegatedTasks();
+                    return;
+                }
+                case NOT_HANDSHAKING -> {
+                    completeHandshake();
+                    if (!unwrap(appBuffer)) {
+                        return;
+                    }
+                }
+                case NEED_WRAP -> wrapAndWrite(EMPTY);
+                default -> {
+                    if (!unwrap(appBuffer)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decrypts the next record.
+     *
+     * @return {@code false} if no complete record was available.
+     */
+    private boolean unwrap(ByteBuffer appBuffer) throws IOException {
+        this.netIn.flip();
+        try {
+            if (!this.netIn.hasRemaining()) {
+                return false;
+            }
+
+            appBuffer.clear();
+            final var result = this.engine.unwrap(this.netIn, appBuffer);
+
+            switch (result.getStatus()) {
+                case BUFFER_UNDERFLOW -> {
+                    return false;
+                }
+                case BUFFER_OVERFLOW ->
+                    throw new IllegalStateException(
+                            "Read buffer smaller than TLS application buffer: " + appBuffer.capacity());
+                case CLOSED -> {
+                    LOG.debug("TLS session closed by peer: [{}].", this);
+                    close();
+                    return false;
+                }
+                case OK -> {
+                    // handled below.
+                }
+            }
+
+            if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED) {
+                completeHandshake();
+            }
+
+            if (appBuffer.position() > 0) {
+                appBuffer.flip();
+                deliver(appBuffer);
+            }
+
+            return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        } finally {
+            this.netIn.compact();
+        }
+    }
+
+    private void deliver(ByteBuffer appData) {
+        if (this.reader == null) {
+            this.earlyData.add(
+                    ByteBuffer.allocate(appData.remaining()).put(appData).flip());
+            return;
+        }
+
+        this.reader.receive(appData);
+    }
+
+    private void runDelegatedTasks() {
+        this.runningTasks = true;
+        Thread.ofVirtual().name("sipper-tls-handshake").start(() -> {
+            Runnable task;
+            while ((task = this.engine.getDelegatedTask()) != null) {
+                task.run();
+            }
+
+            this.loop.execute(() -> {
+                this.runningTasks = false;
+                try {
+                    advance(this.loop.readBuffer());
+                } catch (IOException ioException) {
+                    failHandshake(ioException);
+                    close();
+                }
+            });
+        });
+    }
+
+    private void completeHandshake() {
+        if (!this.handshake.isDone() && this.handshake.complete(this.engine.getSession())) {
+            LOG.trace("TLS handshake finished.");
+        }
+    }
+
+    private void failHandshake(IOException cause) {
+        this.handshake.completeExceptionally(cause);
+    }
+
+    /**
+     * The established session, e.g. to check whether it was resumed.
+     *
+     * @return the session.
+     */
+    public SSLSession getSession() {
+        return this.engine.getSession();
+    }
+
+    @Override
+    public String protocol() {
+        return "TLS";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !this.closed.get() && this.channel.isConnected();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return this.localAddress;
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        failHandshake(new ClosedChannelException());
+        this.outbound.close();
+
+        this.writeLock.lock();
+        try {
+            // best effort close_notify, so the peer does not see a truncation attack.
+            this.engine.closeOutbound();
+            this.netOut.clear();
+            this.engine.wrap(EMPTY, this.netOut);
+            this.netOut.flip();
+            this.channel.write(this.netOut);
+        } catch (IOException ioException) {
+            LOG.trace("Unable to send close_notify.", ioException);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        final var selectionKey = this.key;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing channel.", ioException);
+        }
+
+        // a drain waiting for pending records holds the queue; it drops the queued messages once resumed.
+        this.outbound.resume();
+    }
+
+    @Override
+    public String toString() {
+        return "TlsSipTransport[channel=" + this.channel + ", loop=" + this.loop + "]";
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipConnectionHeaders;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A UDP transport on a connected, non-blocking {@link DatagramChannel}, served by a shared
+ * {@link NioEventLoop}.
+ *
+ * <p>Each message is sent as one datagram. Requests larger than {@link #MAX_DATAGRAM_SIZE} are sent over a
+ * TCP connection to the same peer instead (RFC 3261, section 18.1.1), which is opened on first use and
+ * whose responses arrive at the same reader. Retransmitting lost requests is up to the client
+ * transactions, see {@link #isReliableFor(int)}.</p>
+ */
+public final class UdpSipTransport implements SipTransport, NioChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UdpSipTransport.class);
+
+    /** The largest request sent as a datagram, for a path MTU which is not known. */
+    public static final int MAX_DATAGRAM_SIZE = 1300;
+
+    /** Datagrams read per readiness event, so one busy peer does not starve the loop. */
+    private static final int MAX_DATAGRAMS_PER_READ = 64;
+
+    private static final byte[] RESPONSE_START = "SIP/2.0 ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UDP_VIA = "SIP/2.0/UDP".getBytes(StandardCharsets.US_ASCII);
+
+    private final DatagramChannel channel;
+    private final NioEventLoop loop;
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+    private final Duration connectTimeout;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final ReentrantLock fallbackLock = new ReentrantLock();
+
+    /** Only accessed while holding the fallback lock. */
+    private NioSipTransport tcpFallback;
+
+    private volatile SelectionKey key;
+    private volatile SocketInConnectionReader reader;
+
+    UdpSipTransport(
+            DatagramChannel channel, NioEventLoop loop, InetSocketAddress remoteAddress, Duration connectTimeout)
+            throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.remoteAddress = remoteAddress;
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Opens a datagram channel which only exchanges datagrams with the given peer.
+     *
+     * @param remoteAddress the address of the registrar or proxy.
+     * @param connectTimeout the maximum time to wait for the TCP connection used for large requests.
+     * @param loop the loop which will serve the channel and the TCP fallback.
+     * @return the transport.
+     * @throws IOException if the channel could not be opened.
+     */
+    public static UdpSipTransport connect(InetSocketAddress remoteAddress, Duration connectTimeout, NioEventLoop loop)
+            throws IOException {
+        final var channel = DatagramChannel.open();
+
+        try {
+            channel.connect(remoteAddress);
+            channel.configureBlocking(false);
+
+            return new UdpSipTransport(channel, loop, remoteAddress, connectTimeout);
+        } catch (IOException ioException) {
+            channel.close();
+            throw ioException;
+        }
+    }
+
+    @Override
+    public void start(SocketInConnectionReader reader) {
+        if (this.reader != null) {
+            throw new IllegalStateException("Transport already started: " + this);
+        }
+
+        this.reader = reader;
+        this.loop.execute(this::register);
+    }
+
+    private void register() {
+        try {
+            this.key = this.channel.register(this.loop.selector(), SelectionKey.OP_READ, this);
+            LOG.trace("Now listening for incoming datagrams");
+        } catch (ClosedChannelException closedChannel) {
+            close();
+        }
+    }
+
+    @Override
+    public void write(SipMessageBuffer message) {
+        if (message.length() > MAX_DATAGRAM_SIZE && isRequest(message)) {
+            writeOverTcp(message);
+            return;
+        }
+
+        try {
+            if (this.closed.get()) {
+                throw new ClosedChannelException();
+            }
+
+            if (this.channel.write(message.asByteBuffer()) == 0) {
+                // no room in the socket buffer: the datagram is lost like any other, requests are retransmitted.
+                LOG.debug("Datagram not sent, socket buffer full: [{}].", this);
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to write message.", ioException);
+        } finally {
+            message.release();
+        }
+    }
+
+    private void writeOverTcp(SipMessageBuffer message) {
+        final NioSipTransport tcp;
+        final SipMessageBuffer tcpMessage;
+        try {
+            tcp = getTcpFallback();
+            final var bytes = new byte[message.length()];
+            message.asByteBuffer().get(bytes);
+            tcpMessage = SipMessageBuffer.acquire().append(rewriteTopVia(bytes, tcp.getLocalAddress()));
+        } finally {
+            message.release();
+        }
+
+        tcp.write(tcpMessage);
+    }
+
+    private NioSipTransport getTcpFallback() {
+        this.fallbackLock.lock();
+        try {
+            if (this.closed.get()) {
+                throw new UncheckedIOException("Unable to write message.", new ClosedChannelException());
+            }
+
+            if (this.tcpFallback == null || !this.tcpFallback.isConnected()) {
+                LOG.debug("Request exceeds [{}] bytes, connecting over TCP.", MAX_DATAGRAM_SIZE);
+                this.tcpFallback = NioSipTransport.connect(this.remoteAddress, this.connectTimeout, this.loop);
+                this.tcpFallback.start(this.reader);
+            }
+
+            return this.tcpFallback;
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to connect for large request.", ioException);
+        } finally {
+            this.fallbackLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the sent-protocol and sent-by of the top Via header for the TCP connection, so responses go to
+     * the connection the request was sent over. The parameters are kept.
+     *
+     * @param request the encoded request.
+     * @param localAddress the local address of the TCP connection.
+     * @return the request with the new top Via, or {@code request} if it has no UDP Via.
+     */
+    static byte[] rewriteTopVia(byte[] request, InetSocketAddress localAddress) {
+        final var index = indexOf(request, UDP_VIA);
+        if (index == -1) {
+            return request;
+        }
+
+        var sentByEnd = index + UDP_VIA.length;
+        while (sentByEnd < request.length && (request[sentByEnd] == ' ' || request[sentByEnd] == '\t')) {
+            sentByEnd++;
+        }
+        while (sentByEnd < request.length && !isSentByEnd(request[sentByEnd])) {
+            sentByEnd++;
+        }
+
+        final var via =
+                ("SIP/2.0/TCP " + SipConnectionHeaders.hostPort(localAddress)).getBytes(StandardCharsets.US_ASCII);
+        final var rewritten = new byte[index + via.length + request.length - sentByEnd];
+        System.arraycopy(request, 0, rewritten, 0, index);
+        System.arraycopy(via, 0, rewritten, index, via.length);
+        System.arraycopy(request, sentByEnd, rewritten, index + via.length, request.length - sentByEnd);
+
+        return rewritten;
+    }
+
+    private static boolean isSentByEnd(byte value) {
+        return value == ';' || value == ',' || value == ' ' || value == '\t' || value == '\r' || value == '\n';
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (var i = 0; i <= haystack.length - needle.length; i++) {
+            for (var j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private static boolean isRequest(SipMessageBuffer message) {
+        final var bytes = message.asByteBuffer();
+        for (var i = 0; i < RESPONSE_START.length; i++) {
+            if (bytes.get(i) != RESPONSE_START[i]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void onReadable(ByteBuffer readBuffer) {
+        for (var datagrams = 0; datagrams < MAX_DATAGRAMS_PER_READ; datagrams++) {
+            readBuffer.clear();
+
+            try {
+                if (this.channel.read(readBuffer) <= 0) {
+                    return;
+                }
+            } catch (PortUnreachableException unreachable) {
+                // ICMP for an earlier datagram, the peer might come back.
+                LOG.debug("Peer unreachable: [{}].", this.remoteAddress);
+                return;
+            } catch (IOException ioException) {
+                if (!this.closed.get()) {
+                    LOG.error("Problem while reading datagram.", ioException);
+                }
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            try {
+                this.reader.receiveDatagram(readBuffer);
+            } catch (IllegalArgumentException illegalMessage) {
+                LOG.debug("Dropping invalid datagram.", illegalMessage);
+            }
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        // datagrams are never queued.
+    }
+
+    @Override
+    public boolean isReliableFor(int requestLength) {
+        return requestLength > MAX_DATAGRAM_SIZE;
+    }
+
+    @Override
+    public String protocol() {
+        return "UDP";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !this.closed.get() && this.channel.isConnected();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return this.localAddress;
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        final var selectionKey = this.key;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing channel.", ioException);
+        }
+
+        this.fallbackLock.lock();
+        try {
+            if (this.tcpFallback != null) {
+                this.tcpFallback.close();
+            }
+        } finally {
+            this.fallbackLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UdpSipTransport[channel=" + this.channel + ", loop=" + this.loop + "]";
+    }
+}
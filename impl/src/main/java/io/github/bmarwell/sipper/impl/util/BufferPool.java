@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process-wide pool of byte buffers in power-of-two size classes from {@link #MIN_CLASS_SIZE} to
+ * {@link #MAX_CLASS_SIZE}.
+ *
+ * <p>Each size class keeps released buffers on a bounded lock-free free list, so handing a buffer back and
+ * taking it out again allocates nothing. Larger requests, and releases into a full free list, fall back to the
+ * garbage collector. Buffers are heap buffers unless {@value #DIRECT_PROPERTY} is {@code true}.</p>
+ *
+ * <p>Owners of pooled buffers may register for leak detection, which is enabled by
+ * {@value #LEAK_DETECTION_PROPERTY} (and always in tests). An owner which becomes unreachable without
+ * having released its buffer is logged with the stack trace of its allocation and counted.</p>
+ */
+public final class BufferPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BufferPool.class);
+
+    public static final String DIRECT_PROPERTY = "sipper.buffers.direct";
+
+    public static final String LEAK_DETECTION_PROPERTY = "sipper.buffers.leakDetection";
+
+    public static final int MIN_CLASS_SIZE = 512;
+
+    public static final int MAX_CLASS_SIZE = 128 * 1024;
+
+    /** Upper bound of the memory kept on the free list of each size class. */
+    static final int MAX_POOLED_BYTES_PER_CLASS = 1024 * 1024;
+
+    private static final int MIN_POOLED_BUFFERS_PER_CLASS = 8;
+
+    private static final boolean LEAK_DETECTION = Boolean.getBoolean(LEAK_DETECTION_PROPERTY);
+
+    private static final LongAdder LEAKS = new LongAdder();
+
+    private final boolean direct;
+    private final FreeList[] freeLists;
+
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+
+    /**
+     * Creates a pool.
+     *
+     * @param direct whether buffers are allocated outside of the Java heap.
+     */
+    public BufferPool(boolean direct) {
+        this.direct = direct;
+
+        final var classes = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE / MIN_CLASS_SIZE) + 1;
+        this.freeLists = new FreeList[classes];
+        for (var i = 0; i < classes; i++) {
+            final var classSize = MIN_CLASS_SIZE << i;
+            this.freeLists[i] = new FreeList(Integer.highestOneBit(
+                    Math.max(MIN_POOLED_BUFFERS_PER_CLASS, MAX_POOLED_BYTES_PER_CLASS / classSize)));
+        }
+    }
+
+    /**
+     * Returns the process-wide pool for outgoing messages, direct if so configured.
+     *
+     * @return the shared pool.
+     */
+    public static BufferPool shared() {
+        return SharedPoolHolder.SHARED;
+    }
+
+    /**
+     * Returns the process-wide pool of heap buffers, for users which need {@link ByteBuffer#array()}.
+     *
+     * @return the shared heap pool.
+     */
+    public static BufferPool heap() {
+        return SharedPoolHolder.HEAP;
+    }
+
+    /**
+     * Takes a cleared buffer with at least the given capacity.
+     *
+     * @param minCapacity the minimum capacity in bytes.
+     * @return a buffer whose capacity is the size class, or exactly {@code minCapacity} above the largest class.
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > MAX_CLASS_SIZE) {
+            this.allocations.increment();
+            return allocate(minCapacity);
+        }
+
+        final var sizeClass = sizeClass(minCapacity);
+        final var pooled = this.freeLists[sizeClass].poll();
+        if (pooled != null) {
+            this.reuses.increment();
+            return pooled.clear();
+        }
+
+        this.allocations.increment();
+        return allocate(MIN_CLASS_SIZE << sizeClass);
+    }
+
+    /**
+     * Hands a buffer back. It must not be used afterwards, not even through a duplicate or slice.
+     *
+     * @param buffer a buffer obtained from {@link #acquire(int)} of this pool.
+     */
+    public void release(ByteBuffer buffer) {
+        final var capacity = buffer.capacity();
+        if (capacity > MAX_CLASS_SIZE
+                || capacity < MIN_CLASS_SIZE
+                || Integer.bitCount(capacity) != 1
+                || buffer.isDirect() != this.direct) {
+            return;
+        }
+
+        this.freeLists[sizeClass(capacity)].offer(buffer);
+    }
+
+    static int sizeClass(int capacity) {
+        if (capacity <= MIN_CLASS_SIZE) {
+            return 0;
+        }
+
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    public boolean isDirect() {
+        return this.direct;
+    }
+
+    /**
+     * Returns how many buffers had to be allocated because no pooled one was available.
+     *
+     * @return the number of allocations.
+     */
+    public long getAllocations() {
+        return this.allocations.sum();
+    }
+
+    /**
+     * Returns how many buffers were taken from a free list.
+     *
+     * @return the number of reuses.
+     */
+    public long getReuses() {
+        return this.reuses.sum();
+    }
+
+    /**
+     * Watches an owner of pooled buffers if leak detection is enabled.
+     *
+     * @param owner the object holding pooled buffers, e.g. a message buffer.
+     * @return a tracker which must be closed when the owner released its buffers.
+     */
+    public static LeakTracker track(Object owner) {
+        if (!LEAK_DETECTION) {
+            return LeakTracker.DISABLED;
+        }
+
+        final var state = new LeakState(owner.getClass().getName(), new Throwable("Allocated here."));
+        return new LeakTracker(state, LeakDetectorHolder.CLEANER.register(owner, state));
+    }
+
+    /**
+     * Returns how many owners became unreachable without releasing their buffers, if leak detection is enabled.
+     *
+     * @return the number of leaks detected so far.
+     */
+    public static long getLeaks() {
+        return LEAKS.sum();
+    }
+
+    public static boolean isLeakDetectionEnabled() {
+        return LEAK_DETECTION;
+    }
+
+    /**
+     * Marks an owner as released.
+     */
+    public static final class LeakTracker {
+
+        private static final LeakTracker DISABLED = new LeakTracker(null, null);
+
+        private final LeakState state;
+        private final Cleaner.Cleanable cleanable;
+
+        private LeakTracker(LeakState state, Cleaner.Cleanable cleanable) {
+            this.state = state;
+            this.cleanable = cleanable;
+        }
+
+        public void close() {
+            if (this.state != null) {
+                this.state.released = true;
+                this.cleanable.clean();
+            }
+        }
+    }
+
+    /**
+     * Runs when the owner was collected, or was closed. Must not reference the owner.
+     */
+    private static final class LeakState implements Runnable {
+
+        private final String ownerType;
+        private final Throwable allocation;
+
+        private volatile boolean released = false;
+
+        private LeakState(String ownerType, Throwable allocation) {
+            this.ownerType = ownerType;
+            this.allocation = allocation;
+        }
+
+        @Override
+        public void run() {
+            if (!this.released) {
+                LEAKS.increment();
+                LOG.error(
+                        "LEAK: [{}] was garbage collected without releasing its buffer.",
+                        this.ownerType,
+                        this.allocation);
+            }
+        }
+    }
+
+    /**
+     * A bounded lock-free multi-producer multi-consumer queue: D. Vyukov's bounded queue like
+     * {@link MpscRingBuffer}, except that consumers claim their slot with a CAS as well.
+     */
+    private static final class FreeList {
+
+        private final ByteBuffer[] buffers;
+        private final AtomicLongArray sequences;
+        private final int mask;
+
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        private FreeList(int capacity) {
+            this.buffers = new ByteBuffer[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+
+            for (var i = 0; i < capacity; i++) {
+                this.sequences.set(i, i);
+            }
+        }
+
+        private boolean offer(ByteBuffer buffer) {
+            var position = this.tail.get();
+            while (true) {
+                final var slot = (int) (position & this.mask);
+                final var difference = this.sequences.getAcquire(slot) - position;
+
+                if (difference == 0) {
+                    final var witness = this.tail.compareAndExchange(position, position + 1);
+                    if (witness == position) {
+                        this.buffers[slot] = buffer;
+                        this.sequences.setRelease(slot, position + 1);
+                        return true;
+                    }
+
+                    position = witness;
+                } else if (difference < 0) {
+                    // full: the buffer is left to the garbage collector.
+                    return false;
+                } else {
+                    position = this.tail.get();
+                }
+            }
+        }
+
+        private ByteBuffer poll() {
+            var position = this.head.get();
+            while (true) {
+                final var slot = (int) (position & this.mask);
+                final var difference = this.sequences.getAcquire(slot) - (position + 1);
+
+                if (difference == 0) {
+                    final var witness = this.head.compareAndExchange(position, position + 1);
+                    if (witness == position) {
+                        final var buffer = this.buffers[slot];
+                        this.buffers[slot] = null;
+                        // hands the slot back to producers, one lap ahead.
+                        this.sequences.setRelease(slot, position + this.mask + 1);
+                        return buffer;
+                    }
+
+                    position = witness;
+                } else if (difference < 0) {
+                    return null;
+                } else {
+                    position = this.head.get();
+                }
+            }
+        }
+    }
+
+    private static final class SharedPoolHolder {
+        private static final BufferPool SHARED = new BufferPool(Boolean.getBoolean(DIRECT_PROPERTY));
+        private static final BufferPool HEAP = new BufferPool(false);
+    }
+
+    private static final class LeakDetectorHolder {
+        private static final Cleaner CLEANER = Cleaner.create();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel (Varghese and Lauck) for many long-running, coarse timers.
+ *
+ * <p>Scheduling and cancelling are O(1) and never block: new timeouts are queued and moved into their bucket
+ * by the single worker thread on its next tick; cancelled timeouts are dropped when their bucket comes up.
+ * Timeouts fire with a precision of one tick.</p>
+ *
+ * <p>Tasks run on the worker thread and must return quickly; anything blocking has to be handed off.</p>
+ */
+public final class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(100L);
+
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final ArrayList<Timeout>[] buckets;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private final Thread worker;
+
+    private volatile boolean closed = false;
+
+    private static final class SharedWheelHolder {
+        private static final HashedTimingWheel SHARED =
+                new HashedTimingWheel(DEFAULT_TICK, DEFAULT_WHEEL_SIZE, "sipper-timer");
+    }
+
+    /**
+     * Returns the process-wide wheel, which is started on first use.
+     *
+     * @return the shared timing wheel.
+     */
+    public static HashedTimingWheel shared() {
+        return SharedWheelHolder.SHARED;
+    }
+
+    /**
+     * Creates and starts a timing wheel.
+     *
+     * @param tick the duration of one tick, which is the precision of all timeouts.
+     * @param wheelSize the number of buckets, which must be a power of two.
+     * @param threadName the name of the worker thread.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedTimingWheel(Duration tick, int wheelSize, String threadName) {
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two, but was: " + wheelSize);
+        }
+
+        if (tick.toMillis() < 1L) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond, but was: " + tick);
+        }
+
+        this.tickNanos = tick.toNanos();
+        this.buckets = new ArrayList[wheelSize];
+        this.mask = wheelSize - 1;
+        for (var i = 0; i < wheelSize; i++) {
+            this.buckets[i] = new ArrayList<>();
+        }
+
+        this.startTime = System.nanoTime();
+        this.worker = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task the task, which runs on the worker thread.
+     * @param delay the delay after which the task runs.
+     * @return a handle to cancel the task.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (this.closed) {
+            throw new IllegalStateException("Timing wheel is closed.");
+        }
+
+        final var deadline = System.nanoTime() - this.startTime + Math.max(0L, delay.toNanos());
+        final var timeout = new Timeout(task, deadline);
+        this.pending.add(timeout);
+
+        return timeout;
+    }
+
+    private void run() {
+        var tick = 0L;
+
+        while (!this.closed) {
+            final var now = waitForTick(tick);
+            if (this.closed) {
+                break;
+            }
+
+            transferPending(tick);
+            expire(this.buckets[(int) (tick & this.mask)], now);
+            tick++;
+        }
+    }
+
+    private long waitForTick(long tick) {
+        final var deadline = (tick + 1L) * this.tickNanos;
+
+        while (true) {
+            final var now = System.nanoTime() - this.startTime;
+            final var sleep = deadline - now;
+            if (sleep <= 0L || this.closed) {
+                return now;
+            }
+
+            LockSupport.parkNanos(this, sleep);
+        }
+    }
+
+    private void transferPending(long currentTick) {
+        Timeout timeout;
+        while ((timeout = this.pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // never schedule into the past: an overdue timeout fires with the current bucket.
+            final var targetTick = Math.max(currentTick, timeout.deadline / this.tickNanos);
+            timeout.remainingRounds = (targetTick - currentTick) / this.buckets.length;
+            this.buckets[(int) (targetTick & this.mask)].add(timeout);
+        }
+    }
+
+    private void expire(ArrayList<Timeout> bucket, long now) {
+        var kept = 0;
+
+        for (var i = 0; i < bucket.size(); i++) {
+            final var timeout = bucket.get(i);
+
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            if (timeout.remainingRounds > 0L || timeout.deadline > now) {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+                continue;
+            }
+
+            timeout.expire();
+        }
+
+        for (var i = bucket.size() - 1; i >= kept; i--) {
+            bucket.remove(i);
+        }
+    }
+
+    /**
+     * Stops the worker thread. Pending timeouts do not fire anymore.
+     */
+    @Override
+    public void close() {
+        if (this == SharedWheelHolder.SHARED) {
+            throw new IllegalStateException("The shared timing wheel cannot be closed.");
+        }
+
+        this.closed = true;
+        LockSupport.unpark(this.worker);
+    }
+
+    public long tickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.tickNanos);
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /** Only accessed by the worker thread. */
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it did not run yet.
+         *
+         * @return {@code true} if the task will not run.
+         */
+        public boolean cancel() {
+            return this.state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!this.state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+
+            try {
+                this.task.run();
+            } catch (RuntimeException rtEx) {
+                LOG.error("Timer task failed.", rtEx);
+            }
+        }
+    }
+}
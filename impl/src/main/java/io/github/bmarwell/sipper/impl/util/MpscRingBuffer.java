@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free multi-producer single-consumer queue.
+ *
+ * <p>Each slot carries a sequence number which tells producers whether the slot is free and the consumer
+ * whether it is filled (D. Vyukov's bounded queue). Producers only contend on the tail counter; the
+ * consumer never contends at all. Elements are handed over without allocating.</p>
+ *
+ * @param <E> the element type.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Only written by the consumer. */
+    private volatile long head;
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity the capacity, which must be a power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, but was: " + capacity);
+        }
+
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (var i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element. May be called from any thread.
+     *
+     * @param element the element to add, not {@code null}.
+     * @return {@code false} if the buffer is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element must not be null.");
+        }
+
+        var position = this.tail.get();
+        while (true) {
+            final var slot = (int) (position & this.mask);
+            final var difference = this.sequences.getAcquire(slot) - position;
+
+            if (difference == 0) {
+                final var witness = this.tail.compareAndExchange(position, position + 1);
+                if (witness == position) {
+                    this.elements[slot] = element;
+                    // publishes the element to the consumer.
+                    this.sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+
+                position = witness;
+            } else if (difference < 0) {
+                // the consumer has not freed this slot yet.
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element. Must only be called from the single consumer thread.
+     *
+     * @return the element, or {@code null} if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final var position = this.head;
+        final var slot = (int) (position & this.mask);
+
+        if (this.sequences.getAcquire(slot) != position + 1) {
+            return null;
+        }
+
+        final var element = (E) this.elements[slot];
+        this.elements[slot] = null;
+        // hands the slot back to producers, one lap ahead.
+        this.sequences.setRelease(slot, position + this.mask + 1);
+        this.head = position + 1;
+
+        return element;
+    }
+
+    public boolean isEmpty() {
+        return this.tail.get() == this.head;
+    }
+
+    /**
+     * Returns the number of elements, which is only an estimate while producers are active.
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        return (int) Math.max(0L, this.tail.get() - this.head);
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.api.IncomingCallEvent;
+import io.github.bmarwell.sipper.api.MessageEvent;
+import io.github.bmarwell.sipper.api.SipEvent;
+import io.github.bmarwell.sipper.api.SipEventHandler;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipIncomingMessageHandler;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EventDispatchingMessageHandlerTest {
+
+    private final List<RawSipMessage> fallbackMessages = new ArrayList<>();
+
+    private final EventDispatchingMessageHandler handler =
+            new EventDispatchingMessageHandler(new SipIncomingMessageHandler() {
+                @Override
+                public void accept(RawSipMessage sipMessage) {
+                    fallbackMessages.add(sipMessage);
+                }
+
+                @Override
+                public void remove(RawSipMessage message) {
+                    fallbackMessages.remove(message);
+                }
+            });
+
+    @Test
+    void passes_messages_to_fallback_while_nobody_listens() {
+        // when
+        handler.accept(request("MESSAGE", 1L));
+
+        // then
+        assertThat(fallbackMessages).hasSize(1);
+    }
+
+    @Test
+    void delivers_batch_of_events_in_one_invocation() {
+        // given
+        final var batches = new ArrayList<List<SipEvent>>();
+        handler.setSipEventHandler(new SipEventHandler() {
+            @Override
+            public void onEvents(List<SipEvent> events) {
+                batches.add(List.copyOf(events));
+            }
+        });
+
+        // when
+        handler.acceptAll(List.of(
+                request("INVITE", 1L),
+                new RawSipMessage("SIP/2.0 200 OK\r\nCSeq: 2 REGISTER\r\n"),
+                request("MESSAGE", 3L)));
+
+        // then
+        assertThat(batches).hasSize(1);
+        assertThat(batches.getFirst()).hasSize(2);
+        assertThat(batches.getFirst().get(0)).isInstanceOf(IncomingCallEvent.class);
+        assertThat(batches.getFirst().get(1)).isInstanceOf(MessageEvent.class);
+        assertThat(fallbackMessages).hasSize(1);
+    }
+
+    @Test
+    void routes_to_typed_callbacks_by_default() {
+        // given
+        final var messages = new ArrayList<MessageEvent>();
+        handler.setSipEventHandler(new SipEventHandler() {
+            @Override
+            public void onMessage(MessageEvent event) {
+                messages.add(event);
+            }
+        });
+
+        // when
+        handler.acceptAll(List.of(request("INVITE", 1L), request("MESSAGE", 2L)));
+
+        // then
+        assertThat(messages).hasSize(1);
+    }
+
+    @Test
+    void failing_callback_does_not_cost_the_rest_of_the_batch() {
+        // given
+        final var messages = new ArrayList<MessageEvent>();
+        handler.setSipEventHandler(new SipEventHandler() {
+            @Override
+            public void onIncomingCall(IncomingCallEvent event) {
+                throw new IllegalStateException("listener failed");
+            }
+
+            @Override
+            public void onMessage(MessageEvent event) {
+                messages.add(event);
+            }
+        });
+
+        // when
+        handler.acceptAll(List.of(request("MESSAGE", 1L), request("INVITE", 2L), request("MESSAGE", 3L)));
+
+        // then
+        assertThat(messages).hasSize(2);
+    }
+
+    private static RawSipMessage request(String method, long cseq) {
+        return new RawSipMessage(method + " sip:+4912345@192.168.1.2 SIP/2.0\r\n"
+                + "Call-ID: call-1@host\r\n"
+                + "CSeq: " + cseq + " " + method + "\r\n");
+    }
+}
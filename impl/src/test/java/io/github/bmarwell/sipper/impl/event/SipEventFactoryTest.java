@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.api.CallStateChangeEvent;
+import io.github.bmarwell.sipper.api.CallStateChangeEvent.CallState;
+import io.github.bmarwell.sipper.api.IncomingCallEvent;
+import io.github.bmarwell.sipper.api.NotifyEvent;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class SipEventFactoryTest {
+
+    @Test
+    void invite_is_an_incoming_call_view_on_the_message() {
+        // given
+        final var invite = new RawSipMessage(
+                """
+                INVITE sip:+4912345@192.168.1.2:5060 SIP/2.0\r
+                From: <sip:+4967890@tel.t-online.de>;tag=a1\r
+                To: <sip:+4912345@tel.t-online.de>\r
+                i: call-1@host\r
+                CSeq: 1 INVITE\r
+                c: application/sdp\r
+                Content-Length: 6\r
+                """,
+                "v=0\r\n".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        final var event = SipEventFactory.of(invite);
+
+        // then
+        assertThat(event).isInstanceOf(IncomingCallEvent.class);
+        final var incomingCall = (IncomingCallEvent) event;
+        assertThat(incomingCall.callId()).isEqualTo("call-1@host");
+        assertThat(incomingCall.from()).isEqualTo("<sip:+4967890@tel.t-online.de>;tag=a1");
+        assertThat(incomingCall.to()).isEqualTo("<sip:+4912345@tel.t-online.de>");
+        assertThat(incomingCall.contentType()).hasValue("application/sdp");
+        assertThat(incomingCall.body().toString()).isEqualTo("v=0\r\n");
+        assertThat(incomingCall.rawBody().remaining()).isEqualTo(5);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"100, TRYING", "180, RINGING", "183, RINGING", "200, ESTABLISHED", "486, TERMINATED"})
+    void invite_responses_change_call_state(int statusCode, CallState expectedState) {
+        // given
+        final var response = new RawSipMessage(
+                "SIP/2.0 " + statusCode + " Whatever\r\n" + "Call-ID: call-1@host\r\n" + "CSeq: 1 INVITE\r\n");
+
+        // when
+        final var event = SipEventFactory.of(response);
+
+        // then
+        assertThat(event).isInstanceOf(CallStateChangeEvent.class);
+        assertThat(((CallStateChangeEvent) event).state()).isEqualTo(expectedState);
+        assertThat(((CallStateChangeEvent) event).statusCode()).isEqualTo(statusCode);
+    }
+
+    @Test
+    void bye_terminates_call() {
+        // given
+        final var bye = new RawSipMessage("BYE sip:+4912345@192.168.1.2 SIP/2.0\r\nCSeq: 2 BYE\r\n");
+
+        // when
+        final var event = SipEventFactory.of(bye);
+
+        // then
+        assertThat(((CallStateChangeEvent) event).state()).isEqualTo(CallState.TERMINATED);
+        assertThat(((CallStateChangeEvent) event).statusCode()).isEqualTo(-1);
+    }
+
+    @Test
+    void notify_exposes_event_package() {
+        // given
+        final var notify = new RawSipMessage("NOTIFY sip:+4912345@192.168.1.2 SIP/2.0\r\n"
+                + "CSeq: 3 NOTIFY\r\n"
+                + "o: message-summary\r\n"
+                + "Subscription-State: active\r\n");
+
+        // when
+        final var event = (NotifyEvent) SipEventFactory.of(notify);
+
+        // then
+        assertThat(event.event()).isEqualTo("message-summary");
+        assertThat(event.subscriptionState()).hasValue("active");
+        assertThat(event.contentType()).isEmpty();
+        assertThat(event.body()).isEmpty();
+    }
+
+    @Test
+    void register_response_is_no_event() {
+        // expect
+        assertThat(SipEventFactory.of(new RawSipMessage("SIP/2.0 200 OK\r\nCSeq: 1 REGISTER\r\n")))
+                .isNull();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DefaultSipConnectionStatisticsTest {
+
+    private final SocketInConnectionReader reader = new SocketInConnectionReader(
+            new ClientTransactionLayer(),
+            new ServerTransactionLayer(SipMessageBuffer::release, false),
+            new StatelessProbeResponder(SipMessageBuffer::release),
+            new QueueingSipIncomingMessageHandler(),
+            1,
+            16);
+
+    @AfterEach
+    void tearDown() {
+        this.reader.close();
+    }
+
+    @Test
+    void new_connection_starts_at_zero() {
+        // expect
+        assertThat(DefaultSipConnectionStatistics.of(this.reader))
+                .isEqualTo(new DefaultSipConnectionStatistics(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L));
+    }
+
+    @Test
+    void reads_counters_of_the_reader() {
+        // given
+        final var received = "\r\n" + request("OPTIONS", "") + request("NOTIFY", "Event: keep-alive\r\n") + "\r\n";
+
+        // when
+        this.reader.receive(ByteBuffer.wrap(received.getBytes(StandardCharsets.US_ASCII)));
+        final var statistics = DefaultSipConnectionStatistics.of(this.reader);
+
+        // then
+        assertThat(statistics.optionsProbes()).isOne();
+        assertThat(statistics.keepAliveProbes()).isOne();
+        assertThat(statistics.keepAlivePongs()).isEqualTo(2L);
+        assertThat(statistics.rejectedRequests()).isZero();
+        assertThat(statistics.droppedMessages()).isZero();
+    }
+
+    private static String request(String method, String extraHeaders) {
+        return method + " sip:+4912345@192.168.1.2:5060 SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP 217.0.0.1:5060;branch=z9hG4bK." + method + "\r\n"
+                + "From: <sip:tel.t-online.de>;tag=from1\r\n"
+                + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                + "Call-ID: probe-1@host\r\n"
+                + "CSeq: 42 " + method + "\r\n"
+                + extraHeaders
+                + "Content-Length: 0\r\n"
+                + "\r\n";
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.api.ImmutableSipConfiguration;
+import io.github.bmarwell.sipper.api.SipConfiguration;
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.DigestAuthContext;
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipAuthenticationRequest;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.TransactionKey;
+import io.github.bmarwell.sipper.impl.transport.HappyEyeballs;
+import io.github.bmarwell.sipper.impl.transport.SipTransport;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class SipRegistrationTest {
+
+    private static final SipConfiguration CONFIGURATION = ImmutableSipConfiguration.builder()
+            .registrar("example.com")
+            .sipId("+4912345")
+            .loginUserId("user")
+            .loginPassword("secret")
+            .build();
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress(InetAddress.getLoopbackAddress(), 5060);
+
+    private static final String OK = "SIP/2.0 200 OK\r\nContent-Length: 0\r\n\r\n";
+
+    private static final String CHALLENGE = "SIP/2.0 401 Unauthorized\r\n"
+            + "WWW-Authenticate: Digest realm=\"example.com\", nonce=\"%s\", algorithm=MD5, qop=\"auth\"\r\n"
+            + "Content-Length: 0\r\n\r\n";
+
+    @Test
+    void refreshes_at_fraction_of_granted_interval() {
+        // expect
+        assertThat(SipRegistration.refreshDelay(600L, 0.8d, 0.0d)).isEqualTo(Duration.ofSeconds(480L));
+    }
+
+    @Test
+    void jitter_only_moves_refresh_forward() {
+        // expect
+        assertThat(SipRegistration.refreshDelay(600L, 0.8d, 0.999d))
+                .isLessThan(Duration.ofSeconds(480L))
+                .isGreaterThan(Duration.ofSeconds(432L));
+    }
+
+    @Test
+    void never_refreshes_immediately() {
+        // expect
+        assertThat(SipRegistration.refreshDelay(0L, 0.8d, 0.5d)).isEqualTo(Duration.ofSeconds(1L));
+    }
+
+    @Test
+    void detects_outbound_support_in_option_tag_list() {
+        // given
+        final var response =
+                new RawSipMessage("SIP/2.0 200 OK\r\nSupported: path, Outbound\r\nContent-Length: 0\r\n\r\n");
+
+        // expect
+        assertThat(SipRegistration.supportsOutbound(response)).isTrue();
+    }
+
+    @Test
+    void registrar_without_option_tag_does_not_support_outbound() {
+        // given
+        final var response =
+                new RawSipMessage("SIP/2.0 200 OK\r\nSupported: outbound-proxy\r\nContent-Length: 0\r\n\r\n");
+
+        // expect
+        assertThat(SipRegistration.supportsOutbound(response)).isFalse();
+    }
+
+    @Test
+    void refresh_answers_non_stale_challenge_with_fresh_context() {
+        // given: the registrar restarted and no longer knows the cached nonce.
+        try (var connection = new ScriptedConnection(CHALLENGE.formatted("restarted"), OK)) {
+            connection.setAuthContext(cachedContext());
+
+            // when
+            final var granted = new SipRegistration(connection, CONFIGURATION).register();
+
+            // then
+            assertThat(granted).isEqualTo(600L);
+            assertThat(connection.requests).hasSize(2);
+            assertThat(connection.requests.getFirst()).contains("nonce=\"cached\"");
+            assertThat(connection.requests.getLast()).contains("nonce=\"restarted\"", "nc=00000001");
+            assertThat(connection.getAuthContext().nonce()).isEqualTo("restarted");
+        }
+    }
+
+    @Test
+    void rejected_fresh_answer_means_wrong_credentials() {
+        // given
+        try (var connection =
+                new ScriptedConnection(CHALLENGE.formatted("restarted"), CHALLENGE.formatted("still-rejected"))) {
+            connection.setAuthContext(cachedContext());
+            final var registration = new SipRegistration(connection, CONFIGURATION);
+
+            // expect
+            assertThatThrownBy(registration::register)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("login not successful");
+            assertThat(connection.requests).hasSize(2);
+        }
+    }
+
+    @Test
+    void registers_with_bracketed_host_port_after_racing_to_ipv6() throws IOException {
+        // given: the IPv4 attempt fails, so the connection goes out over IPv6.
+        final var transport = HappyEyeballs.connect(
+                List.of(new InetSocketAddress("192.0.2.1", 5060), new InetSocketAddress("2001:db8::1", 5060)),
+                remote -> {
+                    if (remote.getAddress() instanceof Inet4Address) {
+                        throw new ConnectException("unreachable: " + remote);
+                    }
+                    return new StubTransport(new InetSocketAddress("2001:db8::2", 5060));
+                },
+                Duration.ofMillis(50L),
+                Duration.ofSeconds(5L));
+        final var granted = "SIP/2.0 200 OK\r\n"
+                + "Contact: <sip:+4912345@[2001:db8::7]:50123;transport=tcp>;expires=480\r\n"
+                + "Expires: 600\r\n"
+                + "Content-Length: 0\r\n\r\n";
+
+        try (var connection = new ScriptedConnection(transport, new InetSocketAddress("2001:db8::7", 50123), granted)) {
+            // when
+            final var expires = new SipRegistration(connection, CONFIGURATION).register();
+
+            // then
+            assertThat(expires).isEqualTo(480L);
+            assertThat(connection.requests.getFirst())
+                    .contains("Via: SIP/2.0/TCP [2001:db8::2]:5060;rport;alias;branch=")
+                    .containsOnlyOnce("rport")
+                    .contains("Contact: <sip:+4912345@[2001:db8::7]:50123;transport=tcp>");
+        }
+    }
+
+    private static DigestAuthContext cachedContext() {
+        final var challenge =
+                new SipAuthenticationRequest("MD5", "example.com", "cached", List.of("auth"), null, false, false);
+
+        return DigestAuthContext.create(challenge, "user", "secret");
+    }
+
+    /**
+     * Answers each request with the next scripted response and records the request.
+     */
+    private static final class ScriptedConnection extends ConnectedSipConnection {
+
+        private final ArrayDeque<String> responses;
+        private final List<String> requests = new ArrayList<>();
+
+        private ScriptedConnection(String... responses) {
+            this(new StubTransport(LOOPBACK), LOOPBACK, responses);
+        }
+
+        private ScriptedConnection(SipTransport transport, InetSocketAddress publicAddress, String... responses) {
+            super(
+                    transport,
+                    new SocketInConnectionReader(
+                            new ClientTransactionLayer(),
+                            new ServerTransactionLayer(SipMessageBuffer::release, false),
+                            new StatelessProbeResponder(SipMessageBuffer::release),
+                            new QueueingSipIncomingMessageHandler(),
+                            1,
+                            16),
+                    "example.com",
+                    "+4912345",
+                    "tag",
+                    "call-id",
+                    publicAddress);
+            this.responses = new ArrayDeque<>(List.of(responses));
+        }
+
+        @Override
+        protected CompletableFuture<RawSipMessage> sendRequest(
+                TransactionKey transactionKey, SipMessageBuffer request) {
+            this.requests.add(request.toString());
+            request.release();
+
+            return CompletableFuture.completedFuture(new RawSipMessage(this.responses.remove()));
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+
+    private static final class StubTransport implements SipTransport {
+
+        private final InetSocketAddress localAddress;
+
+        private StubTransport(InetSocketAddress localAddress) {
+            this.localAddress = localAddress;
+        }
+
+        @Override
+        public void start(SocketInConnectionReader reader) {
+            // nothing to read.
+        }
+
+        @Override
+        public void write(SipMessageBuffer message) {
+            message.release();
+        }
+
+        @Override
+        public String protocol() {
+            return "TCP";
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return this.localAddress;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close.
+        }
+    }
+}
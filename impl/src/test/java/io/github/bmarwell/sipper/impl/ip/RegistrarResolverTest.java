@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.api.SipTransportProtocol;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.NAPTRRecord;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.SimpleResolver;
+import org.xbill.DNS.Type;
+
+class RegistrarResolverTest {
+
+    private static final Name DOMAIN = name("example.test.");
+    private static final Name SIP1 = name("sip1.example.test.");
+    private static final Name SIP2 = name("sip2.example.test.");
+
+    private StandInDnsServer dnsServer;
+    private RegistrarResolver resolver;
+
+    @BeforeEach
+    void startDnsServer() throws IOException {
+        this.dnsServer = new StandInDnsServer();
+        final var simpleResolver = new SimpleResolver(this.dnsServer.address());
+        simpleResolver.setTimeout(Duration.ofSeconds(2L));
+        this.resolver = new RegistrarResolver(simpleResolver);
+    }
+
+    @AfterEach
+    void stopDnsServer() {
+        this.dnsServer.close();
+    }
+
+    @Test
+    void follows_naptr_to_srv_to_addresses() throws Exception {
+        // given
+        this.dnsServer.add(
+                new NAPTRRecord(DOMAIN, DClass.IN, 300, 20, 10, "s", "SIP+D2U", "", name("_sip._udp.example.test.")));
+        this.dnsServer.add(
+                new NAPTRRecord(DOMAIN, DClass.IN, 300, 10, 10, "s", "SIP+D2T", "", name("_sip._tcp.example.test.")));
+        this.dnsServer.add(new SRVRecord(name("_sip._tcp.example.test."), DClass.IN, 300, 10, 0, 5080, SIP1));
+        this.dnsServer.add(new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 0, 5090, SIP2));
+        this.dnsServer.add(new ARecord(SIP1, DClass.IN, 300, address("192.0.2.10")));
+        this.dnsServer.add(new ARecord(SIP2, DClass.IN, 300, address("192.0.2.20")));
+
+        // when
+        final var addresses = resolve(SipTransportProtocol.TCP);
+
+        // then
+        assertThat(addresses).containsExactly(new InetSocketAddress(address("192.0.2.10"), 5080));
+    }
+
+    @Test
+    void uses_well_known_srv_name_without_naptr() throws Exception {
+        // given
+        this.dnsServer.add(new SRVRecord(name("_sips._tcp.example.test."), DClass.IN, 300, 10, 0, 5071, SIP1));
+        this.dnsServer.add(new ARecord(SIP1, DClass.IN, 300, address("192.0.2.10")));
+        this.dnsServer.add(new AAAARecord(SIP1, DClass.IN, 300, address("2001:db8::10")));
+
+        // when
+        final var addresses = resolve(SipTransportProtocol.TLS);
+
+        // then
+        assertThat(addresses)
+                .containsExactly(
+                        new InetSocketAddress(address("192.0.2.10"), 5071),
+                        new InetSocketAddress(address("2001:db8::10"), 5071));
+    }
+
+    @Test
+    void falls_back_to_addresses_of_domain_with_default_port() throws Exception {
+        // given
+        this.dnsServer.add(new ARecord(DOMAIN, DClass.IN, 300, address("192.0.2.1")));
+
+        // when
+        final var addresses = resolve(SipTransportProtocol.TLS);
+
+        // then
+        assertThat(addresses)
+                .containsExactly(new InetSocketAddress(address("192.0.2.1"), RegistrarResolver.DEFAULT_TLS_PORT));
+    }
+
+    @Test
+    void ignores_failing_aaaa_lookup() throws Exception {
+        // given
+        this.dnsServer.add(new ARecord(DOMAIN, DClass.IN, 300, address("192.0.2.1")));
+        this.dnsServer.fail(DOMAIN, Type.AAAA);
+
+        // when
+        final var addresses = resolve(SipTransportProtocol.TCP);
+
+        // then
+        assertThat(addresses)
+                .containsExactly(new InetSocketAddress(address("192.0.2.1"), RegistrarResolver.DEFAULT_PORT));
+    }
+
+    @Test
+    void fails_if_both_address_lookups_fail() {
+        // given
+        this.dnsServer.fail(DOMAIN, Type.A);
+        this.dnsServer.fail(DOMAIN, Type.AAAA);
+
+        // expect
+        assertThatThrownBy(() -> resolve(SipTransportProtocol.TCP)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    void fails_if_registrar_does_not_exist() {
+        // expect
+        assertThatThrownBy(() -> resolve(SipTransportProtocol.UDP))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    void passes_ip_address_through() throws Exception {
+        // when
+        final var addresses =
+                this.resolver.resolve("192.0.2.5", SipTransportProtocol.UDP).get(5L, TimeUnit.SECONDS);
+
+        // then
+        assertThat(addresses).containsExactly(new InetSocketAddress(address("192.0.2.5"), 5060));
+        assertThat(this.dnsServer.totalQueries()).isZero();
+    }
+
+    @Test
+    void answers_from_cache_within_ttl() throws Exception {
+        // given
+        this.dnsServer.add(new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 0, 5060, SIP1));
+        this.dnsServer.add(new ARecord(SIP1, DClass.IN, 300, address("192.0.2.10")));
+        final var first = resolve(SipTransportProtocol.UDP);
+
+        // when
+        final var second = resolve(SipTransportProtocol.UDP);
+
+        // then
+        assertThat(second).isEqualTo(first);
+        assertThat(this.dnsServer.queries(DOMAIN, Type.NAPTR)).isOne();
+        assertThat(this.dnsServer.queries(name("_sip._udp.example.test."), Type.SRV))
+                .isOne();
+        assertThat(this.dnsServer.queries(SIP1, Type.A)).isOne();
+        assertThat(this.dnsServer.queries(SIP1, Type.AAAA)).isOne();
+    }
+
+    @Test
+    void shares_queries_of_concurrent_resolutions() throws Exception {
+        // given
+        this.dnsServer.add(new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 0, 5060, SIP1));
+        this.dnsServer.add(new ARecord(SIP1, DClass.IN, 300, address("192.0.2.10")));
+        this.dnsServer.delayMillis = 50L;
+
+        // when
+        final var storm = new ArrayList<CompletableFuture<List<InetSocketAddress>>>();
+        for (var i = 0; i < 100; i++) {
+            storm.add(this.resolver.resolve("example.test", SipTransportProtocol.UDP));
+        }
+        CompletableFuture.allOf(storm.toArray(CompletableFuture[]::new)).get(10L, TimeUnit.SECONDS);
+
+        // then
+        assertThat(storm).allSatisfy(future -> assertThat(future.join()).hasSize(1));
+        assertThat(this.dnsServer.queries(DOMAIN, Type.NAPTR)).isOne();
+        assertThat(this.dnsServer.queries(name("_sip._udp.example.test."), Type.SRV))
+                .isOne();
+        assertThat(this.dnsServer.queries(SIP1, Type.A)).isOne();
+    }
+
+    @Test
+    void orders_srv_records_by_priority_first() {
+        // given
+        final var backup = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 20, 1000, 5060, SIP2);
+        final var primary = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 1, 5060, SIP1);
+
+        // when
+        final var ordered = RegistrarResolver.order(List.of(backup, primary), new SplittableRandom(1L));
+
+        // then
+        assertThat(ordered).containsExactly(primary, backup);
+    }
+
+    @Test
+    void selects_srv_records_proportional_to_weight() {
+        // given
+        final var heavy = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 90, 5060, SIP1);
+        final var light = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 10, 5060, SIP2);
+        final var random = new SplittableRandom(42L);
+
+        // when
+        var heavyFirst = 0;
+        for (var i = 0; i < 10_000; i++) {
+            if (RegistrarResolver.order(List.of(light, heavy), random).get(0) == heavy) {
+                heavyFirst++;
+            }
+        }
+
+        // then
+        assertThat(heavyFirst).isBetween(8_700, 9_300);
+    }
+
+    @Test
+    void rarely_selects_srv_record_with_zero_weight_first() {
+        // given
+        final var weighted = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 100, 5060, SIP1);
+        final var zero = new SRVRecord(name("_sip._udp.example.test."), DClass.IN, 300, 10, 0, 5060, SIP2);
+        final var random = new SplittableRandom(7L);
+
+        // when
+        var zeroFirst = 0;
+        for (var i = 0; i < 10_000; i++) {
+            final var ordered = RegistrarResolver.order(List.of(weighted, zero), random);
+            assertThat(ordered).containsExactlyInAnyOrder(weighted, zero);
+            if (ordered.get(0) == zero) {
+                zeroFirst++;
+            }
+        }
+
+        // then
+        assertThat(zeroFirst).isLessThan(300);
+    }
+
+    private List<InetSocketAddress> resolve(SipTransportProtocol transportProtocol) throws Exception {
+        return this.resolver.resolve("example.test", transportProtocol).get(5L, TimeUnit.SECONDS);
+    }
+
+    private static Name name(String name) {
+        try {
+            return Name.fromString(name);
+        } catch (IOException ioException) {
+            throw new IllegalArgumentException(ioException);
+        }
+    }
+
+    private static InetAddress address(String literal) {
+        try {
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException uhe) {
+            throw new IllegalArgumentException(uhe);
+        }
+    }
+
+    /**
+     * Answers queries from a fixed set of records and counts them.
+     */
+    private static final class StandInDnsServer implements AutoCloseable {
+
+        private final DatagramSocket socket;
+        private final Map<String, List<Record>> records = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+        private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+        private volatile long delayMillis = 0L;
+
+        StandInDnsServer() throws IOException {
+            this.socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+            Thread.ofVirtual().name("test-dns").start(this::serve);
+        }
+
+        InetSocketAddress address() {
+            return (InetSocketAddress) this.socket.getLocalSocketAddress();
+        }
+
+        void add(Record rec) {
+            this.records
+                    .computeIfAbsent(key(rec.getName(), rec.getType()), key -> new ArrayList<>())
+                    .add(rec);
+        }
+
+        /**
+         * Answers queries for the record set with SERVFAIL.
+         */
+        void fail(Name name, int type) {
+            this.failing.add(key(name, type));
+        }
+
+        int queries(Name name, int type) {
+            final var count = this.queries.get(key(name, type));
+            return count == null ? 0 : count.get();
+        }
+
+        int totalQueries() {
+            return this.queries.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+        private void serve() {
+            final var packet = new DatagramPacket(new byte[512], 512);
+            while (!this.socket.isClosed()) {
+                try {
+                    this.socket.receive(packet);
+                    final var query = new Message(packet.getData());
+                    final var sender = packet.getSocketAddress();
+                    Thread.ofVirtual().start(() -> answer(query, sender));
+                } catch (IOException ioException) {
+                    // closed.
+                }
+            }
+        }
+
+        private void answer(Message query, java.net.SocketAddress sender) {
+            final var question = query.getQuestion();
+            this.queries
+                    .computeIfAbsent(key(question.getName(), question.getType()), key -> new AtomicInteger())
+                    .incrementAndGet();
+
+            final var response = new Message(query.getHeader().getID());
+            response.getHeader().setFlag(Flags.QR);
+            response.getHeader().setFlag(Flags.AA);
+            response.addRecord(question, Section.QUESTION);
+
+            final var answers = this.records.get(key(question.getName(), question.getType()));
+            if (this.failing.contains(key(question.getName(), question.getType()))) {
+                response.getHeader().setRcode(Rcode.SERVFAIL);
+            } else if (answers != null) {
+                answers.forEach(answer -> response.addRecord(answer, Section.ANSWER));
+            } else {
+                final var nameExists =
+                        this.records.keySet().stream().anyMatch(key -> key.startsWith(question.getName() + "/"));
+                if (!nameExists) {
+                    response.getHeader().setRcode(Rcode.NXDOMAIN);
+                }
+                // lets the resolver cache the negative answer.
+                response.addRecord(
+                        new SOARecord(
+                                DOMAIN,
+                                DClass.IN,
+                                300,
+                                name("ns.example.test."),
+                                name("admin.example.test."),
+                                1,
+                                300,
+                                300,
+                                300,
+                                300),
+                        Section.AUTHORITY);
+            }
+
+            try {
+                Thread.sleep(this.delayMillis);
+                final var wire = response.toWire();
+                this.socket.send(new DatagramPacket(wire, wire.length, sender));
+            } catch (IOException | InterruptedException ex) {
+                // closed.
+            }
+        }
+
+        private static String key(Name name, int type) {
+            return name + "/" + Type.string(type);
+        }
+
+        @Override
+        public void close() {
+            this.socket.close();
+        }
+    }
+}
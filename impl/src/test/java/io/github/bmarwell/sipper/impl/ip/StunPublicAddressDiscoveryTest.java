@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.ip;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class StunPublicAddressDiscoveryTest {
+
+    private static final byte[] TRANSACTION_ID = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+
+    @Test
+    void decodes_xor_mapped_address() throws Exception {
+        // given
+        final var response = successResponse(TRANSACTION_ID, new InetSocketAddress("203.0.113.7", 61000));
+
+        // expect
+        assertThat(StunPublicAddressDiscovery.decodeBindingResponse(response, TRANSACTION_ID))
+                .contains(new InetSocketAddress("203.0.113.7", 61000));
+    }
+
+    @Test
+    void ignores_response_to_other_transaction() throws Exception {
+        // given
+        final var otherTransactionId = TRANSACTION_ID.clone();
+        otherTransactionId[0] = 42;
+        final var response = successResponse(otherTransactionId, new InetSocketAddress("203.0.113.7", 61000));
+
+        // expect
+        assertThat(StunPublicAddressDiscovery.decodeBindingResponse(response, TRANSACTION_ID))
+                .isEmpty();
+    }
+
+    @Test
+    void retransmits_until_server_answers() throws Exception {
+        // given
+        final var requests = new AtomicInteger();
+        try (var server = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> answerSecondRequest(server, requests));
+            final var discovery =
+                    new StunPublicAddressDiscovery("127.0.0.1:" + server.getLocalPort(), Duration.ofSeconds(5L));
+
+            // when
+            final var publicIp = discovery.discover().join();
+
+            // then
+            assertThat(publicIp).contains(InetAddress.getByName("198.51.100.1"));
+            assertThat(requests).hasValue(2);
+        }
+    }
+
+    @Test
+    void gives_up_after_timeout() throws Exception {
+        // given
+        try (var server = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            final var discovery =
+                    new StunPublicAddressDiscovery("127.0.0.1:" + server.getLocalPort(), Duration.ofMillis(200L));
+
+            // expect
+            assertThat(discovery.discover().join()).isEmpty();
+        }
+    }
+
+    private static void answerSecondRequest(DatagramSocket server, AtomicInteger requests) {
+        try {
+            final var packet = new DatagramPacket(new byte[548], 548);
+            while (true) {
+                server.receive(packet);
+                if (requests.incrementAndGet() < 2) {
+                    // the first request is lost.
+                    continue;
+                }
+
+                final var request = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+                final var transactionId = new byte[12];
+                request.get(8, transactionId);
+                final var response = successResponse(transactionId, new InetSocketAddress("198.51.100.1", 4242));
+                server.send(
+                        new DatagramPacket(response.array(), response.limit(), packet.getAddress(), packet.getPort()));
+                return;
+            }
+        } catch (Exception closed) {
+            // socket closed by the test.
+        }
+    }
+
+    private static ByteBuffer successResponse(byte[] transactionId, InetSocketAddress mapped) {
+        final var address = mapped.getAddress().getAddress();
+        final var mask = ByteBuffer.allocate(4)
+                .putInt(StunPublicAddressDiscovery.MAGIC_COOKIE)
+                .array();
+        for (var i = 0; i < address.length; i++) {
+            address[i] ^= mask[i];
+        }
+
+        return ByteBuffer.allocate(StunPublicAddressDiscovery.HEADER_LENGTH + 12)
+                .putShort(StunPublicAddressDiscovery.BINDING_SUCCESS)
+                .putShort((short) 12)
+                .putInt(StunPublicAddressDiscovery.MAGIC_COOKIE)
+                .put(transactionId)
+                .putShort(StunPublicAddressDiscovery.XOR_MAPPED_ADDRESS)
+                .putShort((short) 8)
+                .put((byte) 0)
+                .put((byte) 0x01)
+                .putShort((short) (mapped.getPort() ^ (StunPublicAddressDiscovery.MAGIC_COOKIE >>> 16)))
+                .put(address)
+                .flip();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DigestAuthContextTest {
+
+    /** The example of RFC 2617, section 3.5. */
+    private static final SipAuthenticationRequest RFC_2617_CHALLENGE = new SipAuthenticationRequest(
+            "MD5",
+            "testrealm@host.com",
+            "dcd98b7102dd2f0e8b11d0f600bfb0c093",
+            List.of("auth", "auth-int"),
+            "5ccc069c403ebaf9f0171e9517f40e41",
+            false,
+            false);
+
+    @Test
+    void computes_rfc_2617_example_response() {
+        // given
+        final var context = DigestAuthContext.create(RFC_2617_CHALLENGE, "Mufasa", "Circle Of Life", "0a4f113b");
+
+        // when
+        final var authorization = context.authorize("GET", "/dir/index.html");
+
+        // then
+        assertThat(authorization)
+                .contains("response=\"6629fae49393a05397450978507c4ef1\"")
+                .contains("cnonce=\"0a4f113b\"", "nc=00000001", "qop=auth")
+                .contains("opaque=\"5ccc069c403ebaf9f0171e9517f40e41\"");
+        assertThat(context.headerName()).isEqualTo("Authorization");
+    }
+
+    @Test
+    void increments_nonce_count_per_request() {
+        // given
+        final var context = DigestAuthContext.create(RFC_2617_CHALLENGE, "Mufasa", "Circle Of Life", "0a4f113b");
+        context.authorize("REGISTER", "sip:example.com");
+
+        // when
+        final var second = context.authorize("REGISTER", "sip:example.com");
+
+        // then
+        assertThat(second).contains("nc=00000002").doesNotContain("6629fae49393a05397450978507c4ef1");
+    }
+
+    @Test
+    void restarts_nonce_count_for_stale_nonce() {
+        // given
+        final var context = DigestAuthContext.create(RFC_2617_CHALLENGE, "Mufasa", "Circle Of Life", "0a4f113b");
+        context.authorize("REGISTER", "sip:example.com");
+        final var staleChallenge = new SipAuthenticationRequest(
+                "MD5", "testrealm@host.com", "0123456789abcdef", List.of("auth"), null, true, true);
+
+        // when
+        final var renewed = context.withNonce(staleChallenge, "Circle Of Life");
+
+        // then
+        assertThat(renewed.nonce()).isEqualTo("0123456789abcdef");
+        assertThat(renewed.headerName()).isEqualTo("Proxy-Authorization");
+        assertThat(renewed.authorize("REGISTER", "sip:example.com"))
+                .contains("nc=00000001")
+                .doesNotContain("opaque");
+    }
+
+    @Test
+    void omits_qop_parameters_without_offered_qop() {
+        // given
+        final var challenge = new SipAuthenticationRequest(
+                "MD5", "testrealm@host.com", "dcd98b7102dd2f0e8b11d0f600bfb0c093", List.of(), null, false, false);
+        final var context = DigestAuthContext.create(challenge, "Mufasa", "Circle Of Life", "0a4f113b");
+
+        // when
+        final var authorization = context.authorize("GET", "/dir/index.html");
+
+        // then
+        assertThat(authorization).doesNotContain("cnonce", "nc=", "qop");
+    }
+
+    @Test
+    void rejects_unsupported_algorithm() {
+        // given
+        final var challenge = new SipAuthenticationRequest(
+                "SHA-1", "testrealm@host.com", "dcd98b7102dd2f0e8b11d0f600bfb0c093", List.of(), null, false, false);
+
+        // expect
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> DigestAuthContext.create(challenge, "Mufasa", "Circle Of Life"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class DigestChallengeParserTest {
+
+    @Test
+    void parses_parameters_in_any_order() {
+        // given
+        final var challenge = "Digest qop=\"auth,auth-int\", nonce=\"a+b/c=\", opaque=\"xyz\","
+                + " algorithm=MD5, realm=\"tel.t-online.de\", stale=TRUE";
+
+        // when
+        final var request = DigestChallengeParser.parse(challenge, false);
+
+        // then
+        assertThat(request.realm()).isEqualTo("tel.t-online.de");
+        assertThat(request.nonce()).isEqualTo("a+b/c=");
+        assertThat(request.algorithm()).isEqualTo("MD5");
+        assertThat(request.qop()).containsExactly("auth", "auth-int");
+        assertThat(request.offersQopAuth()).isTrue();
+        assertThat(request.opaque()).isEqualTo("xyz");
+        assertThat(request.stale()).isTrue();
+        assertThat(request.proxy()).isFalse();
+    }
+
+    @Test
+    void accepts_challenge_without_qop_and_algorithm() {
+        // when
+        final var request = DigestChallengeParser.parse("digest realm=\"sip.example.com\",nonce=\"4711\"", true);
+
+        // then
+        assertThat(request.algorithm()).isEqualTo("MD5");
+        assertThat(request.qop()).isEmpty();
+        assertThat(request.offersQopAuth()).isFalse();
+        assertThat(request.opaque()).isNull();
+        assertThat(request.stale()).isFalse();
+        assertThat(request.proxy()).isTrue();
+    }
+
+    @Test
+    void unescapes_quoted_strings() {
+        // when
+        final var request = DigestChallengeParser.parse(
+                "Digest realm=\"say \\\"hello\\\", world\", domain=\"sip:a sip:b\", nonce=\"n\"", false);
+
+        // then
+        assertThat(request.realm()).isEqualTo("say \"hello\", world");
+        assertThat(request.nonce()).isEqualTo("n");
+    }
+
+    @Test
+    void rejects_other_schemes() {
+        // expect
+        assertThatThrownBy(() -> DigestChallengeParser.parse("Basic realm=\"x\"", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Not a digest challenge");
+    }
+
+    @Test
+    void rejects_challenge_without_nonce() {
+        // expect
+        assertThatThrownBy(() -> DigestChallengeParser.parse("Digest realm=\"x\", qop=\"auth\"", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nonce");
+    }
+}
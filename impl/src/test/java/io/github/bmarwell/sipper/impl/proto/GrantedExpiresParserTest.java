@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class GrantedExpiresParserTest {
+
+    private static final String CONTACT_URI = "sip:+4912345@203.0.113.7:50123";
+
+    @Test
+    void prefers_expires_parameter_of_own_contact() {
+        // given
+        final var response = new RawSipMessage("SIP/2.0 200 OK\r\n"
+                + "CSeq: 11 REGISTER\r\n"
+                + "Contact: <sip:+4912345@198.51.100.1:5060>;expires=3600, <sip:+4912345@203.0.113.7:50123;transport=tcp>;q=1;EXPIRES=480\r\n"
+                + "Expires: 600\r\n");
+
+        // expect
+        assertThat(GrantedExpiresParser.grantedExpires(response, CONTACT_URI, 600L))
+                .isEqualTo(480L);
+    }
+
+    @Test
+    void matches_bracketed_ipv6_contact() {
+        // given
+        final var response = new RawSipMessage("SIP/2.0 200 OK\r\n"
+                + "CSeq: 11 REGISTER\r\n"
+                + "Contact: <sip:+4912345@[2001:DB8::7]:50123;transport=tcp>;expires=480\r\n"
+                + "Expires: 600\r\n");
+
+        // expect
+        assertThat(GrantedExpiresParser.grantedExpires(response, "sip:+4912345@[2001:db8::7]:50123", 600L))
+                .isEqualTo(480L);
+    }
+
+    @Test
+    void falls_back_to_expires_header() {
+        // given
+        final var response = new RawSipMessage("SIP/2.0 200 OK\r\n"
+                + "CSeq: 11 REGISTER\r\n"
+                + "m: <sip:+4912345@203.0.113.7:50123;transport=tcp>\r\n"
+                + "Expires: 300\r\n");
+
+        // expect
+        assertThat(GrantedExpiresParser.grantedExpires(response, CONTACT_URI, 600L))
+                .isEqualTo(300L);
+    }
+
+    @Test
+    void falls_back_to_requested_interval() {
+        // given
+        final var response = new RawSipMessage("SIP/2.0 200 OK\r\nCSeq: 11 REGISTER\r\n");
+
+        // expect
+        assertThat(GrantedExpiresParser.grantedExpires(response, CONTACT_URI, 600L))
+                .isEqualTo(600L);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler.MessageKey;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class QueueingSipIncomingMessageHandlerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void takes_message_by_key() {
+        // given
+        final var handler = new QueueingSipIncomingMessageHandler(4, Duration.ofSeconds(1L), clock::get);
+        final var message = register(7L, "z9hG4bK.1");
+        handler.accept(message);
+
+        // when
+        final var taken = handler.take(new MessageKey("abc@host", 7L, "z9hG4bK.1"));
+
+        // then
+        assertThat(taken).containsSame(message);
+        assertThat(handler.size()).isZero();
+        assertThat(handler.take(new MessageKey("abc@host", 7L, "z9hG4bK.1"))).isEmpty();
+    }
+
+    @Test
+    void drops_eldest_message_when_full() {
+        // given
+        final var handler = new QueueingSipIncomingMessageHandler(2, Duration.ofSeconds(1L), clock::get);
+
+        // when
+        handler.accept(register(1L, "z9hG4bK.1"));
+        handler.accept(register(2L, "z9hG4bK.2"));
+        handler.accept(register(3L, "z9hG4bK.3"));
+
+        // then
+        assertThat(handler.getMessages()).extracting(RawSipMessage::cseq).containsExactly(2L, 3L);
+        assertThat(handler.getOverflowDrops()).isOne();
+    }
+
+    @Test
+    void evicts_orphaned_messages_after_max_age() {
+        // given
+        final var handler = new QueueingSipIncomingMessageHandler(4, Duration.ofSeconds(1L), clock::get);
+        handler.accept(register(1L, "z9hG4bK.1"));
+        clock.addAndGet(Duration.ofMillis(600L).toNanos());
+        handler.accept(register(2L, "z9hG4bK.2"));
+
+        // when
+        clock.addAndGet(Duration.ofMillis(600L).toNanos());
+        handler.evictExpired();
+
+        // then
+        assertThat(handler.getMessages()).extracting(RawSipMessage::cseq).containsExactly(2L);
+        assertThat(handler.getExpiredDrops()).isOne();
+    }
+
+    @Test
+    void counts_retransmissions_and_unsupported_messages() {
+        // given
+        final var handler = new QueueingSipIncomingMessageHandler(4, Duration.ofSeconds(1L), clock::get);
+
+        // when
+        handler.accept(register(1L, "z9hG4bK.1"));
+        handler.accept(register(1L, "z9hG4bK.1"));
+        handler.accept(new RawSipMessage("OPTIONS sip:alice@host SIP/2.0\r\nCSeq: 1 OPTIONS\r\n"));
+
+        // then
+        assertThat(handler.size()).isOne();
+        assertThat(handler.getDuplicateDrops()).isOne();
+        assertThat(handler.getUnsupportedDrops()).isOne();
+    }
+
+    @Test
+    void stays_bounded_with_concurrent_writers() throws InterruptedException {
+        // given
+        final var handler = new QueueingSipIncomingMessageHandler(64, Duration.ofSeconds(1L), clock::get);
+        final var done = new CountDownLatch(1_000);
+
+        // when
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < 1_000; i++) {
+                final long cseq = i;
+                executor.execute(() -> {
+                    handler.accept(register(cseq, "z9hG4bK." + cseq));
+                    done.countDown();
+                });
+            }
+            done.await();
+        }
+
+        // then
+        assertThat(handler.size()).isEqualTo(64);
+        assertThat(handler.getOverflowDrops()).isEqualTo(1_000L - 64L);
+    }
+
+    private static RawSipMessage register(long cseq, String branch) {
+        return new RawSipMessage("SIP/2.0 200 OK\r\n"
+                + "Via: SIP/2.0/TCP 192.168.1.2:5060;branch=" + branch + "\r\n"
+                + "Call-ID: abc@host\r\n"
+                + "CSeq: " + cseq + " REGISTER\r\n");
+    }
+}
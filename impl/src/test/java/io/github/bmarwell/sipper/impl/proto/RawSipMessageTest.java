@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class RawSipMessageTest {
+
+    private static final String UNAUTHORIZED = "SIP/2.0 401 Unauthorized\r\n"
+            + "v: SIP/2.0/TCP 192.0.2.2:5060;branch=z9hG4bK.1;rport=5060\r\n"
+            + "Via: SIP/2.0/TCP 192.0.2.3:5060;branch=z9hG4bK.2\r\n"
+            + "f: <sip:0123@tel.t-online.de>;tag=abc\r\n"
+            + "To: <sip:0123@tel.t-online.de>\r\n"
+            + "i: 8i7nkaF9s\r\n"
+            + "CSeq: 10   REGISTER\r\n"
+            + "WWW-Authenticate: Digest realm=\"tel.t-online.de\",\r\n"
+            + "  nonce=\"abc\"\r\n"
+            + "l: 0\r\n"
+            + "\r\n";
+
+    @Test
+    void parses_status_line_and_cseq_as_primitives() {
+        // given
+        final var message = new RawSipMessage(UNAUTHORIZED);
+
+        // expect
+        assertThat(message.isResponse()).isTrue();
+        assertThat(message.statusCode()).isEqualTo(401);
+        assertThat(message.cseq()).isEqualTo(10L);
+        assertThat(message.method()).isEqualTo("REGISTER");
+    }
+
+    @Test
+    void request_has_no_status_code() {
+        // given
+        final var message = new RawSipMessage("OPTIONS sip:0123@192.0.2.2 SIP/2.0\r\nCSeq: 1 OPTIONS\r\n\r\n");
+
+        // expect
+        assertThat(message.isResponse()).isFalse();
+        assertThat(message.statusCode()).isEqualTo(-1);
+        assertThat(message.method()).isEqualTo("OPTIONS");
+        assertThat(message.headers().startLine()).isEqualTo("OPTIONS sip:0123@192.0.2.2 SIP/2.0");
+    }
+
+    @Test
+    void keeps_repeated_headers_in_order_and_understands_compact_forms() {
+        // given
+        final var headers = new RawSipMessage(UNAUTHORIZED).headers();
+
+        // expect
+        assertThat(headers.all("VIA"))
+                .containsExactly(
+                        "SIP/2.0/TCP 192.0.2.2:5060;branch=z9hG4bK.1;rport=5060",
+                        "SIP/2.0/TCP 192.0.2.3:5060;branch=z9hG4bK.2");
+        assertThat(headers.first("call-id")).hasValue("8i7nkaF9s");
+        assertThat(headers.first("i")).hasValue("8i7nkaF9s");
+        assertThat(headers.first("t")).hasValue("<sip:0123@tel.t-online.de>");
+        assertThat(headers.first("From")).hasValue("<sip:0123@tel.t-online.de>;tag=abc");
+        assertThat(headers.first("Content-Length")).hasValue("0");
+        assertThat(headers.first("Contact")).isEmpty();
+    }
+
+    @Test
+    void unfolds_continuation_lines() {
+        // given
+        final var headers = new RawSipMessage(UNAUTHORIZED).headers();
+
+        // expect
+        assertThat(headers.first("www-authenticate")).hasValue("Digest realm=\"tel.t-online.de\", nonce=\"abc\"");
+    }
+
+    @Test
+    void missing_cseq_is_rejected() {
+        // given
+        final var message = new RawSipMessage("SIP/2.0 200 OK\r\nContent-Length: 0\r\n\r\n");
+
+        // expect
+        assertThatThrownBy(message::method)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CSeq");
+    }
+
+    @Test
+    void exposes_body_bytes_without_decoding() {
+        // given
+        final var header = "MESSAGE sip:0123@192.0.2.2 SIP/2.0\r\nContent-Type: application/octet-stream\r\n"
+                + "CSeq: 1 MESSAGE\r\nContent-Length: 4\r\n\r\n";
+        final var message = new RawSipMessage(header, new byte[] {0x00, (byte) 0xff, 0x0d, 0x0a});
+
+        // when
+        final var body = message.body();
+
+        // then
+        assertThat(message.bodyLength()).isEqualTo(4);
+        assertThat(body.isReadOnly()).isTrue();
+        assertThat(body.remaining()).isEqualTo(4);
+        assertThat(body.get(1)).isEqualTo((byte) 0xff);
+        assertThat(message.headers().first("Content-Length")).hasValue("4");
+    }
+
+    @Test
+    void decodes_body_with_declared_charset() {
+        // given
+        final var header = "MESSAGE sip:0123@192.0.2.2 SIP/2.0\r\n"
+                + "Content-Type: text/plain; charset=\"ISO-8859-1\"\r\nCSeq: 1 MESSAGE\r\n\r\n";
+        final var latin1 = new RawSipMessage(header, "Grüße".getBytes(StandardCharsets.ISO_8859_1));
+        final var utf8 = new RawSipMessage(
+                "MESSAGE sip:0123@192.0.2.2 SIP/2.0\r\nCSeq: 1 MESSAGE\r\n\r\n",
+                "Grüße".getBytes(StandardCharsets.UTF_8));
+
+        // expect
+        assertThat(latin1.bodyLength()).isEqualTo(5);
+        assertThat(latin1.bodyText()).isEqualTo("Grüße");
+        assertThat(utf8.bodyLength()).isEqualTo(7);
+        assertThat(utf8.bodyText()).isEqualTo("Grüße");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SipConnectionHeadersTest {
+
+    @Test
+    void ipv4_host_port_is_not_bracketed() {
+        // expect
+        assertThat(SipConnectionHeaders.hostPort(new InetSocketAddress("192.0.2.1", 5060)))
+                .isEqualTo("192.0.2.1:5060");
+    }
+
+    @Test
+    void ipv6_host_port_is_bracketed_and_compressed() {
+        // expect
+        assertThat(SipConnectionHeaders.hostPort(new InetSocketAddress("2001:db8:0:0:1:0:0:1", 5060)))
+                .isEqualTo("[2001:db8::1:0:0:1]:5060");
+        assertThat(SipConnectionHeaders.hostPort(new InetSocketAddress("::1", 5061)))
+                .isEqualTo("[::1]:5061");
+    }
+
+    @Test
+    void ipv6_host_port_drops_scope_id() throws Exception {
+        // given
+        final var linkLocal = InetAddress.getByName("fe80::1%1");
+
+        // expect
+        assertThat(SipConnectionHeaders.hostPort(linkLocal, 5060)).isEqualTo("[fe80::1]:5060");
+    }
+
+    @Test
+    void via_and_contact_bracket_ipv6_addresses() throws Exception {
+        // when
+        final var headers = SipConnectionHeaders.create(
+                "example.com",
+                "+4912345",
+                "tag",
+                "call-id",
+                new InetSocketAddress("2001:db8::7", 50123),
+                InetAddress.getByName("2001:db8::2"),
+                5060,
+                "tcp");
+
+        // then
+        assertThat(new String(headers.via(), StandardCharsets.UTF_8))
+                .isEqualTo("SIP/2.0/TCP [2001:db8::2]:5060;rport;alias");
+        assertThat(new String(headers.contact(), StandardCharsets.UTF_8))
+                .isEqualTo("<sip:+4912345@[2001:db8::7]:50123;transport=tcp>");
+    }
+
+    @Test
+    void alias_is_only_sent_over_connections() throws Exception {
+        // when
+        final var headers = SipConnectionHeaders.create(
+                "example.com",
+                "+4912345",
+                "tag",
+                "call-id",
+                new InetSocketAddress("203.0.113.7", 50123),
+                InetAddress.getByName("192.0.2.2"),
+                5060,
+                "udp");
+
+        // then
+        assertThat(new String(headers.via(), StandardCharsets.UTF_8)).isEqualTo("SIP/2.0/UDP 192.0.2.2:5060;rport");
+    }
+}
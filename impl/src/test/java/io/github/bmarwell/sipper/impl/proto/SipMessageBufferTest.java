@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SipMessageBufferTest {
+
+    @Test
+    void grows_beyond_initial_size_class() {
+        // given
+        final var buffer = SipMessageBuffer.acquire();
+        final var line = "Via: SIP/2.0/TCP 192.0.2.1:5060;branch=z9hG4bK.0123456789abcdef\r\n";
+
+        // when
+        for (var i = 0; i < 100; i++) {
+            buffer.append(line).append(i);
+        }
+
+        // then
+        assertThat(buffer.length()).isGreaterThan(4096);
+        final var bytes = new byte[buffer.length()];
+        buffer.asByteBuffer().get(bytes);
+        assertThat(new String(bytes, StandardCharsets.UTF_8))
+                .startsWith(line + "0" + line + "1")
+                .endsWith("99");
+        buffer.release();
+    }
+
+    @Test
+    void last_release_frees_memory() {
+        // given
+        final var buffer = SipMessageBuffer.acquire().append("OPTIONS");
+        buffer.retain();
+
+        // when
+        buffer.release();
+
+        // then
+        assertThat(buffer.refCount()).isEqualTo(1);
+        assertThat(buffer.toString()).isEqualTo("OPTIONS");
+
+        // when
+        buffer.release();
+
+        // then
+        assertThat(buffer.refCount()).isZero();
+        assertThatThrownBy(buffer::retain).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(buffer::release).isInstanceOf(IllegalStateException.class);
+    }
+}
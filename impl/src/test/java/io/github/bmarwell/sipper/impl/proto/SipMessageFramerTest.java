@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SipMessageFramerTest {
+
+    private static final String NOTIFY = "NOTIFY sip:0123@192.0.2.1:5060 SIP/2.0\r\n"
+            + "Via: SIP/2.0/TCP 192.0.2.2:5060;branch=z9hG4bK.1\r\n"
+            + "CSeq: 1 NOTIFY\r\n"
+            + "Content-Type: text/plain\r\n"
+            + "Content-Length: 7\r\n"
+            + "\r\n"
+            + "grüße";
+
+    private static final String OK = "SIP/2.0 200 OK\r\nCSeq: 10 REGISTER\r\nContent-Length: 0\r\n\r\n";
+
+    private final List<String[]> frames = new ArrayList<>();
+
+    private final SipMessageFramer.FrameHandler collector = (buffer, offset, headerLength, bodyLength) -> {
+        final var header = new byte[headerLength];
+        final var body = new byte[bodyLength];
+        buffer.get(offset, header);
+        buffer.get(offset + headerLength, body);
+        this.frames.add(
+                new String[] {new String(header, StandardCharsets.UTF_8), new String(body, StandardCharsets.UTF_8)});
+    };
+
+    @Test
+    void frames_multiple_messages_from_one_chunk() {
+        // given
+        final var framer = new SipMessageFramer();
+
+        // when
+        framer.feed(utf8(OK + NOTIFY + OK));
+        final var emitted = framer.drain(this.collector);
+
+        // then
+        assertThat(emitted).isEqualTo(3);
+        assertThat(this.frames).extracting(frame -> frame[1]).containsExactly("", "grüße", "");
+        assertThat(framer.pending()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64})
+    void frames_messages_split_across_chunks(int chunkSize) {
+        // given
+        final var framer = new SipMessageFramer(16, 1024);
+        final var wire = utf8(NOTIFY + OK);
+
+        // when
+        while (wire.hasRemaining()) {
+            final var chunk = wire.slice(wire.position(), Math.min(chunkSize, wire.remaining()));
+            wire.position(wire.position() + chunk.remaining());
+            framer.feed(chunk);
+            framer.drain(this.collector);
+        }
+
+        // then
+        assertThat(this.frames).hasSize(2);
+        assertThat(this.frames.get(0)[0]).startsWith("NOTIFY ").endsWith("\r\n\r\n");
+        assertThat(this.frames.get(0)[1]).isEqualTo("grüße");
+        assertThat(this.frames.get(1)[0]).isEqualTo(OK);
+    }
+
+    @Test
+    void waits_for_complete_body() {
+        // given
+        final var framer = new SipMessageFramer();
+        final var wire = NOTIFY.getBytes(StandardCharsets.UTF_8);
+
+        // when
+        framer.feed(ByteBuffer.wrap(wire, 0, wire.length - 1));
+        final var emittedBeforeLastByte = framer.drain(this.collector);
+        framer.feed(ByteBuffer.wrap(wire, wire.length - 1, 1));
+        final var emittedAfterLastByte = framer.drain(this.collector);
+
+        // then
+        assertThat(emittedBeforeLastByte).isZero();
+        assertThat(emittedAfterLastByte).isOne();
+    }
+
+    @Test
+    void reads_compact_content_length_and_skips_keep_alives() {
+        // given
+        final var framer = new SipMessageFramer();
+        final var message = "MESSAGE sip:a@b SIP/2.0\nl : 4\n\nabcd";
+
+        // when
+        framer.feed(utf8("\r\n\r\n" + message));
+        framer.drain(this.collector);
+
+        // then
+        assertThat(this.frames).hasSize(1);
+        assertThat(this.frames.get(0)[1]).isEqualTo("abcd");
+    }
+
+    @Test
+    void counts_pongs_between_messages_split_across_chunks() {
+        // given
+        final var framer = new SipMessageFramer();
+
+        // when
+        framer.feed(utf8(OK + "\r"));
+        framer.drain(this.collector);
+        framer.feed(utf8("\n\r\n" + OK));
+        framer.drain(this.collector);
+
+        // then
+        assertThat(this.frames).hasSize(2);
+        assertThat(framer.keepAlives()).isEqualTo(2L);
+    }
+
+    @Test
+    void does_not_count_line_breaks_inside_messages() {
+        // given
+        final var framer = new SipMessageFramer();
+
+        // when
+        framer.feed(utf8(NOTIFY + OK));
+        framer.drain(this.collector);
+
+        // then
+        assertThat(this.frames).hasSize(2);
+        assertThat(framer.keepAlives()).isZero();
+    }
+
+    @Test
+    void rejects_non_numeric_content_length() {
+        // given
+        final var framer = new SipMessageFramer();
+        framer.feed(utf8("SIP/2.0 200 OK\r\nContent-Length: 0xff\r\n\r\n"));
+
+        // expect
+        assertThatThrownBy(() -> framer.drain(this.collector))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a number");
+    }
+
+    @Test
+    void rejects_oversized_messages() {
+        // given
+        final var framer = new SipMessageFramer(16, 64);
+
+        // expect
+        assertThatThrownBy(() -> framer.feed(utf8("X".repeat(128))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximum size");
+    }
+
+    @Test
+    void datagram_body_extends_to_end_without_content_length() {
+        // given
+        final var framer = new SipMessageFramer();
+        framer.feed(utf8("MESSAGE sip:a@b SIP/2.0\r\nCSeq: 1 MESSAGE\r\n\r\nhello"));
+
+        // when
+        final var emitted = framer.drainDatagram(this.collector);
+
+        // then
+        assertThat(emitted).isOne();
+        assertThat(this.frames.get(0)[1]).isEqualTo("hello");
+        assertThat(framer.pending()).isZero();
+    }
+
+    @Test
+    void drops_truncated_datagram_and_trailing_bytes() {
+        // given
+        final var framer = new SipMessageFramer();
+        framer.feed(utf8(NOTIFY.substring(0, NOTIFY.length() - 1)));
+
+        // when
+        final var truncated = framer.drainDatagram(this.collector);
+        framer.feed(utf8(OK + "garbage"));
+        final var complete = framer.drainDatagram(this.collector);
+
+        // then
+        assertThat(truncated).isZero();
+        assertThat(complete).isOne();
+        assertThat(this.frames).singleElement().satisfies(frame -> assertThat(frame[0])
+                .isEqualTo(OK));
+        assertThat(framer.pending()).isZero();
+    }
+
+    private static ByteBuffer utf8(String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SipMessageTemplateTest {
+
+    @Test
+    void encodes_fields_between_constant_segments_with_crlf() {
+        // given
+        final var template = SipMessageTemplate.compile(
+                """
+                OPTIONS sip:{TARGET} SIP/2.0
+                CSeq: {CSEQ} OPTIONS
+                Content-Length: 0
+
+                """,
+                TestField.class);
+        final var out = SipMessageBuffer.acquire();
+
+        // when
+        template.encode(out, (field, buffer) -> {
+            switch (field) {
+                case TARGET -> buffer.append("tel.t-online.de");
+                case CSEQ -> buffer.append(4711L);
+            }
+        });
+
+        // then
+        assertThat(out.toString())
+                .isEqualTo("OPTIONS sip:tel.t-online.de SIP/2.0\r\nCSeq: 4711 OPTIONS\r\nContent-Length: 0\r\n\r\n");
+        assertThat(out.length()).isEqualTo(out.toString().length());
+        out.release();
+    }
+
+    @Test
+    void rejects_unknown_placeholders() {
+        // expect
+        assertThatThrownBy(() -> SipMessageTemplate.compile("{UNKNOWN}", TestField.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 7L, 10L, 600L, -42L, Long.MAX_VALUE, Long.MIN_VALUE})
+    void appends_numbers_like_Long_toString(long number) {
+        // given
+        final var out = SipMessageBuffer.acquire();
+
+        // when
+        out.append(number);
+
+        // then
+        assertThat(out.toString()).isEqualTo(Long.toString(number));
+        out.release();
+    }
+
+    @Test
+    void appends_non_ascii_as_utf8() {
+        // given
+        final var out = SipMessageBuffer.acquire();
+
+        // when
+        out.append("Jürgen");
+
+        // then
+        assertThat(out.length()).isEqualTo(7);
+        assertThat(out.toString()).isEqualTo("Jürgen");
+        out.release();
+    }
+
+    enum TestField {
+        TARGET,
+        CSEQ
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.proto.SipResponseEncoder.Status;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SipResponseEncoderTest {
+
+    private static final String INVITE = "INVITE sip:+4912345@192.168.1.2:5060 SIP/2.0\r\n"
+            + "v: SIP/2.0/TCP 217.0.0.1:5060;branch=z9hG4bK.a1;received=217.0.0.1\r\n"
+            + "Via: SIP/2.0/TCP 217.0.0.2:5060;branch=z9hG4bK.b2\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "f: <sip:+4967890@tel.t-online.de>;tag=from1\r\n"
+            + "To: <sip:+4912345@tel.t-online.de>\r\n"
+            + "Call-ID: call-1@host\r\n"
+            + "CSeq: 1 INVITE\r\n"
+            + "Content-Type: application/sdp\r\n"
+            + "\r\n";
+
+    @Test
+    void copies_dialog_headers_from_request() {
+        // given
+        final var request = new RawSipMessage(INVITE);
+
+        // when
+        final var response = SipResponseEncoder.encode(request, Status.TRYING, null, new byte[0]);
+
+        // then
+        assertThat(response.toString())
+                .isEqualTo("SIP/2.0 100 Trying\r\n"
+                        + "Via: SIP/2.0/TCP 217.0.0.1:5060;branch=z9hG4bK.a1;received=217.0.0.1\r\n"
+                        + "Via: SIP/2.0/TCP 217.0.0.2:5060;branch=z9hG4bK.b2\r\n"
+                        + "From: <sip:+4967890@tel.t-online.de>;tag=from1\r\n"
+                        + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                        + "Call-ID: call-1@host\r\n"
+                        + "CSeq: 1 INVITE\r\n"
+                        + "Content-Length: 0\r\n"
+                        + "\r\n");
+        response.release();
+    }
+
+    @Test
+    void adds_to_tag_and_extra_headers() {
+        // given
+        final var request = new RawSipMessage(INVITE);
+        final var extraHeaders = "Allow: INVITE, ACK\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        // when
+        final var response = SipResponseEncoder.encode(request, Status.RINGING, "to1", extraHeaders);
+
+        // then
+        assertThat(response.toString())
+                .startsWith("SIP/2.0 180 Ringing\r\n")
+                .contains("To: <sip:+4912345@tel.t-online.de>;tag=to1\r\n")
+                .endsWith("CSeq: 1 INVITE\r\nAllow: INVITE, ACK\r\nContent-Length: 0\r\n\r\n");
+        response.release();
+    }
+
+    @Test
+    void keeps_existing_to_tag() {
+        // given
+        final var request = new RawSipMessage(INVITE.replace("tel.t-online.de>\r\n", "tel.t-online.de>;TAG=x\r\n"));
+
+        // when
+        final var response = SipResponseEncoder.encode(request, Status.OK, "to1", new byte[0]);
+
+        // then
+        assertThat(response.toString()).contains("To: <sip:+4912345@tel.t-online.de>;TAG=x\r\n");
+        response.release();
+    }
+}
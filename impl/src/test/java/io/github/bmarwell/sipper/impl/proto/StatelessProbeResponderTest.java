@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StatelessProbeResponderTest {
+
+    private final List<String> sent = new ArrayList<>();
+
+    private final StatelessProbeResponder responder = new StatelessProbeResponder(message -> {
+        sent.add(message.toString());
+        message.release();
+    });
+
+    @Test
+    void answers_options_with_200_and_capabilities() {
+        // when
+        final var answered = responder.onRequest(request("OPTIONS", "", null));
+
+        // then
+        assertThat(answered).isTrue();
+        assertThat(sent)
+                .singleElement()
+                .asString()
+                .startsWith("SIP/2.0 200 OK\r\nVia: SIP/2.0/TCP 217.0.0.1:5060;branch=z9hG4bK.1\r\n")
+                .containsPattern("To: <sip:\\+4912345@tel.t-online.de>;tag=[0-9a-f]+\r\n")
+                .contains("CSeq: 42 OPTIONS\r\n")
+                .contains("Allow: INVITE, ACK, CANCEL, BYE, OPTIONS, NOTIFY, MESSAGE\r\n");
+        assertThat(responder.getOptionsProbes()).isOne();
+        assertThat(responder.getProbeCount()).isOne();
+    }
+
+    @Test
+    void answers_empty_keep_alive_notify() {
+        // when
+        final var answered = responder.onRequest(request("NOTIFY", "Event: keep-alive;id=3\r\n", null));
+
+        // then
+        assertThat(answered).isTrue();
+        assertThat(sent).singleElement().asString().startsWith("SIP/2.0 200 OK\r\n");
+        assertThat(responder.getKeepAliveProbes()).isOne();
+    }
+
+    @Test
+    void passes_on_notify_with_other_event_or_body() {
+        // expect
+        assertThat(responder.onRequest(request("NOTIFY", "Event: message-summary\r\n", null)))
+                .isFalse();
+        assertThat(responder.onRequest(
+                        request("NOTIFY", "Event: keep-alive\r\n", "x".getBytes(StandardCharsets.UTF_8))))
+                .isFalse();
+        assertThat(responder.onRequest(request("INVITE", "", null))).isFalse();
+        assertThat(sent).isEmpty();
+        assertThat(responder.getProbeCount()).isZero();
+    }
+
+    private static RawSipMessage request(String method, String extraHeaders, byte[] body) {
+        final var header = method + " sip:+4912345@192.168.1.2:5060 SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP 217.0.0.1:5060;branch=z9hG4bK.1\r\n"
+                + "From: <sip:tel.t-online.de>;tag=from1\r\n"
+                + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                + "Call-ID: probe-1@host\r\n"
+                + "CSeq: 42 " + method + "\r\n"
+                + extraHeaders;
+
+        return body == null ? new RawSipMessage(header) : new RawSipMessage(header, body);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class StripedMessageDispatcherTest {
+
+    @Test
+    void delivers_messages_of_each_dialog_in_order() throws InterruptedException {
+        // given
+        final var dialogs = 50;
+        final var messagesPerDialog = 200;
+        final var received = new ConcurrentHashMap<String, List<Long>>();
+        final var done = new CountDownLatch(dialogs * messagesPerDialog);
+        final var handler = new RecordingHandler(received, done);
+
+        // when
+        try (var dispatcher = new StripedMessageDispatcher(handler, 4, 16)) {
+            for (long cseq = 1; cseq <= messagesPerDialog; cseq++) {
+                for (var dialog = 0; dialog < dialogs; dialog++) {
+                    dispatcher.dispatch(message("call-" + dialog + "@host", cseq));
+                }
+            }
+
+            assertThat(done.await(10L, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // then
+        assertThat(received).hasSize(dialogs);
+        for (var cseqs : received.values()) {
+            assertThat(cseqs).hasSize(messagesPerDialog).isSorted();
+        }
+    }
+
+    @Test
+    void rounds_lane_count_up_to_power_of_two() {
+        // given
+        final var handler = new RecordingHandler(new ConcurrentHashMap<>(), new CountDownLatch(0));
+
+        // expect
+        try (var dispatcher = new StripedMessageDispatcher(handler, 3, 16)) {
+            assertThat(dispatcher.laneCount()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void try_dispatch_drops_instead_of_waiting_for_a_full_lane() throws InterruptedException {
+        // given: the only consumer is stuck in a slow handler.
+        final var entered = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final SipIncomingMessageHandler slowHandler = new SipIncomingMessageHandler() {
+            @Override
+            public void accept(RawSipMessage sipMessage) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void remove(RawSipMessage message) {
+                // not needed
+            }
+        };
+
+        try (var dispatcher = new StripedMessageDispatcher(slowHandler, 1, 4)) {
+            dispatcher.dispatch(message("call@host", 1L));
+            assertThat(entered.await(5L, TimeUnit.SECONDS)).isTrue();
+
+            // when
+            var accepted = 0;
+            for (long cseq = 2; cseq < 12; cseq++) {
+                if (dispatcher.tryDispatch(message("call@host", cseq))) {
+                    accepted++;
+                }
+            }
+
+            // then
+            assertThat(accepted).isEqualTo(4);
+            assertThat(dispatcher.getDroppedMessages()).isEqualTo(6L);
+            assertThat(dispatcher.hasRoomFor(message("call@host", 12L))).isFalse();
+            release.countDown();
+        }
+    }
+
+    @Test
+    void failing_message_does_not_cost_the_rest_of_the_batch() throws InterruptedException {
+        // given: one lane, so all dialogs share a batch.
+        final var received = new ConcurrentHashMap<String, List<Long>>();
+        final var done = new CountDownLatch(3);
+        final var recording = new RecordingHandler(received, done);
+        final var handler = new SipIncomingMessageHandler() {
+            @Override
+            public void accept(RawSipMessage sipMessage) {
+                if (sipMessage.callId().orElseThrow().startsWith("broken")) {
+                    throw new IllegalStateException("listener failed");
+                }
+                recording.accept(sipMessage);
+            }
+
+            @Override
+            public void remove(RawSipMessage message) {
+                // not needed
+            }
+        };
+
+        // when
+        try (var dispatcher = new StripedMessageDispatcher(handler, 1, 16)) {
+            dispatcher.dispatch(message("call-1@host", 1L));
+            dispatcher.dispatch(message("broken@host", 1L));
+            dispatcher.dispatch(message("call-2@host", 1L));
+            dispatcher.dispatch(message("call-1@host", 2L));
+
+            // then
+            assertThat(done.await(10L, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(received).containsOnlyKeys("call-1@host", "call-2@host");
+        assertThat(received.get("call-1@host")).containsExactly(1L, 2L);
+    }
+
+    private static RawSipMessage message(String callId, long cseq) {
+        return new RawSipMessage(
+                "SIP/2.0 180 Ringing\r\n" + "Call-ID: " + callId + "\r\n" + "CSeq: " + cseq + " INVITE\r\n");
+    }
+
+    private record RecordingHandler(Map<String, List<Long>> received, CountDownLatch done)
+            implements SipIncomingMessageHandler {
+
+        @Override
+        public void accept(RawSipMessage sipMessage) {
+            // each dialog is only ever touched by the thread of its lane.
+            this.received
+                    .computeIfAbsent(sipMessage.callId().orElseThrow(), callId -> new ArrayList<>())
+                    .add(sipMessage.cseq());
+            this.done.countDown();
+        }
+
+        @Override
+        public void remove(RawSipMessage message) {
+            // not needed
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.proto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import org.junit.jupiter.api.Test;
+
+class ViaReceivedParserTest {
+
+    @Test
+    void reads_received_and_rport() {
+        // given
+        final var response = response("SIP/2.0/TCP 10.0.0.2:50123;branch=z9hG4bK.1;rport=61000;received=203.0.113.7");
+
+        // expect
+        assertThat(ViaReceivedParser.mappedAddress(response)).contains(new InetSocketAddress("203.0.113.7", 61000));
+    }
+
+    @Test
+    void received_without_rport_keeps_sent_by_port() {
+        // given
+        final var response = response("SIP/2.0/UDP 10.0.0.2:50123;received=203.0.113.7;branch=z9hG4bK.1");
+
+        // expect
+        assertThat(ViaReceivedParser.mappedAddress(response)).contains(new InetSocketAddress("203.0.113.7", 50123));
+    }
+
+    @Test
+    void rport_without_received_keeps_sent_by_host() {
+        // given
+        final var response = response("SIP/2.0/TCP [2001:db8::2]:5060;RPORT=5062;branch=z9hG4bK.1");
+
+        // expect
+        assertThat(ViaReceivedParser.mappedAddress(response)).contains(new InetSocketAddress("2001:db8::2", 5062));
+    }
+
+    @Test
+    void only_reads_first_via() {
+        // given
+        final var response =
+                response("SIP/2.0/TCP 10.0.0.2:50123;branch=z9hG4bK.1, SIP/2.0/TCP 10.0.0.9;received=198.51.100.1");
+
+        // expect
+        assertThat(ViaReceivedParser.mappedAddress(response)).isEmpty();
+    }
+
+    @Test
+    void ignores_rport_without_value_and_host_names() {
+        // expect
+        assertThat(ViaReceivedParser.mappedAddress(response("SIP/2.0/TCP 10.0.0.2:50123;rport;branch=z9hG4bK.1")))
+                .isEmpty();
+        assertThat(ViaReceivedParser.mappedAddress(response("SIP/2.0/TCP 10.0.0.2;received=cafe.example.com")))
+                .isEmpty();
+    }
+
+    private static RawSipMessage response(String via) {
+        return new RawSipMessage("SIP/2.0 200 OK\r\nVia: " + via + "\r\nCSeq: 11 REGISTER\r\n");
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SdpNegotiatorTest {
+
+    private static final String OFFER =
+            """
+            v=0\r
+            o=- %1$d %1$d IN IP4 %2$s\r
+            s=-\r
+            c=IN IP4 %2$s\r
+            t=0 0\r
+            m=video 0 RTP/AVP 96\r
+            c=IN IP4 198.51.100.99\r
+            m=audio %3$d RTP/AVP 9 0 8 101\r
+            a=rtpmap:9 G722/8000\r
+            a=rtpmap:101 telephone-event/8000\r
+            a=fmtp:101 0-16\r
+            a=ptime:20\r
+            a=crypto-free-attribute-%1$d\r
+            m=audio 40000 RTP/AVP 18\r
+            """;
+
+    @Test
+    void intersects_with_preferences_and_keeps_offered_payload_types() throws Exception {
+        // given
+        final var negotiator = SdpNegotiator.g711();
+
+        // when
+        final var negotiated = negotiator.negotiate(offer(1, "203.0.113.5", 30000));
+
+        // then
+        assertThat(negotiated).isPresent();
+        final var media = negotiated.orElseThrow();
+        assertThat(media.remoteAddress()).isEqualTo("203.0.113.5");
+        assertThat(media.remotePort()).isEqualTo(30000);
+        assertThat(media.proto()).isEqualTo("RTP/AVP");
+        assertThat(media.formats())
+                .containsExactly(
+                        new MediaFormat(8, "PCMA", 8000, 1, null),
+                        new MediaFormat(0, "PCMU", 8000, 1, null),
+                        new MediaFormat(101, "telephone-event", 8000, 1, "0-16"));
+        assertThat(media.preferred().encodingName()).isEqualTo("PCMA");
+
+        // and when
+        final var answer = new String(
+                SdpNegotiator.answer(media, new InetSocketAddress(InetAddress.getByName("192.0.2.7"), 20000), 42L, 1L),
+                StandardCharsets.UTF_8);
+
+        // then
+        assertThat(answer)
+                .contains("c=IN IP4 192.0.2.7\r\n")
+                .contains("m=audio 20000 RTP/AVP 8 0 101\r\n")
+                .contains("a=rtpmap:101 telephone-event/8000\r\na=fmtp:101 0-16\r\n")
+                .contains("a=sendrecv\r\n");
+    }
+
+    @Test
+    void answers_repeated_offers_from_cache() {
+        // given
+        final var negotiator = SdpNegotiator.g711();
+        negotiator.negotiate(offer(1, "203.0.113.5", 30000));
+
+        // when
+        final var second = negotiator.negotiate(offer(2, "203.0.113.6", 30002));
+
+        // then
+        assertThat(negotiator.getCacheMisses()).isEqualTo(1L);
+        assertThat(negotiator.getCacheHits()).isEqualTo(1L);
+        assertThat(negotiator.cacheSize()).isEqualTo(1);
+        assertThat(second.orElseThrow().remoteAddress()).isEqualTo("203.0.113.6");
+        assertThat(second.orElseThrow().remotePort()).isEqualTo(30002);
+    }
+
+    @Test
+    void answers_sendonly_offer_with_recvonly() throws Exception {
+        // given: the remote side puts us on hold.
+        final var negotiator = SdpNegotiator.g711();
+        negotiator.negotiate(offer(1, "203.0.113.5", 30000));
+        final var onHold =
+                OFFER.formatted(2, "203.0.113.5", 30000).replace("a=ptime:20\r\n", "a=ptime:20\r\na=sendonly\r\n");
+
+        // when
+        final var media = negotiator.negotiate(utf8(onHold)).orElseThrow();
+        final var answer = new String(
+                SdpNegotiator.answer(media, new InetSocketAddress(InetAddress.getByName("192.0.2.7"), 20000), 42L, 2L),
+                StandardCharsets.UTF_8);
+
+        // then
+        assertThat(media.direction()).isEqualTo(MediaDirection.SENDONLY);
+        assertThat(negotiator.getCacheMisses()).isEqualTo(2L);
+        assertThat(answer).contains("a=recvonly\r\n").doesNotContain("a=sendrecv");
+    }
+
+    @Test
+    void media_direction_overrides_session_direction() {
+        // given
+        final var negotiator = SdpNegotiator.g711();
+        final var sessionInactive =
+                OFFER.formatted(1, "203.0.113.5", 30000).replace("t=0 0\r\n", "t=0 0\r\na=inactive\r\n");
+        final var mediaRecvonly = sessionInactive.replace("a=ptime:20\r\n", "a=ptime:20\r\na=recvonly\r\n");
+
+        // expect
+        assertThat(negotiator.negotiate(utf8(sessionInactive)).orElseThrow().direction())
+                .isEqualTo(MediaDirection.INACTIVE);
+        assertThat(negotiator.negotiate(utf8(mediaRecvonly)).orElseThrow().direction())
+                .isEqualTo(MediaDirection.RECVONLY);
+        assertThat(negotiator
+                        .negotiate(offer(2, "203.0.113.5", 30000))
+                        .orElseThrow()
+                        .direction())
+                .isEqualTo(MediaDirection.SENDRECV);
+    }
+
+    @Test
+    void rejects_offer_without_common_voice_codec() {
+        // given
+        final var negotiator = new SdpNegotiator(List.of("opus/48000/2", "telephone-event/8000"));
+
+        // expect
+        assertThat(negotiator.negotiate(offer(1, "203.0.113.5", 30000))).isEmpty();
+        assertThat(negotiator.negotiate(offer(2, "203.0.113.5", 30000))).isEmpty();
+        assertThat(negotiator.getCacheHits()).isEqualTo(1L);
+    }
+
+    private static ByteBuffer offer(long sessionId, String address, int port) {
+        return utf8(OFFER.formatted(sessionId, address, port));
+    }
+
+    private static ByteBuffer utf8(String sdp) {
+        return ByteBuffer.wrap(sdp.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.sdp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SdpReaderTest {
+
+    @Test
+    void reads_media_and_attribute_fields_in_place() {
+        // given
+        final var reader = reader("v=0\r\nm=audio 49170 RTP/AVP 8 101\r\n\r\na=rtpmap:101 telephone-event/8000\n");
+
+        // expect
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.type()).isEqualTo('v');
+        assertThat(reader.intField(0)).isZero();
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.type()).isEqualTo('m');
+        assertThat(reader.fieldEqualsIgnoreCase(0, "AUDIO")).isTrue();
+        assertThat(reader.intField(1)).isEqualTo(49170);
+        assertThat(reader.intField(4)).isEqualTo(101);
+        assertThat(reader.fieldStart(5)).isEqualTo(-1);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.isAttribute("rtpmap")).isTrue();
+        assertThat(reader.isAttribute("rtp")).isFalse();
+        assertThat(reader.intField(0)).isEqualTo(101);
+        assertThat(reader.field(1)).isEqualTo("telephone-event/8000");
+
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void rejects_lines_without_type() {
+        // given
+        final var reader = reader("v=0\r\ngarbage\r\n");
+        reader.next();
+
+        // expect
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("garbage");
+    }
+
+    private static SdpReader reader(String sdp) {
+        return new SdpReader(ByteBuffer.wrap(sdp.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ClientTransactionLayerTest {
+
+    private static final String BRANCH = "z9hG4bK.4f3a2b1c";
+
+    private final ClientTransactionLayer layer = new ClientTransactionLayer();
+
+    @Test
+    void final_response_completes_transaction() {
+        // given
+        final var response = layer.start(new TransactionKey(BRANCH, "REGISTER"));
+
+        // when
+        final var consumed = layer.onResponse(response(200, BRANCH, "REGISTER"));
+
+        // then
+        assertThat(consumed).isTrue();
+        assertThat(response).isCompleted();
+        assertThat(response.join().statusCode()).isEqualTo(200);
+        assertThat(layer.size()).isZero();
+    }
+
+    @Test
+    void provisional_response_is_consumed_but_keeps_transaction_open() {
+        // given
+        final var response = layer.start(new TransactionKey(BRANCH, "INVITE"));
+
+        // when
+        final var consumed = layer.onResponse(response(100, BRANCH, "INVITE"));
+
+        // then
+        assertThat(consumed).isTrue();
+        assertThat(response).isNotDone();
+        assertThat(layer.size()).isOne();
+    }
+
+    @Test
+    void response_for_other_branch_or_method_is_not_consumed() {
+        // given
+        final var response = layer.start(new TransactionKey(BRANCH, "REGISTER"));
+
+        // expect
+        assertThat(layer.onResponse(response(200, "z9hG4bK.other", "REGISTER"))).isFalse();
+        assertThat(layer.onResponse(response(200, BRANCH, "OPTIONS"))).isFalse();
+        assertThat(response).isNotDone();
+    }
+
+    @Test
+    void duplicate_transaction_is_rejected() {
+        // given
+        layer.start(new TransactionKey(BRANCH, "REGISTER"));
+
+        // expect
+        assertThatThrownBy(() -> layer.start(new TransactionKey(BRANCH, "REGISTER")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void failAll_fails_pending_transactions() {
+        // given
+        final var response = layer.start(new TransactionKey(BRANCH, "REGISTER"));
+
+        // when
+        layer.failAll(new IllegalStateException("closed"));
+
+        // then
+        assertThat(response).isCompletedExceptionally();
+        assertThatThrownBy(response::get).isInstanceOf(ExecutionException.class);
+        assertThat(layer.size()).isZero();
+    }
+
+    @Test
+    void new_branches_carry_magic_cookie_and_differ() {
+        // expect
+        assertThat(ClientTransactionLayer.newBranch())
+                .startsWith(ClientTransactionLayer.BRANCH_MAGIC_COOKIE)
+                .isNotEqualTo(ClientTransactionLayer.newBranch());
+    }
+
+    @Test
+    void retransmits_unreliable_request_until_final_response() throws Exception {
+        // given
+        try (var wheel = new HashedTimingWheel(Duration.ofMillis(10L), 64, "test-timer")) {
+            final var unreliableLayer = new ClientTransactionLayer(wheel);
+            final var retransmissions = new AtomicInteger();
+            final var response =
+                    unreliableLayer.start(new TransactionKey(BRANCH, "REGISTER"), retransmissions::incrementAndGet);
+
+            // when
+            Thread.sleep(ClientTransactionLayer.T1.plusMillis(200L).toMillis());
+            unreliableLayer.onResponse(response(200, BRANCH, "REGISTER"));
+            final var retransmissionsAtFinalResponse = retransmissions.get();
+            Thread.sleep(ClientTransactionLayer.T1.multipliedBy(3L).toMillis());
+
+            // then
+            assertThat(response).isCompleted();
+            assertThat(retransmissionsAtFinalResponse).isOne();
+            assertThat(retransmissions).hasValue(1);
+            assertThat(unreliableLayer.getRetransmissions()).isOne();
+        }
+    }
+
+    @Test
+    void absorbs_retransmitted_final_response_of_unreliable_transaction() {
+        // given
+        try (var wheel = new HashedTimingWheel(Duration.ofMillis(10L), 64, "test-timer")) {
+            final var unreliableLayer = new ClientTransactionLayer(wheel);
+            unreliableLayer.start(new TransactionKey(BRANCH, "REGISTER"), () -> {});
+            unreliableLayer.onResponse(response(200, BRANCH, "REGISTER"));
+
+            // when
+            final var consumed = unreliableLayer.onResponse(response(200, BRANCH, "REGISTER"));
+
+            // then
+            assertThat(consumed).isTrue();
+            assertThat(unreliableLayer.getAbsorbedResponses()).isOne();
+        }
+    }
+
+    @Test
+    void reliable_transaction_does_not_absorb_late_responses() {
+        // given
+        layer.start(new TransactionKey(BRANCH, "REGISTER"));
+        layer.onResponse(response(200, BRANCH, "REGISTER"));
+
+        // expect
+        assertThat(layer.onResponse(response(200, BRANCH, "REGISTER"))).isFalse();
+    }
+
+    @Test
+    void retransmit_intervals_follow_timer_a_and_timer_e() {
+        // expect
+        final var t1 = ClientTransactionLayer.T1;
+        final var t2 = ClientTransactionLayer.T2;
+        assertThat(ClientTransactionLayer.nextInterval(true, false, t1)).isEqualTo(t1.multipliedBy(2L));
+        assertThat(ClientTransactionLayer.nextInterval(true, false, t2)).isEqualTo(t2.multipliedBy(2L));
+        assertThat(ClientTransactionLayer.nextInterval(false, false, t1)).isEqualTo(t1.multipliedBy(2L));
+        assertThat(ClientTransactionLayer.nextInterval(false, false, t2)).isEqualTo(t2);
+        assertThat(ClientTransactionLayer.nextInterval(false, true, t1)).isEqualTo(t2);
+    }
+
+    private static RawSipMessage response(int statusCode, String branch, String method) {
+        return new RawSipMessage("SIP/2.0 " + statusCode + " Whatever\r\n"
+                + "Via: SIP/2.0/TCP 192.168.1.2:5060;alias;branch=" + branch + "\r\n"
+                + "CSeq: 1 " + method + "\r\n"
+                + "Content-Length: 0\r\n");
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.proto.RawSipMessage;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ServerTransactionLayerTest {
+
+    private final List<String> sent = new ArrayList<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void answers_new_invite_with_trying_before_dispatch() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, false, clock::get);
+
+        // when
+        final var absorbed = layer.onRequest(invite("z9hG4bK.1"));
+
+        // then
+        assertThat(absorbed).isFalse();
+        assertThat(sent).singleElement().asString().startsWith("SIP/2.0 100 Trying\r\n");
+        assertThat(sent.getFirst()).contains("To: <sip:+4912345@tel.t-online.de>\r\n");
+    }
+
+    @Test
+    void sends_ringing_with_to_tag_if_enabled() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, true, clock::get);
+
+        // when
+        layer.onRequest(invite("z9hG4bK.1"));
+
+        // then
+        final var toTag = layer.getToTag(new TransactionKey("z9hG4bK.1", "INVITE"));
+        assertThat(toTag).isPresent();
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1))
+                .startsWith("SIP/2.0 180 Ringing\r\n")
+                .contains("To: <sip:+4912345@tel.t-online.de>;tag=" + toTag.orElseThrow() + "\r\n");
+    }
+
+    @Test
+    void absorbs_retransmitted_invite() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, true, clock::get);
+        layer.onRequest(invite("z9hG4bK.1"));
+
+        // when
+        final var absorbed = layer.onRequest(invite("z9hG4bK.1"));
+
+        // then
+        assertThat(absorbed).isTrue();
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(2)).isEqualTo(sent.get(1));
+        assertThat(layer.size()).isOne();
+    }
+
+    @Test
+    void forgets_invite_after_timer_b() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, false, clock::get);
+        layer.onRequest(invite("z9hG4bK.1"));
+
+        // when
+        clock.addAndGet(ClientTransactionLayer.TIMER_B.toNanos() + 1L);
+        layer.onRequest(invite("z9hG4bK.2"));
+
+        // then
+        assertThat(layer.size()).isOne();
+        assertThat(layer.getToTag(new TransactionKey("z9hG4bK.1", "INVITE"))).isEmpty();
+    }
+
+    @Test
+    void ignores_other_requests() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, true, clock::get);
+
+        // when
+        final var absorbed =
+                layer.onRequest(new RawSipMessage("BYE sip:+4912345@192.168.1.2 SIP/2.0\r\nCSeq: 2 BYE\r\n"));
+
+        // then
+        assertThat(absorbed).isFalse();
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void rejects_new_invite_without_trying_while_busy() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, true, clock::get);
+
+        // when
+        final var answered = layer.onRequest(invite("z9hG4bK.1"), false);
+
+        // then
+        assertThat(answered).isTrue();
+        assertThat(sent)
+                .singleElement()
+                .asString()
+                .startsWith("SIP/2.0 503 Service Unavailable\r\n")
+                .contains("Retry-After: 1\r\n");
+        assertThat(layer.size()).isZero();
+        assertThat(layer.getRejectedRequests()).isOne();
+    }
+
+    @Test
+    void absorbs_retransmitted_invite_while_busy() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, false, clock::get);
+        layer.onRequest(invite("z9hG4bK.1"));
+
+        // when
+        final var answered = layer.onRequest(invite("z9hG4bK.1"), false);
+
+        // then
+        assertThat(answered).isTrue();
+        assertThat(sent).hasSize(2).allSatisfy(response -> assertThat(response).startsWith("SIP/2.0 100 Trying"));
+        assertThat(layer.getRejectedRequests()).isZero();
+    }
+
+    @Test
+    void rejects_other_requests_but_ack_while_busy() {
+        // given
+        final var layer = new ServerTransactionLayer(this::send, false, clock::get);
+
+        // when
+        final var bye =
+                layer.onRequest(new RawSipMessage("BYE sip:+4912345@192.168.1.2 SIP/2.0\r\nCSeq: 2 BYE\r\n"), false);
+        final var ack =
+                layer.onRequest(new RawSipMessage("ACK sip:+4912345@192.168.1.2 SIP/2.0\r\nCSeq: 1 ACK\r\n"), false);
+
+        // then
+        assertThat(bye).isTrue();
+        assertThat(ack).isFalse();
+        assertThat(sent).singleElement().asString().startsWith("SIP/2.0 503 Service Unavailable\r\n");
+    }
+
+    private void send(SipMessageBuffer message) {
+        this.sent.add(message.toString());
+        message.release();
+    }
+
+    private static RawSipMessage invite(String branch) {
+        return new RawSipMessage("INVITE sip:+4912345@192.168.1.2:5060 SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP 217.0.0.1:5060;branch=" + branch + "\r\n"
+                + "From: <sip:+4967890@tel.t-online.de>;tag=from1\r\n"
+                + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                + "Call-ID: call-1@host\r\n"
+                + "CSeq: 1 INVITE\r\n");
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.util.HashedTimingWheel;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FlowKeepAliveTest {
+
+    private static final Duration INTERVAL = Duration.ofMillis(60L);
+    private static final Duration PONG_TIMEOUT = Duration.ofMillis(30L);
+
+    private final HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(5L), 64, "test-timer");
+    private final AtomicLong pongs = new AtomicLong();
+    private final CountDownLatch failed = new CountDownLatch(1);
+
+    @AfterEach
+    void close() {
+        this.wheel.close();
+    }
+
+    @Test
+    void fails_flow_without_pong_if_required() throws Exception {
+        // given
+        final var transport = new RecordingTransport(false);
+        final var keepAlive = keepAlive(transport, true);
+
+        // when
+        keepAlive.start();
+
+        // then
+        assertThat(this.failed.await(2L, TimeUnit.SECONDS)).isTrue();
+        assertThat(keepAlive.isFailed()).isTrue();
+        assertThat(transport.written.toString()).isEqualTo("\r\n\r\n");
+    }
+
+    @Test
+    void keeps_pinging_while_pongs_arrive() throws Exception {
+        // given
+        final var transport = new RecordingTransport(true);
+        final var keepAlive = keepAlive(transport, true);
+
+        // when
+        keepAlive.start();
+
+        // then
+        transport.awaitPings(3);
+        keepAlive.close();
+        assertThat(keepAlive.isFailed()).isFalse();
+    }
+
+    @Test
+    void requires_pongs_once_registrar_answered_a_ping() throws Exception {
+        // given
+        final var transport = new RecordingTransport(true);
+        final var keepAlive = keepAlive(transport, false);
+
+        // when
+        keepAlive.start();
+        transport.awaitPings(2);
+        transport.pong = false;
+
+        // then
+        assertThat(this.failed.await(2L, TimeUnit.SECONDS)).isTrue();
+        assertThat(keepAlive.isPongRequired()).isTrue();
+    }
+
+    @Test
+    void only_refreshes_binding_if_registrar_never_answers() throws Exception {
+        // given
+        final var transport = new RecordingTransport(false);
+        final var keepAlive = keepAlive(transport, false);
+
+        // when
+        keepAlive.start();
+
+        // then
+        transport.awaitPings(3);
+        keepAlive.close();
+        assertThat(keepAlive.isFailed()).isFalse();
+        assertThat(this.failed.getCount()).isOne();
+    }
+
+    @Test
+    void fails_flow_of_closed_transport() throws Exception {
+        // given
+        final var transport = new RecordingTransport(false);
+        transport.close();
+
+        // when
+        keepAlive(transport, false).start();
+
+        // then
+        assertThat(this.failed.await(2L, TimeUnit.SECONDS)).isTrue();
+        assertThat(transport.written.length()).isZero();
+    }
+
+    @Test
+    void jitter_only_moves_ping_forward() {
+        // expect
+        assertThat(FlowKeepAlive.pingDelay(Duration.ofSeconds(30L), 0.0d)).isEqualTo(Duration.ofSeconds(30L));
+        assertThat(FlowKeepAlive.pingDelay(Duration.ofSeconds(30L), 0.999d))
+                .isLessThan(Duration.ofSeconds(30L))
+                .isGreaterThan(Duration.ofSeconds(24L));
+    }
+
+    private FlowKeepAlive keepAlive(RecordingTransport transport, boolean pongRequired) {
+        return new FlowKeepAlive(
+                transport, this.pongs::get, INTERVAL, pongRequired, this.failed::countDown, this.wheel, PONG_TIMEOUT);
+    }
+
+    private final class RecordingTransport implements SipTransport {
+
+        private final StringBuffer written = new StringBuffer();
+        private final AtomicLong pings = new AtomicLong();
+
+        private volatile boolean pong;
+        private volatile boolean connected = true;
+
+        private RecordingTransport(boolean pong) {
+            this.pong = pong;
+        }
+
+        void awaitPings(int count) throws InterruptedException {
+            final var deadline = System.nanoTime() + Duration.ofSeconds(5L).toNanos();
+            while (this.pings.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5L);
+            }
+            assertThat(this.pings.get()).isGreaterThanOrEqualTo(count);
+        }
+
+        @Override
+        public void start(SocketInConnectionReader reader) {
+            // nothing to read.
+        }
+
+        @Override
+        public void write(SipMessageBuffer message) {
+            final var bytes = new byte[message.length()];
+            message.asByteBuffer().get(bytes);
+            message.release();
+            this.written.append(new String(bytes, StandardCharsets.US_ASCII));
+            this.pings.incrementAndGet();
+
+            if (this.pong) {
+                FlowKeepAliveTest.this.pongs.incrementAndGet();
+            }
+        }
+
+        @Override
+        public String protocol() {
+            return "TCP";
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.connected;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return new InetSocketAddress(0);
+        }
+
+        @Override
+        public void close() {
+            this.connected = false;
+        }
+    }
+}
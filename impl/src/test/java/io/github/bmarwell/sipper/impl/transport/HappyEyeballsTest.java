@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HappyEyeballsTest {
+
+    private static final InetSocketAddress V4_A = new InetSocketAddress("192.0.2.1", 5060);
+    private static final InetSocketAddress V4_B = new InetSocketAddress("192.0.2.2", 5060);
+    private static final InetSocketAddress V4_C = new InetSocketAddress("192.0.2.3", 5060);
+    private static final InetSocketAddress V6_A = new InetSocketAddress("2001:db8::1", 5060);
+
+    @Test
+    void alternates_address_families() {
+        // expect
+        assertThat(HappyEyeballs.interleave(List.of(V4_A, V4_B, V4_C, V6_A))).containsExactly(V4_A, V6_A, V4_B, V4_C);
+    }
+
+    @Test
+    void next_attempt_starts_after_delay_and_late_winner_is_closed() throws Exception {
+        // given
+        final var slow = new StubTransport(V4_A);
+        final var fast = new StubTransport(V6_A);
+        final var releaseSlow = new CountDownLatch(1);
+
+        // when
+        final var transport = HappyEyeballs.connect(
+                List.of(V4_A, V6_A),
+                remote -> {
+                    if (remote.equals(V4_A)) {
+                        await(releaseSlow);
+                        return slow;
+                    }
+                    return fast;
+                },
+                Duration.ofMillis(50L),
+                Duration.ofSeconds(5L));
+        releaseSlow.countDown();
+
+        // then
+        assertThat(transport).isSameAs(fast);
+        assertThat(slow.closed.await(5L, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.closed.getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void failed_attempt_starts_next_without_delay() throws Exception {
+        // given
+        final var reachable = new StubTransport(V4_B);
+        final var start = System.nanoTime();
+
+        // when
+        final var transport = HappyEyeballs.connect(
+                List.of(V4_A, V4_B),
+                remote -> {
+                    if (remote.equals(V4_A)) {
+                        throw new ConnectException("refused");
+                    }
+                    return reachable;
+                },
+                Duration.ofSeconds(10L),
+                Duration.ofSeconds(20L));
+
+        // then
+        assertThat(transport).isSameAs(reachable);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5L));
+    }
+
+    @Test
+    void fails_with_all_attempt_errors() {
+        // expect
+        assertThatThrownBy(() -> HappyEyeballs.connect(
+                        List.of(V4_A, V6_A),
+                        remote -> {
+                            throw new ConnectException("refused " + remote);
+                        },
+                        Duration.ofMillis(50L),
+                        Duration.ofSeconds(5L)))
+                .isInstanceOf(ConnectException.class)
+                .satisfies(error -> assertThat(error.getSuppressed()).hasSize(1));
+    }
+
+    @Test
+    void times_out_if_no_attempt_completes() {
+        // expect
+        assertThatThrownBy(() -> HappyEyeballs.connect(
+                        List.of(V4_A),
+                        remote -> {
+                            await(new CountDownLatch(1));
+                            return new StubTransport(remote);
+                        },
+                        Duration.ofMillis(50L),
+                        Duration.ofMillis(100L)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Timed out");
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedIOException {
+        try {
+            latch.await(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException interrupted) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static final class StubTransport implements SipTransport {
+
+        private final InetSocketAddress remote;
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private StubTransport(InetSocketAddress remote) {
+            this.remote = remote;
+        }
+
+        @Override
+        public void start(SocketInConnectionReader reader) {
+            // nothing to read.
+        }
+
+        @Override
+        public void write(SipMessageBuffer message) {
+            message.release();
+        }
+
+        @Override
+        public String protocol() {
+            return "TCP";
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.closed.getCount() > 0L;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return this.remote;
+        }
+
+        @Override
+        public void close() {
+            this.closed.countDown();
+        }
+    }
+}
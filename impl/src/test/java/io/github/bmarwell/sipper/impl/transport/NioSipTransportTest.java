@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NioSipTransportTest {
+
+    private final NioEventLoopGroup group = new NioEventLoopGroup(1, "test-nio-");
+
+    private ServerSocket server;
+    private Socket peer;
+    private NioSipTransport transport;
+
+    @BeforeEach
+    void connect() throws IOException {
+        this.server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        this.transport = NioSipTransport.connect(
+                (InetSocketAddress) this.server.getLocalSocketAddress(), Duration.ofSeconds(2L), this.group.next());
+        this.peer = this.server.accept();
+        this.peer.setSoTimeout(5_000);
+
+        this.transport.start(new SocketInConnectionReader(
+                new ClientTransactionLayer(),
+                new ServerTransactionLayer(this.transport::write, false),
+                new StatelessProbeResponder(this.transport::write),
+                new QueueingSipIncomingMessageHandler(),
+                1,
+                16));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        this.transport.close();
+        this.peer.close();
+        this.server.close();
+        this.group.close();
+    }
+
+    @Test
+    void answers_probe_on_event_loop() throws IOException {
+        // given
+        final var options = "OPTIONS sip:+4912345@127.0.0.1:5060 SIP/2.0\r\n"
+                + "Via: SIP/2.0/TCP 127.0.0.1:5060;branch=z9hG4bK.1\r\n"
+                + "From: <sip:tel.t-online.de>;tag=from1\r\n"
+                + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                + "Call-ID: probe-1@host\r\n"
+                + "CSeq: 42 OPTIONS\r\n"
+                + "Content-Length: 0\r\n\r\n";
+
+        // when
+        this.peer.getOutputStream().write(options.getBytes(StandardCharsets.UTF_8));
+
+        // then
+        assertThat(readHeaders(this.peer.getInputStream()))
+                .startsWith("SIP/2.0 200 OK\r\n")
+                .contains("CSeq: 42 OPTIONS\r\n");
+    }
+
+    @Test
+    void keeps_order_of_writes_the_channel_did_not_accept_at_once() throws IOException {
+        // given
+        final var first = SipMessageBuffer.acquire();
+        for (var i = 0; i < 64 * 1024; i++) {
+            first.append("0123456789abcdef");
+        }
+        final var second = SipMessageBuffer.acquire().append("END");
+        final var expectedLength = first.length() + second.length();
+
+        // when
+        this.transport.write(first);
+        this.transport.write(second);
+
+        // then
+        final var received = this.peer.getInputStream().readNBytes(expectedLength);
+        assertThat(received).hasSize(expectedLength);
+        assertThat(new String(received, 0, 16, StandardCharsets.US_ASCII)).isEqualTo("0123456789abcdef");
+        assertThat(new String(received, expectedLength - 3, 3, StandardCharsets.US_ASCII))
+                .isEqualTo("END");
+    }
+
+    @Test
+    void releases_blocked_writes_on_close() throws Exception {
+        // given: the peer does not read, so the channel stops taking bytes.
+        final var large = SipMessageBuffer.acquire();
+        for (var i = 0; i < 1024 * 1024; i++) {
+            large.append("0123456789abcdef");
+        }
+        final var queued = SipMessageBuffer.acquire().append("END");
+        this.transport.write(large);
+        this.transport.write(queued);
+
+        // when
+        this.transport.close();
+
+        // then
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5L).toNanos();
+        while ((large.refCount() > 0 || queued.refCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(large.refCount()).isZero();
+        assertThat(queued.refCount()).isZero();
+    }
+
+    @Test
+    void reports_connection_closed_by_peer() throws Exception {
+        // given
+        assertThat(this.transport.isConnected()).isTrue();
+
+        // when
+        this.peer.close();
+
+        // then
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5L).toNanos();
+        while (this.transport.isConnected() && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(this.transport.isConnected()).isFalse();
+    }
+
+    private static String readHeaders(InputStream in) throws IOException {
+        final var headers = new ByteArrayOutputStream();
+        while (!headers.toString(StandardCharsets.UTF_8).endsWith("\r\n\r\n")) {
+            final var next = in.read();
+            if (next == -1) {
+                break;
+            }
+            headers.write(next);
+        }
+
+        return headers.toString(StandardCharsets.UTF_8);
+    }
+}
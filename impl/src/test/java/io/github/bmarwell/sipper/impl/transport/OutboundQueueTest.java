@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.util.BufferPool;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OutboundQueueTest {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final AtomicInteger flushes = new AtomicInteger();
+    private final List<IOException> failures = new ArrayList<>();
+
+    @Test
+    void coalesces_messages_queued_while_writing() throws Exception {
+        // given
+        final var firstWriteStarted = new CountDownLatch(1);
+        final var releaseFirstWrite = new CountDownLatch(1);
+        final var done = new CountDownLatch(1);
+        final var queue = new OutboundQueue(
+                new RecordingSink(() -> {
+                    firstWriteStarted.countDown();
+                    await(releaseFirstWrite);
+                }),
+                drain -> Thread.ofVirtual().start(() -> {
+                    drain.run();
+                    done.countDown();
+                }),
+                () -> {},
+                this.failures::add);
+
+        // when
+        queue.enqueue(message("m0;"));
+        assertThat(firstWriteStarted.await(5L, TimeUnit.SECONDS)).isTrue();
+        for (var i = 1; i <= 10; i++) {
+            queue.enqueue(message("m" + i + ";"));
+        }
+        releaseFirstWrite.countDown();
+
+        // then
+        assertThat(done.await(5L, TimeUnit.SECONDS)).isTrue();
+        assertThat(this.written.toString(StandardCharsets.US_ASCII)).isEqualTo("m0;m1;m2;m3;m4;m5;m6;m7;m8;m9;m10;");
+        assertThat(queue.getMessagesWritten()).isEqualTo(11L);
+        assertThat(queue.getSinkWrites()).isEqualTo(2L);
+        assertThat(this.flushes).hasValue(1);
+    }
+
+    @Test
+    void resumes_after_partial_write() {
+        // given
+        final var blocked = new AtomicInteger();
+        final var sink = new RecordingSink(() -> {});
+        sink.maxBytesPerWrite = 4;
+        final var queue = new OutboundQueue(sink, Runnable::run, blocked::incrementAndGet, this.failures::add);
+
+        // when
+        queue.enqueue(message("hello;"));
+        queue.enqueue(message("world;"));
+
+        // then
+        assertThat(blocked).hasValue(1);
+        assertThat(this.written.toString(StandardCharsets.US_ASCII)).isEqualTo("hell");
+
+        // when
+        sink.maxBytesPerWrite = Integer.MAX_VALUE;
+        queue.resume();
+
+        // then
+        assertThat(this.written.toString(StandardCharsets.US_ASCII)).isEqualTo("hello;world;");
+        assertThat(this.flushes).hasValue(1);
+    }
+
+    @Test
+    void close_releases_messages_of_a_blocked_drain() {
+        // given
+        final var blocked = new AtomicInteger();
+        final var sink = new RecordingSink(() -> {});
+        sink.maxBytesPerWrite = 4;
+        final var queue = new OutboundQueue(sink, Runnable::run, blocked::incrementAndGet, this.failures::add);
+        final var inFlight = message("hello;");
+        final var queued = message("world;");
+        queue.enqueue(inFlight);
+        queue.enqueue(queued);
+        assertThat(blocked).hasValue(1);
+
+        // when
+        queue.close();
+        queue.resume();
+        queue.resume();
+
+        // then
+        assertThat(inFlight.refCount()).isZero();
+        assertThat(queued.refCount()).isZero();
+        assertThat(this.written.toString(StandardCharsets.US_ASCII)).isEqualTo("hell");
+    }
+
+    @Test
+    void rejects_messages_after_failure() {
+        // given
+        final var queue = new OutboundQueue(
+                (buffers, offset, length) -> {
+                    throw new IOException("broken pipe");
+                },
+                Runnable::run,
+                () -> {},
+                this.failures::add);
+
+        // when
+        queue.enqueue(message("m0;"));
+
+        // then
+        assertThat(this.failures).hasSize(1);
+        assertThatThrownBy(() -> queue.enqueue(message("m1;"))).isInstanceOf(UncheckedIOException.class);
+        assertThat(this.failures).hasSize(1);
+    }
+
+    @Test
+    void close_racing_with_enqueue_releases_every_message() throws Exception {
+        // given
+        assertThat(BufferPool.isLeakDetectionEnabled()).isTrue();
+        final var messages = new ConcurrentLinkedQueue<SipMessageBuffer>();
+
+        for (var round = 0; round < 100; round++) {
+            final var sent = new AtomicInteger();
+            final var queue =
+                    new OutboundQueue(OutboundQueueTest::discard, Runnable::run, () -> {}, this.failures::add);
+            final var senders = new ArrayList<Thread>();
+            for (var sender = 0; sender < 4; sender++) {
+                senders.add(Thread.ofPlatform().start(() -> {
+                    for (var i = 0; i < 1024; i++) {
+                        final var message = message("m;");
+                        messages.add(message);
+                        try {
+                            queue.enqueue(message);
+                        } catch (UncheckedIOException closed) {
+                            return;
+                        }
+                        sent.incrementAndGet();
+                    }
+                }));
+            }
+
+            // when: every sender is still sending.
+            final var closeAfter = 64 + round % 64;
+            while (sent.get() < closeAfter) {
+                Thread.yield();
+            }
+            queue.close();
+            for (var sender : senders) {
+                sender.join();
+            }
+        }
+
+        // then
+        assertThat(messages)
+                .allSatisfy(message -> assertThat(message.refCount()).isZero());
+        assertThat(this.failures).isEmpty();
+    }
+
+    private static long discard(ByteBuffer[] buffers, int offset, int length) {
+        var total = 0L;
+        for (var i = offset; i < offset + length; i++) {
+            total += buffers[i].remaining();
+            buffers[i].position(buffers[i].limit());
+        }
+
+        return total;
+    }
+
+    private static SipMessageBuffer message(String content) {
+        return SipMessageBuffer.acquire().append(content);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class RecordingSink implements OutboundQueue.Sink {
+
+        private final Runnable onFirstWrite;
+        private final AtomicInteger writes = new AtomicInteger();
+
+        private volatile int maxBytesPerWrite = Integer.MAX_VALUE;
+
+        private RecordingSink(Runnable onFirstWrite) {
+            this.onFirstWrite = onFirstWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] buffers, int offset, int length) {
+            if (this.writes.getAndIncrement() == 0) {
+                this.onFirstWrite.run();
+            }
+
+            var budget = this.maxBytesPerWrite;
+            var total = 0L;
+            for (var i = offset; i < offset + length && budget > 0; i++) {
+                final var chunk = new byte[Math.min(budget, buffers[i].remaining())];
+                buffers[i].get(chunk);
+                OutboundQueueTest.this.written.writeBytes(chunk);
+                budget -= chunk.length;
+                total += chunk.length;
+            }
+
+            return total;
+        }
+
+        @Override
+        public void flush() {
+            OutboundQueueTest.this.flushes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TlsSipTransportTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    static Path keyStoreDir;
+
+    private static KeyStore keyStore;
+
+    private final NioEventLoopGroup group = new NioEventLoopGroup(1, "test-tls-");
+    private final BlockingQueue<SSLSocket> accepted = new LinkedBlockingQueue<>();
+
+    private SSLServerSocket server;
+    private SSLContext clientContext;
+
+    @BeforeAll
+    static void createSelfSignedCertificate() throws Exception {
+        final var keyStoreFile = keyStoreDir.resolve("server.p12");
+        final var keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        final var process = new ProcessBuilder(
+                        keytool.toString(),
+                        "-genkeypair",
+                        "-alias",
+                        "server",
+                        "-keyalg",
+                        "EC",
+                        "-dname",
+                        "CN=localhost",
+                        "-ext",
+                        "SAN=dns:localhost,ip:127.0.0.1",
+                        "-validity",
+                        "2",
+                        "-storetype",
+                        "PKCS12",
+                        "-keystore",
+                        keyStoreFile.toString(),
+                        "-storepass",
+                        new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        final var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(30L, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).as(output).isZero();
+
+        keyStore = KeyStore.getInstance("PKCS12");
+        try (var in = Files.newInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws Exception {
+        final var keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        final var serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagers.getKeyManagers(), null, null);
+
+        final var trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        this.clientContext = SSLContext.getInstance("TLS");
+        this.clientContext.init(null, trustManagers.getTrustManagers(), null);
+
+        this.server = (SSLServerSocket)
+                serverContext.getServerSocketFactory().createServerSocket(0, 4, InetAddress.getLoopbackAddress());
+        // session ids are only reused by TLS 1.2, TLS 1.3 resumes with tickets.
+        this.server.setEnabledProtocols(new String[] {"TLSv1.2"});
+
+        Thread.ofVirtual().name("test-tls-acceptor").start(() -> {
+            while (!this.server.isClosed()) {
+                try {
+                    final var peer = (SSLSocket) this.server.accept();
+                    peer.setSoTimeout(5_000);
+                    Thread.ofVirtual().start(() -> {
+                        try {
+                            peer.startHandshake();
+                            this.accepted.add(peer);
+                        } catch (IOException ioException) {
+                            closeQuietly(peer);
+                        }
+                    });
+                } catch (IOException ioException) {
+                    // server closed.
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        this.server.close();
+        this.group.close();
+        SSLSocket peer;
+        while ((peer = this.accepted.poll()) != null) {
+            closeQuietly(peer);
+        }
+    }
+
+    @Test
+    void answers_probe_over_tls() throws Exception {
+        // given
+        final var transport = connect(this.clientContext);
+        final var peer = this.accepted.poll(5L, TimeUnit.SECONDS);
+        final var options = "OPTIONS sips:+4912345@127.0.0.1:5061 SIP/2.0\r\n"
+                + "Via: SIP/2.0/TLS 127.0.0.1:5061;branch=z9hG4bK.1\r\n"
+                + "From: <sips:tel.t-online.de>;tag=from1\r\n"
+                + "To: <sips:+4912345@tel.t-online.de>\r\n"
+                + "Call-ID: probe-1@host\r\n"
+                + "CSeq: 42 OPTIONS\r\n"
+                + "Content-Length: 0\r\n\r\n";
+
+        // when
+        peer.getOutputStream().write(options.getBytes(StandardCharsets.UTF_8));
+        peer.getOutputStream().flush();
+
+        // then
+        assertThat(readHeaders(peer.getInputStream()))
+                .startsWith("SIP/2.0 200 OK\r\n")
+                .contains("CSeq: 42 OPTIONS\r\n");
+        assertThat(transport.protocol()).isEqualTo("TLS");
+
+        transport.close();
+    }
+
+    @Test
+    void writes_messages_larger_than_a_record() throws Exception {
+        // given
+        final var transport = connect(this.clientContext);
+        final var peer = this.accepted.poll(5L, TimeUnit.SECONDS);
+        final var message = SipMessageBuffer.acquire();
+        for (var i = 0; i < 4 * 1024; i++) {
+            message.append("0123456789abcdef");
+        }
+        message.append("END");
+        final var expectedLength = message.length();
+
+        // when
+        transport.write(message);
+
+        // then
+        final var received = peer.getInputStream().readNBytes(expectedLength);
+        assertThat(received).hasSize(expectedLength);
+        assertThat(new String(received, expectedLength - 3, 3, StandardCharsets.US_ASCII))
+                .isEqualTo("END");
+
+        transport.close();
+    }
+
+    @Test
+    void stops_encrypting_while_records_are_pending() throws Exception {
+        // given: the peer does not read yet, so the records of the first batch stay pending.
+        final var transport = connect(this.clientContext);
+        final var peer = this.accepted.poll(5L, TimeUnit.SECONDS);
+        final var messages = new ArrayList<SipMessageBuffer>();
+        for (var m = 0; m < 8 * OutboundQueue.MAX_BATCH_SIZE; m++) {
+            final var message = SipMessageBuffer.acquire();
+            for (var i = 0; i < 4 * 1024; i++) {
+                message.append("0123456789abcdef");
+            }
+            messages.add(message);
+        }
+        final var messageLength = messages.getFirst().length();
+
+        // when
+        for (final var message : messages) {
+            transport.write(message);
+        }
+
+        // then
+        assertThat(transport.getPendingBytes())
+                .isPositive()
+                .isLessThan(OutboundQueue.MAX_BATCH_SIZE * messageLength * 11L / 10L);
+        assertThat(messages.getLast().refCount()).isOne();
+
+        // when
+        final var received = peer.getInputStream().readNBytes(messages.size() * messageLength);
+
+        // then
+        assertThat(received).hasSize(messages.size() * messageLength);
+        assertThat(messages)
+                .allSatisfy(message -> assertThat(message.refCount()).isZero());
+
+        transport.close();
+    }
+
+    @Test
+    void releases_queued_messages_on_close_while_records_are_pending() throws Exception {
+        // given
+        final var transport = connect(this.clientContext);
+        final var messages = new ArrayList<SipMessageBuffer>();
+        for (var m = 0; m < 256; m++) {
+            final var message = SipMessageBuffer.acquire();
+            for (var i = 0; i < 4 * 1024; i++) {
+                message.append("0123456789abcdef");
+            }
+            messages.add(message);
+            transport.write(message);
+        }
+
+        // when
+        transport.close();
+
+        // then
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5L).toNanos();
+        while (messages.stream().anyMatch(message -> message.refCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(messages)
+                .allSatisfy(message -> assertThat(message.refCount()).isZero());
+    }
+
+    @Test
+    void resumes_session_of_shared_context() throws Exception {
+        // given
+        final var first = connect(this.clientContext);
+        final var firstSessionId = first.getSession().getId();
+        first.close();
+
+        // when
+        final var second = connect(this.clientContext);
+
+        // then
+        assertThat(second.getSession().getProtocol()).isEqualTo("TLSv1.2");
+        assertThat(second.getSession().getId()).isEqualTo(firstSessionId);
+
+        second.close();
+    }
+
+    @Test
+    void rejects_untrusted_certificate() throws Exception {
+        // expect
+        assertThatThrownBy(() -> connect(SSLContext.getDefault()))
+                .isInstanceOf(SSLException.class)
+                .hasMessageContaining("handshake failed");
+    }
+
+    private TlsSipTransport connect(SSLContext sslContext) throws IOException {
+        final var remote = new InetSocketAddress(InetAddress.getLoopbackAddress(), this.server.getLocalPort());
+        final var transport =
+                TlsSipTransport.connect(remote, "localhost", Duration.ofSeconds(5L), this.group.next(), sslContext);
+
+        transport.start(new SocketInConnectionReader(
+                new ClientTransactionLayer(),
+                new ServerTransactionLayer(transport::write, false),
+                new StatelessProbeResponder(transport::write),
+                new QueueingSipIncomingMessageHandler(),
+                1,
+                16));
+
+        return transport;
+    }
+
+    private static String readHeaders(InputStream in) throws IOException {
+        final var headers = new ByteArrayOutputStream();
+        while (!headers.toString(StandardCharsets.UTF_8).endsWith("\r\n\r\n")) {
+            final var next = in.read();
+            if (next == -1) {
+                break;
+            }
+            headers.write(next);
+        }
+
+        return headers.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(SSLSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException ioException) {
+            // ignore.
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.bmarwell.sipper.impl.SocketInConnectionReader;
+import io.github.bmarwell.sipper.impl.proto.QueueingSipIncomingMessageHandler;
+import io.github.bmarwell.sipper.impl.proto.SipMessageBuffer;
+import io.github.bmarwell.sipper.impl.proto.StatelessProbeResponder;
+import io.github.bmarwell.sipper.impl.transaction.ClientTransactionLayer;
+import io.github.bmarwell.sipper.impl.transaction.ServerTransactionLayer;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UdpSipTransportTest {
+
+    private final NioEventLoopGroup group = new NioEventLoopGroup(1, "test-udp-");
+
+    private DatagramSocket peer;
+    private UdpSipTransport transport;
+
+    @BeforeEach
+    void connect() throws IOException {
+        this.peer = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        this.peer.setSoTimeout(5_000);
+        this.transport = UdpSipTransport.connect(
+                (InetSocketAddress) this.peer.getLocalSocketAddress(), Duration.ofSeconds(2L), this.group.next());
+
+        this.transport.start(new SocketInConnectionReader(
+                new ClientTransactionLayer(),
+                new ServerTransactionLayer(this.transport::write, false),
+                new StatelessProbeResponder(this.transport::write),
+                new QueueingSipIncomingMessageHandler(),
+                1,
+                16));
+    }
+
+    @AfterEach
+    void close() {
+        this.transport.close();
+        this.peer.close();
+        this.group.close();
+    }
+
+    @Test
+    void answers_probe_datagram_with_datagram() throws IOException {
+        // given
+        final var options = ("OPTIONS sip:+4912345@127.0.0.1:5060 SIP/2.0\r\n"
+                        + "Via: SIP/2.0/UDP 127.0.0.1:5060;branch=z9hG4bK.1\r\n"
+                        + "From: <sip:tel.t-online.de>;tag=from1\r\n"
+                        + "To: <sip:+4912345@tel.t-online.de>\r\n"
+                        + "Call-ID: probe-1@host\r\n"
+                        + "CSeq: 42 OPTIONS\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+
+        // when
+        this.peer.send(new DatagramPacket(options, options.length, this.transport.getLocalAddress()));
+
+        // then
+        final var received = new DatagramPacket(new byte[2048], 2048);
+        this.peer.receive(received);
+        assertThat(new String(received.getData(), 0, received.getLength(), StandardCharsets.UTF_8))
+                .startsWith("SIP/2.0 200 OK\r\n")
+                .contains("CSeq: 42 OPTIONS\r\n");
+    }
+
+    @Test
+    void sends_small_requests_as_single_datagram() throws IOException {
+        // given
+        final var register = "REGISTER sip:tel.t-online.de SIP/2.0\r\nVia: SIP/2.0/UDP 127.0.0.1:5060\r\n\r\n";
+
+        // when
+        this.transport.write(SipMessageBuffer.acquire().append(register));
+
+        // then
+        final var received = new DatagramPacket(new byte[2048], 2048);
+        this.peer.receive(received);
+        assertThat(new String(received.getData(), 0, received.getLength(), StandardCharsets.UTF_8))
+                .isEqualTo(register);
+        assertThat(this.transport.isReliableFor(register.length())).isFalse();
+        assertThat(this.transport.isReliableFor(UdpSipTransport.MAX_DATAGRAM_SIZE + 1))
+                .isTrue();
+    }
+
+    @Test
+    void rewrites_top_via_for_tcp_fallback() {
+        // given
+        final var request = ("INVITE sip:a@b SIP/2.0\r\n"
+                        + "Via: SIP/2.0/UDP 10.0.0.2:5060;branch=z9hG4bK.1\r\n"
+                        + "Via: SIP/2.0/UDP 10.0.0.3:5060;branch=z9hG4bK.2\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+
+        // when
+        final var rewritten = UdpSipTransport.rewriteTopVia(request, new InetSocketAddress("10.0.0.2", 50123));
+
+        // then
+        assertThat(new String(rewritten, StandardCharsets.US_ASCII))
+                .contains("Via: SIP/2.0/TCP 10.0.0.2:50123;branch=z9hG4bK.1\r\n")
+                .contains("Via: SIP/2.0/UDP 10.0.0.3:5060;branch=z9hG4bK.2\r\n");
+    }
+}
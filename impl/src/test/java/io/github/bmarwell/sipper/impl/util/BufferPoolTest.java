@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+
+    @Test
+    void rounds_up_to_size_class() {
+        // expect
+        assertThat(BufferPool.sizeClass(1)).isZero();
+        assertThat(BufferPool.sizeClass(512)).isZero();
+        assertThat(BufferPool.sizeClass(513)).isEqualTo(1);
+        assertThat(BufferPool.sizeClass(4096)).isEqualTo(3);
+        assertThat(BufferPool.sizeClass(BufferPool.MAX_CLASS_SIZE)).isEqualTo(8);
+    }
+
+    @Test
+    void reuses_released_buffer() {
+        // given
+        final var pool = new BufferPool(false);
+        final var first = pool.acquire(1000);
+        first.put(0, (byte) 42).position(10);
+
+        // when
+        pool.release(first);
+        final var second = pool.acquire(600);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(second.capacity()).isEqualTo(1024);
+        assertThat(second.position()).isZero();
+        assertThat(pool.getAllocations()).isEqualTo(1L);
+        assertThat(pool.getReuses()).isEqualTo(1L);
+    }
+
+    @Test
+    void does_not_pool_oversized_or_foreign_buffers() {
+        // given
+        final var pool = new BufferPool(true);
+        final var oversized = pool.acquire(BufferPool.MAX_CLASS_SIZE + 1);
+
+        // when
+        pool.release(oversized);
+        pool.release(java.nio.ByteBuffer.allocate(1024));
+
+        // then
+        assertThat(oversized.isDirect()).isTrue();
+        assertThat(oversized.capacity()).isEqualTo(BufferPool.MAX_CLASS_SIZE + 1);
+        assertThat(pool.acquire(1024)).isNotNull().matches(java.nio.ByteBuffer::isDirect);
+        assertThat(pool.getReuses()).isZero();
+    }
+
+    @Test
+    void free_list_is_bounded() {
+        // given
+        final var pool = new BufferPool(false);
+        final var classSize = BufferPool.MAX_CLASS_SIZE;
+        final var bound = Math.max(8, BufferPool.MAX_POOLED_BYTES_PER_CLASS / classSize);
+        final var buffers = new java.util.ArrayList<java.nio.ByteBuffer>();
+        for (var i = 0; i < bound + 4; i++) {
+            buffers.add(pool.acquire(classSize));
+        }
+
+        // when
+        buffers.forEach(pool::release);
+        for (var i = 0; i < bound + 4; i++) {
+            pool.acquire(classSize);
+        }
+
+        // then
+        assertThat(pool.getReuses()).isEqualTo(bound);
+    }
+
+    @Test
+    void reports_owner_which_was_not_released() throws InterruptedException {
+        // given
+        assertThat(BufferPool.isLeakDetectionEnabled()).isTrue();
+        final var leaksBefore = BufferPool.getLeaks();
+        BufferPool.track(new Object());
+        BufferPool.track(new Object() {}).close();
+
+        // when
+        final var deadline = System.nanoTime() + Duration.ofSeconds(10L).toNanos();
+        while (BufferPool.getLeaks() == leaksBefore && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+
+        // then
+        assertThat(BufferPool.getLeaks()).isEqualTo(leaksBefore + 1L);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void fires_after_delay_including_extra_rounds() throws InterruptedException {
+        // given
+        final var fired = new CountDownLatch(1);
+        final var firedAt = new long[1];
+
+        try (var wheel = new HashedTimingWheel(Duration.ofMillis(5L), 8, "test-timer")) {
+            final var start = System.nanoTime();
+
+            // when
+            // 100 ms are 20 ticks, i.e. more than two rounds of the 8-bucket wheel.
+            final var timeout = wheel.schedule(
+                    () -> {
+                        firedAt[0] = System.nanoTime();
+                        fired.countDown();
+                    },
+                    Duration.ofMillis(100L));
+
+            // then
+            assertThat(fired.await(2L, TimeUnit.SECONDS)).isTrue();
+            assertThat(timeout.isExpired()).isTrue();
+            assertThat(Duration.ofNanos(firedAt[0] - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100L));
+        }
+    }
+
+    @Test
+    void cancelled_timeout_does_not_fire() throws InterruptedException {
+        // given
+        final var fired = new AtomicInteger();
+        final var marker = new CountDownLatch(1);
+
+        try (var wheel = new HashedTimingWheel(Duration.ofMillis(5L), 8, "test-timer")) {
+            final var timeout = wheel.schedule(fired::incrementAndGet, Duration.ofMillis(20L));
+            wheel.schedule(marker::countDown, Duration.ofMillis(60L));
+
+            // when
+            final var cancelled = timeout.cancel();
+
+            // then
+            assertThat(cancelled).isTrue();
+            assertThat(marker.await(2L, TimeUnit.SECONDS)).isTrue();
+            assertThat(fired).hasValue(0);
+            assertThat(timeout.cancel()).isFalse();
+        }
+    }
+
+    @Test
+    void fires_many_timeouts() throws InterruptedException {
+        // given
+        final var count = 10_000;
+        final var fired = new CountDownLatch(count);
+
+        try (var wheel = new HashedTimingWheel(Duration.ofMillis(1L), 64, "test-timer")) {
+            // when
+            for (var i = 0; i < count; i++) {
+                wheel.schedule(fired::countDown, Duration.ofMillis(i % 200));
+            }
+
+            // then
+            assertThat(fired.await(5L, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void shared_wheel_cannot_be_closed() {
+        // expect
+        assertThatThrownBy(() -> HashedTimingWheel.shared().close()).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.impl.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class MpscRingBufferTest {
+
+    @Test
+    void rejects_offers_when_full_and_frees_slots_on_poll() {
+        // given
+        final var buffer = new MpscRingBuffer<String>(2);
+
+        // expect
+        assertThat(buffer.offer("a")).isTrue();
+        assertThat(buffer.offer("b")).isTrue();
+        assertThat(buffer.offer("c")).isFalse();
+        assertThat(buffer.poll()).isEqualTo("a");
+        assertThat(buffer.offer("c")).isTrue();
+        assertThat(buffer.poll()).isEqualTo("b");
+        assertThat(buffer.poll()).isEqualTo("c");
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejects_capacity_which_is_not_a_power_of_two() {
+        // expect
+        assertThatThrownBy(() -> new MpscRingBuffer<String>(100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void keeps_order_of_each_producer() {
+        // given
+        final var producers = 4;
+        final var perProducer = 5_000;
+        final var buffer = new MpscRingBuffer<long[]>(64);
+        final var lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1L);
+
+        // when
+        try (var executor = Executors.newFixedThreadPool(producers)) {
+            for (var p = 0; p < producers; p++) {
+                final long producer = p;
+                executor.execute(() -> {
+                    for (long i = 0; i < perProducer; i++) {
+                        final var element = new long[] {producer, i};
+                        while (!buffer.offer(element)) {
+                            // yield instead of spinning, so a single-core runner reaches the consumer quickly.
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+
+            var received = 0;
+            while (received < producers * perProducer) {
+                final var element = buffer.poll();
+                if (element == null) {
+                    Thread.yield();
+                    continue;
+                }
+
+                // then
+                final var producer = (int) element[0];
+                assertThat(element[1]).isEqualTo(lastSeen[producer] + 1);
+                lastSeen[producer] = element[1];
+                received++;
+            }
+        }
+
+        assertThat(lastSeen).containsOnly(perProducer - 1L);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens {@link RtpSession}s and spreads them over a fixed set of event loops.
+ *
+ * <p>Each loop serves its sessions from a single platform thread, so thousands of concurrent streams need no
+ * more threads than there are loops. Local ports are taken from a {@link PortPool}.</p>
+ */
+public final class MediaEngine implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaEngine.class);
+
+    /** The packetization interval of all sessions. */
+    public static final Duration DEFAULT_PTIME = Duration.ofMillis(20L);
+
+    /** The nominal RTCP report interval (RFC 3550, section 6.2). */
+    public static final Duration DEFAULT_RTCP_INTERVAL = Duration.ofSeconds(5L);
+
+    /** Number of ports tried if other applications use some of the pool's ports. */
+    private static final int MAX_BIND_ATTEMPTS = 16;
+
+    private final InetAddress bindAddress;
+    private final PortPool ports;
+    private final long ptimeNanos;
+    private final long rtcpIntervalNanos;
+    private final MediaEventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Creates an engine with one loop per core and the default port range.
+     *
+     * @param bindAddress the local address to receive media on.
+     */
+    public MediaEngine(InetAddress bindAddress) {
+        this(
+                bindAddress,
+                new PortPool(),
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_PTIME,
+                DEFAULT_RTCP_INTERVAL);
+    }
+
+    /**
+     * Creates and starts an engine.
+     *
+     * @param bindAddress the local address to receive media on.
+     * @param ports the pool of local ports.
+     * @param loopCount the number of loops, each with its own selector and thread.
+     * @param ptime the packetization interval of all sessions.
+     * @param rtcpInterval the nominal interval between two RTCP reports of a session.
+     */
+    public MediaEngine(InetAddress bindAddress, PortPool ports, int loopCount, Duration ptime, Duration rtcpInterval) {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("Loop count must be positive, but was: " + loopCount);
+        }
+
+        if (ptime.isNegative() || ptime.isZero() || rtcpInterval.isNegative() || rtcpInterval.isZero()) {
+            throw new IllegalArgumentException("Intervals must be positive, but were: " + ptime + ", " + rtcpInterval);
+        }
+
+        this.bindAddress = bindAddress;
+        this.ports = ports;
+        this.ptimeNanos = ptime.toNanos();
+        this.rtcpIntervalNanos = rtcpInterval.toNanos();
+        this.loops = new MediaEventLoop[loopCount];
+        for (var i = 0; i < loopCount; i++) {
+            this.loops[i] = new MediaEventLoop("sipper-media-" + i, this.ptimeNanos);
+        }
+    }
+
+    /**
+     * Opens a session on the next port pair and loop. It sends nothing until it is connected.
+     *
+     * @param payloadType the payload type to send with, as negotiated.
+     * @param clockRate the RTP clock rate of the payload format.
+     * @param source provides the payload of every packet.
+     * @param handler receives the packets of the remote side.
+     * @return the new session.
+     * @throws IOException if no port pair can be bound.
+     */
+    public RtpSession open(int payloadType, int clockRate, MediaSource source, RtpHandler handler) throws IOException {
+        IOException firstProblem = null;
+
+        for (var attempt = 0; attempt < MAX_BIND_ATTEMPTS; attempt++) {
+            final var port = this.ports.acquire();
+            DatagramChannel rtp = null;
+            DatagramChannel rtcp = null;
+            try {
+                rtp = bind(port);
+                rtcp = bind(port + 1);
+            } catch (BindException bindException) {
+                LOG.debug("Port pair [{}] is in use by another application.", port, bindException);
+                closeQuietly(rtp);
+                this.ports.release(port);
+                if (firstProblem == null) {
+                    firstProblem = bindException;
+                }
+                continue;
+            } catch (IOException ioException) {
+                closeQuietly(rtp);
+                this.ports.release(port);
+                throw ioException;
+            }
+
+            final var loop = this.loops[Math.floorMod(this.next.getAndIncrement(), this.loops.length)];
+            final var session = new RtpSession(
+                    loop,
+                    this.ports,
+                    rtp,
+                    rtcp,
+                    port,
+                    payloadType,
+                    clockRate,
+                    this.ptimeNanos,
+                    this.rtcpIntervalNanos,
+                    source,
+                    handler);
+            loop.add(session);
+
+            return session;
+        }
+
+        throw new IOException("Unable to bind any port pair after " + MAX_BIND_ATTEMPTS + " attempts.", firstProblem);
+    }
+
+    private DatagramChannel bind(int port) throws IOException {
+        final var channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(this.bindAddress, port));
+            return channel;
+        } catch (IOException ioException) {
+            channel.close();
+            throw ioException;
+        }
+    }
+
+    private static void closeQuietly(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing channel.", ioException);
+        }
+    }
+
+    /**
+     * Returns the number of sessions of all loops.
+     *
+     * @return the number of open sessions.
+     */
+    public int sessionCount() {
+        var count = 0;
+        for (var loop : this.loops) {
+            count += loop.sessionCount();
+        }
+
+        return count;
+    }
+
+    public PortPool ports() {
+        return this.ports;
+    }
+
+    /**
+     * Stops all loops and closes their sessions without sending BYE.
+     */
+    @Override
+    public void close() {
+        for (var loop : this.loops) {
+            loop.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One selector and the platform thread which runs it, serving any number of {@link RtpSession}s.
+ *
+ * <p>The loop wakes up for received datagrams and once per packetization interval, when every connected
+ * session sends its next packet. Received and sent packets go through one {@link RtpPacket} each and RTCP
+ * through one buffer, all allocated once per loop, so the packet path does not allocate.</p>
+ *
+ * <p>Everything touching the selector's keys or a session's state runs on the loop thread. Other threads
+ * submit tasks with {@link #execute(Runnable)}.</p>
+ */
+final class MediaEventLoop implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaEventLoop.class);
+
+    private final Selector selector;
+    private final long tickNanos;
+    private final RtpPacket receivePacket = new RtpPacket();
+    private final RtpPacket sendPacket = new RtpPacket();
+    private final ByteBuffer rtcpBuffer = ByteBuffer.allocateDirect(RtpPacket.MAX_PACKET_SIZE);
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /** Loop thread only. */
+    private final List<RtpSession> sessions = new ArrayList<>();
+
+    private final Thread thread;
+
+    private volatile int sessionCount;
+    private volatile boolean closed = false;
+
+    /**
+     * Opens a selector and starts the loop thread.
+     *
+     * @param threadName the name of the loop thread.
+     * @param tickNanos the packetization interval.
+     * @throws UncheckedIOException if no selector can be opened.
+     */
+    MediaEventLoop(String threadName, long tickNanos) {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to open selector.", ioException);
+        }
+
+        this.tickNanos = tickNanos;
+        this.thread = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    /**
+     * Runs a task on the loop thread, after the keys currently selected were processed.
+     *
+     * @param task the task, which must not block.
+     * @throws IllegalStateException if the loop is closed.
+     */
+    void execute(Runnable task) {
+        if (this.closed) {
+            throw new IllegalStateException("Media event loop is closed.");
+        }
+
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Adds a session, whose channels are registered on the loop thread.
+     *
+     * @param session the new session.
+     */
+    void add(RtpSession session) {
+        execute(() -> {
+            try {
+                session.register();
+                this.sessions.add(session);
+                this.sessionCount = this.sessions.size();
+            } catch (IOException ioException) {
+                LOG.error("Unable to register session [{}].", session, ioException);
+                session.closeChannels();
+            }
+        });
+    }
+
+    /**
+     * Removes a session. Loop thread only.
+     */
+    void remove(RtpSession session) {
+        this.sessions.remove(session);
+        this.sessionCount = this.sessions.size();
+    }
+
+    int sessionCount() {
+        return this.sessionCount;
+    }
+
+    Selector selector() {
+        return this.selector;
+    }
+
+    /**
+     * The RTCP buffer of the loop. Loop thread only.
+     */
+    ByteBuffer rtcpBuffer() {
+        return this.rtcpBuffer;
+    }
+
+    private void run() {
+        var nextTick = System.nanoTime() + this.tickNanos;
+
+        while (!this.closed) {
+            try {
+                final var wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    // round up, so the loop does not spin during the last partial millisecond.
+                    this.selector.select((wait + 999_999L) / 1_000_000L);
+                } else {
+                    this.selector.selectNow();
+                }
+
+                final var now = System.nanoTime();
+                runTasks();
+                processSelectedKeys(now);
+
+                if (now - nextTick >= 0) {
+                    tick(now);
+                    nextTick += this.tickNanos;
+                    if (now - nextTick >= this.tickNanos) {
+                        // fell behind, e.g. after a long GC pause: skip the missed ticks instead of bursting.
+                        nextTick = now + this.tickNanos;
+                    }
+                }
+            } catch (IOException ioException) {
+                LOG.error("Problem while selecting.", ioException);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Unexpected problem in media event loop.", rtEx);
+            }
+        }
+
+        closeSessions();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException rtEx) {
+                LOG.error("Unable to run task [{}].", task, rtEx);
+            }
+        }
+    }
+
+    private void processSelectedKeys(long now) {
+        final var selectedKeys = this.selector.selectedKeys();
+        for (var key : selectedKeys) {
+            final var session = (RtpSession) key.attachment();
+
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    session.onReadable(key, this.receivePacket, now);
+                }
+            } catch (CancelledKeyException cancelled) {
+                // closed concurrently.
+            } catch (IOException | RuntimeException exception) {
+                LOG.error("Problem on [{}], closing.", session, exception);
+                session.closeChannels();
+            }
+        }
+
+        selectedKeys.clear();
+    }
+
+    private void tick(long now) {
+        for (var i = 0; i < this.sessions.size(); i++) {
+            final var session = this.sessions.get(i);
+            try {
+                session.onTick(this.sendPacket, this.rtcpBuffer, now);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem while sending on [{}].", session, rtEx);
+            }
+        }
+    }
+
+    private void closeSessions() {
+        runTasks();
+
+        for (var session : List.copyOf(this.sessions)) {
+            session.closeChannels();
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing selector.", ioException);
+        }
+    }
+
+    /**
+     * Stops the loop and closes all of its sessions.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.selector.wakeup();
+    }
+
+    @Override
+    public String toString() {
+        return "MediaEventLoop[thread=" + this.thread.getName() + ", sessions=" + this.sessionCount + "]";
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the payload of the packets a {@link RtpSession} sends.
+ */
+@FunctionalInterface
+public interface MediaSource {
+
+    /**
+     * Called on the session's event loop once per packetization interval. Must not block.
+     *
+     * @param session the sending session.
+     * @param payload the buffer to put the payload of the next packet into, starting at its position. Nothing is
+     *     sent if nothing was put, e.g. during silence; the next packet then starts a new talkspurt.
+     */
+    void fill(RtpSession session, ByteBuffer payload);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free pool of local RTP ports.
+ *
+ * <p>Ports are handed out in pairs, the even one for RTP and the next odd one for RTCP (RFC 3550,
+ * section 11). Each pair is one bit of a bitmap, which is claimed and freed with a compare-and-set. The
+ * search starts where the previous one ended, so a released pair is not reused right away and late packets
+ * of an ended call do not reach the next one.</p>
+ */
+public final class PortPool {
+
+    public static final int DEFAULT_MIN_PORT = 16384;
+
+    public static final int DEFAULT_MAX_PORT = 32767;
+
+    private final int minPort;
+    private final int pairs;
+    private final AtomicLongArray bitmap;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    public PortPool() {
+        this(DEFAULT_MIN_PORT, DEFAULT_MAX_PORT);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param minPort the lowest port, rounded up to an even one.
+     * @param maxPort the highest port, which may be used for RTCP.
+     */
+    public PortPool(int minPort, int maxPort) {
+        final var first = (minPort + 1) & ~1;
+        if (first < 1024 || maxPort > 65535 || maxPort <= first) {
+            throw new IllegalArgumentException("Illegal port range: " + minPort + "-" + maxPort);
+        }
+
+        this.minPort = first;
+        this.pairs = (maxPort - first + 1) / 2;
+        this.bitmap = new AtomicLongArray((this.pairs + 63) / 64);
+    }
+
+    /**
+     * Claims a pair of ports.
+     *
+     * @return the even RTP port; the RTCP port is the next one.
+     * @throws IllegalStateException if all ports are in use.
+     */
+    public int acquire() {
+        final var start = Math.floorMod(this.cursor.getAndIncrement(), this.pairs);
+
+        for (var i = 0; i < this.pairs; i++) {
+            final var pair = (start + i) % this.pairs;
+            final var word = pair >>> 6;
+            final var bit = 1L << (pair & 63);
+
+            var current = this.bitmap.get(word);
+            while ((current & bit) == 0) {
+                final var witness = this.bitmap.compareAndExchange(word, current, current | bit);
+                if (witness == current) {
+                    this.cursor.set(pair + 1);
+                    return this.minPort + pair * 2;
+                }
+                current = witness;
+            }
+        }
+
+        throw new IllegalStateException(
+                "All " + this.pairs + " port pairs starting at " + this.minPort + " are in use.");
+    }
+
+    /**
+     * Returns a pair of ports to the pool.
+     *
+     * @param rtpPort the port returned by {@link #acquire()}.
+     */
+    public void release(int rtpPort) {
+        final var pair = (rtpPort - this.minPort) / 2;
+        if (pair < 0 || pair >= this.pairs || (rtpPort & 1) != 0) {
+            throw new IllegalArgumentException("Port " + rtpPort + " does not belong to this pool.");
+        }
+
+        final var word = pair >>> 6;
+        final var bit = 1L << (pair & 63);
+        final var previous = this.bitmap.getAndUpdate(word, current -> current & ~bit);
+        if ((previous & bit) == 0) {
+            throw new IllegalStateException("Port " + rtpPort + " was not in use.");
+        }
+    }
+
+    public int capacity() {
+        return this.pairs;
+    }
+
+    /**
+     * Counts the pairs in use, which is only an estimate while other threads acquire or release ports.
+     *
+     * @return the number of pairs in use.
+     */
+    public int inUse() {
+        var count = 0;
+        for (var i = 0; i < this.bitmap.length(); i++) {
+            count += Long.bitCount(this.bitmap.get(i));
+        }
+
+        return count;
+    }
+}
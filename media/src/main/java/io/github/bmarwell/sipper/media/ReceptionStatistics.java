@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+/**
+ * Sequence number and jitter tracking of one remote source, as needed for reception reports.
+ *
+ * <p>Follows the algorithms of RFC 3550, appendix A.1 (sequence number validation, including wrap-around
+ * and restarts), A.3 (expected and lost packets) and A.8 (interarrival jitter). Only touched by the event
+ * loop thread of its session.</p>
+ */
+public final class ReceptionStatistics {
+
+    /** Packets in sequence needed before a source is considered valid. */
+    static final int MIN_SEQUENTIAL = 2;
+
+    static final int MAX_DROPOUT = 3000;
+
+    static final int MAX_MISORDER = 100;
+
+    private static final int RTP_SEQ_MOD = 1 << 16;
+
+    private int ssrc;
+    private boolean initialized;
+
+    private int maxSequence;
+    private int cycles;
+    private int baseSequence;
+    private int badSequence = RTP_SEQ_MOD + 1;
+    private int probation;
+    private long received;
+    private long expectedPrior;
+    private long receivedPrior;
+
+    private long transit;
+    private boolean hasTransit;
+    private double jitter;
+
+    public ReceptionStatistics() {
+        // tracks the first source seen.
+    }
+
+    /**
+     * Records a received packet.
+     *
+     * @param packet the parsed packet.
+     * @param arrival the arrival time in units of the RTP clock.
+     * @return {@code false} if the packet was dropped as out of sequence, e.g. while the source is on probation.
+     */
+    public boolean update(RtpPacket packet, long arrival) {
+        final var sequence = packet.sequenceNumber();
+
+        if (!this.initialized || packet.ssrc() != this.ssrc) {
+            this.ssrc = packet.ssrc();
+            this.initialized = true;
+            initSequence(sequence);
+            this.maxSequence = sequence - 1;
+            this.probation = MIN_SEQUENTIAL;
+            this.hasTransit = false;
+            this.jitter = 0;
+        }
+
+        if (!updateSequence(sequence)) {
+            return false;
+        }
+
+        updateJitter(packet.timestamp(), arrival);
+        return true;
+    }
+
+    private void initSequence(int sequence) {
+        this.baseSequence = sequence;
+        this.maxSequence = sequence;
+        this.badSequence = RTP_SEQ_MOD + 1;
+        this.cycles = 0;
+        this.received = 0;
+        this.receivedPrior = 0;
+        this.expectedPrior = 0;
+    }
+
+    private boolean updateSequence(int sequence) {
+        final var delta = (sequence - this.maxSequence) & 0xFFFF;
+
+        if (this.probation > 0) {
+            // the source is valid once MIN_SEQUENTIAL packets arrived in sequence.
+            if (sequence == ((this.maxSequence + 1) & 0xFFFF)) {
+                this.probation--;
+                this.maxSequence = sequence;
+                if (this.probation == 0) {
+                    initSequence(sequence);
+                    this.received++;
+                    return true;
+                }
+            } else {
+                this.probation = MIN_SEQUENTIAL - 1;
+                this.maxSequence = sequence;
+            }
+
+            return false;
+        }
+
+        if (delta < MAX_DROPOUT) {
+            // in order, with permissible gap.
+            if (sequence < this.maxSequence) {
+                this.cycles += RTP_SEQ_MOD;
+            }
+            this.maxSequence = sequence;
+        } else if (delta <= RTP_SEQ_MOD - MAX_MISORDER) {
+            // a very large jump: the sender may have restarted, which is accepted on the second packet.
+            if (sequence == this.badSequence) {
+                initSequence(sequence);
+            } else {
+                this.badSequence = (sequence + 1) & 0xFFFF;
+                return false;
+            }
+        }
+        // else: duplicate or reordered packet, which is counted.
+
+        this.received++;
+        return true;
+    }
+
+    private void updateJitter(long rtpTimestamp, long arrival) {
+        final var currentTransit = arrival - rtpTimestamp;
+        if (this.hasTransit) {
+            final var difference = Math.abs(currentTransit - this.transit);
+            this.jitter += (difference - this.jitter) / 16.0;
+        }
+
+        this.transit = currentTransit;
+        this.hasTransit = true;
+    }
+
+    public boolean isValid() {
+        return this.initialized && this.probation == 0;
+    }
+
+    public int ssrc() {
+        return this.ssrc;
+    }
+
+    /**
+     * Returns the extended highest sequence number received, including wrap-arounds.
+     *
+     * @return the extended sequence number.
+     */
+    public long extendedHighestSequence() {
+        return (long) this.cycles + this.maxSequence;
+    }
+
+    public long expected() {
+        return extendedHighestSequence() - this.baseSequence + 1;
+    }
+
+    public long received() {
+        return this.received;
+    }
+
+    /**
+     * Returns the cumulative number of packets lost, which is negative if duplicates arrived.
+     *
+     * @return the number of lost packets.
+     */
+    public long cumulativeLost() {
+        return expected() - this.received;
+    }
+
+    /**
+     * Computes the fraction of packets lost since the previous call and starts a new interval.
+     *
+     * @return the fraction lost as an 8 bit fixed point number.
+     */
+    public int nextFractionLost() {
+        final var expected = expected();
+        final var expectedInterval = expected - this.expectedPrior;
+        this.expectedPrior = expected;
+        final var receivedInterval = this.received - this.receivedPrior;
+        this.receivedPrior = this.received;
+
+        final var lostInterval = expectedInterval - receivedInterval;
+        if (expectedInterval == 0 || lostInterval <= 0) {
+            return 0;
+        }
+
+        return (int) Math.min(255L, (lostInterval << 8) / expectedInterval);
+    }
+
+    /**
+     * Returns the interarrival jitter.
+     *
+     * @return the jitter in units of the RTP clock.
+     */
+    public long jitter() {
+        return (long) this.jitter;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads RTCP packets (RFC 3550, section 6) directly in a buffer.
+ */
+final class Rtcp {
+
+    static final int SENDER_REPORT = 200;
+    static final int RECEIVER_REPORT = 201;
+    static final int SOURCE_DESCRIPTION = 202;
+    static final int BYE = 203;
+
+    private static final int SDES_CNAME = 1;
+
+    /** Seconds from 1900-01-01, the NTP epoch, to 1970-01-01. */
+    private static final long NTP_EPOCH_OFFSET = 2_208_988_800L;
+
+    private Rtcp() {
+        // util class
+    }
+
+    /**
+     * Converts wall clock time to a 64 bit NTP timestamp.
+     *
+     * @param epochMillis milliseconds since 1970-01-01.
+     * @return seconds since 1900 in the upper, the fraction of a second in the lower 32 bits.
+     */
+    static long ntpTimestamp(long epochMillis) {
+        final var seconds = epochMillis / 1000L + NTP_EPOCH_OFFSET;
+        final var fraction = ((epochMillis % 1000L) << 32) / 1000L;
+        return (seconds << 32) | fraction;
+    }
+
+    /**
+     * Returns the middle 32 bits of an NTP timestamp, as used for LSR.
+     *
+     * @param ntpTimestamp the NTP timestamp.
+     * @return the compact timestamp.
+     */
+    static long compactNtp(long ntpTimestamp) {
+        return (ntpTimestamp >>> 16) & 0xFFFF_FFFFL;
+    }
+
+    static void writeSenderReport(
+            ByteBuffer out,
+            int ssrc,
+            long ntpTimestamp,
+            long rtpTimestamp,
+            long packetCount,
+            long octetCount,
+            int reportCount) {
+        writeHeader(out, reportCount, SENDER_REPORT, 6 + 6 * reportCount);
+        out.putInt(ssrc);
+        out.putLong(ntpTimestamp);
+        out.putInt((int) rtpTimestamp);
+        out.putInt((int) packetCount);
+        out.putInt((int) octetCount);
+    }
+
+    static void writeReceiverReport(ByteBuffer out, int ssrc, int reportCount) {
+        writeHeader(out, reportCount, RECEIVER_REPORT, 1 + 6 * reportCount);
+        out.putInt(ssrc);
+    }
+
+    /**
+     * Writes a report block about a remote source.
+     *
+     * @param out the buffer.
+     * @param statistics the reception statistics of the source.
+     * @param lastSenderReport the compact NTP timestamp of the last sender report of the source, or 0.
+     * @param delaySinceLastSenderReport the time since that report in units of 1/65536 seconds, or 0.
+     */
+    static void writeReportBlock(
+            ByteBuffer out, ReceptionStatistics statistics, long lastSenderReport, long delaySinceLastSenderReport) {
+        final var lost = Math.clamp(statistics.cumulativeLost(), -0x80_0000L, 0x7F_FFFFL);
+
+        out.putInt(statistics.ssrc());
+        out.putInt((statistics.nextFractionLost() << 24) | (int) (lost & 0xFF_FFFFL));
+        out.putInt((int) statistics.extendedHighestSequence());
+        out.putInt((int) statistics.jitter());
+        out.putInt((int) lastSenderReport);
+        out.putInt((int) delaySinceLastSenderReport);
+    }
+
+    static void writeSourceDescription(ByteBuffer out, int ssrc, byte[] cname) {
+        // SSRC, CNAME item and at least one null octet ending the item list, padded to 32 bits.
+        final var chunkLength = (4 + 2 + cname.length + 1 + 3) & ~3;
+        writeHeader(out, 1, SOURCE_DESCRIPTION, chunkLength / 4);
+        out.putInt(ssrc);
+        out.put((byte) SDES_CNAME);
+        out.put((byte) cname.length);
+        out.put(cname);
+
+        for (var i = 4 + 2 + cname.length; i < chunkLength; i++) {
+            out.put((byte) 0);
+        }
+    }
+
+    static void writeBye(ByteBuffer out, int ssrc) {
+        writeHeader(out, 1, BYE, 1);
+        out.putInt(ssrc);
+    }
+
+    private static void writeHeader(ByteBuffer out, int count, int packetType, int lengthInWordsMinusOne) {
+        out.put((byte) ((RtpPacket.VERSION << 6) | count));
+        out.put((byte) packetType);
+        out.putShort((short) lengthInWordsMinusOne);
+    }
+
+    /**
+     * Reads a compound packet and passes what a session needs to know to it.
+     *
+     * @param in the packet between position 0 and the buffer's position.
+     * @param session the receiving session.
+     * @param nowNanos the arrival time.
+     * @return {@code false} if the packet is malformed; everything before the problem was processed.
+     */
+    static boolean read(ByteBuffer in, RtpSession session, long nowNanos) {
+        final var length = in.position();
+        var offset = 0;
+
+        while (offset + 4 <= length) {
+            final var first = in.get(offset);
+            if ((first & 0xC0) >>> 6 != RtpPacket.VERSION) {
+                return false;
+            }
+
+            final var packetType = in.get(offset + 1) & 0xFF;
+            final var packetLength = ((in.getShort(offset + 2) & 0xFFFF) + 1) * 4;
+            if (offset + packetLength > length) {
+                return false;
+            }
+
+            switch (packetType) {
+                case SENDER_REPORT -> {
+                    if (packetLength >= 28) {
+                        session.onSenderReport(in.getInt(offset + 4), compactNtp(in.getLong(offset + 8)), nowNanos);
+                    }
+                }
+                case BYE -> session.onBye();
+                default -> {
+                    // receiver reports and source descriptions are not evaluated.
+                }
+            }
+
+            offset += packetLength;
+        }
+
+        return offset == length;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+/**
+ * Receives the RTP packets of a {@link RtpSession}.
+ */
+@FunctionalInterface
+public interface RtpHandler {
+
+    /**
+     * Called on the session's event loop for every valid packet of the remote source. Must not block.
+     *
+     * @param session the receiving session.
+     * @param packet the packet, which is reused and thus only valid during this call.
+     */
+    void onPacket(RtpSession session, RtpPacket packet);
+}
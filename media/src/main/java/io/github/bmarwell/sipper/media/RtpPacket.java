@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable RTP packet (RFC 3550, section 5.1) backed by a preallocated buffer.
+ *
+ * <p>Received packets are read into {@link #buffer()} and decoded in place by {@link #parse()}; the header
+ * fields are kept as primitives, the payload stays in the buffer. Packets to be sent get their header written
+ * by {@link #writeHeader(boolean, int, int, long, int)}, followed by the payload. Neither allocates, so one
+ * instance can serve every packet of an event loop.</p>
+ */
+public final class RtpPacket {
+
+    public static final int VERSION = 2;
+
+    public static final int HEADER_SIZE = 12;
+
+    /** Large enough for any packet which fits into an Ethernet frame. */
+    public static final int MAX_PACKET_SIZE = 1500;
+
+    private final ByteBuffer buffer;
+
+    private boolean marker;
+    private int payloadType;
+    private int sequenceNumber;
+    private long timestamp;
+    private int ssrc;
+    private int payloadOffset;
+    private int payloadLength;
+
+    public RtpPacket() {
+        this(ByteBuffer.allocateDirect(MAX_PACKET_SIZE));
+    }
+
+    RtpPacket(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the buffer holding the packet, from position 0 to its limit.
+     *
+     * @return the backing buffer.
+     */
+    public ByteBuffer buffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Decodes the header of the packet between position 0 and the buffer's position, e.g. after a read.
+     *
+     * @return {@code false} if the bytes are no valid RTP packet, e.g. version, length or padding do not fit.
+     */
+    public boolean parse() {
+        final var length = this.buffer.position();
+        if (length < HEADER_SIZE) {
+            return false;
+        }
+
+        final var first = this.buffer.get(0);
+        if ((first & 0xC0) >>> 6 != VERSION) {
+            return false;
+        }
+
+        final var second = this.buffer.get(1);
+        this.marker = (second & 0x80) != 0;
+        this.payloadType = second & 0x7F;
+        this.sequenceNumber = this.buffer.getShort(2) & 0xFFFF;
+        this.timestamp = this.buffer.getInt(4) & 0xFFFF_FFFFL;
+        this.ssrc = this.buffer.getInt(8);
+
+        var offset = HEADER_SIZE + (first & 0x0F) * 4;
+        if ((first & 0x10) != 0) {
+            // header extension: 16 bit profile, 16 bit length in words.
+            if (offset + 4 > length) {
+                return false;
+            }
+            offset += 4 + (this.buffer.getShort(offset + 2) & 0xFFFF) * 4;
+        }
+
+        var end = length;
+        if ((first & 0x20) != 0) {
+            end -= this.buffer.get(length - 1) & 0xFF;
+        }
+
+        if (offset > end) {
+            return false;
+        }
+
+        this.payloadOffset = offset;
+        this.payloadLength = end - offset;
+        return true;
+    }
+
+    /**
+     * Clears the buffer and writes a header without CSRCs or extension; the payload is then put at position
+     * {@link #HEADER_SIZE}.
+     *
+     * @param marker the marker bit, e.g. for the first packet of a talkspurt.
+     * @param payloadType the payload type.
+     * @param sequenceNumber the sequence number, of which the lower 16 bits are used.
+     * @param timestamp the RTP timestamp, of which the lower 32 bits are used.
+     * @param ssrc the synchronization source.
+     */
+    public void writeHeader(boolean marker, int payloadType, int sequenceNumber, long timestamp, int ssrc) {
+        this.buffer.clear();
+        this.buffer.put((byte) (VERSION << 6));
+        this.buffer.put((byte) ((marker ? 0x80 : 0) | (payloadType & 0x7F)));
+        this.buffer.putShort((short) sequenceNumber);
+        this.buffer.putInt((int) timestamp);
+        this.buffer.putInt(ssrc);
+
+        this.marker = marker;
+        this.payloadType = payloadType & 0x7F;
+        this.sequenceNumber = sequenceNumber & 0xFFFF;
+        this.timestamp = timestamp & 0xFFFF_FFFFL;
+        this.ssrc = ssrc;
+        this.payloadOffset = HEADER_SIZE;
+        this.payloadLength = 0;
+    }
+
+    public boolean marker() {
+        return this.marker;
+    }
+
+    public int payloadType() {
+        return this.payloadType;
+    }
+
+    public int sequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    /**
+     * Returns the RTP timestamp.
+     *
+     * @return the timestamp as an unsigned 32 bit value.
+     */
+    public long timestamp() {
+        return this.timestamp;
+    }
+
+    public int ssrc() {
+        return this.ssrc;
+    }
+
+    /**
+     * Returns the offset of the payload in {@link #buffer()}.
+     *
+     * @return the offset behind header, CSRCs and extension.
+     */
+    public int payloadOffset() {
+        return this.payloadOffset;
+    }
+
+    /**
+     * Returns the length of the payload, without padding.
+     *
+     * @return the number of payload bytes.
+     */
+    public int payloadLength() {
+        return this.payloadLength;
+    }
+
+    @Override
+    public String toString() {
+        return "RtpPacket[pt=" + this.payloadType + ", seq=" + this.sequenceNumber + ", ts=" + this.timestamp
+                + ", ssrc=" + Integer.toUnsignedString(this.ssrc) + ", payload=" + this.payloadLength + "]";
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One RTP session: a pair of datagram channels for RTP and RTCP, served by one {@link MediaEventLoop}.
+ *
+ * <p>Once per packetization interval the loop asks the {@link MediaSource} for a payload and sends it with the
+ * next sequence number and timestamp. Received packets are validated and tracked in
+ * {@link ReceptionStatistics} before they reach the {@link RtpHandler}. Sender or receiver reports are sent
+ * in randomized intervals (RFC 3550, section 6.2), and a BYE when the session is closed.</p>
+ *
+ * <p>After {@link #connect(InetSocketAddress)}, both channels are connected to the remote side, so reads and
+ * writes do not create address objects. All state is owned by the loop thread; the getters may be called from
+ * any thread.</p>
+ */
+public final class RtpSession implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RtpSession.class);
+
+    /** Maximum number of datagrams read from one channel before the next channel gets its turn. */
+    private static final int READ_BUDGET = 16;
+
+    private final MediaEventLoop loop;
+    private final PortPool ports;
+    private final DatagramChannel rtpChannel;
+    private final DatagramChannel rtcpChannel;
+    private final int localPort;
+
+    private final int ssrc = ThreadLocalRandom.current().nextInt();
+    private final byte[] cname;
+    private final int payloadType;
+    private final int clockRate;
+    private final int samplesPerPacket;
+    private final long rtcpIntervalNanos;
+    private final long startNanos = System.nanoTime();
+
+    private final MediaSource source;
+    private final RtpHandler handler;
+    private final ReceptionStatistics statistics = new ReceptionStatistics();
+
+    private SelectionKey rtpKey;
+    private SelectionKey rtcpKey;
+
+    private int sequenceNumber = ThreadLocalRandom.current().nextInt(1 << 16);
+    private long timestamp = ThreadLocalRandom.current().nextInt() & 0xFFFF_FFFFL;
+    private boolean talkspurt = true;
+    private long nextRtcpNanos;
+
+    private long lastSenderReport;
+    private long lastSenderReportArrival;
+
+    private volatile InetSocketAddress remote;
+    private volatile boolean closed = false;
+
+    private volatile long packetsSent;
+    private volatile long octetsSent;
+    private volatile long packetsReceived;
+    private volatile long senderReportsReceived;
+    private volatile boolean byeReceived;
+
+    RtpSession(
+            MediaEventLoop loop,
+            PortPool ports,
+            DatagramChannel rtpChannel,
+            DatagramChannel rtcpChannel,
+            int localPort,
+            int payloadType,
+            int clockRate,
+            long packetizationNanos,
+            long rtcpIntervalNanos,
+            MediaSource source,
+            RtpHandler handler) {
+        this.loop = loop;
+        this.ports = ports;
+        this.rtpChannel = rtpChannel;
+        this.rtcpChannel = rtcpChannel;
+        this.localPort = localPort;
+        this.payloadType = payloadType;
+        this.clockRate = clockRate;
+        this.samplesPerPacket = (int) (clockRate * packetizationNanos / 1_000_000_000L);
+        this.rtcpIntervalNanos = rtcpIntervalNanos;
+        this.source = source;
+        this.handler = handler;
+        // RFC 7022: a random CNAME per session, which does not reveal the user or host.
+        this.cname = HexFormat.of()
+                .toHexDigits(ThreadLocalRandom.current().nextLong())
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Registers the channels with the loop. Loop thread only.
+     */
+    void register() throws IOException {
+        this.rtpKey = this.rtpChannel.register(this.loop.selector(), SelectionKey.OP_READ, this);
+        this.rtcpKey = this.rtcpChannel.register(this.loop.selector(), SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Starts sending to the remote side, e.g. as negotiated by SDP. RTCP goes to the next higher port.
+     *
+     * @param remoteRtp the address and port the remote side receives RTP on.
+     */
+    public void connect(InetSocketAddress remoteRtp) {
+        this.loop.execute(() -> {
+            try {
+                this.rtpChannel.connect(remoteRtp);
+                this.rtcpChannel.connect(new InetSocketAddress(remoteRtp.getAddress(), remoteRtp.getPort() + 1));
+                this.remote = remoteRtp;
+                this.nextRtcpNanos = System.nanoTime() + nextRtcpInterval();
+            } catch (IOException ioException) {
+                LOG.error("Unable to connect session [{}] to [{}].", this, remoteRtp, ioException);
+            }
+        });
+    }
+
+    /**
+     * Reads pending datagrams from the channel of the given key. Loop thread only.
+     */
+    void onReadable(SelectionKey key, RtpPacket packet, long nowNanos) throws IOException {
+        final var rtp = key == this.rtpKey;
+        final var channel = rtp ? this.rtpChannel : this.rtcpChannel;
+
+        for (var i = 0; i < READ_BUDGET; i++) {
+            final var buffer = packet.buffer();
+            buffer.clear();
+
+            try {
+                if (channel.isConnected()) {
+                    if (channel.read(buffer) <= 0) {
+                        return;
+                    }
+                } else if (channel.receive(buffer) == null) {
+                    return;
+                }
+            } catch (PortUnreachableException unreachable) {
+                // ICMP for an earlier write, e.g. after the remote side stopped listening.
+                LOG.trace("Remote side of session [{}] is unreachable.", this);
+                continue;
+            }
+
+            if (rtp) {
+                onRtp(packet, nowNanos);
+            } else if (!Rtcp.read(buffer, this, nowNanos)) {
+                LOG.debug("Malformed RTCP packet on session [{}].", this);
+            }
+        }
+    }
+
+    private void onRtp(RtpPacket packet, long nowNanos) {
+        if (!packet.parse()) {
+            LOG.trace("Dropping invalid RTP packet on session [{}].", this);
+            return;
+        }
+
+        final var arrival = (nowNanos - this.startNanos) * this.clockRate / 1_000_000_000L;
+        if (!this.statistics.update(packet, arrival)) {
+            return;
+        }
+
+        this.packetsReceived++;
+        this.handler.onPacket(this, packet);
+    }
+
+    /**
+     * Sends the next packet and, if due, an RTCP report. Loop thread only.
+     */
+    void onTick(RtpPacket packet, ByteBuffer rtcpBuffer, long nowNanos) {
+        if (this.remote == null || this.closed) {
+            return;
+        }
+
+        sendRtp(packet);
+
+        if (nowNanos - this.nextRtcpNanos >= 0) {
+            this.nextRtcpNanos = nowNanos + nextRtcpInterval();
+            sendReport(rtcpBuffer, nowNanos);
+        }
+    }
+
+    private void sendRtp(RtpPacket packet) {
+        packet.writeHeader(this.talkspurt, this.payloadType, this.sequenceNumber, this.timestamp, this.ssrc);
+        final var buffer = packet.buffer();
+        this.source.fill(this, buffer);
+        this.timestamp += this.samplesPerPacket;
+
+        final var payloadLength = buffer.position() - RtpPacket.HEADER_SIZE;
+        if (payloadLength <= 0) {
+            this.talkspurt = true;
+            return;
+        }
+
+        buffer.flip();
+        try {
+            this.rtpChannel.write(buffer);
+            this.sequenceNumber = (this.sequenceNumber + 1) & 0xFFFF;
+            this.talkspurt = false;
+            this.packetsSent++;
+            this.octetsSent += payloadLength;
+        } catch (IOException ioException) {
+            // e.g. ICMP port unreachable until the remote side listens.
+            LOG.trace("Unable to send RTP on session [{}].", this, ioException);
+        }
+    }
+
+    private void sendReport(ByteBuffer out, long nowNanos) {
+        out.clear();
+        final var reportCount = this.statistics.isValid() ? 1 : 0;
+
+        if (this.packetsSent > 0) {
+            // the timestamp of the packet just sent, which was sampled about now.
+            Rtcp.writeSenderReport(
+                    out,
+                    this.ssrc,
+                    Rtcp.ntpTimestamp(System.currentTimeMillis()),
+                    this.timestamp - this.samplesPerPacket,
+                    this.packetsSent,
+                    this.octetsSent,
+                    reportCount);
+        } else {
+            Rtcp.writeReceiverReport(out, this.ssrc, reportCount);
+        }
+
+        if (reportCount == 1) {
+            var delay = 0L;
+            if (this.lastSenderReport != 0L) {
+                delay = ((nowNanos - this.lastSenderReportArrival) << 16) / 1_000_000_000L;
+            }
+            Rtcp.writeReportBlock(out, this.statistics, this.lastSenderReport, delay);
+        }
+
+        Rtcp.writeSourceDescription(out, this.ssrc, this.cname);
+        sendRtcp(out);
+    }
+
+    private void sendRtcp(ByteBuffer out) {
+        out.flip();
+        try {
+            this.rtcpChannel.write(out);
+        } catch (IOException ioException) {
+            LOG.trace("Unable to send RTCP on session [{}].", this, ioException);
+        }
+    }
+
+    /**
+     * Randomizes the report interval between 0.5 and 1.5 times the configured one (RFC 3550, section 6.3.1).
+     */
+    private long nextRtcpInterval() {
+        return this.rtcpIntervalNanos / 2 + ThreadLocalRandom.current().nextLong(this.rtcpIntervalNanos);
+    }
+
+    void onSenderReport(int senderSsrc, long compactNtp, long nowNanos) {
+        if (senderSsrc != this.statistics.ssrc() && this.statistics.isValid()) {
+            return;
+        }
+
+        this.lastSenderReport = compactNtp;
+        this.lastSenderReportArrival = nowNanos;
+        this.senderReportsReceived++;
+    }
+
+    void onBye() {
+        this.byeReceived = true;
+    }
+
+    public int localPort() {
+        return this.localPort;
+    }
+
+    public int ssrc() {
+        return this.ssrc;
+    }
+
+    public int payloadType() {
+        return this.payloadType;
+    }
+
+    public int clockRate() {
+        return this.clockRate;
+    }
+
+    public int samplesPerPacket() {
+        return this.samplesPerPacket;
+    }
+
+    public long getPacketsSent() {
+        return this.packetsSent;
+    }
+
+    public long getOctetsSent() {
+        return this.octetsSent;
+    }
+
+    public long getPacketsReceived() {
+        return this.packetsReceived;
+    }
+
+    public long getSenderReportsReceived() {
+        return this.senderReportsReceived;
+    }
+
+    public boolean isByeReceived() {
+        return this.byeReceived;
+    }
+
+    /**
+     * Returns the statistics of the remote source. Only consistent when read on the loop thread, e.g. from
+     * the {@link RtpHandler}.
+     *
+     * @return the reception statistics.
+     */
+    public ReceptionStatistics statistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Sends a BYE if connected, closes the channels and returns the ports to the pool.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.loop.execute(() -> {
+                if (this.remote != null) {
+                    final var out = this.loop.rtcpBuffer();
+                    out.clear();
+                    Rtcp.writeReceiverReport(out, this.ssrc, 0);
+                    Rtcp.writeBye(out, this.ssrc);
+                    sendRtcp(out);
+                }
+
+                closeChannels();
+            });
+        } catch (IllegalStateException loopClosed) {
+            // the loop closes the channels of all of its sessions itself.
+            LOG.trace("Event loop of session [{}] already closed.", this);
+        }
+    }
+
+    /**
+     * Closes the channels without notifying the remote side. Loop thread only.
+     */
+    void closeChannels() {
+        if (!this.rtpChannel.isOpen()) {
+            return;
+        }
+
+        this.loop.remove(this);
+        closeQuietly(this.rtpChannel);
+        closeQuietly(this.rtcpChannel);
+        this.ports.release(this.localPort);
+    }
+
+    private void closeQuietly(DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem while closing channel of session [{}].", this, ioException);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RtpSession[localPort=" + this.localPort + ", ssrc=" + Integer.toUnsignedString(this.ssrc) + ", remote="
+                + this.remote + "]";
+    }
+}
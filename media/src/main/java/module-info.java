@@ -0,0 +1,5 @@
+module io.github.bmarwell.sipper.media {
+    requires org.slf4j;
+
+    exports io.github.bmarwell.sipper.media;
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MediaEngineTest {
+
+    private static final int PCMA = 8;
+
+    private final PortPool ports = new PortPool(41000, 41999);
+    private final MediaEngine engine = new MediaEngine(
+            InetAddress.getLoopbackAddress(), this.ports, 2, MediaEngine.DEFAULT_PTIME, Duration.ofMillis(100L));
+
+    @AfterEach
+    void tearDown() {
+        this.engine.close();
+    }
+
+    @Test
+    void exchanges_rtp_and_rtcp_over_loopback() throws Exception {
+        // given
+        final var payloadBytes = new AtomicInteger();
+        final var caller = this.engine.open(PCMA, 8000, (session, payload) -> payload.put(new byte[160]), (s, p) -> {});
+        final var callee = this.engine.open(
+                PCMA,
+                8000,
+                (session, payload) -> {},
+                (session, packet) -> payloadBytes.addAndGet(packet.payloadLength()));
+
+        // when
+        caller.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), callee.localPort()));
+        callee.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), caller.localPort()));
+
+        // then
+        assertThat(caller.samplesPerPacket()).isEqualTo(160);
+        await().atMost(Duration.ofSeconds(5L)).untilAsserted(() -> {
+            assertThat(callee.getPacketsReceived()).isGreaterThanOrEqualTo(10);
+            assertThat(callee.getSenderReportsReceived()).isPositive();
+        });
+        assertThat(payloadBytes.get()).isEqualTo(callee.getPacketsReceived() * 160);
+        assertThat(caller.getPacketsReceived()).isZero();
+        assertThat(this.engine.sessionCount()).isEqualTo(2);
+        assertThat(this.ports.inUse()).isEqualTo(2);
+    }
+
+    @Test
+    void sends_bye_and_releases_ports_on_close() throws Exception {
+        // given
+        final var caller = this.engine.open(PCMA, 8000, (session, payload) -> payload.put(new byte[160]), (s, p) -> {});
+        final var callee = this.engine.open(PCMA, 8000, (session, payload) -> {}, (session, packet) -> {});
+        caller.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), callee.localPort()));
+        callee.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), caller.localPort()));
+        await().atMost(Duration.ofSeconds(5L)).until(() -> callee.getPacketsReceived() > 0);
+
+        // when
+        caller.close();
+
+        // then
+        await().atMost(Duration.ofSeconds(5L)).until(callee::isByeReceived);
+        await().atMost(Duration.ofSeconds(5L)).until(() -> this.ports.inUse() == 1);
+        assertThat(this.engine.sessionCount()).isEqualTo(1);
+    }
+}
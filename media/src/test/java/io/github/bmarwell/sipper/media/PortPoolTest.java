@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PortPoolTest {
+
+    @Test
+    void hands_out_each_even_port_once() {
+        // given
+        final var pool = new PortPool(20000, 20099);
+        final Set<Integer> ports = ConcurrentHashMap.newKeySet();
+
+        // when
+        IntStream.range(0, pool.capacity()).parallel().forEach(i -> ports.add(pool.acquire()));
+
+        // then
+        assertThat(pool.capacity()).isEqualTo(50);
+        assertThat(ports).hasSize(50).allMatch(port -> port % 2 == 0 && port >= 20000 && port + 1 <= 20099);
+        assertThat(pool.inUse()).isEqualTo(50);
+        assertThatThrownBy(pool::acquire).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reuses_released_ports_last() {
+        // given
+        final var pool = new PortPool(30000, 30005);
+        final var first = pool.acquire();
+        final var second = pool.acquire();
+
+        // when
+        pool.release(first);
+        final var third = pool.acquire();
+
+        // then
+        assertThat(third).isNotIn(first, second);
+        assertThat(pool.acquire()).isEqualTo(first);
+        assertThat(pool.inUse()).isEqualTo(3);
+    }
+
+    @Test
+    void rejects_foreign_and_double_releases() {
+        // given
+        final var pool = new PortPool(30000, 30005);
+        final var port = pool.acquire();
+        pool.release(port);
+
+        // expect
+        assertThatThrownBy(() -> pool.release(port)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> pool.release(port + 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pool.release(40000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
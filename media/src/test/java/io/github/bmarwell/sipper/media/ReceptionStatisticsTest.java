@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ReceptionStatisticsTest {
+
+    private final RtpPacket packet = new RtpPacket();
+
+    private boolean receive(ReceptionStatistics statistics, int sequence) {
+        this.packet.writeHeader(false, 0, sequence, sequence * 160L, 1234);
+        return statistics.update(this.packet, sequence * 160L);
+    }
+
+    @Test
+    void accepts_source_after_probation() {
+        // given
+        final var statistics = new ReceptionStatistics();
+
+        // when
+        final var first = receive(statistics, 100);
+        final var second = receive(statistics, 101);
+
+        // then
+        assertThat(first).isFalse();
+        assertThat(second).isTrue();
+        assertThat(statistics.isValid()).isTrue();
+        assertThat(statistics.ssrc()).isEqualTo(1234);
+        assertThat(statistics.received()).isEqualTo(1);
+        assertThat(statistics.cumulativeLost()).isZero();
+    }
+
+    @Test
+    void counts_wrap_around_and_losses() {
+        // given
+        final var statistics = new ReceptionStatistics();
+        receive(statistics, 65530);
+        receive(statistics, 65531);
+
+        // when
+        for (var sequence = 65532; sequence < 65536 + 10; sequence++) {
+            if (sequence % 4 != 0) {
+                receive(statistics, sequence & 0xFFFF);
+            }
+        }
+
+        // then
+        assertThat(statistics.extendedHighestSequence()).isEqualTo(65536 + 9);
+        assertThat(statistics.expected()).isEqualTo(15);
+        assertThat(statistics.cumulativeLost()).isEqualTo(4);
+        assertThat(statistics.nextFractionLost()).isEqualTo((4 << 8) / 15);
+        assertThat(statistics.nextFractionLost()).isZero();
+        assertThat(statistics.jitter()).isZero();
+    }
+
+    @Test
+    void resyncs_after_sender_restart() {
+        // given
+        final var statistics = new ReceptionStatistics();
+        receive(statistics, 10);
+        receive(statistics, 11);
+
+        // when
+        final var jump = receive(statistics, 40000);
+        final var confirmed = receive(statistics, 40001);
+
+        // then
+        assertThat(jump).isFalse();
+        assertThat(confirmed).isTrue();
+        assertThat(statistics.expected()).isEqualTo(1);
+        assertThat(statistics.cumulativeLost()).isZero();
+    }
+}
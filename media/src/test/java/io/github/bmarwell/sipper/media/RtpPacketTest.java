@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023-2026 The SIPper project team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.bmarwell.sipper.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RtpPacketTest {
+
+    @Test
+    void parses_written_header() {
+        // given
+        final var packet = new RtpPacket();
+        packet.writeHeader(true, 8, 0x1_FFFF, 0x1_2345_6789L, 0xCAFEBABE);
+        packet.buffer().put(new byte[160]);
+
+        // when
+        final var received = new RtpPacket();
+        received.buffer().put(packet.buffer().flip());
+        final var valid = received.parse();
+
+        // then
+        assertThat(valid).isTrue();
+        assertThat(received.marker()).isTrue();
+        assertThat(received.payloadType()).isEqualTo(8);
+        assertThat(received.sequenceNumber()).isEqualTo(0xFFFF);
+        assertThat(received.timestamp()).isEqualTo(0x2345_6789L);
+        assertThat(received.ssrc()).isEqualTo(0xCAFEBABE);
+        assertThat(received.payloadOffset()).isEqualTo(RtpPacket.HEADER_SIZE);
+        assertThat(received.payloadLength()).isEqualTo(160);
+    }
+
+    @Test
+    void skips_csrcs_extension_and_padding() {
+        // given
+        final var packet = new RtpPacket();
+        final var buffer = packet.buffer();
+        // version 2, padding, extension, one CSRC.
+        buffer.put((byte) 0xB1).put((byte) 0).putShort((short) 1).putInt(160).putInt(42);
+        buffer.putInt(7);
+        buffer.putShort((short) 0xBEDE).putShort((short) 1).putInt(0);
+        buffer.put(new byte[] {1, 2, 3});
+        buffer.put(new byte[] {0, 0, 3});
+
+        // when
+        final var valid = packet.parse();
+
+        // then
+        assertThat(valid).isTrue();
+        assertThat(packet.payloadOffset()).isEqualTo(RtpPacket.HEADER_SIZE + 4 + 8);
+        assertThat(packet.payloadLength()).isEqualTo(3);
+    }
+
+    @Test
+    void rejects_wrong_version_and_short_packets() {
+        // given
+        final var wrongVersion = new RtpPacket();
+        wrongVersion.buffer().put((byte) 0x40).put(new byte[15]);
+        final var tooShort = new RtpPacket();
+        tooShort.buffer().put((byte) 0x80).put(new byte[5]);
+        final var paddingTooLong = new RtpPacket();
+        paddingTooLong.buffer().put((byte) 0xA0).put(new byte[11]).put((byte) 20);
+
+        // expect
+        assertThat(wrongVersion.parse()).isFalse();
+        assertThat(tooShort.parse()).isFalse();
+        assertThat(paddingTooLong.parse()).isFalse();
+    }
+}